@@ -61,6 +61,7 @@ import static org.restheart.ConfigurationKeys.DEFAULT_INSTANCE_NAME;
 import static org.restheart.ConfigurationKeys.DIRECT_BUFFERS_KEY;
 import static org.restheart.ConfigurationKeys.ENABLE_LOG_CONSOLE_KEY;
 import static org.restheart.ConfigurationKeys.ENABLE_LOG_FILE_KEY;
+import static org.restheart.ConfigurationKeys.EXECUTION_MODE_KEY;
 import static org.restheart.ConfigurationKeys.FORCE_GZIP_ENCODING_KEY;
 import static org.restheart.ConfigurationKeys.HTTPS_HOST_KEY;
 import static org.restheart.ConfigurationKeys.HTTPS_LISTENER_KEY;
@@ -84,6 +85,7 @@ import static org.restheart.ConfigurationKeys.SERVICES_KEY;
 import static org.restheart.ConfigurationKeys.STATIC_RESOURCES_MOUNTS_KEY;
 import static org.restheart.ConfigurationKeys.TOKEN_MANAGER_KEY;
 import static org.restheart.ConfigurationKeys.WORKER_THREADS_KEY;
+import org.restheart.ConfigurationKeys.EXECUTION_MODE;
 import org.restheart.utils.URLUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -367,6 +369,7 @@ public class Configuration {
     private final int requestsLimit;
     private final int ioThreads;
     private final int workerThreads;
+    private final EXECUTION_MODE executionMode;
     private final int bufferSize;
     private final boolean directBuffers;
     private final boolean forceGzipEncoding;
@@ -531,6 +534,22 @@ public class Configuration {
         requestsLimit = getAsInteger(conf, REQUESTS_LIMIT_KEY, 100);
         ioThreads = getAsInteger(conf, IO_THREADS_KEY, 2);
         workerThreads = getAsInteger(conf, WORKER_THREADS_KEY, 32);
+
+        String _executionMode = getAsString(conf, EXECUTION_MODE_KEY, EXECUTION_MODE.WORKER_THREADS.name());
+
+        EXECUTION_MODE mode;
+        try {
+            mode = EXECUTION_MODE.valueOf(_executionMode);
+        } catch (Exception e) {
+            if (!silent) {
+                LOGGER.info("wrong value for parameter {}: {}. using its default value {}", EXECUTION_MODE_KEY,
+                        _executionMode, EXECUTION_MODE.WORKER_THREADS);
+            }
+            mode = EXECUTION_MODE.WORKER_THREADS;
+        }
+
+        executionMode = mode;
+
         bufferSize = getAsInteger(conf, BUFFER_SIZE_KEY, 16384);
         directBuffers = getAsBoolean(conf, DIRECT_BUFFERS_KEY, true);
         forceGzipEncoding = getAsBoolean(conf, FORCE_GZIP_ENCODING_KEY, false);
@@ -551,7 +570,7 @@ public class Configuration {
                 + authenticators + ", authorizers=" + authorizers + ", tokenManager=" + tokenManagers + ", logFilePath="
                 + logFilePath + ", logLevel=" + logLevel + ", logToConsole=" + logToConsole + ", logToFile=" + logToFile
                 + ", traceHeaders=" + traceHeaders + ", requestsLimit=" + requestsLimit + ", ioThreads=" + ioThreads
-                + ", workerThreads=" + workerThreads + ", bufferSize=" + bufferSize + ", directBuffers=" + directBuffers
+                + ", workerThreads=" + workerThreads + ", executionMode=" + executionMode + ", bufferSize=" + bufferSize + ", directBuffers=" + directBuffers
                 + ", forceGzipEncoding=" + forceGzipEncoding + ", connectionOptions=" + connectionOptions
                 + ", logExchangeDump=" + logExchangeDump + ", ansiConsole=" + ansiConsole
                 + ", allowUnescapedCharactersInUrl=" + allowUnescapedCharactersInUrl + '}';
@@ -739,6 +758,13 @@ public class Configuration {
         return workerThreads;
     }
 
+    /**
+     * @return the executionMode
+     */
+    public EXECUTION_MODE getExecutionMode() {
+        return executionMode;
+    }
+
     /**
      * @return the bufferSize
      */
@@ -148,6 +148,20 @@ public interface ConfigurationKeys {
      */
     public static final String IO_THREADS_KEY = "io-threads";
 
+    /**
+     * the key for the execution-mode property.
+     */
+    public static final String EXECUTION_MODE_KEY = "execution-mode";
+
+    /**
+     * How the requests are executed: WORKER_THREADS on the pool of
+     * worker-threads, VIRTUAL_THREADS each on a new virtual thread (requires
+     * a Java runtime supporting them, otherwise WORKER_THREADS is used)
+     */
+    public enum EXECUTION_MODE {
+        WORKER_THREADS, VIRTUAL_THREADS
+    }
+
     /**
      * the key for the requests-limit property.
      */
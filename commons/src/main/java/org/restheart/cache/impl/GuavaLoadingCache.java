@@ -22,9 +22,14 @@ package org.restheart.cache.impl;
 import com.google.common.cache.CacheBuilder;
 import com.google.common.cache.CacheLoader;
 import com.google.common.cache.LoadingCache;
+import com.google.common.util.concurrent.UncheckedExecutionException;
 
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeUnit;
 import java.util.function.Function;
 
@@ -39,6 +44,19 @@ public class GuavaLoadingCache<K, V> implements org.restheart.cache.LoadingCache
     private final LoadingCache<K, Optional<V>> wrapped;
 
     public GuavaLoadingCache(long size, EXPIRE_POLICY expirePolicy, long ttl, Function<K, V> loader) {
+        this(size, expirePolicy, ttl, loader, null);
+    }
+
+    /**
+     *
+     * @param size
+     * @param expirePolicy
+     * @param ttl
+     * @param loader
+     * @param bulkLoader loads at once the values of the keys missing from
+     * the cache, if null they are loaded one by one
+     */
+    public GuavaLoadingCache(long size, EXPIRE_POLICY expirePolicy, long ttl, Function<K, V> loader, Function<Set<K>, Map<K, V>> bulkLoader) {
         CacheBuilder builder = CacheBuilder.newBuilder()
             .concurrencyLevel(Runtime.getRuntime().availableProcessors());
 
@@ -55,6 +73,25 @@ public class GuavaLoadingCache<K, V> implements org.restheart.cache.LoadingCache
             public Optional<V> load(K key) throws Exception {
                 return Optional.ofNullable(loader.apply(key));
             }
+
+            @Override
+            public Map<K, Optional<V>> loadAll(Iterable<? extends K> keys) throws Exception {
+                if (bulkLoader == null) {
+                    // guava falls back to load()
+                    return super.loadAll(keys);
+                }
+
+                var _keys = new LinkedHashSet<K>();
+                keys.forEach(_keys::add);
+
+                var values = bulkLoader.apply(_keys);
+                var ret = new HashMap<K, Optional<V>>();
+
+                // guava requires a value for each key
+                _keys.forEach(key -> ret.put(key, Optional.ofNullable(values.get(key))));
+
+                return ret;
+            }
         });
     }
 
@@ -68,6 +105,15 @@ public class GuavaLoadingCache<K, V> implements org.restheart.cache.LoadingCache
         return wrapped.getUnchecked(key);
     }
 
+    @Override
+    public Map<K, Optional<V>> getAllLoading(Iterable<K> keys) {
+        try {
+            return wrapped.getAll(keys);
+        } catch (ExecutionException ee) {
+            throw new UncheckedExecutionException(ee.getCause());
+        }
+    }
+
     @Override
     public void put(K key, V value) {
         wrapped.put(key, Optional.ofNullable(value));
@@ -20,10 +20,14 @@
 package org.restheart.exchange;
 
 import java.io.IOException;
-import java.util.Arrays;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.Deque;
 import java.util.List;
-import java.util.Scanner;
+import java.util.function.Consumer;
 
 import org.bson.BsonArray;
 import org.bson.BsonDocument;
@@ -33,6 +37,7 @@ import org.bson.BsonValue;
 import org.bson.json.JsonParseException;
 import org.restheart.utils.BsonUtils;
 import org.restheart.utils.ChannelReader;
+import org.restheart.utils.CsvReader;
 
 import io.undertow.server.HttpServerExchange;
 import io.undertow.util.HeaderValues;
@@ -43,6 +48,10 @@ import io.undertow.util.Headers;
  * data. Two query parameters controls the conversion: 'id', the the index of
  * the _id property and 'sep', the separator char
  *
+ * The csv data is parsed while it is read from the request channel:
+ * streamContent() passes the documents in batches, so that the memory does not
+ * depend on the size of the csv; getContent() parses the whole csv.
+ *
  * @author Andrea Di Cesare {@literal <andrea@softinstigate.com>}
  */
 public class BsonFromCsvRequest extends ServiceRequest<BsonArray> {
@@ -51,6 +60,11 @@ public class BsonFromCsvRequest extends ServiceRequest<BsonArray> {
      */
     public static final String CVS_CONTENT_TYPE = "text/csv";
 
+    private CsvRequestParams params = null;
+
+    // true when the request channel has been read
+    private boolean contentRead = false;
+
     private BsonFromCsvRequest(HttpServerExchange exchange) {
         super(exchange);
     }
@@ -60,10 +74,7 @@ public class BsonFromCsvRequest extends ServiceRequest<BsonArray> {
 
         if (checkContentType(exchange)) {
             try {
-                ret.injectContent(exchange);
-            } catch (IOException ex) {
-                LOGGER.warn("error parsing CSV", ex);
-                ret.setInError(true);
+                ret.params = new CsvRequestParams(exchange);
             } catch (Throwable ieo) {
                 LOGGER.warn("error initializing request", ieo);
                 ret.setInError(true);
@@ -80,11 +91,105 @@ public class BsonFromCsvRequest extends ServiceRequest<BsonArray> {
         return of(exchange, BsonFromCsvRequest.class);
     }
 
+    /**
+     * Reads and parses the whole csv from the request channel, if not yet
+     * read; use streamContent() to parse it with bounded memory
+     *
+     * @return the documents or null if the csv was already consumed by
+     * streamContent()
+     */
+    @Override
+    public BsonArray getContent() {
+        if (!contentRead && !isInError()) {
+            try {
+                injectContent(getExchange());
+            } catch (IOException ex) {
+                LOGGER.warn("error parsing CSV", ex);
+                setInError(true);
+            }
+        }
+
+        return super.getContent();
+    }
+
     public void injectContent(HttpServerExchange exchange) throws IOException {
-        final var params = new CsvRequestParams(exchange);
-        final var csv = ChannelReader.readString(exchange);
+        var content = new BsonArray();
 
-        setContent(parseCsv(params, csv));
+        streamContent(Integer.MAX_VALUE, content::addAll);
+
+        setContent(content);
+    }
+
+    /**
+     * Parses the csv while it is read from the request channel, passing the
+     * documents to batchConsumer in batches of at most batchSize documents.
+     *
+     * If the content has been already read via getContent(), the batches are
+     * taken from it.
+     *
+     * @param batchSize
+     * @param batchConsumer
+     * @throws IOException
+     */
+    public void streamContent(int batchSize, Consumer<List<BsonDocument>> batchConsumer) throws IOException {
+        if (contentRead) {
+            var content = super.getContent();
+
+            if (content != null) {
+                var batch = new ArrayList<BsonDocument>();
+
+                for (var doc : content) {
+                    batch.add(doc.asDocument());
+
+                    if (batch.size() >= batchSize) {
+                        batchConsumer.accept(batch);
+                        batch = new ArrayList<>();
+                    }
+                }
+
+                if (!batch.isEmpty()) {
+                    batchConsumer.accept(batch);
+                }
+            }
+
+            return;
+        }
+
+        contentRead = true;
+
+        var _params = this.params != null ? this.params : new CsvRequestParams(getExchange());
+
+        try (var csv = new CsvReader(reader(getExchange()), _params.sep)) {
+            List<String> cols = null;
+            List<String> vals;
+            var batch = new ArrayList<BsonDocument>();
+
+            while ((vals = csv.readRecord()) != null) {
+                if (cols == null) {
+                    cols = vals;
+                    continue;
+                }
+
+                batch.add(toDocument(_params, cols, vals));
+
+                if (batch.size() >= batchSize) {
+                    batchConsumer.accept(batch);
+                    batch = new ArrayList<>();
+                }
+            }
+
+            if (!batch.isEmpty()) {
+                batchConsumer.accept(batch);
+            }
+        }
+    }
+
+    private static Reader reader(HttpServerExchange exchange) {
+        var is = ChannelReader.inputStream(exchange);
+
+        return is == null
+                ? new StringReader("")
+                : new InputStreamReader(is, StandardCharsets.UTF_8);
     }
 
     private static boolean checkContentType(HttpServerExchange exchange) {
@@ -94,74 +199,50 @@ public class BsonFromCsvRequest extends ServiceRequest<BsonArray> {
                 .anyMatch(ct -> ct.equals(CVS_CONTENT_TYPE) || ct.startsWith(CVS_CONTENT_TYPE.concat(";")));
     }
 
-    private BsonArray parseCsv(CsvRequestParams params, String csv) throws IOException {
-        var bson = new BsonArray();
+    private static BsonDocument toDocument(CsvRequestParams params, List<String> cols, List<String> vals) {
+        var doc = new BsonDocument("_etag", new BsonObjectId());
 
-        boolean isHeader = true;
+        int unnamedProps = 0;
 
-        List<String> cols = null;
+        for (int idx = 0; idx < vals.size(); idx++) {
+            if (idx == params.idIdx) {
+                var _v = vals.get(params.idIdx);
 
-        try (Scanner scanner = new Scanner(csv)) {
-            while (scanner.hasNext()) {
-                String line = scanner.nextLine();
+                if (_v != null) {
+                    // quote empty string
+                    if ("".equals(_v.trim())) {
+                        _v = "\"".concat(_v).concat("\"");
+                    }
 
-                // split on the separator only if that comma has zero,
-                // or an even number of quotes ahead of it.
-                List<String> vals = Arrays.asList(line.split(params.sep + "(?=(?:[^\"]*\"[^\"]*\")*[^\"]*$)", -1));
+                    doc.append("_id", getBsonValue(_v));
+                }
+            } else {
+                String propname;
 
-                if (isHeader) {
-                    cols = vals;
+                if (cols == null || cols.size() <= idx) {
+                    propname = "unnamed_" + unnamedProps;
+                    unnamedProps++;
                 } else {
-                    var doc = new BsonDocument("_etag", new BsonObjectId());
-
-                    int unnamedProps = 0;
-
-                    for (int idx = 0; idx < vals.size(); idx++) {
-                        if (idx == params.idIdx) {
-                            var _v = vals.get(params.idIdx);
-
-                            if (_v != null) {
-                                // quote empty string
-                                if ("".equals(_v.trim())) {
-                                    _v = "\"".concat(_v).concat("\"");
-                                }
-
-                                doc.append("_id", getBsonValue(_v));
-                            }
-                        } else {
-                            String propname;
-
-                            if (cols == null || cols.size() <= idx) {
-                                propname = "unnamed_" + unnamedProps;
-                                unnamedProps++;
-                            } else {
-                                propname = cols.get(idx);
-                            }
-
-                            var _v = vals.get(idx);
-
-                            // quote empty string
-                            if ("".equals(_v.trim())) {
-                                _v = "\"".concat(_v).concat("\"");
-                            }
-
-                            if (_v != null) {
-                                doc.append(propname, getBsonValue(_v));
-                            }
-                        }
-                    }
+                    propname = cols.get(idx);
+                }
+
+                var _v = vals.get(idx);
 
-                    bson.add(doc);
+                // quote empty string
+                if ("".equals(_v.trim())) {
+                    _v = "\"".concat(_v).concat("\"");
                 }
 
-                isHeader = false;
+                if (_v != null) {
+                    doc.append(propname, getBsonValue(_v));
+                }
             }
         }
 
-        return bson;
+        return doc;
     }
 
-    private BsonValue getBsonValue(String raw) {
+    private static BsonValue getBsonValue(String raw) {
         try {
             return BsonUtils.parse(raw);
         } catch (JsonParseException jpe) {
@@ -20,9 +20,13 @@
 package org.restheart.exchange;
 
 import io.undertow.server.HttpServerExchange;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
 import org.bson.BsonDocument;
 import org.bson.BsonString;
 import org.bson.BsonValue;
+import org.bson.json.JsonMode;
 import org.restheart.utils.BsonUtils;
 
 /**
@@ -53,6 +57,37 @@ public class BsonResponse extends ServiceResponse<BsonValue> {
         }
     }
 
+    @Override
+    public void sendContent() throws IOException {
+        sendJson(content, null);
+    }
+
+    /**
+     * Sends the json representation of the value to the client.
+     *
+     * If the exchange is blocking, the json is streamed as UTF-8 directly
+     * into the pooled buffers of the response output stream.
+     *
+     * @param tosend the value to send
+     * @param mode the json mode, null for RESTHeart's default
+     * @throws IOException
+     */
+    protected void sendJson(BsonValue tosend, JsonMode mode) throws IOException {
+        if (tosend == null) {
+            return;
+        }
+
+        var exchange = getExchange();
+
+        if (exchange.isBlocking()) {
+            try (var writer = new OutputStreamWriter(exchange.getOutputStream(), StandardCharsets.UTF_8)) {
+                BsonUtils.toJson(tosend, mode, writer);
+            }
+        } else {
+            exchange.getResponseSender().send(BsonUtils.toJson(tosend, mode));
+        }
+    }
+
     @Override
     public void setInError(int code, String message, Throwable t) {
         setStatusCode(code);
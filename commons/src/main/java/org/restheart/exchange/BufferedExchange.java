@@ -21,6 +21,9 @@ package org.restheart.exchange;
 
 import io.undertow.connector.PooledByteBuffer;
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import org.restheart.utils.BuffersUtils;
 
 /**
  *
@@ -50,6 +53,26 @@ public interface BufferedExchange<T> {
 
     public PooledByteBuffer[] getBuffer();
 
+    /**
+     * Returns an InputStream that reads the buffered content without copying
+     * it. Useful to scan the content without materializing it.
+     *
+     * @return the InputStream
+     */
+    public default InputStream getContentAsStream() {
+        return BuffersUtils.toInputStream(getBuffer());
+    }
+
+    /**
+     * Returns read-only views of the buffered content. The content is not
+     * copied.
+     *
+     * @return the read-only ByteBuffers
+     */
+    public default ByteBuffer[] getContentAsByteBuffers() {
+        return BuffersUtils.toReadOnlyByteBuffers(getBuffer());
+    }
+
     public void setBuffer(PooledByteBuffer[] raw);
 
     public boolean isContentAvailable();
@@ -46,6 +46,11 @@ public abstract class Exchange<T> {
      */
     public static final String JSON_MEDIA_TYPE = "application/json";
 
+    /**
+     *
+     */
+    public static final String BSON_MEDIA_TYPE = "application/bson";
+
     /**
      *
      */
@@ -27,6 +27,7 @@ import io.undertow.connector.PooledByteBuffer;
 import io.undertow.server.HttpServerExchange;
 import io.undertow.util.Headers;
 import java.io.IOException;
+import java.io.InputStreamReader;
 import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
 import org.restheart.utils.BuffersUtils;
@@ -64,7 +65,8 @@ public class JsonProxyRequest extends ProxyRequest<JsonElement> {
             return JsonNull.INSTANCE;
         } else {
             try {
-                return JsonParser.parseString(BuffersUtils.toString(getBuffer(),
+                return JsonParser.parseReader(new InputStreamReader(
+                        getContentAsStream(),
                         StandardCharsets.UTF_8));
             } catch (JsonParseException ex) {
                 // dump bufferd content
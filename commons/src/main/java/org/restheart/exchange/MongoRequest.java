@@ -32,9 +32,7 @@ import java.util.Arrays;
 import java.util.Deque;
 import java.util.Map;
 import java.util.stream.Collectors;
-import org.bson.BsonArray;
 import org.bson.BsonDocument;
-import org.bson.BsonInt32;
 import org.bson.BsonString;
 import org.bson.BsonValue;
 import org.bson.json.JsonMode;
@@ -83,6 +81,7 @@ public class MongoRequest extends BsonRequest {
     private Deque<String> keys = null;
     private Deque<String> sortBy = null;
     private Deque<String> hint = null;
+    private volatile ParsedQueryParams parsedQueryParams = null;
     private DOC_ID_TYPE docIdType = DOC_ID_TYPE.STRING_OID;
     private final TYPE type;
 
@@ -826,29 +825,26 @@ public class MongoRequest extends BsonRequest {
     }
 
     /**
-     *
-     * @return the $and composed filter qparam values
+     * @return the parsed filter, sort_by, hint and keys query parameters,
+     * parsed again only if they have been modified
      */
-    public BsonDocument getFiltersDocument() throws JsonParseException {
-        final BsonDocument filterQuery = new BsonDocument();
-
-        if (filter != null) {
-            if (filter.size() > 1) {
-                BsonArray _filters = new BsonArray();
+    private ParsedQueryParams getParsedQueryParams() {
+        var ret = this.parsedQueryParams;
 
-                filter.stream().forEach((String f) -> {
-                    _filters.add(BsonDocument.parse(f));
-                });
-
-                filterQuery.put("$and", _filters);
-            } else if (filter.size() == 1) {
-                filterQuery.putAll(BsonDocument.parse(filter.getFirst()));  // this can throw JsonParseException for invalid filter parameters
-            } else {
-                return filterQuery;
-            }
+        if (ret == null || !ret.isParsedFrom(filter, sortBy, hint, keys)) {
+            ret = new ParsedQueryParams(filter, sortBy, hint, keys);
+            this.parsedQueryParams = ret;
         }
 
-        return filterQuery;
+        return ret;
+    }
+
+    /**
+     *
+     * @return the $and composed filter qparam values
+     */
+    public BsonDocument getFiltersDocument() throws JsonParseException {
+        return getParsedQueryParams().getFiltersDocument();
     }
 
     /**
@@ -856,34 +852,7 @@ public class MongoRequest extends BsonRequest {
      * @return @throws JsonParseException
      */
     public BsonDocument getSortByDocument() throws JsonParseException {
-        BsonDocument sort = new BsonDocument();
-
-        if (sortBy == null) {
-            sort.put("_id", new BsonInt32(-1));
-        } else {
-            sortBy.stream().forEach((s) -> {
-
-                String _s = s.trim(); // the + sign is decoded into a space, in case remove it
-
-                // manage the case where sort_by is a json object
-                try {
-                    BsonDocument _sort = BsonDocument.parse(_s);
-
-                    sort.putAll(_sort);
-                } catch (JsonParseException e) {
-                    // sort_by is just a string, i.e. a property name
-                    if (_s.startsWith("-")) {
-                        sort.put(_s.substring(1), new BsonInt32(-1));
-                    } else if (_s.startsWith("+")) {
-                        sort.put(_s.substring(1), new BsonInt32(11));
-                    } else {
-                        sort.put(_s, new BsonInt32(1));
-                    }
-                }
-            });
-        }
-
-        return sort;
+        return getParsedQueryParams().getSortByDocument();
     }
 
     /**
@@ -891,34 +860,7 @@ public class MongoRequest extends BsonRequest {
      * @return @throws JsonParseException
      */
     public BsonDocument getHintDocument() throws JsonParseException {
-        BsonDocument ret = new BsonDocument();
-
-        if (hint == null || hint.isEmpty()) {
-            return null;
-        } else {
-            hint.stream().forEach((s) -> {
-
-                String _s = s.trim(); // the + sign is decoded into a space, in case remove it
-
-                // manage the case where hint is a json object
-                try {
-                    BsonDocument _hint = BsonDocument.parse(_s);
-
-                    ret.putAll(_hint);
-                } catch (JsonParseException e) {
-                    // ret is just a string, i.e. an index name
-                    if (_s.startsWith("-")) {
-                        ret.put(_s.substring(1), new BsonInt32(-1));
-                    } else if (_s.startsWith("+")) {
-                        ret.put(_s.substring(1), new BsonInt32(11));
-                    } else {
-                        ret.put(_s, new BsonInt32(1));
-                    }
-                }
-            });
-        }
-
-        return ret;
+        return getParsedQueryParams().getHintDocument();
     }
 
     /**
@@ -926,17 +868,7 @@ public class MongoRequest extends BsonRequest {
      * @return @throws JsonParseException
      */
     public BsonDocument getProjectionDocument() throws JsonParseException {
-        final BsonDocument projection = new BsonDocument();
-
-        if (keys == null || keys.isEmpty()) {
-            return null;
-        } else {
-            keys.stream().forEach((String f) -> {
-                projection.putAll(BsonDocument.parse(f));  // this can throw JsonParseException for invalid keys parameters
-            });
-        }
-
-        return projection;
+        return getParsedQueryParams().getProjectionDocument();
     }
 
     /**
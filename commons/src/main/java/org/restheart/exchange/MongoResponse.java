@@ -29,11 +29,13 @@ import com.mongodb.client.result.UpdateResult;
 import io.undertow.server.HttpServerExchange;
 import io.undertow.util.Headers;
 import org.bson.conversions.Bson;
+import org.bson.json.JsonMode;
 import org.bson.json.JsonParseException;
 import org.restheart.utils.HttpStatus;
 import org.restheart.utils.BsonUtils;
 import org.slf4j.LoggerFactory;
 
+import java.io.IOException;
 import java.io.PrintWriter;
 import java.io.StringWriter;
 import java.lang.reflect.Type;
@@ -92,26 +94,38 @@ public class MongoResponse extends BsonResponse {
 
     @Override
     public String readContent() {
-        var request = Request.of(wrapped);
-        BsonValue tosend;
+        var tosend = contentToSend();
 
-        if (!request.isGet() && (content == null || content.isDocument())) {
-            tosend = addWarnings(content == null ? null : content.asDocument());
+        if (tosend != null) {
+            return BsonUtils.toJson(tosend, jsonMode());
         } else {
-            tosend = content;
+            return null;
         }
+    }
 
-        if (tosend != null) {
-            if (request instanceof MongoRequest) {
-                return BsonUtils.toJson(tosend, ((MongoRequest) request).getJsonMode());
-            } else {
-                return BsonUtils.toJson(tosend);
-            }
+    @Override
+    public void sendContent() throws IOException {
+        sendJson(contentToSend(), jsonMode());
+    }
+
+    private BsonValue contentToSend() {
+        var request = Request.of(wrapped);
+
+        if (!request.isGet() && (content == null || content.isDocument())) {
+            return addWarnings(content == null ? null : content.asDocument());
         } else {
-            return null;
+            return content;
         }
     }
 
+    private JsonMode jsonMode() {
+        var request = Request.of(wrapped);
+
+        return request instanceof MongoRequest
+                ? ((MongoRequest) request).getJsonMode()
+                : null;
+    }
+
     private BsonDocument addWarnings(BsonDocument content) {
         if (content != null) {
             if (warnings != null
@@ -316,7 +330,8 @@ public class MongoResponse extends BsonResponse {
      * it at InterceptPoint.RESPONSE time and restore data if the updated
      * document doest not fullfil the required conditions.
      *
-     * Note: rollback() does not support bulk updates.
+     * Note: rollback() does not support bulk updates and requires the old
+     * data of updated documents, that is not returned by PATCH requests.
      *
      * @param mclient the MongoClient instance
      * @throws Exception in case of any error
@@ -370,6 +385,10 @@ public class MongoResponse extends BsonResponse {
                 response.getHeaders().remove(Headers.ETAG);
             }
 
+        } else if (getDbOperationResult().getHttpCode() == HttpStatus.SC_OK) {
+            // document was updated but the old one is not known, e.g. the
+            // write returned the document after the update
+            throw new IllegalStateException("rollback() requires the old data of the updated document");
         } else {
             // document was created, delete it
             Object newId = getDbOperationResult().getNewData().get("_id");
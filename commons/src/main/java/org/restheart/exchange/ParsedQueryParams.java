@@ -0,0 +1,277 @@
+/*-
+ * ========================LICENSE_START=================================
+ * restheart-commons
+ * %%
+ * Copyright (C) 2019 - 2020 SoftInstigate
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =========================LICENSE_END==================================
+ */
+package org.restheart.exchange;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import org.bson.BSONException;
+import org.bson.BsonArray;
+import org.bson.BsonDocument;
+import org.bson.BsonInt32;
+import org.bson.json.JsonParseException;
+import org.restheart.cache.Cache;
+import org.restheart.cache.CacheFactory;
+
+/**
+ * The filter, sort_by, hint and keys query parameters of a MongoRequest,
+ * parsed once.
+ *
+ * Each parameter is parsed the first time it is requested; the parsed json
+ * strings are also cached among requests, since clients often repeat the same
+ * values (e.g. dashboards polling with the same filter).
+ *
+ * The getters return copies, so the memoized documents cannot be modified.
+ * They are not synchronized: concurrent first calls may parse a parameter
+ * more than once, but all get equal documents.
+ */
+public final class ParsedQueryParams {
+    private static final int CACHE_SIZE = 1000;
+
+    // empty value if the string is not a json object
+    private static final Cache<String, BsonDocument> DOCUMENTS = CacheFactory
+            .createLocalCache(CACHE_SIZE, Cache.EXPIRE_POLICY.NEVER, 0);
+
+    private final List<String> filter;
+    private final List<String> sortBy;
+    private final List<String> hint;
+    private final List<String> keys;
+
+    private volatile BsonDocument filterDocument = null;
+    private volatile BsonDocument sortByDocument = null;
+    private volatile BsonDocument hintDocument = null;
+    private volatile BsonDocument projectionDocument = null;
+
+    /**
+     *
+     * @param filter
+     * @param sortBy
+     * @param hint
+     * @param keys
+     */
+    public ParsedQueryParams(Collection<String> filter, Collection<String> sortBy, Collection<String> hint,
+            Collection<String> keys) {
+        this.filter = snapshot(filter);
+        this.sortBy = snapshot(sortBy);
+        this.hint = snapshot(hint);
+        this.keys = snapshot(keys);
+    }
+
+    /**
+     *
+     * @param filter
+     * @param sortBy
+     * @param hint
+     * @param keys
+     * @return true if the parameters are the ones this object was created from
+     */
+    public boolean isParsedFrom(Collection<String> filter, Collection<String> sortBy, Collection<String> hint,
+            Collection<String> keys) {
+        return same(this.filter, filter)
+                && same(this.sortBy, sortBy)
+                && same(this.hint, hint)
+                && same(this.keys, keys);
+    }
+
+    /**
+     *
+     * @return the $and composed filter qparam values
+     * @throws JsonParseException
+     */
+    public BsonDocument getFiltersDocument() throws JsonParseException {
+        var ret = filterDocument;
+
+        if (ret == null) {
+            ret = new BsonDocument();
+
+            if (filter != null) {
+                if (filter.size() > 1) {
+                    var _filters = new BsonArray();
+                    filter.forEach(f -> _filters.add(parseDocument(f)));
+                    ret.put("$and", _filters);
+                } else if (filter.size() == 1) {
+                    ret.putAll(parseDocument(filter.get(0))); // this can throw JsonParseException for invalid filter parameters
+                }
+            }
+
+            filterDocument = ret;
+        }
+
+        return ret.clone();
+    }
+
+    /**
+     *
+     * @return the sort document
+     */
+    public BsonDocument getSortByDocument() {
+        var ret = sortByDocument;
+
+        if (ret == null) {
+            var _ret = new BsonDocument();
+
+            if (sortBy == null) {
+                _ret.put("_id", new BsonInt32(-1));
+            } else {
+                sortBy.forEach(s -> _ret.putAll(parseSortTerm(s)));
+            }
+
+            sortByDocument = ret = _ret;
+        }
+
+        return ret.clone();
+    }
+
+    /**
+     *
+     * @return the hint document or null if not specified
+     */
+    public BsonDocument getHintDocument() {
+        if (hint == null || hint.isEmpty()) {
+            return null;
+        }
+
+        var ret = hintDocument;
+
+        if (ret == null) {
+            var _ret = new BsonDocument();
+            hint.forEach(s -> _ret.putAll(parseSortTerm(s)));
+            hintDocument = ret = _ret;
+        }
+
+        return ret.clone();
+    }
+
+    /**
+     *
+     * @return the projection document or null if not specified
+     * @throws JsonParseException
+     */
+    public BsonDocument getProjectionDocument() throws JsonParseException {
+        if (keys == null || keys.isEmpty()) {
+            return null;
+        }
+
+        var ret = projectionDocument;
+
+        if (ret == null) {
+            var _ret = new BsonDocument();
+            keys.forEach(k -> _ret.putAll(parseDocument(k))); // this can throw JsonParseException for invalid keys parameters
+            projectionDocument = ret = _ret;
+        }
+
+        return ret.clone();
+    }
+
+    /**
+     * Parses a json object, using the cache of the parsed query parameters
+     *
+     * @param json
+     * @return a new BsonDocument
+     * @throws JsonParseException if json is not a json object
+     */
+    public static BsonDocument parseDocument(String json) throws JsonParseException {
+        var ret = cachedDocument(json);
+
+        if (ret == null) {
+            // parse again to throw the JsonParseException with the details
+            try {
+                return BsonDocument.parse(json);
+            } catch (BSONException be) {
+                // e.g. BsonInvalidOperationException for a json array
+                throw new JsonParseException(be);
+            }
+        }
+
+        return ret.clone();
+    }
+
+    /**
+     * @param json
+     * @return the cached parsed json object, or null if json is not a json
+     * object. The returned document is shared and must not be modified
+     */
+    private static BsonDocument cachedDocument(String json) {
+        var cached = DOCUMENTS.get(json);
+
+        if (cached != null) {
+            return cached.orElse(null);
+        }
+
+        BsonDocument ret;
+
+        try {
+            ret = BsonDocument.parse(json);
+        } catch (JsonParseException | BSONException | IllegalArgumentException e) {
+            ret = null;
+        }
+
+        DOCUMENTS.put(json, ret);
+
+        return ret;
+    }
+
+    /**
+     * a sort_by or hint term is either a json object or a property name
+     * optionally prefixed by - or +
+     */
+    private static BsonDocument parseSortTerm(String s) {
+        var _s = s.trim(); // the + sign is decoded into a space, in case remove it
+
+        var parsed = cachedDocument(_s);
+
+        if (parsed != null) {
+            return parsed;
+        } else if (_s.startsWith("-")) {
+            return new BsonDocument(_s.substring(1), new BsonInt32(-1));
+        } else if (_s.startsWith("+")) {
+            return new BsonDocument(_s.substring(1), new BsonInt32(11));
+        } else {
+            return new BsonDocument(_s, new BsonInt32(1));
+        }
+    }
+
+    private static List<String> snapshot(Collection<String> values) {
+        return values == null ? null : new ArrayList<>(values);
+    }
+
+    private static boolean same(List<String> snapshot, Collection<String> values) {
+        if (snapshot == null || values == null) {
+            return snapshot == values;
+        }
+
+        if (snapshot.size() != values.size()) {
+            return false;
+        }
+
+        Iterator<String> it = values.iterator();
+
+        for (var s : snapshot) {
+            var v = it.next();
+
+            if (s != v && (s == null || !s.equals(v))) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+}
@@ -20,6 +20,7 @@
 package org.restheart.exchange;
 
 import io.undertow.server.HttpServerExchange;
+import java.io.IOException;
 import io.undertow.util.AttachmentKey;
 
 /**
@@ -97,6 +98,24 @@ public abstract class ServiceResponse<T> extends Response<T> {
      */
     public abstract String readContent();
 
+    /**
+     * Sends the content to the client. This method is used by ResponseSender
+     * when no customSender is set.
+     *
+     * The default implementation sends the String returned by readContent();
+     * responses can override it to stream the content without materializing
+     * it as a String.
+     *
+     * @throws IOException
+     */
+    public void sendContent() throws IOException {
+        var _content = readContent();
+
+        if (_content != null) {
+            getExchange().getResponseSender().send(_content);
+        }
+    }
+
     /**
      * If a customSender is set (not null), the handler ResponseSender will
      * delegate to customSender.run() the responsability to send the response
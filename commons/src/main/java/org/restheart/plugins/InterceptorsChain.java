@@ -0,0 +1,139 @@
+/*-
+ * ========================LICENSE_START=================================
+ * restheart-commons
+ * %%
+ * Copyright (C) 2019 - 2020 SoftInstigate
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =========================LICENSE_END==================================
+ */
+package org.restheart.plugins;
+
+import io.undertow.server.HttpServerExchange;
+import io.undertow.util.HttpString;
+import io.undertow.util.PathTemplateMatcher;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import org.restheart.utils.PluginUtils;
+
+/**
+ * The immutable, ordered list of the interceptors to execute at an intercept
+ * point on requests handled by a service or by the proxies.
+ *
+ * The static applicability declared via @RegisterPlugin (interceptedMethods
+ * and interceptedPathTemplates) and requiresContent are evaluated once when
+ * the chain is compiled; appliesTo() checks them before resolve() is called.
+ */
+@SuppressWarnings("rawtypes")
+public final class InterceptorsChain {
+    static final InterceptorsChain EMPTY = new InterceptorsChain(new Interceptor[0]);
+
+    private final Interceptor[] interceptors;
+    // null means any method
+    private final HttpString[][] methods;
+    // null means any path
+    private final PathTemplateMatcher[] paths;
+    private final boolean[] requiresContent;
+
+    private final List<Interceptor> list;
+
+    InterceptorsChain(Interceptor[] interceptors) {
+        this.interceptors = interceptors;
+        this.methods = new HttpString[interceptors.length][];
+        this.paths = new PathTemplateMatcher[interceptors.length];
+        this.requiresContent = new boolean[interceptors.length];
+
+        for (int i = 0; i < interceptors.length; i++) {
+            var _methods = PluginUtils.interceptedMethods(interceptors[i]);
+
+            if (_methods.length > 0) {
+                this.methods[i] = Arrays.stream(_methods)
+                        .map(m -> HttpString.tryFromString(m.toUpperCase(Locale.ROOT)))
+                        .toArray(HttpString[]::new);
+            }
+
+            var _paths = PluginUtils.interceptedPathTemplates(interceptors[i]);
+
+            if (_paths.length > 0) {
+                var matcher = new PathTemplateMatcher<Boolean>();
+                Arrays.stream(_paths).forEach(p -> matcher.add(p, Boolean.TRUE));
+                this.paths[i] = matcher;
+            }
+
+            this.requiresContent[i] = PluginUtils.requiresContent(interceptors[i]);
+        }
+
+        this.list = Collections.unmodifiableList(Arrays.asList(interceptors));
+    }
+
+    /**
+     * @return the number of interceptors
+     */
+    public int size() {
+        return interceptors.length;
+    }
+
+    /**
+     * @param idx
+     * @return the interceptor at position idx
+     */
+    public Interceptor get(int idx) {
+        return interceptors[idx];
+    }
+
+    /**
+     * @param idx
+     * @return true if the interceptor at position idx requires the content
+     */
+    public boolean requiresContent(int idx) {
+        return requiresContent[idx];
+    }
+
+    /**
+     * @param idx
+     * @param exchange
+     * @return false if the method or the path of the request are not
+     * intercepted by the interceptor at position idx, i.e. if its resolve()
+     * does not need to be called
+     */
+    public boolean appliesTo(int idx, HttpServerExchange exchange) {
+        var _methods = methods[idx];
+
+        if (_methods != null) {
+            var method = exchange.getRequestMethod();
+            var found = false;
+
+            for (var m : _methods) {
+                if (m.equals(method)) {
+                    found = true;
+                    break;
+                }
+            }
+
+            if (!found) {
+                return false;
+            }
+        }
+
+        return paths[idx] == null || paths[idx].match(exchange.getRequestPath()) != null;
+    }
+
+    /**
+     * @return the interceptors as an unmodifiable list
+     */
+    public List<Interceptor> asList() {
+        return list;
+    }
+}
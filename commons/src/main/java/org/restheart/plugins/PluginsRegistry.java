@@ -109,6 +109,15 @@ public interface PluginsRegistry {
     @SuppressWarnings("rawtypes")
     public List<Interceptor> getProxyInterceptors(InterceptPoint interceptPoint);
 
+    /**
+     * @return the interceptors chain of the service srv or of the proxies,
+     * with the static applicability of the interceptors precomputed
+     * @param srv the service or null for proxies
+     * @param interceptPoint
+     *
+     */
+    public InterceptorsChain getInterceptorsChain(Service<?,?> srv, InterceptPoint interceptPoint);
+
     /**
      * global security predicates must all resolve to true to allow the request
      *
@@ -105,6 +105,39 @@ public @interface RegisterPlugin {
      */
     boolean requiresContent() default false;
 
+    /**
+     * Only used by Interceptors
+     *
+     * Restricts the Interceptor to the requests handled by the Services with
+     * the given names. This is checked once, when the interceptors of each
+     * Service are collected; an empty array means any Service or proxy.
+     *
+     * @return the names of the intercepted Services
+     */
+    String[] interceptedServices() default {};
+
+    /**
+     * Only used by Interceptors
+     *
+     * Restricts the Interceptor to the requests with the given HTTP methods,
+     * e.g. {"GET", "HEAD"}. This is checked before resolve(); an empty array
+     * means any method.
+     *
+     * @return the intercepted HTTP methods
+     */
+    String[] interceptedMethods() default {};
+
+    /**
+     * Only used by Interceptors
+     *
+     * Restricts the Interceptor to the requests whose path matches one of the
+     * given path templates, e.g. {"/{db}/{coll}"}. This is checked before
+     * resolve(); an empty array means any path.
+     *
+     * @return the path templates of the intercepted requests
+     */
+    String[] interceptedPathTemplates() default {};
+
     /**
      * Set to true to avoid interceptors to be executed on requests handled by
      * this plugin. Interceptor with interceptPoint=BEFORE_AUTH
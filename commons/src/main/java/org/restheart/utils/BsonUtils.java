@@ -21,9 +21,14 @@
 package org.restheart.utils;
 
 import com.mongodb.MongoClient;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringWriter;
+import java.io.Writer;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.EnumMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -36,16 +41,21 @@ import org.bson.BsonJavaScript;
 import org.bson.BsonMaxKey;
 import org.bson.BsonMinKey;
 import org.bson.BsonString;
+import org.bson.BsonType;
 import org.bson.BsonValue;
 import org.bson.Document;
 import org.bson.codecs.BsonArrayCodec;
+import org.bson.codecs.BsonDocumentCodec;
+import org.bson.codecs.BsonValueCodec;
 import org.bson.codecs.BsonValueCodecProvider;
 import org.bson.codecs.DecoderContext;
+import org.bson.codecs.EncoderContext;
 import org.bson.codecs.configuration.CodecRegistries;
 import org.bson.json.Converter;
 import org.bson.json.JsonMode;
 import org.bson.json.JsonParseException;
 import org.bson.json.JsonReader;
+import org.bson.json.JsonWriter;
 import org.bson.json.JsonWriterSettings;
 import org.bson.json.StrictJsonWriter;
 import org.bson.types.ObjectId;
@@ -64,6 +74,34 @@ public class BsonUtils {
             CodecRegistries.fromProviders(
                     new BsonValueCodecProvider()));
 
+    private static final BsonDocumentCodec DOCUMENT_CODEC = new BsonDocumentCodec();
+
+    private static final BsonValueCodec BSON_VALUE_CODEC = new BsonValueCodec();
+
+    // as BsonDocument.toJson(), that keeps the order of the fields
+    private static final EncoderContext ENCODER_CONTEXT = EncoderContext.builder().build();
+
+    private static final JsonWriterSettings DEFAULT_JSON_WRITER_SETTINGS = JsonWriterSettings.builder()
+            .indent(false)
+            .dateTimeConverter(new Converter<Long>() {
+                @Override
+                public void convert(Long t, StrictJsonWriter writer) {
+                    writer.writeRaw("{\"$date\": " + t + " }");
+                }
+            })
+            .build();
+
+    private static final Map<JsonMode, JsonWriterSettings> JSON_WRITER_SETTINGS = new EnumMap<>(JsonMode.class);
+
+    static {
+        for (var mode : JsonMode.values()) {
+            JSON_WRITER_SETTINGS.put(mode, JsonWriterSettings.builder()
+                    .outputMode(mode)
+                    .indent(false)
+                    .build());
+        }
+    }
+
     private static final String ESCAPED_DOLLAR = "_$";
     private static final String ESCAPED_DOT = "::";
     private static final String DOLLAR = "$";
@@ -631,6 +669,30 @@ public class BsonUtils {
         }
     }
 
+    /**
+     * Parses the JSON read from the reader, without reading it into a String.
+     *
+     * @param reader the reader of the JSON, e.g. an Utf8Reader on the request
+     * content
+     * @return the BsonValue or null if the reader is empty
+     * @throws JsonParseException
+     */
+    public static BsonValue parse(Reader reader) throws JsonParseException {
+        if (reader == null) {
+            return null;
+        }
+
+        try (var jr = new JsonReader(reader)) {
+            // extended json values, e.g. {"$oid": "xxxxxxxx" }, are
+            // detected here and decoded as such
+            if (jr.readBsonType() == BsonType.END_OF_DOCUMENT) {
+                return null;
+            }
+
+            return BSON_VALUE_CODEC.decode(jr, DecoderContext.builder().build());
+        }
+    }
+
     private static BsonValue getBsonValue(String json) {
         String _json = "{'x':"
                 .concat(json)
@@ -663,49 +725,49 @@ public class BsonUtils {
             return null;
         }
 
-        var settings = mode != null
-                ? JsonWriterSettings.builder()
-                        .outputMode(mode)
-                        .indent(false)
-                        .build()
-                : JsonWriterSettings.builder()
-                        .indent(false)
-                        .dateTimeConverter(new Converter<Long>() {
-                            @Override
-                            public void convert(Long t, StrictJsonWriter writer) {
-                                writer.writeRaw("{\"$date\": " + t + " }");
-                            }
-                        })
-                        .build();
+        var sw = new StringWriter();
 
-        if (bson.isDocument()) {
-            return minify(bson.asDocument().toJson(settings));
-        } else if (bson.isArray()) {
-            BsonArray _array = bson.asArray();
+        try {
+            toJson(bson, mode, sw);
+        } catch (IOException ioe) {
+            // never happens writing to a StringWriter
+            throw new IllegalStateException(ioe);
+        }
 
-            BsonDocument wrappedArray = new BsonDocument("wrapped", _array);
+        return sw.toString();
+    }
 
-            String json = wrappedArray.toJson(settings);
+    /**
+     * Writes the minified json representation of the bson value to the
+     * writer. The json is streamed as it is generated, without materializing
+     * it as a String.
+     *
+     * @param bson the bson value
+     * @param mode the json mode, null for RESTHeart's default
+     * @param out the writer; it is flushed but not closed
+     * @throws IOException
+     */
+    public static void toJson(BsonValue bson, JsonMode mode, Writer out) throws IOException {
+        if (bson == null) {
+            return;
+        }
 
-            json = json.substring(0, json.length() - 1); // removes closing }
-            json = json.replaceFirst("\\{", "");
-            json = json.replaceFirst("\"wrapped\"", "");
-            json = json.replaceFirst(":", "");
+        // JsonWriter only writes documents at the root level
+        // other values are wrapped and the wrapper removed by CompactJsonWriter
+        var unwrap = !bson.isDocument();
+        var doc = unwrap ? new BsonDocument("x", bson) : bson.asDocument();
 
-            return minify(json);
-        } else {
-            BsonDocument doc = new BsonDocument("x", bson);
+        var compact = new CompactJsonWriter(out, unwrap);
 
-            String ret = doc.toJson(settings);
+        DOCUMENT_CODEC.encode(new JsonWriter(compact, jsonWriterSettings(mode)),
+                doc,
+                ENCODER_CONTEXT);
 
-            ret = ret.replaceFirst("\\{", "");
-            ret = ret.replaceFirst("\"x\"", "");
-            ret = ret.replaceFirst(":", "");
-            int index = ret.lastIndexOf('}');
-            ret = ret.substring(0, index);
+        compact.finish();
+    }
 
-            return minify(ret);
-        }
+    private static JsonWriterSettings jsonWriterSettings(JsonMode mode) {
+        return mode == null ? DEFAULT_JSON_WRITER_SETTINGS : JSON_WRITER_SETTINGS.get(mode);
     }
 
     /**
@@ -22,8 +22,10 @@ package org.restheart.utils;
 import io.undertow.connector.PooledByteBuffer;
 import io.undertow.server.HttpServerExchange;
 import java.io.IOException;
+import java.io.InputStream;
 import java.nio.ByteBuffer;
 import java.nio.charset.Charset;
+import java.util.Arrays;
 import static org.restheart.exchange.Exchange.MAX_CONTENT_SIZE;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -40,8 +42,29 @@ public class BuffersUtils {
 
     /**
      * @param srcs
-     * @return
-     * @throws IOException
+     * @return the number of bytes available in the buffers
+     */
+    public static int remaining(final PooledByteBuffer[] srcs) {
+        if (srcs == null) {
+            return 0;
+        }
+
+        int ret = 0;
+
+        for (var src : srcs) {
+            if (src != null) {
+                ret += src.getBuffer().remaining();
+            }
+        }
+
+        return ret;
+    }
+
+    /**
+     * @param srcs
+     * @return a ByteBuffer with the content of the buffers, sized exactly to
+     * hold it
+     * @throws IOException if the content exceeds MAX_CONTENT_SIZE
      */
     public static ByteBuffer toByteBuffer(final PooledByteBuffer[] srcs)
             throws IOException {
@@ -49,41 +72,143 @@ public class BuffersUtils {
             return null;
         }
 
-        ByteBuffer dst = ByteBuffer.allocate(MAX_CONTENT_SIZE);
+        return ByteBuffer.wrap(toByteArray(srcs));
+    }
 
-        for (int i = 0; i < srcs.length; i++) {
-            PooledByteBuffer src = srcs[i];
-            if (src != null) {
-                final ByteBuffer srcBuffer = src.getBuffer();
+    /**
+     * @param srcs
+     * @return a byte array with the content of the buffers
+     * @throws IOException if the content exceeds MAX_CONTENT_SIZE
+     */
+    public static byte[] toByteArray(final PooledByteBuffer[] srcs)
+            throws IOException {
+        int size = remaining(srcs);
 
-                if (srcBuffer.remaining() > dst.remaining()) {
-                    LOGGER.error("Request content exceeeded {} bytes limit",
-                            MAX_CONTENT_SIZE);
-                    throw new IOException("Request content exceeeded "
-                            + MAX_CONTENT_SIZE + " bytes limit");
-                }
+        if (size > MAX_CONTENT_SIZE) {
+            LOGGER.error("Request content exceeeded {} bytes limit",
+                    MAX_CONTENT_SIZE);
+            throw new IOException("Request content exceeeded "
+                    + MAX_CONTENT_SIZE + " bytes limit");
+        }
+
+        byte[] ret = new byte[size];
 
-                if (srcBuffer.hasRemaining()) {
-                    Buffers.copy(dst, srcBuffer);
+        if (size > 0) {
+            int pos = 0;
 
-                    // very important, I lost a day for this!
-                    srcBuffer.flip();
+            for (var src : srcs) {
+                if (src != null) {
+                    // read from a duplicate, the position of src is not modified
+                    var srcBuffer = src.getBuffer().duplicate();
+                    int len = srcBuffer.remaining();
+                    srcBuffer.get(ret, pos, len);
+                    pos += len;
                 }
             }
         }
 
-        return dst.flip();
+        return ret;
     }
 
-    public static byte[] toByteArray(final PooledByteBuffer[] srcs)
-            throws IOException {
-        ByteBuffer content = toByteBuffer(srcs);
+    /**
+     * Returns read-only views of the buffers. The content is not copied.
+     *
+     * The views share the content with the pooled buffers and must not be
+     * used after them being released or modified.
+     *
+     * @param srcs
+     * @return the read-only views of the not empty buffers
+     */
+    public static ByteBuffer[] toReadOnlyByteBuffers(final PooledByteBuffer[] srcs) {
+        if (srcs == null) {
+            return new ByteBuffer[0];
+        }
 
-        byte[] ret = new byte[content.limit()];
+        return Arrays.stream(srcs)
+                .filter(src -> src != null && src.getBuffer().hasRemaining())
+                .map(src -> src.getBuffer().asReadOnlyBuffer())
+                .toArray(ByteBuffer[]::new);
+    }
 
-        content.get(ret);
+    /**
+     * Returns an InputStream that reads the content of the buffers without
+     * copying it.
+     *
+     * The stream shares the content with the pooled buffers and must not be
+     * used after them being released or modified.
+     *
+     * @param srcs
+     * @return the InputStream
+     */
+    public static InputStream toInputStream(final PooledByteBuffer[] srcs) {
+        return new ByteBuffersInputStream(toReadOnlyByteBuffers(srcs));
+    }
 
-        return ret;
+    private static class ByteBuffersInputStream extends InputStream {
+        private final ByteBuffer[] buffers;
+        private int idx = 0;
+
+        ByteBuffersInputStream(ByteBuffer[] buffers) {
+            this.buffers = buffers;
+        }
+
+        private ByteBuffer current() {
+            while (idx < buffers.length && !buffers[idx].hasRemaining()) {
+                idx++;
+            }
+
+            return idx < buffers.length ? buffers[idx] : null;
+        }
+
+        @Override
+        public int read() {
+            var current = current();
+
+            return current == null ? -1 : current.get() & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) {
+            if (len == 0) {
+                return 0;
+            }
+
+            var current = current();
+
+            if (current == null) {
+                return -1;
+            }
+
+            int n = Math.min(len, current.remaining());
+            current.get(b, off, n);
+
+            return n;
+        }
+
+        @Override
+        public long skip(long n) {
+            long skipped = 0;
+            ByteBuffer current;
+
+            while (skipped < n && (current = current()) != null) {
+                int step = (int) Math.min(n - skipped, current.remaining());
+                current.position(current.position() + step);
+                skipped += step;
+            }
+
+            return skipped;
+        }
+
+        @Override
+        public int available() {
+            int ret = 0;
+
+            for (int i = idx; i < buffers.length; i++) {
+                ret += buffers[i].remaining();
+            }
+
+            return ret;
+        }
     }
 
     public static String toString(final PooledByteBuffer[] srcs, Charset cs)
@@ -22,6 +22,8 @@ package org.restheart.utils;
 
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
 import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
 import org.xnio.channels.Channels;
@@ -74,6 +76,83 @@ public class ChannelReader {
         }
     }
 
+    /**
+     * Returns an InputStream that reads the request body from the channel
+     * blocking, without buffering it all. The stream must be closed to release
+     * the pooled buffer
+     *
+     * @param exchange
+     * @return the InputStream or null if the request channel is not available
+     */
+    public static InputStream inputStream(HttpServerExchange exchange) {
+        var channel = exchange.getRequestChannel();
+
+        if (channel == null) {
+            return null;
+        }
+
+        var pooledByteBuffer = exchange.getConnection().getByteBufferPool().allocate();
+
+        return new InputStream() {
+            private final ByteBuffer buffer = pooledByteBuffer.getBuffer().flip();
+            private boolean eof = false;
+            private boolean closed = false;
+
+            private boolean fill() throws IOException {
+                if (eof) {
+                    return false;
+                }
+
+                buffer.clear();
+                var read = Channels.readBlocking(channel, buffer);
+                buffer.flip();
+
+                if (read == -1) {
+                    eof = true;
+                    return false;
+                }
+
+                return true;
+            }
+
+            @Override
+            public int read() throws IOException {
+                while (!buffer.hasRemaining()) {
+                    if (!fill()) {
+                        return -1;
+                    }
+                }
+
+                return buffer.get() & 0xff;
+            }
+
+            @Override
+            public int read(byte[] b, int off, int len) throws IOException {
+                if (len == 0) {
+                    return 0;
+                }
+
+                while (!buffer.hasRemaining()) {
+                    if (!fill()) {
+                        return -1;
+                    }
+                }
+
+                var n = Math.min(len, buffer.remaining());
+                buffer.get(b, off, n);
+                return n;
+            }
+
+            @Override
+            public void close() {
+                if (!closed) {
+                    closed = true;
+                    pooledByteBuffer.close();
+                }
+            }
+        };
+    }
+
     /**
      *
      * @param stream
@@ -0,0 +1,209 @@
+/*-
+ * ========================LICENSE_START=================================
+ * restheart-commons
+ * %%
+ * Copyright (C) 2019 - 2020 SoftInstigate
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =========================LICENSE_END==================================
+ */
+package org.restheart.utils;
+
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * A Writer that removes on the fly the whitespaces that
+ * org.bson.json.JsonWriter adds between tokens.
+ *
+ * The output is the same produced by Minify, applying the same rules to
+ * string and regular expression literals, but without buffering the whole
+ * json and without a second pass over it.
+ *
+ * When unwrap is true, the json is expected to be a document with a single
+ * one-character key, e.g. {"x": value}; only value is written. This allows to
+ * write arrays and other values that org.bson.json.JsonWriter cannot write at
+ * the root level.
+ */
+public class CompactJsonWriter extends Writer {
+    private static final int BUFFER_SIZE = 4096;
+
+    // length of {"x": i.e. the minified prefix of the wrapping document
+    private static final int WRAPPER_PREFIX_LENGTH = 5;
+
+    private final Writer out;
+    private final char[] buffer = new char[BUFFER_SIZE];
+    private int count = 0;
+
+    private final boolean unwrap;
+    private int toSkip;
+    private int held = -1;
+
+    private int last = -1;
+    private char quote = 0;
+    private boolean inRegex = false;
+    private boolean escaped = false;
+    private boolean pendingSpace = false;
+
+    /**
+     *
+     * @param out the writer to write the compact json to
+     * @param unwrap true to write only the value of the wrapping document
+     */
+    public CompactJsonWriter(Writer out, boolean unwrap) {
+        this.out = out;
+        this.unwrap = unwrap;
+        this.toSkip = unwrap ? WRAPPER_PREFIX_LENGTH : 0;
+    }
+
+    @Override
+    public void write(int c) throws IOException {
+        process((char) c);
+    }
+
+    @Override
+    public void write(char[] cbuf, int off, int len) throws IOException {
+        for (int i = off; i < off + len; i++) {
+            process(cbuf[i]);
+        }
+    }
+
+    @Override
+    public void write(String str, int off, int len) throws IOException {
+        for (int i = off; i < off + len; i++) {
+            process(str.charAt(i));
+        }
+    }
+
+    private void process(char c) throws IOException {
+        if (quote != 0) {
+            // in string literal
+            emit(c);
+
+            if (escaped) {
+                escaped = false;
+            } else if (c == '\\') {
+                escaped = true;
+            } else if (c == quote) {
+                quote = 0;
+            }
+
+            return;
+        }
+
+        if (inRegex) {
+            // in regular expression literal (JsonMode.SHELL)
+            emit(c);
+
+            if (escaped) {
+                escaped = false;
+            } else if (c == '\\') {
+                escaped = true;
+            } else if (c == '/') {
+                inRegex = false;
+            }
+
+            return;
+        }
+
+        if (c <= ' ') {
+            pendingSpace = true;
+            return;
+        }
+
+        if (pendingSpace) {
+            pendingSpace = false;
+
+            // like Minify, keep a space only between two alphanumerics
+            // e.g. new Date(1) in JsonMode.SHELL
+            if (isAlphanum(last) && isAlphanum(c)) {
+                emit(' ');
+            }
+        }
+
+        if (c == '"' || c == '\'') {
+            quote = c;
+        } else if (c == '/' && isRegexPrefix(last)) {
+            inRegex = true;
+        }
+
+        emit(c);
+    }
+
+    private void emit(char c) throws IOException {
+        last = c;
+
+        if (toSkip > 0) {
+            toSkip--;
+        } else if (unwrap) {
+            // hold back the last char, that is the closing } of the wrapper
+            if (held >= 0) {
+                put((char) held);
+            }
+
+            held = c;
+        } else {
+            put(c);
+        }
+    }
+
+    private void put(char c) throws IOException {
+        if (count == BUFFER_SIZE) {
+            flushBuffer();
+        }
+
+        buffer[count++] = c;
+    }
+
+    private void flushBuffer() throws IOException {
+        if (count > 0) {
+            out.write(buffer, 0, count);
+            count = 0;
+        }
+    }
+
+    private static boolean isAlphanum(int c) {
+        return ((c >= 'a' && c <= 'z') || (c >= '0' && c <= '9') || (c >= 'A' && c <= 'Z')
+                || c == '_' || c == '$' || c == '\\' || c > 126);
+    }
+
+    private static boolean isRegexPrefix(int c) {
+        return c == '(' || c == ',' || c == '=' || c == ':';
+    }
+
+    /**
+     * Writes the buffered chars to the underlying writer and flushes it. When
+     * unwrapping, the held back closing char of the wrapper is discarded.
+     *
+     * The underlying writer is not closed.
+     *
+     * @throws IOException
+     */
+    public void finish() throws IOException {
+        held = -1;
+        flushBuffer();
+        out.flush();
+    }
+
+    @Override
+    public void flush() throws IOException {
+        flushBuffer();
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        finish();
+        out.close();
+    }
+}
@@ -0,0 +1,160 @@
+/*-
+ * ========================LICENSE_START=================================
+ * restheart-commons
+ * %%
+ * Copyright (C) 2019 - 2020 SoftInstigate
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =========================LICENSE_END==================================
+ */
+package org.restheart.utils;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A streaming csv parser that reads one record at a time, holding in memory
+ * only the record being parsed.
+ *
+ * Fields are split on the separator and records on line breaks (\n, \r\n or
+ * \r), both only outside double quotes; so a quoted field can contain the
+ * separator and line breaks. Fields are returned verbatim, including the
+ * quotes, so that the caller can tell "1" from 1. Blank lines are skipped.
+ */
+public class CsvReader implements Closeable {
+    private static final int BUFFER_SIZE = 8192;
+
+    private final Reader reader;
+    private final String sep;
+    private final char sepLast;
+
+    private final char[] buffer = new char[BUFFER_SIZE];
+    private int pos = 0;
+    private int limit = 0;
+
+    /**
+     *
+     * @param reader
+     * @param sep the fields separator, if null or empty defaults to ,
+     */
+    public CsvReader(Reader reader, String sep) {
+        this.reader = reader;
+        this.sep = sep == null || sep.isEmpty() ? "," : sep;
+        this.sepLast = this.sep.charAt(this.sep.length() - 1);
+    }
+
+    /**
+     *
+     * @return the fields of the next record, or null at the end of the input
+     * @throws IOException
+     */
+    public List<String> readRecord() throws IOException {
+        var fields = new ArrayList<String>();
+        var field = new StringBuilder();
+        var inQuotes = false;
+
+        int c;
+
+        while ((c = read()) != -1) {
+            if (c == '"') {
+                inQuotes = !inQuotes;
+                field.append((char) c);
+            } else if (!inQuotes && (c == '\n' || c == '\r')) {
+                if (c == '\r' && peek() == '\n') {
+                    read();
+                }
+
+                if (fields.isEmpty() && field.length() == 0) {
+                    // blank line
+                    continue;
+                }
+
+                fields.add(field.toString());
+                return fields;
+            } else {
+                field.append((char) c);
+
+                if (!inQuotes && c == sepLast && endsWithSep(field)) {
+                    field.setLength(field.length() - sep.length());
+                    fields.add(field.toString());
+                    field.setLength(0);
+                }
+            }
+        }
+
+        if (fields.isEmpty() && field.length() == 0) {
+            return null;
+        }
+
+        fields.add(field.toString());
+        return fields;
+    }
+
+    private boolean endsWithSep(StringBuilder field) {
+        var flen = field.length();
+        var slen = sep.length();
+
+        if (flen < slen) {
+            return false;
+        }
+
+        for (int i = 0; i < slen - 1; i++) {
+            if (field.charAt(flen - slen + i) != sep.charAt(i)) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    private int read() throws IOException {
+        if (pos == limit && !fill()) {
+            return -1;
+        }
+
+        return buffer[pos++];
+    }
+
+    private int peek() throws IOException {
+        if (pos == limit && !fill()) {
+            return -1;
+        }
+
+        return buffer[pos];
+    }
+
+    private boolean fill() throws IOException {
+        int n;
+
+        do {
+            n = reader.read(buffer, 0, BUFFER_SIZE);
+        } while (n == 0);
+
+        if (n < 0) {
+            return false;
+        }
+
+        pos = 0;
+        limit = n;
+
+        return true;
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+}
@@ -20,6 +20,7 @@
 package org.restheart.utils;
 
 import io.undertow.server.HttpServerExchange;
+import io.undertow.util.AttachmentKey;
 
 import java.lang.reflect.Type;
 import java.util.Map;
@@ -35,6 +36,7 @@ import org.restheart.plugins.Initializer;
 import org.restheart.plugins.InterceptPoint;
 import org.restheart.plugins.Interceptor;
 import org.restheart.plugins.Plugin;
+import org.restheart.plugins.PluginRecord;
 import org.restheart.plugins.PluginsRegistry;
 import org.restheart.plugins.RegisterPlugin;
 import org.restheart.plugins.Service;
@@ -111,6 +113,45 @@ public class PluginUtils {
         }
     }
 
+    /**
+     *
+     * @param interceptor
+     * @return the names of the services intercepted by the interceptor as
+     *         defined by the @RegisterPlugin annotation, empty for any service
+     */
+    @SuppressWarnings("rawtypes")
+    public static String[] interceptedServices(Interceptor interceptor) {
+        var a = interceptor.getClass().getDeclaredAnnotation(RegisterPlugin.class);
+
+        return a == null ? new String[0] : a.interceptedServices();
+    }
+
+    /**
+     *
+     * @param interceptor
+     * @return the HTTP methods intercepted by the interceptor as defined by the
+     *         @RegisterPlugin annotation, empty for any method
+     */
+    @SuppressWarnings("rawtypes")
+    public static String[] interceptedMethods(Interceptor interceptor) {
+        var a = interceptor.getClass().getDeclaredAnnotation(RegisterPlugin.class);
+
+        return a == null ? new String[0] : a.interceptedMethods();
+    }
+
+    /**
+     *
+     * @param interceptor
+     * @return the path templates intercepted by the interceptor as defined by
+     *         the @RegisterPlugin annotation, empty for any path
+     */
+    @SuppressWarnings("rawtypes")
+    public static String[] interceptedPathTemplates(Interceptor interceptor) {
+        var a = interceptor.getClass().getDeclaredAnnotation(RegisterPlugin.class);
+
+        return a == null ? new String[0] : a.interceptedPathTemplates();
+    }
+
     /**
      *
      * @param plugin
@@ -242,17 +283,44 @@ public class PluginUtils {
      */
     @SuppressWarnings("rawtypes")
     public static Service handlingService(PluginsRegistry registry, HttpServerExchange exchange) {
+        var srv = handlingServicePluginRecord(registry, exchange);
+
+        return srv == null ? null : srv.getInstance();
+    }
+
+    @SuppressWarnings("rawtypes")
+    private static final AttachmentKey<PluginRecord<Service>> HANDLING_SERVICE_KEY = AttachmentKey
+            .create(PluginRecord.class);
+
+    /**
+     * The plugin record of the service is looked up once and attached to the
+     * exchange
+     *
+     * @param registry
+     * @param exchange
+     * @return the plugin record of the service handling the exchange or null if
+     *         the request is not handled by a service
+     */
+    @SuppressWarnings("rawtypes")
+    public static PluginRecord<Service> handlingServicePluginRecord(PluginsRegistry registry,
+            HttpServerExchange exchange) {
+        var attached = exchange.getAttachment(HANDLING_SERVICE_KEY);
+
+        if (attached != null) {
+            return attached;
+        }
+
         var pi = Request.of(exchange).getPipelineInfo();
 
         if (pi != null && pi.getType() == SERVICE) {
             var srvName = pi.getName();
 
             if (srvName != null) {
-                var _s = registry.getServices().stream().filter(s -> srvName.equals(s.getName()))
-                        .map(s -> s.getInstance()).findAny();
-
-                if (_s.isPresent()) {
-                    return _s.get();
+                for (var s : registry.getServices()) {
+                    if (srvName.equals(s.getName())) {
+                        exchange.putAttachment(HANDLING_SERVICE_KEY, s);
+                        return s;
+                    }
                 }
             }
         }
@@ -0,0 +1,169 @@
+/*-
+ * ========================LICENSE_START=================================
+ * restheart-commons
+ * %%
+ * Copyright (C) 2019 - 2020 SoftInstigate
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =========================LICENSE_END==================================
+ */
+package org.restheart.utils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+
+/**
+ * A Reader that decodes UTF-8 on the fly from an InputStream, e.g. the one
+ * returned by BufferedExchange.getContentAsStream() or by
+ * ChannelReader.inputStream(), so that the content is never copied into an
+ * intermediate byte array or String.
+ *
+ * Unlike InputStreamReader it does not synchronize and does not allocate on
+ * read(), that is the method used by org.bson.json.JsonReader. Malformed
+ * sequences are replaced with U+FFFD.
+ */
+public class Utf8Reader extends Reader {
+    private static final int REPLACEMENT = 0xFFFD;
+
+    private final InputStream in;
+
+    // a byte read but not consumed, e.g. an unexpected non continuation byte
+    private int pushback = -1;
+
+    // the low surrogate of a supplementary character
+    private int pendingLowSurrogate = -1;
+
+    /**
+     *
+     * @param in the InputStream, it is closed by close()
+     */
+    public Utf8Reader(InputStream in) {
+        this.in = in;
+    }
+
+    @Override
+    public int read() throws IOException {
+        if (pendingLowSurrogate >= 0) {
+            var ret = pendingLowSurrogate;
+            pendingLowSurrogate = -1;
+            return ret;
+        }
+
+        var b0 = next();
+
+        if (b0 < 0x80) {
+            // ascii or end of stream
+            return b0;
+        } else if (b0 < 0xC2) {
+            // unexpected continuation byte or overlong encoding
+            return REPLACEMENT;
+        } else if (b0 < 0xE0) {
+            var b1 = continuation(0x80, 0xBF);
+
+            return b1 < 0 ? REPLACEMENT : ((b0 & 0x1F) << 6) | b1;
+        } else if (b0 < 0xF0) {
+            // exclude overlong encodings and surrogates
+            var b1 = continuation(b0 == 0xE0 ? 0xA0 : 0x80, b0 == 0xED ? 0x9F : 0xBF);
+
+            if (b1 < 0) {
+                return REPLACEMENT;
+            }
+
+            var b2 = continuation(0x80, 0xBF);
+
+            return b2 < 0 ? REPLACEMENT : ((b0 & 0x0F) << 12) | (b1 << 6) | b2;
+        } else if (b0 < 0xF5) {
+            // exclude overlong encodings and code points above U+10FFFF
+            var b1 = continuation(b0 == 0xF0 ? 0x90 : 0x80, b0 == 0xF4 ? 0x8F : 0xBF);
+
+            if (b1 < 0) {
+                return REPLACEMENT;
+            }
+
+            var b2 = continuation(0x80, 0xBF);
+
+            if (b2 < 0) {
+                return REPLACEMENT;
+            }
+
+            var b3 = continuation(0x80, 0xBF);
+
+            if (b3 < 0) {
+                return REPLACEMENT;
+            }
+
+            var cp = ((b0 & 0x07) << 18) | (b1 << 12) | (b2 << 6) | b3;
+
+            pendingLowSurrogate = Character.lowSurrogate(cp);
+            return Character.highSurrogate(cp);
+        } else {
+            return REPLACEMENT;
+        }
+    }
+
+    @Override
+    public int read(char[] cbuf, int off, int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+
+        int n = 0;
+
+        while (n < len) {
+            var c = read();
+
+            if (c < 0) {
+                break;
+            }
+
+            cbuf[off + n++] = (char) c;
+        }
+
+        return n == 0 ? -1 : n;
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+
+    private int next() throws IOException {
+        if (pushback >= 0) {
+            var ret = pushback;
+            pushback = -1;
+            return ret;
+        }
+
+        return in.read();
+    }
+
+    /**
+     * @return the 6 bits of payload of the continuation byte, or -1 if the
+     * next byte is not a continuation byte in the range [min, max]; in this
+     * case the byte is not consumed
+     */
+    private int continuation(int min, int max) throws IOException {
+        var b = next();
+
+        if (b < min || b > max) {
+            if (b >= 0) {
+                pushback = b;
+            }
+
+            return -1;
+        }
+
+        return b & 0x3F;
+    }
+}
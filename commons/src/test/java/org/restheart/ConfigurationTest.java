@@ -0,0 +1,53 @@
+/*-
+ * ========================LICENSE_START=================================
+ * restheart-commons
+ * %%
+ * Copyright (C) 2019 - 2020 SoftInstigate
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =========================LICENSE_END==================================
+ */
+package org.restheart;
+
+import java.util.HashMap;
+import java.util.Map;
+import static org.junit.Assert.assertEquals;
+import org.junit.Test;
+import org.restheart.ConfigurationKeys.EXECUTION_MODE;
+import static org.restheart.ConfigurationKeys.EXECUTION_MODE_KEY;
+
+public class ConfigurationTest {
+    @Test
+    public void testExecutionMode() {
+        assertEquals(EXECUTION_MODE.VIRTUAL_THREADS, executionMode("VIRTUAL_THREADS"));
+        assertEquals(EXECUTION_MODE.WORKER_THREADS, executionMode("WORKER_THREADS"));
+    }
+
+    @Test
+    public void testExecutionModeDefault() {
+        assertEquals(EXECUTION_MODE.WORKER_THREADS, executionMode(null));
+
+        // a wrong value falls back to the default
+        assertEquals(EXECUTION_MODE.WORKER_THREADS, executionMode("fibers"));
+    }
+
+    private static EXECUTION_MODE executionMode(String value) {
+        Map<String, Object> conf = new HashMap<>();
+
+        if (value != null) {
+            conf.put(EXECUTION_MODE_KEY, value);
+        }
+
+        return new Configuration(conf, true).getExecutionMode();
+    }
+}
@@ -0,0 +1,67 @@
+/*-
+ * ========================LICENSE_START=================================
+ * restheart-commons
+ * %%
+ * Copyright (C) 2019 - 2020 SoftInstigate
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =========================LICENSE_END==================================
+ */
+package org.restheart.cache.impl;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+import static org.junit.Assert.assertEquals;
+import org.junit.Test;
+import org.restheart.cache.Cache;
+
+public class GuavaLoadingCacheTest {
+
+    @Test
+    public void testGetAllLoading() {
+        var bulkLoads = new ArrayList<Set<String>>();
+
+        var instance = new GuavaLoadingCache<String, Integer>(100, Cache.EXPIRE_POLICY.AFTER_WRITE, 10000,
+                key -> key.length(),
+                keys -> {
+                    bulkLoads.add(keys);
+                    // the keys starting with x have no value
+                    return keys.stream().filter(k -> !k.startsWith("x")).collect(Collectors.toMap(k -> k, String::length));
+                });
+
+        instance.getLoading("a");
+
+        var result = instance.getAllLoading(List.of("a", "bb", "xxx"));
+
+        assertEquals(Map.of("a", Optional.of(1), "bb", Optional.of(2), "xxx", Optional.empty()), result);
+
+        // only the missing keys are loaded, at once
+        assertEquals(List.of(Set.of("bb", "xxx")), bulkLoads);
+        assertEquals(Optional.of(2), instance.get("bb"));
+        assertEquals(Optional.empty(), instance.get("xxx"));
+    }
+
+    @Test
+    public void testGetAllLoadingWithoutBulkLoader() {
+        var instance = new GuavaLoadingCache<String, Integer>(100, Cache.EXPIRE_POLICY.AFTER_WRITE, 10000,
+                key -> key.startsWith("x") ? null : key.length());
+
+        var result = instance.getAllLoading(List.of("a", "bb", "xxx"));
+
+        assertEquals(Map.of("a", Optional.of(1), "bb", Optional.of(2), "xxx", Optional.empty()), result);
+    }
+}
@@ -0,0 +1,131 @@
+/*-
+ * ========================LICENSE_START=================================
+ * restheart-commons
+ * %%
+ * Copyright (C) 2019 - 2020 SoftInstigate
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =========================LICENSE_END==================================
+ */
+package org.restheart.exchange;
+
+import java.util.ArrayDeque;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.bson.BsonDocument;
+import org.bson.json.JsonParseException;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+public class ParsedQueryParamsTest {
+    @Test
+    public void testParse() {
+        var filter = List.of("{'a':1}", "{'b':{'$gt':2}}");
+        var sortBy = List.of("-a", " b", "{'c':1}");
+
+        var pqp = new ParsedQueryParams(filter, sortBy, null, List.of("{'a':1}"));
+
+        assertEquals(BsonDocument.parse("{'$and':[{'a':1},{'b':{'$gt':2}}]}"), pqp.getFiltersDocument());
+        assertEquals(BsonDocument.parse("{'a':-1,'b':1,'c':1}"), pqp.getSortByDocument());
+        assertNull(pqp.getHintDocument());
+        assertEquals(BsonDocument.parse("{'a':1}"), pqp.getProjectionDocument());
+
+        var empty = new ParsedQueryParams(null, null, null, null);
+
+        assertEquals(new BsonDocument(), empty.getFiltersDocument());
+        assertEquals(BsonDocument.parse("{'_id':-1}"), empty.getSortByDocument());
+        assertNull(empty.getProjectionDocument());
+    }
+
+    @Test
+    public void testMemoizedDocumentsAreNotModifiable() {
+        var pqp = new ParsedQueryParams(List.of("{'a':{'b':1}}"), null, null, null);
+
+        pqp.getFiltersDocument().getDocument("a").put("c", new BsonDocument());
+
+        assertEquals(BsonDocument.parse("{'a':{'b':1}}"), pqp.getFiltersDocument());
+        assertEquals(BsonDocument.parse("{'a':{'b':1}}"), ParsedQueryParams.parseDocument("{'a':{'b':1}}"));
+    }
+
+    @Test
+    public void testIsParsedFrom() {
+        var filter = new ArrayDeque<String>(List.of("{'a':1}"));
+
+        var pqp = new ParsedQueryParams(filter, null, null, null);
+
+        assertTrue(pqp.isParsedFrom(filter, null, null, null));
+
+        // e.g. a filter added by an interceptor
+        filter.add("{'b':1}");
+
+        assertFalse(pqp.isParsedFrom(filter, null, null, null));
+    }
+
+    @Test(expected = JsonParseException.class)
+    public void testInvalidFilter() {
+        new ParsedQueryParams(List.of("{'a':"), null, null, null).getFiltersDocument();
+    }
+
+    @Test(expected = JsonParseException.class)
+    public void testArrayFilter() {
+        // BsonDocument.parse() throws BsonInvalidOperationException
+        new ParsedQueryParams(List.of("[{'a':1}]"), null, null, null).getFiltersDocument();
+    }
+
+    @Test
+    public void testArraySortTerm() {
+        var sortBy = new ParsedQueryParams(null, List.of("[1]"), null, null).getSortByDocument();
+
+        // not a json object, it is taken as a property name
+        assertEquals(BsonDocument.parse("{'[1]': 1}"), sortBy);
+    }
+
+    @Test
+    public void testConcurrentGetters() throws Exception {
+        var params = new ParsedQueryParams(List.of("{'a':1}", "{'b':2}"), List.of("-a"), null, List.of("{'a':1}"));
+
+        var expected = BsonDocument.parse("{'$and': [{'a':1}, {'b':2}]}");
+
+        var executor = Executors.newFixedThreadPool(8);
+
+        try {
+            Callable<BsonDocument> get = () -> {
+                var ret = params.getFiltersDocument();
+                ret.put("modified", BsonDocument.parse("{}"));
+                params.getSortByDocument();
+                params.getProjectionDocument();
+                return ret;
+            };
+
+            var results = new ArrayDeque<Future<BsonDocument>>();
+
+            for (var i = 0; i < 100; i++) {
+                results.add(executor.submit(get));
+            }
+
+            for (var result : results) {
+                result.get().remove("modified");
+                assertEquals(expected, result.get());
+            }
+
+            assertEquals(expected, params.getFiltersDocument());
+        } finally {
+            executor.shutdown();
+        }
+    }
+}
@@ -0,0 +1,129 @@
+/*-
+ * ========================LICENSE_START=================================
+ * restheart-commons
+ * %%
+ * Copyright (C) 2019 - 2020 SoftInstigate
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =========================LICENSE_END==================================
+ */
+package org.restheart.plugins;
+
+import io.undertow.server.HttpServerExchange;
+import io.undertow.util.HttpString;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+import org.restheart.exchange.JsonRequest;
+import org.restheart.exchange.JsonResponse;
+
+public class InterceptorsChainTest {
+    private static HttpServerExchange exchange(String method, String path) {
+        var exchange = new HttpServerExchange();
+        exchange.setRequestMethod(new HttpString(method));
+        exchange.setRequestPath(path);
+
+        return exchange;
+    }
+
+    private static InterceptorsChain chain(Interceptor<?, ?>... interceptors) {
+        return new InterceptorsChain(interceptors);
+    }
+
+    @Test
+    public void testAnyMethodAnyPath() {
+        var chain = chain(new AnyInterceptor());
+
+        assertTrue(chain.appliesTo(0, exchange("GET", "/coll")));
+        assertTrue(chain.appliesTo(0, exchange("DELETE", "/coll/doc")));
+        assertFalse(chain.requiresContent(0));
+    }
+
+    @Test
+    public void testMethods() {
+        var chain = chain(new WritesInterceptor());
+
+        assertTrue(chain.appliesTo(0, exchange("POST", "/coll")));
+        assertTrue(chain.appliesTo(0, exchange("PATCH", "/coll")));
+        assertFalse(chain.appliesTo(0, exchange("GET", "/coll")));
+        assertFalse(chain.appliesTo(0, exchange("DELETE", "/coll")));
+        assertTrue(chain.requiresContent(0));
+    }
+
+    @Test
+    public void testPathTemplates() {
+        var chain = chain(new DocumentsInterceptor());
+
+        assertTrue(chain.appliesTo(0, exchange("GET", "/coll/doc")));
+        assertTrue(chain.appliesTo(0, exchange("GET", "/users")));
+        assertFalse(chain.appliesTo(0, exchange("GET", "/coll")));
+        assertFalse(chain.appliesTo(0, exchange("GET", "/coll/doc/sub")));
+
+        // both the method and the path must match
+        assertFalse(chain.appliesTo(0, exchange("DELETE", "/coll/doc")));
+    }
+
+    @Test
+    public void testIndexes() {
+        var any = new AnyInterceptor();
+        var writes = new WritesInterceptor();
+        var documents = new DocumentsInterceptor();
+
+        var chain = chain(any, writes, documents);
+        var exchange = exchange("PUT", "/coll/doc");
+
+        assertEquals(3, chain.size());
+        assertSame(writes, chain.get(1));
+        assertEquals(3, chain.asList().size());
+
+        assertTrue(chain.appliesTo(0, exchange));
+        assertTrue(chain.appliesTo(1, exchange));
+        assertFalse(chain.appliesTo(2, exchange));
+    }
+
+    @Test
+    public void testEmpty() {
+        assertEquals(0, InterceptorsChain.EMPTY.size());
+        assertTrue(InterceptorsChain.EMPTY.asList().isEmpty());
+    }
+
+    @RegisterPlugin(name = "anyInterceptor",
+            description = "test description")
+    private static class AnyInterceptor implements JsonInterceptor {
+        @Override
+        public void handle(JsonRequest request, JsonResponse response) throws Exception {
+
+        }
+
+        @Override
+        public boolean resolve(JsonRequest request, JsonResponse response) {
+            return true;
+        }
+    }
+
+    @RegisterPlugin(name = "writesInterceptor",
+            description = "test description",
+            interceptedMethods = {"post", "PUT", "PATCH"},
+            requiresContent = true)
+    private static class WritesInterceptor extends AnyInterceptor {
+    }
+
+    @RegisterPlugin(name = "documentsInterceptor",
+            description = "test description",
+            interceptedMethods = {"GET"},
+            interceptedPathTemplates = {"/{coll}/{id}", "/users"})
+    private static class DocumentsInterceptor extends AnyInterceptor {
+    }
+}
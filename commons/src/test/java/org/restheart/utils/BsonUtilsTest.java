@@ -20,15 +20,23 @@
 
 package org.restheart.utils;
 
+import java.io.StringWriter;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
+import org.bson.BsonArray;
+import org.bson.BsonDateTime;
 import org.bson.BsonDocument;
 import org.bson.BsonDouble;
+import org.bson.BsonInt32;
+import org.bson.BsonInt64;
 import org.bson.BsonNull;
+import org.bson.BsonObjectId;
+import org.bson.BsonRegularExpression;
 import org.bson.BsonString;
 import org.bson.BsonValue;
+import org.bson.json.JsonMode;
 import org.bson.types.ObjectId;
 import org.junit.After;
 import org.junit.AfterClass;
@@ -922,4 +930,54 @@ public class BsonUtilsTest {
                 BsonUtils.parse(
                         "{'n':{'$numberDouble':'11111111158873916063432424232349289023842309842039587209357329578573489573958734985753498573495743957349839'}}")));
     }
+
+    /**
+     * BsonUtils.toJson() must produce the same output of the previous
+     * toJson() + Minify implementation for every JsonMode
+     */
+    @Test
+    public void testToJsonSameAsMinify() {
+        var values = new ArrayList<BsonValue>();
+
+        values.add(BsonUtilsToJsonBenchmark.samplePage(3));
+        values.add(BsonUtilsToJsonBenchmark.samplePage(1).get(0));
+        values.add(BsonUtils.parse("{'_id': 1, 'a': 'x y', 's': 'with \\\\\\\" quote', 'ts': {'$timestamp': {'t': 1, 'i': 2}}, 'dec': {'$numberDecimal': '1.5'}}"));
+        values.add(BsonUtils.parse("{'a': 1, '_id': 2, 'sub': {'b': 1, '_id': 3}}"));
+        values.add(BsonUtils.parse("{'b': {'$binary': {'base64': 'AQID', 'subType': '00'}}, 'min': {'$minKey': 1}, 'u': {'$undefined': true}, 'n': null}"));
+        values.add(new BsonDocument("re", new BsonRegularExpression("a b/c", "i")).append("re2", new BsonRegularExpression("^x\\s+y$")));
+        values.add(new BsonArray(List.of(new BsonRegularExpression("a b"), new BsonInt32(1))));
+        values.add(new BsonArray());
+        values.add(new BsonDocument());
+        values.add(new BsonString("a string with spaces"));
+        values.add(new BsonInt64(5999999999l));
+        values.add(new BsonDateTime(1600000000000l));
+        values.add(new BsonObjectId(new ObjectId("550c6e62c2e62b5640673e93")));
+        values.add(BsonNull.VALUE);
+
+        for (var value : values) {
+            Assert.assertEquals(BsonUtilsToJsonBenchmark.minifyToJson(value, null),
+                    BsonUtils.toJson(value));
+
+            for (var mode : JsonMode.values()) {
+                Assert.assertEquals(BsonUtilsToJsonBenchmark.minifyToJson(value, mode),
+                        BsonUtils.toJson(value, mode));
+            }
+        }
+    }
+
+    /**
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testToJsonWriter() throws Exception {
+        var page = BsonUtilsToJsonBenchmark.samplePage(500);
+        page.add(new BsonDocument("utf8", new BsonString("àèìòù €")));
+        var sw = new StringWriter();
+
+        BsonUtils.toJson(page, JsonMode.RELAXED, sw);
+
+        Assert.assertEquals(BsonUtils.toJson(page, JsonMode.RELAXED), sw.toString());
+        Assert.assertEquals(page, BsonUtils.parse(sw.toString()));
+    }
 }
@@ -0,0 +1,189 @@
+/*-
+ * ========================LICENSE_START=================================
+ * restheart-commons
+ * %%
+ * Copyright (C) 2019 - 2020 SoftInstigate
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =========================LICENSE_END==================================
+ */
+package org.restheart.utils;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+import org.bson.BsonArray;
+import org.bson.BsonBoolean;
+import org.bson.BsonDateTime;
+import org.bson.BsonDocument;
+import org.bson.BsonDouble;
+import org.bson.BsonInt32;
+import org.bson.BsonInt64;
+import org.bson.BsonObjectId;
+import org.bson.BsonString;
+import org.bson.BsonValue;
+import org.bson.json.Converter;
+import org.bson.json.JsonMode;
+import org.bson.json.JsonWriterSettings;
+import org.bson.json.StrictJsonWriter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Compares BsonUtils.toJson() with the previous toJson() + Minify
+ * implementation, serializing a page of documents like the ones sent by
+ * GET /db/coll
+ *
+ * Run with:
+ *
+ * mvn test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=org.restheart.utils.BsonUtilsToJsonBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BsonUtilsToJsonBenchmark {
+
+    @Param({"1", "100", "1000"})
+    public int pagesize;
+
+    @Param({"DEFAULT", "RELAXED", "SHELL"})
+    public String mode;
+
+    private BsonArray page;
+    private JsonMode jsonMode;
+
+    @Setup
+    public void setup() {
+        this.page = samplePage(pagesize);
+        this.jsonMode = "DEFAULT".equals(mode) ? null : JsonMode.valueOf(mode);
+    }
+
+    @Benchmark
+    public String minify() {
+        return minifyToJson(page, jsonMode);
+    }
+
+    @Benchmark
+    public String compact() {
+        return BsonUtils.toJson(page, jsonMode);
+    }
+
+    @Benchmark
+    public void compactStreaming() throws IOException {
+        var writer = new OutputStreamWriter(OutputStream.nullOutputStream(), StandardCharsets.UTF_8);
+        BsonUtils.toJson(page, jsonMode, writer);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(BsonUtilsToJsonBenchmark.class.getSimpleName())
+                .build())
+                .run();
+    }
+
+    static BsonArray samplePage(int size) {
+        var ret = new BsonArray();
+
+        for (int i = 0; i < size; i++) {
+            var doc = new BsonDocument("_id", new BsonObjectId());
+            doc.put("name", new BsonString("document n. " + i + " with \"quotes\" and spaces"));
+            doc.put("n", new BsonInt32(i));
+            doc.put("l", new BsonInt64(4294967296l + i));
+            doc.put("d", new BsonDouble(i / 3d));
+            doc.put("b", BsonBoolean.valueOf(i % 2 == 0));
+            doc.put("timestamp", new BsonDateTime(1600000000000l + i));
+            doc.put("tags", new BsonArray());
+            doc.getArray("tags").add(new BsonString("a"));
+            doc.getArray("tags").add(new BsonString("b c"));
+            doc.put("nested", new BsonDocument("x", new BsonInt32(i)).append("y", new BsonString("y")));
+            ret.add(doc);
+        }
+
+        return ret;
+    }
+
+    /**
+     * The implementation of BsonUtils.toJson() before CompactJsonWriter
+     *
+     * @param bson
+     * @param mode
+     * @return the minified json
+     */
+    static String minifyToJson(BsonValue bson, JsonMode mode) {
+        if (bson == null) {
+            return null;
+        }
+
+        var settings = mode != null
+                ? JsonWriterSettings.builder()
+                        .outputMode(mode)
+                        .indent(false)
+                        .build()
+                : JsonWriterSettings.builder()
+                        .indent(false)
+                        .dateTimeConverter(new Converter<Long>() {
+                            @Override
+                            public void convert(Long t, StrictJsonWriter writer) {
+                                writer.writeRaw("{\"$date\": " + t + " }");
+                            }
+                        })
+                        .build();
+
+        if (bson.isDocument()) {
+            return BsonUtils.minify(bson.asDocument().toJson(settings));
+        } else if (bson.isArray()) {
+            BsonArray _array = bson.asArray();
+
+            BsonDocument wrappedArray = new BsonDocument("wrapped", _array);
+
+            String json = wrappedArray.toJson(settings);
+
+            json = json.substring(0, json.length() - 1); // removes closing }
+            json = json.replaceFirst("\\{", "");
+            json = json.replaceFirst("\"wrapped\"", "");
+            json = json.replaceFirst(":", "");
+
+            return BsonUtils.minify(json);
+        } else {
+            BsonDocument doc = new BsonDocument("x", bson);
+
+            String ret = doc.toJson(settings);
+
+            ret = ret.replaceFirst("\\{", "");
+            ret = ret.replaceFirst("\"x\"", "");
+            ret = ret.replaceFirst(":", "");
+            int index = ret.lastIndexOf('}');
+            ret = ret.substring(0, index);
+
+            return BsonUtils.minify(ret);
+        }
+    }
+}
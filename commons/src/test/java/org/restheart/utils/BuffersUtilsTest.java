@@ -0,0 +1,71 @@
+/*-
+ * ========================LICENSE_START=================================
+ * restheart-commons
+ * %%
+ * Copyright (C) 2019 - 2020 SoftInstigate
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =========================LICENSE_END==================================
+ */
+package org.restheart.utils;
+
+import io.undertow.connector.PooledByteBuffer;
+import io.undertow.util.ImmediatePooledByteBuffer;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import org.junit.Test;
+
+public class BuffersUtilsTest {
+    private static PooledByteBuffer[] buffers(String... contents) {
+        var ret = new PooledByteBuffer[contents.length + 2];
+
+        for (int i = 0; i < contents.length; i++) {
+            ret[i] = new ImmediatePooledByteBuffer(ByteBuffer.wrap(contents[i].getBytes(StandardCharsets.UTF_8)));
+        }
+
+        return ret;
+    }
+
+    @Test
+    public void testToByteArray() throws Exception {
+        var srcs = buffers("hello ", "", "world");
+
+        assertEquals(11, BuffersUtils.remaining(srcs));
+
+        var bytes = BuffersUtils.toByteArray(srcs);
+
+        assertArrayEquals("hello world".getBytes(StandardCharsets.UTF_8), bytes);
+        assertEquals(11, BuffersUtils.toByteBuffer(srcs).remaining());
+
+        // the pooled buffers are not consumed
+        assertEquals("hello world", BuffersUtils.toString(srcs, StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void testToInputStream() throws Exception {
+        var srcs = buffers("àè", "", "ìò", "ù");
+
+        var is = BuffersUtils.toInputStream(srcs);
+
+        assertEquals(10, is.available());
+        assertEquals("àèìòù", new String(is.readAllBytes(), StandardCharsets.UTF_8));
+        assertEquals(-1, is.read());
+
+        // the pooled buffers are not consumed
+        assertEquals(10, BuffersUtils.remaining(srcs));
+        assertEquals(3, BuffersUtils.toReadOnlyByteBuffers(srcs).length);
+        assertEquals(6, BuffersUtils.toInputStream(srcs).skip(6));
+    }
+}
@@ -0,0 +1,74 @@
+/*-
+ * ========================LICENSE_START=================================
+ * restheart-commons
+ * %%
+ * Copyright (C) 2019 - 2020 SoftInstigate
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =========================LICENSE_END==================================
+ */
+package org.restheart.utils;
+
+import java.io.StringReader;
+import java.util.List;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import org.junit.Test;
+
+public class CsvReaderTest {
+    @Test
+    public void testReadRecords() throws Exception {
+        var csv = "a,b,c\r\n1,\"x,y\",\"multi\nline\"\n\n2,,\"say \"\"hi\"\"\"\r3";
+
+        try (var reader = new CsvReader(new StringReader(csv), ",")) {
+            assertEquals(List.of("a", "b", "c"), reader.readRecord());
+            assertEquals(List.of("1", "\"x,y\"", "\"multi\nline\""), reader.readRecord());
+            // the blank line is skipped
+            assertEquals(List.of("2", "", "\"say \"\"hi\"\"\""), reader.readRecord());
+            assertEquals(List.of("3"), reader.readRecord());
+            assertNull(reader.readRecord());
+        }
+    }
+
+    @Test
+    public void testSeparators() throws Exception {
+        try (var reader = new CsvReader(new StringReader("a;b;;c\n"), ";")) {
+            assertEquals(List.of("a", "b", "", "c"), reader.readRecord());
+            assertNull(reader.readRecord());
+        }
+
+        try (var reader = new CsvReader(new StringReader("a::b:c::\"d::e\""), "::")) {
+            assertEquals(List.of("a", "b:c", "\"d::e\""), reader.readRecord());
+            assertNull(reader.readRecord());
+        }
+    }
+
+    @Test
+    public void testLongInput() throws Exception {
+        var sb = new StringBuilder("n,v\n");
+
+        for (int i = 0; i < 10_000; i++) {
+            sb.append(i).append(",\"").append("value ").append(i).append("\"\n");
+        }
+
+        try (var reader = new CsvReader(new StringReader(sb.toString()), ",")) {
+            reader.readRecord();
+
+            for (int i = 0; i < 10_000; i++) {
+                assertEquals(List.of("" + i, "\"value " + i + "\""), reader.readRecord());
+            }
+
+            assertNull(reader.readRecord());
+        }
+    }
+}
@@ -0,0 +1,87 @@
+/*-
+ * ========================LICENSE_START=================================
+ * restheart-commons
+ * %%
+ * Copyright (C) 2019 - 2020 SoftInstigate
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =========================LICENSE_END==================================
+ */
+package org.restheart.utils;
+
+import io.undertow.connector.PooledByteBuffer;
+import io.undertow.util.ImmediatePooledByteBuffer;
+import java.io.ByteArrayInputStream;
+import java.io.StringWriter;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import org.bson.BsonDocument;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+public class Utf8ReaderTest {
+    private static String read(byte[] bytes) throws Exception {
+        var sw = new StringWriter();
+
+        try (var reader = new Utf8Reader(new ByteArrayInputStream(bytes))) {
+            reader.transferTo(sw);
+        }
+
+        return sw.toString();
+    }
+
+    @Test
+    public void testDecode() throws Exception {
+        var s = "a àé € 𝄞 z";
+
+        assertEquals(s, read(s.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    @Test
+    public void testMalformed() throws Exception {
+        byte[][] malformed = {
+            {'a', (byte) 0xC3},
+            {(byte) 0xC3, 'a', (byte) 0xFF, 'b'},
+            {(byte) 0xC0, (byte) 0xAF},
+            {(byte) 0xE0, (byte) 0x80, (byte) 0xAF},
+            {(byte) 0xF4, (byte) 0x90, (byte) 0x80, (byte) 0x80},
+            {(byte) 0xF0, (byte) 0x9D, (byte) 0x84}
+        };
+
+        // same replacements of new String(bytes, UTF_8)
+        for (var bytes : malformed) {
+            assertEquals(Arrays.toString(bytes), new String(bytes, StandardCharsets.UTF_8), read(bytes));
+        }
+    }
+
+    @Test
+    public void testParseFromBuffers() throws Exception {
+        var json = "{\"a\": \"àè\", \"b\": [1, 2, {\"$oid\": \"5f9c1b2a3e4d5c6b7a8f9e0d\"}]}".getBytes(StandardCharsets.UTF_8);
+
+        // split the content in the middle of the two bytes sequence of à
+        var srcs = new PooledByteBuffer[] {
+            new ImmediatePooledByteBuffer(ByteBuffer.wrap(json, 0, 8).slice()),
+            new ImmediatePooledByteBuffer(ByteBuffer.wrap(json, 8, json.length - 8).slice()),
+            null
+        };
+
+        var parsed = BsonUtils.parse(new Utf8Reader(BuffersUtils.toInputStream(srcs)));
+
+        assertTrue(parsed.isDocument());
+        assertEquals(BsonDocument.parse(new String(json, StandardCharsets.UTF_8)), parsed);
+        assertNull(BsonUtils.parse(new Utf8Reader(new ByteArrayInputStream(" \n".getBytes(StandardCharsets.UTF_8)))));
+    }
+}
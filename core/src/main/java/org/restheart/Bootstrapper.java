@@ -90,6 +90,7 @@ import com.jayway.jsonpath.spi.mapper.MappingProvider;
 
 import org.fusesource.jansi.AnsiConsole;
 import org.graalvm.nativeimage.ImageInfo;
+import org.restheart.ConfigurationKeys.EXECUTION_MODE;
 import org.restheart.exchange.Exchange;
 import org.restheart.exchange.ExchangeKeys;
 import org.restheart.exchange.PipelineInfo;
@@ -103,6 +104,7 @@ import org.restheart.handlers.RequestInterceptorsExecutor;
 import org.restheart.handlers.RequestLogger;
 import org.restheart.handlers.RequestNotManagedHandler;
 import org.restheart.handlers.TracingInstrumentationHandler;
+import org.restheart.handlers.VirtualThreadsHandler;
 import org.restheart.handlers.injectors.AuthHeadersRemover;
 import org.restheart.handlers.injectors.ConduitInjector;
 import org.restheart.handlers.injectors.PipelineInfoInjector;
@@ -134,6 +136,7 @@ import org.yaml.snakeyaml.Yaml;
 import io.undertow.Undertow;
 import io.undertow.Undertow.Builder;
 import io.undertow.UndertowOptions;
+import io.undertow.server.HttpHandler;
 import io.undertow.server.handlers.AllowedMethodsHandler;
 import io.undertow.server.handlers.BlockingHandler;
 import io.undertow.server.handlers.GracefulShutdownHandler;
@@ -1023,7 +1026,7 @@ public class Bootstrapper {
                 new RequestLimitingHandler(
                         new RequestLimit(configuration.getRequestsLimit()),
                         new AllowedMethodsHandler(
-                                new BlockingHandler(
+                                executionModeHandler(
                                         new ErrorHandler(
                                                 new HttpContinueAcceptingHandler(
                                                         PluginsRegistryImpl
@@ -1038,6 +1041,27 @@ public class Bootstrapper {
                                 HttpString.tryFromString(ExchangeKeys.METHOD.OPTIONS.name()))));
     }
 
+    /**
+     * the handler that dispatches the requests from the I/O threads according
+     * to the execution-mode
+     *
+     * @param next
+     * @return
+     */
+    private static HttpHandler executionModeHandler(HttpHandler next) {
+        if (configuration.getExecutionMode() == EXECUTION_MODE.VIRTUAL_THREADS) {
+            if (VirtualThreadsHandler.isSupported()) {
+                LOGGER.info("Requests are executed on virtual threads");
+                return new VirtualThreadsHandler(next);
+            } else {
+                LOGGER.warn("Virtual threads are not supported by the Java runtime, "
+                        + "requests are executed on the worker threads");
+            }
+        }
+
+        return new BlockingHandler(next);
+    }
+
     /**
      * plug services
      *
@@ -22,8 +22,6 @@ package org.restheart.handlers;
 
 import io.undertow.server.HttpServerExchange;
 
-import java.util.List;
-
 import org.restheart.exchange.ByteArrayProxyRequest;
 import org.restheart.exchange.ByteArrayProxyResponse;
 import org.restheart.exchange.Exchange;
@@ -33,7 +31,6 @@ import org.restheart.exchange.ServiceRequest;
 import org.restheart.exchange.ServiceResponse;
 import org.restheart.plugins.InterceptPoint;
 import org.restheart.plugins.Interceptor;
-import org.restheart.plugins.PluginsRegistry;
 import org.restheart.plugins.PluginsRegistryImpl;
 import org.restheart.utils.HttpStatus;
 import org.restheart.utils.LambdaUtils;
@@ -53,7 +50,7 @@ public class RequestInterceptorsExecutor extends PipelinedHandler {
 
     private final InterceptPoint interceptPoint;
 
-    private final PluginsRegistry pluginsRegistry;
+    private final PluginsRegistryImpl pluginsRegistry;
 
     /**
      *
@@ -89,50 +86,60 @@ public class RequestInterceptorsExecutor extends PipelinedHandler {
 
         var handlingService = PluginUtils.handlingService(pluginsRegistry, exchange);
 
-        List<Interceptor> interceptors;
-
         if (handlingService != null) {
             request = ServiceRequest.of(exchange, ServiceRequest.class);
             response = ServiceResponse.of(exchange, ServiceResponse.class);
-            interceptors = pluginsRegistry.getServiceInterceptors(handlingService, interceptPoint);
         } else {
             request = ByteArrayProxyRequest.of(exchange);
             response = ByteArrayProxyResponse.of(exchange);
-            interceptors = pluginsRegistry.getProxyInterceptors(interceptPoint);
         }
 
-        interceptors.stream().filter(ri -> {
-                    try {
-                        return ri.resolve(request, response);
-                    } catch (Exception e) {
-                        LOGGER.warn("Error resolving interceptor {} for {} on intercept point {}",
-                                ri.getClass().getSimpleName(),
-                                exchange.getRequestPath(),
-                                interceptPoint,
-                                e);
-
-                        return false;
-                    }
-                })
-                .forEachOrdered(ri -> {
-                    try {
-                        LOGGER.debug("Executing interceptor {} for {} on intercept point {}",
-                            PluginUtils.name(ri),
-                            exchange.getRequestPath(),
-                            interceptPoint);
-
-                        ri.handle(request, response);
-                    } catch (Exception ex) {
-                        LOGGER.error("Error executing interceptor {} for {} on intercept point {}",
-                            PluginUtils.name(ri),
-                            exchange.getRequestPath(),
-                            interceptPoint,
-                            ex);
-
-                        Exchange.setInError(exchange);
-                        LambdaUtils.throwsSneakyException(ex);
-                    }
-                });
+        var interceptors = pluginsRegistry.getInterceptorsChain(handlingService, interceptPoint);
+
+        for (int i = 0; i < interceptors.size(); i++) {
+            // the cheap static checks before resolve()
+            if (!interceptors.appliesTo(i, exchange)) {
+                continue;
+            }
+
+            Interceptor ri = interceptors.get(i);
+
+            boolean resolved;
+
+            try {
+                resolved = ri.resolve(request, response);
+            } catch (Exception e) {
+                LOGGER.warn("Error resolving interceptor {} for {} on intercept point {}",
+                        ri.getClass().getSimpleName(),
+                        exchange.getRequestPath(),
+                        interceptPoint,
+                        e);
+
+                resolved = false;
+            }
+
+            if (!resolved) {
+                continue;
+            }
+
+            try {
+                LOGGER.debug("Executing interceptor {} for {} on intercept point {}",
+                    PluginUtils.name(ri),
+                    exchange.getRequestPath(),
+                    interceptPoint);
+
+                ri.handle(request, response);
+            } catch (Exception ex) {
+                LOGGER.error("Error executing interceptor {} for {} on intercept point {}",
+                    PluginUtils.name(ri),
+                    exchange.getRequestPath(),
+                    interceptPoint,
+                    ex);
+
+                Exchange.setInError(exchange);
+                LambdaUtils.throwsSneakyException(ex);
+            }
+        }
 
         // If an interceptor sets the response as errored
         // stop processing the request and send the response
@@ -21,7 +21,6 @@
 package org.restheart.handlers;
 
 import io.undertow.server.HttpServerExchange;
-import java.util.List;
 import org.restheart.exchange.ByteArrayProxyRequest;
 import org.restheart.exchange.ByteArrayProxyResponse;
 import org.restheart.exchange.Exchange;
@@ -31,12 +30,11 @@ import org.restheart.exchange.ServiceRequest;
 import org.restheart.exchange.ServiceResponse;
 import org.restheart.plugins.InterceptPoint;
 import org.restheart.plugins.Interceptor;
-import org.restheart.plugins.PluginsRegistry;
+import org.restheart.plugins.InterceptorsChain;
 import org.restheart.plugins.PluginsRegistryImpl;
 import org.restheart.plugins.Service;
 import org.restheart.utils.LambdaUtils;
 import org.restheart.utils.PluginUtils;
-import static org.restheart.utils.PluginUtils.requiresContent;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -51,7 +49,7 @@ public class ResponseInterceptorsExecutor extends PipelinedHandler {
 
     private final boolean filterRequiringContent;
 
-    private final PluginsRegistry pluginsRegistry = PluginsRegistryImpl.getInstance();
+    private final PluginsRegistryImpl pluginsRegistry = PluginsRegistryImpl.getInstance();
 
     public ResponseInterceptorsExecutor() {
         this(null, false);
@@ -104,42 +102,32 @@ public class ResponseInterceptorsExecutor extends PipelinedHandler {
 
         Exchange.setResponseInterceptorsExecuted(exchange);
 
-        List<Interceptor> inteceptors;
+        var interceptors = this.pluginsRegistry.getInterceptorsChain(handlingService, InterceptPoint.RESPONSE);
 
-        if (handlingService != null) {
-            inteceptors = this.pluginsRegistry.getServiceInterceptors(handlingService, InterceptPoint.RESPONSE);
-        } else {
-            inteceptors = this.pluginsRegistry.getProxyInterceptors(InterceptPoint.RESPONSE);
-        }
+        for (int i = 0; i < interceptors.size(); i++) {
+            if (!resolve(interceptors, i, exchange, InterceptPoint.RESPONSE, request, response)) {
+                continue;
+            }
 
-        inteceptors.stream()
-                .filter(ri -> !this.filterRequiringContent || !requiresContent(ri)).filter(ri -> {
-                    try {
-                        return ri.resolve(request, response);
-                    } catch (Exception e) {
-                        LOGGER.warn("Error resolving interceptor {} for {} on intercept point {}",
-                                ri.getClass().getSimpleName(), exchange.getRequestPath(), InterceptPoint.RESPONSE, e);
-
-                        return false;
-                    }
-                }).forEachOrdered(ri -> {
-                    LOGGER.debug("Executing interceptor {} for {} on intercept point {}", 
-                                PluginUtils.name(ri),
-                        exchange.getRequestPath(),
-                        InterceptPoint.RESPONSE);
-
-                    try {
-                        ri.handle(request, response);
-                    } catch (Exception ex) {
-                        LOGGER.error("Error executing interceptor {} for {} on intercept point {}",
-                            PluginUtils.name(ri),
-                            exchange.getRequestPath(),
-                            InterceptPoint.RESPONSE, ex);
-
-                        Exchange.setInError(exchange);
-                        LambdaUtils.throwsSneakyException(ex);
-                    }
-                });
+            Interceptor ri = interceptors.get(i);
+
+            LOGGER.debug("Executing interceptor {} for {} on intercept point {}",
+                PluginUtils.name(ri),
+                exchange.getRequestPath(),
+                InterceptPoint.RESPONSE);
+
+            try {
+                ri.handle(request, response);
+            } catch (Exception ex) {
+                LOGGER.error("Error executing interceptor {} for {} on intercept point {}",
+                    PluginUtils.name(ri),
+                    exchange.getRequestPath(),
+                    InterceptPoint.RESPONSE, ex);
+
+                Exchange.setInError(exchange);
+                LambdaUtils.throwsSneakyException(ex);
+            }
+        }
     }
 
     @SuppressWarnings({"unchecked","rawtypes"})
@@ -148,51 +136,63 @@ public class ResponseInterceptorsExecutor extends PipelinedHandler {
             Request request,
             Response response) {
 
-        List<Interceptor> inteceptors;
+        var interceptors = this.pluginsRegistry.getInterceptorsChain(handlingService, InterceptPoint.RESPONSE_ASYNC);
 
-        if (handlingService != null) {
-            inteceptors = this.pluginsRegistry.getServiceInterceptors(handlingService, InterceptPoint.RESPONSE_ASYNC);
-        } else {
-            inteceptors = this.pluginsRegistry.getProxyInterceptors(InterceptPoint.RESPONSE_ASYNC);
+        Exchange.setResponseInterceptorsExecuted(exchange);
+
+        for (int i = 0; i < interceptors.size(); i++) {
+            if (!resolve(interceptors, i, exchange, InterceptPoint.RESPONSE_ASYNC, request, response)) {
+                continue;
+            }
+
+            Interceptor ri = interceptors.get(i);
+
+            exchange.getConnection().getWorker().execute(() -> {
+                LOGGER.debug("Executing interceptor {} for {} on intercept point {}",
+                    PluginUtils.name(ri),
+                    exchange.getRequestPath(),
+                    InterceptPoint.RESPONSE_ASYNC);
+
+                try {
+                    ri.handle(request, response);
+                } catch (Exception ex) {
+                    LOGGER.error("Error executing interceptor {} for {} on intercept point {}",
+                        PluginUtils.name(ri),
+                        exchange.getRequestPath(),
+                        InterceptPoint.RESPONSE_ASYNC,
+                        ex);
+
+                    Exchange.setInError(exchange);
+                    LambdaUtils.throwsSneakyException(ex);
+                }
+            });
         }
+    }
 
-        Exchange.setResponseInterceptorsExecuted(exchange);
+    /**
+     * the cheap static checks are performed before resolve()
+     */
+    @SuppressWarnings({"unchecked","rawtypes"})
+    private boolean resolve(InterceptorsChain interceptors, int idx, HttpServerExchange exchange,
+            InterceptPoint interceptPoint, Request request, Response response) {
+        if ((this.filterRequiringContent && interceptors.requiresContent(idx))
+                || !interceptors.appliesTo(idx, exchange)) {
+            return false;
+        }
 
-        inteceptors.stream()
-                .filter(ri -> !this.filterRequiringContent || !requiresContent(ri))
-                .filter(ri -> {
-                    try {
-                        return ri.resolve(request, response);
-                    } catch (Exception e) {
-                        LOGGER.warn("Error resolving interceptor {} for {} on intercept point {}",
-                            ri.getClass().getSimpleName(),
-                            exchange.getRequestPath(),
-                            InterceptPoint.RESPONSE_ASYNC);
-
-                        return false;
-                    }
-                })
-                .forEachOrdered(ri -> {
-                    exchange.getConnection().getWorker().execute(() -> {
-                        LOGGER.debug("Executing interceptor {} for {} on intercept point {}",
-                            PluginUtils.name(ri),
-                            exchange.getRequestPath(),
-                            InterceptPoint.RESPONSE_ASYNC);
-
-                        try {
-                            ri.handle(request, response);
-                        } catch (Exception ex) {
-                            LOGGER.error("Error executing interceptor {} for {} on intercept point {}",
-                                PluginUtils.name(ri),
-                                exchange.getRequestPath(),
-                                InterceptPoint.RESPONSE_ASYNC,
-                                ex);
-
-                            Exchange.setInError(exchange);
-                            LambdaUtils.throwsSneakyException(ex);
-                        }
-                    });
-                });
+        Interceptor ri = interceptors.get(idx);
+
+        try {
+            return ri.resolve(request, response);
+        } catch (Exception e) {
+            LOGGER.warn("Error resolving interceptor {} for {} on intercept point {}",
+                ri.getClass().getSimpleName(),
+                exchange.getRequestPath(),
+                interceptPoint,
+                e);
+
+            return false;
+        }
     }
 
 }
@@ -24,8 +24,10 @@ import io.undertow.server.HttpServerExchange;
 import java.nio.ByteBuffer;
 import org.restheart.exchange.ByteArrayProxyResponse;
 import org.restheart.exchange.PipelineInfo;
+import org.restheart.exchange.Request;
 import org.restheart.exchange.ServiceResponse;
 import org.restheart.plugins.PluginsRegistryImpl;
+import org.restheart.utils.PluginUtils;
 
 /**
  *
@@ -58,17 +60,23 @@ public class ResponseSender extends PipelinedHandler {
     @SuppressWarnings({"unchecked","rawtypes"})
     public void handleRequest(HttpServerExchange exchange) throws Exception {
         var registry = PluginsRegistryImpl.getInstance();
-        var path = exchange.getRequestPath();
 
-        var pi = registry.getPipelineInfo(path);
+        var pi = Request.of(exchange).getPipelineInfo();
+
+        if (pi == null) {
+            pi = registry.getPipelineInfo(exchange.getRequestPath());
+        }
+
+        if (pi == null) {
+            next(exchange);
+            return;
+        }
 
         if (pi.getType() == PipelineInfo.PIPELINE_TYPE.SERVICE) {
-            var srv = registry.getServices().stream()
-                    .filter(s -> s.getName().equals(pi.getName()))
-                    .findAny();
+            var srv = PluginUtils.handlingServicePluginRecord(registry, exchange);
 
-            if (srv.isPresent()) {
-                var response = (ServiceResponse) srv.get().getInstance()
+            if (srv != null) {
+                var response = (ServiceResponse) srv.getInstance()
                         .response().apply(exchange);
 
                 if (response.getStatusCode() > 0) {
@@ -79,9 +87,9 @@ public class ResponseSender extends PipelinedHandler {
                 if (response.getCustomerSender() != null) {
                     // use the custom sender if it has been set
                     response.getCustomerSender().run();
-                } else if (response.readContent() != null) {
+                } else {
                     // send the content via default exchange response sender
-                    exchange.getResponseSender().send(response.readContent());
+                    response.sendContent();
                 }
             }
 
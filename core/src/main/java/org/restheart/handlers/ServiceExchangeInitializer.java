@@ -30,6 +30,7 @@ import org.restheart.exchange.Exchange;
 import org.restheart.plugins.PluginsRegistryImpl;
 import org.restheart.utils.HttpStatus;
 import org.restheart.utils.BsonUtils;
+import org.restheart.utils.PluginUtils;
 
 /**
  * Initializes the Request and the Response invoking requestInitializer() and
@@ -49,22 +50,16 @@ public class ServiceExchangeInitializer extends PipelinedHandler {
     @Override
     @SuppressWarnings("unchecked")
     public void handleRequest(HttpServerExchange exchange) throws Exception {
-        var registry = PluginsRegistryImpl.getInstance();
-        var path = exchange.getRequestPath();
+        // looks up the handling service and attaches it to the exchange
+        var srv = PluginUtils.handlingServicePluginRecord(PluginsRegistryImpl.getInstance(), exchange);
 
-        var pi = registry.getPipelineInfo(path);
-
-        var srv = registry.getServices().stream()
-                .filter(s -> s.getName().equals(pi.getName()))
-                .findAny();
-
-        if (srv.isPresent()) {
+        if (srv != null) {
             try {
-                srv.get().getInstance()
+                srv.getInstance()
                         .requestInitializer()
                         .accept(exchange);
 
-                srv.get().getInstance()
+                srv.getInstance()
                         .responseInitializer()
                         .accept(exchange);
 
@@ -0,0 +1,95 @@
+/*-
+ * ========================LICENSE_START=================================
+ * restheart-core
+ * %%
+ * Copyright (C) 2014 - 2020 SoftInstigate
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * =========================LICENSE_END==================================
+ */
+package org.restheart.handlers;
+
+import io.undertow.server.HttpHandler;
+import io.undertow.server.HttpServerExchange;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The alternative to BlockingHandler for execution-mode VIRTUAL_THREADS:
+ * it starts blocking mode and dispatches the exchange to a new virtual
+ * thread, so that requests waiting for I/O (e.g. slow MongoDB queries) do not
+ * hold a worker thread.
+ *
+ * Virtual threads are looked up reflectively, so that RESTHeart still builds
+ * and runs on Java runtimes not supporting them; in this case isSupported()
+ * returns false.
+ */
+public class VirtualThreadsHandler implements HttpHandler {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(VirtualThreadsHandler.class);
+
+    private static final Executor EXECUTOR = virtualThreadPerTaskExecutor();
+
+    private final HttpHandler next;
+
+    /**
+     * Creates a new instance of VirtualThreadsHandler
+     *
+     * @param next
+     */
+    public VirtualThreadsHandler(HttpHandler next) {
+        if (!isSupported()) {
+            throw new IllegalStateException("virtual threads are not supported by the Java runtime");
+        }
+
+        this.next = next;
+    }
+
+    /**
+     *
+     * @return true if the Java runtime supports virtual threads
+     */
+    public static boolean isSupported() {
+        return EXECUTOR != null;
+    }
+
+    /**
+     *
+     * @param exchange
+     * @throws Exception
+     */
+    @Override
+    public void handleRequest(HttpServerExchange exchange) throws Exception {
+        exchange.startBlocking();
+
+        if (exchange.isInIoThread()) {
+            exchange.dispatch(EXECUTOR, next);
+        } else {
+            next.handleRequest(exchange);
+        }
+    }
+
+    private static Executor virtualThreadPerTaskExecutor() {
+        try {
+            return (Executor) Executors.class
+                    .getMethod("newVirtualThreadPerTaskExecutor")
+                    .invoke(null);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            LOGGER.debug("Virtual threads are not supported by the Java runtime", e);
+            return null;
+        }
+    }
+}
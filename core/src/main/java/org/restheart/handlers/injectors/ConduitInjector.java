@@ -25,6 +25,7 @@ import io.undertow.util.AttachmentKey;
 import io.undertow.util.ConduitFactory;
 import io.undertow.util.HeaderMap;
 import io.undertow.util.Headers;
+import java.util.ArrayList;
 import org.restheart.exchange.ByteArrayProxyResponse;
 import org.restheart.handlers.ContentStreamSinkConduit;
 import org.restheart.handlers.ModifiableContentSinkConduit;
@@ -85,7 +86,7 @@ public class ConduitInjector extends PipelinedHandler {
      * @param exchange
      */
     private static void forceIdentityEncodingForInterceptors(HttpServerExchange exchange) {
-        var inteceptors = PLUGINS_REGISTRY.getProxyInterceptors(RESPONSE);
+        var inteceptors = new ArrayList<>(PLUGINS_REGISTRY.getProxyInterceptors(RESPONSE));
             inteceptors.addAll(PLUGINS_REGISTRY.getProxyInterceptors(RESPONSE_ASYNC));
 
         if (inteceptors.stream().anyMatch(ri -> requiresContent(ri))) {
@@ -128,7 +129,7 @@ public class ConduitInjector extends PipelinedHandler {
                 MDC.setContextMap(mdcCtx);
             }
 
-            var inteceptors = PLUGINS_REGISTRY.getProxyInterceptors(RESPONSE);
+            var inteceptors = new ArrayList<>(PLUGINS_REGISTRY.getProxyInterceptors(RESPONSE));
             inteceptors.addAll(PLUGINS_REGISTRY.getProxyInterceptors(RESPONSE_ASYNC));
 
             if (inteceptors.stream().anyMatch(ri -> requiresContent(ri))) {
@@ -40,10 +40,6 @@ import org.restheart.plugins.Interceptor;
 import org.restheart.plugins.PluginsRegistry;
 import org.restheart.plugins.PluginsRegistryImpl;
 import org.restheart.utils.PluginUtils;
-import static org.restheart.utils.PluginUtils.requiresContent;
-
-import java.util.List;
-
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -135,33 +131,38 @@ public class RequestContentInjector extends PipelinedHandler {
 
         var handlingService = PluginUtils.handlingService(pluginsRegistry, exchange);
 
-        List<Interceptor> interceptors;
-
         if (handlingService != null) {
             request = ServiceRequest.of(exchange, ServiceRequest.class);
             response = ServiceResponse.of(exchange, ServiceResponse.class);
-            interceptors = this.pluginsRegistry.getServiceInterceptors(handlingService, interceptPoint);
-
         } else {
             request = ByteArrayProxyRequest.of(exchange);
             response = ByteArrayProxyResponse.of(exchange);
-            interceptors = this.pluginsRegistry.getProxyInterceptors(interceptPoint);
         }
 
-        return interceptors.stream().filter(ri -> {
-                    try {
-                        return ri.resolve(request, response);
-                    } catch (Exception e) {
-                        LOGGER.warn("Error resolving interceptor {} for {} on intercept point {}",
-                                ri.getClass().getSimpleName(),
-                                exchange.getRequestPath(),
-                                interceptPoint,
-                                e);
-
-                        return false;
-                    }
-                })
-                .anyMatch(ri -> requiresContent(ri));
+        var interceptors = this.pluginsRegistry.getInterceptorsChain(handlingService, interceptPoint);
+
+        for (int i = 0; i < interceptors.size(); i++) {
+            // the cheap static checks before resolve()
+            if (!interceptors.requiresContent(i) || !interceptors.appliesTo(i, exchange)) {
+                continue;
+            }
+
+            Interceptor ri = interceptors.get(i);
+
+            try {
+                if (ri.resolve(request, response)) {
+                    return true;
+                }
+            } catch (Exception e) {
+                LOGGER.warn("Error resolving interceptor {} for {} on intercept point {}",
+                        ri.getClass().getSimpleName(),
+                        exchange.getRequestPath(),
+                        interceptPoint,
+                        e);
+            }
+        }
+
+        return false;
     }
 
     private void markInjected(HttpServerExchange exchange) {
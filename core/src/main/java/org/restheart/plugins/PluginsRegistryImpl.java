@@ -28,6 +28,8 @@ import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.stream.Collectors;
 
 import java.util.Objects;
@@ -35,9 +37,6 @@ import com.google.common.collect.Lists;
 import com.mongodb.MongoClient;
 
 import org.restheart.ConfigurationException;
-import org.restheart.cache.CacheFactory;
-import org.restheart.cache.LoadingCache;
-import org.restheart.cache.Cache.EXPIRE_POLICY;
 import org.restheart.exchange.ByteArrayProxyRequest;
 import org.restheart.exchange.ByteArrayProxyResponse;
 import org.restheart.exchange.PipelineInfo;
@@ -77,16 +76,17 @@ import io.undertow.util.PathMatcher;
  */
 public class PluginsRegistryImpl implements PluginsRegistry {
 
-    private static PluginsRegistryImpl HOLDER;
     private static final PathHandler ROOT_PATH_HANDLER = path();
     private static final PathMatcher<PipelineInfo> PIPELINE_INFOS = new PathMatcher<>();
 
-    public static synchronized PluginsRegistryImpl getInstance() {
-        if (HOLDER == null) {
-            HOLDER = new PluginsRegistryImpl();
-        }
+    // the holder idiom avoids to synchronize getInstance(), that is invoked
+    // at each request
+    public static PluginsRegistryImpl getInstance() {
+        return PluginsRegistryImplHolder.INSTANCE;
+    }
 
-        return HOLDER;
+    private static class PluginsRegistryImplHolder {
+        private static final PluginsRegistryImpl INSTANCE = new PluginsRegistryImpl();
     }
 
     private Set<PluginRecord<AuthMechanism>> authMechanisms;
@@ -231,52 +231,62 @@ public class PluginsRegistryImpl implements PluginsRegistry {
     @Override
     @SuppressWarnings("rawtypes")
     public void addInterceptor(PluginRecord<Interceptor> i) {
-        this.SRV_INTERCEPTORS_CACHE.invalidateAll();
-
         if (this.interceptors == null) {
             // avoid NPE if not already initialized
             getInterceptors();
         }
 
         this.interceptors.add(i);
+
+        invalidateInterceptorsChains();
     }
 
     @Override
     @SuppressWarnings("rawtypes")
     public boolean removeInterceptorIf(java.util.function.Predicate<? super PluginRecord<Interceptor>> filter) {
-        this.SRV_INTERCEPTORS_CACHE.invalidateAll();
-        return this.interceptors.removeIf(filter);
+        var removed = this.interceptors.removeIf(filter);
+
+        invalidateInterceptorsChains();
+
+        return removed;
     }
 
-    @SuppressWarnings("rawtypes")
-    private LoadingCache<ICKey, List<Interceptor>> SRV_INTERCEPTORS_CACHE = CacheFactory
-        .createLocalLoadingCache(Integer.MAX_VALUE, EXPIRE_POLICY.NEVER, 0,
-            (key) -> __interceptors(key.service, key.interceptPoint));
+    // the compiled interceptors chains, replaced as a whole after services or
+    // interceptors change: a chain compiled concurrently with a change is
+    // stored in the replaced InterceptorsChains and never used again
+    private volatile InterceptorsChains INTERCEPTORS_CHAINS = new InterceptorsChains();
+
+    /**
+     * must be called after the services or interceptors change
+     */
+    private void invalidateInterceptorsChains() {
+        this.INTERCEPTORS_CHAINS = new InterceptorsChains();
+    }
 
-    class ICKey {
-        final Service<?,?> service;
-        final InterceptPoint interceptPoint;
+    /**
+     * the chains of the services and of the proxies, indexed by
+     * InterceptPoint.ordinal()
+     */
+    private static class InterceptorsChains {
+        @SuppressWarnings("rawtypes")
+        private final ConcurrentHashMap<Service, InterceptorsChain[]> services = new ConcurrentHashMap<>();
+        private final AtomicReference<InterceptorsChain[]> proxies = new AtomicReference<>();
+    }
 
-        ICKey(Service<?,?> service, InterceptPoint interceptPoint) {
-            this.service = service;
-            this.interceptPoint = interceptPoint;
-        }
+    @SuppressWarnings("rawtypes")
+    private InterceptorsChain[] compileInterceptorsChains(Service service) {
+        var ips = InterceptPoint.values();
+        var ret = new InterceptorsChain[ips.length];
 
-        @Override
-        public int hashCode() {
-            return Objects.hash(service, interceptPoint);
-        }
+        for (var ip : ips) {
+            var interceptors = __interceptors(service, ip);
 
-        @Override
-        public boolean equals(Object obj) {
-            if (obj == null) {
-                return false;
-            } else if (obj instanceof ICKey) {
-                return hashCode() == obj.hashCode();
-            } else {
-                return false;
-            }
+            ret[ip.ordinal()] = interceptors.isEmpty()
+                ? InterceptorsChain.EMPTY
+                : new InterceptorsChain(interceptors.toArray(new Interceptor[interceptors.size()]));
         }
+
+        return ret;
     }
 
     @SuppressWarnings("rawtypes")
@@ -291,6 +301,8 @@ public class PluginsRegistryImpl implements PluginsRegistry {
             }
         }
 
+        var serviceName = service == null ? null : PluginUtils.name(service);
+
         return getInterceptors()
                 .stream()
                 .filter(ri -> ri.isEnabled())
@@ -308,9 +320,43 @@ public class PluginsRegistryImpl implements PluginsRegistry {
                     && PluginUtils.cachedRequestType(ri).equals(PluginUtils.cachedRequestType(service))
                     && PluginUtils.cachedResponseType(ri).equals(PluginUtils.cachedResponseType(service))))
                 .filter(ri -> interceptPoint == PluginUtils.interceptPoint(ri))
+                // interceptors restricted to some services don't intercept proxied requests
+                .filter(ri -> {
+                    var srvs = PluginUtils.interceptedServices(ri);
+                    return srvs.length == 0 || (serviceName != null && Arrays.asList(srvs).contains(serviceName));
+                })
                 .collect(Collectors.toList());
     }
 
+    /**
+     * The chains are compiled on first use and after services or interceptors
+     * change
+     *
+     * @param srv the service or null for proxies
+     * @param interceptPoint
+     * @return the interceptors chain of the service srv or of the proxies
+     */
+    @Override
+    public InterceptorsChain getInterceptorsChain(Service<?,?> srv, InterceptPoint interceptPoint) {
+        Objects.requireNonNull(interceptPoint);
+
+        var chains = this.INTERCEPTORS_CHAINS;
+
+        if (srv == null) {
+            var proxyChains = chains.proxies.get();
+
+            if (proxyChains == null) {
+                chains.proxies.compareAndSet(null, compileInterceptorsChains(null));
+                proxyChains = chains.proxies.get();
+            }
+
+            return proxyChains[interceptPoint.ordinal()];
+        } else {
+            return chains.services
+                .computeIfAbsent(srv, this::compileInterceptorsChains)[interceptPoint.ordinal()];
+        }
+    }
+
     /**
      * @return the interceptors of the service srv
      * @param srv
@@ -321,11 +367,8 @@ public class PluginsRegistryImpl implements PluginsRegistry {
     @SuppressWarnings("rawtypes")
     public List<Interceptor> getServiceInterceptors(Service<?,?> srv, InterceptPoint interceptPoint) {
         Objects.requireNonNull(srv);
-        Objects.requireNonNull(interceptPoint);
 
-        var _ret =  SRV_INTERCEPTORS_CACHE.getLoading(new ICKey(srv, interceptPoint));
-
-        return _ret.isPresent() ? _ret.get() : Lists.newArrayList();
+        return getInterceptorsChain(srv, interceptPoint).asList();
     }
 
     /**
@@ -336,9 +379,7 @@ public class PluginsRegistryImpl implements PluginsRegistry {
     @Override
     @SuppressWarnings("rawtypes")
     public List<Interceptor> getProxyInterceptors(InterceptPoint interceptPoint) {
-        var _ret =  SRV_INTERCEPTORS_CACHE.getLoading(new ICKey(null, interceptPoint));
-
-        return _ret.isPresent() ? _ret.get() : Lists.newArrayList();
+        return getInterceptorsChain(null, interceptPoint).asList();
     }
 
     /**
@@ -455,8 +496,8 @@ public class PluginsRegistryImpl implements PluginsRegistry {
 
             this.services.add(srv);
 
-            // service list changed, invalidate cache
-            this.SRV_INTERCEPTORS_CACHE.invalidateAll();
+            // service list changed, invalidate the interceptors chains
+            invalidateInterceptorsChains();
     }
 
     /**
@@ -479,6 +520,6 @@ public class PluginsRegistryImpl implements PluginsRegistry {
         }
 
         // service list changed, invalidate cache
-        this.SRV_INTERCEPTORS_CACHE.invalidateAll();
+        invalidateInterceptorsChains();
     }
 }
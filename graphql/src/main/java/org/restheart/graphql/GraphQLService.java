@@ -23,7 +23,6 @@ package org.restheart.graphql;
 import com.google.gson.Gson;
 import com.mongodb.MongoClient;
 import graphql.ExecutionInput;
-import graphql.GraphQL;
 import io.undertow.server.HttpServerExchange;
 import org.restheart.ConfigurationException;
 import org.restheart.exchange.BadRequestException;
@@ -31,6 +30,7 @@ import org.restheart.exchange.MongoResponse;
 import org.restheart.graphql.cache.AppDefinitionLoader;
 import org.restheart.graphql.cache.AppDefinitionLoadingCache;
 import org.restheart.graphql.datafetchers.GraphQLDataFetcher;
+import org.restheart.graphql.dataloaders.QueryBatchLoader;
 import org.restheart.graphql.exchange.GraphQLRequest;
 import org.restheart.graphql.models.GraphQLApp;
 import org.restheart.graphql.scalars.bsonCoercing.CoercingUtils;
@@ -55,7 +55,6 @@ public class GraphQLService implements Service<GraphQLRequest, MongoResponse> {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(GraphQLService.class);
 
-    private GraphQL gql;
     private MongoClient mongoClient = null;
     private String db = null;
     private String collection = null;
@@ -68,6 +67,7 @@ public class GraphQLService implements Service<GraphQLRequest, MongoResponse> {
 
         if(mongoClient != null){
             GraphQLDataFetcher.setMongoClient(mongoClient);
+            QueryBatchLoader.setMongoClient(mongoClient);
             AppDefinitionLoader.setup(db, collection, mongoClient);
         }
     }
@@ -77,6 +77,7 @@ public class GraphQLService implements Service<GraphQLRequest, MongoResponse> {
         this.mongoClient = mClient;
         if (db!= null && collection != null){
             GraphQLDataFetcher.setMongoClient(mongoClient);
+            QueryBatchLoader.setMongoClient(mongoClient);
             AppDefinitionLoader.setup(db, collection, mongoClient);
         }
     }
@@ -89,13 +90,12 @@ public class GraphQLService implements Service<GraphQLRequest, MongoResponse> {
         GraphQLApp graphQLApp = request.getAppDefinition();
         ExecutionInput.Builder inputBuilder = ExecutionInput.newExecutionInput().query(request.getQuery());
         inputBuilder.operationName(request.getOperationName());
+        inputBuilder.dataLoaderRegistry(graphQLApp.newDataLoaderRegistry());
         if (request.hasVariables()){
             inputBuilder.variables((new Gson()).fromJson(request.getVariables(), Map.class));
         }
 
-        this.gql = GraphQL.newGraphQL(graphQLApp.getExecutableSchema()).build();
-
-        var result = this.gql.execute(inputBuilder.build());
+        var result = graphQLApp.getGraphQL().execute(inputBuilder.build());
 
         if (!result.getErrors().isEmpty()){
             response.setInError(400, "Bad Request");
@@ -0,0 +1,62 @@
+/*-
+ * ========================LICENSE_START=================================
+ * restheart-graphql
+ * %%
+ * Copyright (C) 2020 - 2021 SoftInstigate
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * =========================LICENSE_END==================================
+ */
+package org.restheart.graphql.cache;
+
+import graphql.ExecutionInput;
+import graphql.execution.preparsed.PreparsedDocumentEntry;
+import graphql.execution.preparsed.PreparsedDocumentProvider;
+import org.restheart.cache.Cache;
+import org.restheart.cache.CacheFactory;
+
+import java.util.function.Function;
+
+/**
+ * Caches the parsed and validated documents of the queries of a GraphQL app,
+ * keyed by the query text.
+ *
+ * Each app has its own instance, so the cached documents, that are validated
+ * against the app schema, are discarded together with the app definition.
+ */
+public class PreparsedDocumentsCache implements PreparsedDocumentProvider {
+
+    private static final long MAX_CACHE_SIZE = 1_000;
+
+    private final Cache<String, PreparsedDocumentEntry> documents = CacheFactory.createLocalCache(MAX_CACHE_SIZE,
+            Cache.EXPIRE_POLICY.NEVER, -1);
+
+    @Override
+    public PreparsedDocumentEntry getDocument(ExecutionInput executionInput,
+            Function<ExecutionInput, PreparsedDocumentEntry> parseAndValidateFunction) {
+        var query = executionInput.getQuery();
+
+        var cached = this.documents.get(query);
+
+        if (cached != null && cached.isPresent()) {
+            return cached.get();
+        }
+
+        var entry = parseAndValidateFunction.apply(executionInput);
+
+        this.documents.put(query, entry);
+
+        return entry;
+    }
+}
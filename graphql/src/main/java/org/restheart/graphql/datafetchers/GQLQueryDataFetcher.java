@@ -24,6 +24,8 @@ import com.mongodb.client.FindIterable;
 import graphql.schema.DataFetchingEnvironment;
 import graphql.schema.GraphQLList;
 import org.bson.*;
+import org.dataloader.DataLoader;
+import org.restheart.graphql.dataloaders.QueryBatchLoader;
 import org.restheart.graphql.models.QueryMapping;
 
 public class GQLQueryDataFetcher extends GraphQLDataFetcher {
@@ -38,12 +40,32 @@ public class GQLQueryDataFetcher extends GraphQLDataFetcher {
     }
 
     @Override
-    public BsonValue get(DataFetchingEnvironment dataFetchingEnvironment) throws Exception {
+    public Object get(DataFetchingEnvironment dataFetchingEnvironment) throws Exception {
 
         QueryMapping queryMapping = (QueryMapping) this.fieldMapping;
 
         BsonDocument int_args = queryMapping.interpolateArgs(dataFetchingEnvironment);
 
+        boolean isMultiple = dataFetchingEnvironment.getFieldDefinition().getType() instanceof GraphQLList;
+
+        DataLoader<BsonValue, BsonValue> dataLoader = dataFetchingEnvironment.getDataLoader(queryMapping.getDataLoaderKey());
+
+        // batch the queries on the same collection, unless they cannot be executed by the aggregation pipeline
+        if (dataLoader != null && QueryBatchLoader.canBatch(int_args)) {
+            if (!isMultiple && !int_args.containsKey(LIMIT_FIELD)) {
+                int_args.put(LIMIT_FIELD, new BsonInt32(1));
+            }
+
+            return dataLoader.load(int_args).thenApply(results -> {
+                if (isMultiple) {
+                    return results;
+                }
+
+                var _results = results.asArray();
+                return _results.isEmpty() ? null : _results.get(0);
+            });
+        }
+
         FindIterable<BsonValue> query = mongoClient.getDatabase(queryMapping.getDb())
                 .getCollection(queryMapping.getCollection(), BsonValue.class)
                 .find(
@@ -63,8 +85,6 @@ public class GQLQueryDataFetcher extends GraphQLDataFetcher {
             query = query.limit(int_args.get(LIMIT_FIELD).asInt32().getValue());
         }
 
-        boolean isMultiple = dataFetchingEnvironment.getFieldDefinition().getType() instanceof GraphQLList;
-
         BsonValue queryResult;
         if (isMultiple) {
             BsonArray results = new BsonArray();
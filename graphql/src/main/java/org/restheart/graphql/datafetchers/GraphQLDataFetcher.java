@@ -22,10 +22,9 @@ package org.restheart.graphql.datafetchers;
 
 import com.mongodb.MongoClient;
 import graphql.schema.DataFetcher;
-import org.bson.BsonValue;
 import org.restheart.graphql.models.FieldMapping;
 
-public abstract class GraphQLDataFetcher implements DataFetcher<BsonValue> {
+public abstract class GraphQLDataFetcher implements DataFetcher<Object> {
 
     protected static MongoClient mongoClient;
     protected FieldMapping fieldMapping;
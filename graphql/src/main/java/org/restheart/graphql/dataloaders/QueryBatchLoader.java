@@ -20,6 +20,7 @@
  */
 package org.restheart.graphql.dataloaders;
 
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import com.mongodb.MongoClient;
 import com.mongodb.client.model.Aggregates;
 import com.mongodb.client.model.Facet;
@@ -31,11 +32,29 @@ import org.dataloader.BatchLoader;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Set;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
 
 public class QueryBatchLoader implements BatchLoader<BsonValue, BsonValue> {
 
+    // operators that are not allowed in a $match stage within $facet
+    private static final Set<String> NOT_BATCHABLE_OPERATORS = Set.of("$text", "$where", "$near", "$nearSphere");
+
+    /**
+     * the max number of queries in a batch: the $facet stage returns the
+     * results of all of them in a single document, subject to the 16MB limit
+     */
+    public static final int MAX_BATCH_SIZE = 20;
+
+    // the batches block on the db, keep them off the common ForkJoinPool
+    private static final Executor EXECUTOR = Executors.newCachedThreadPool(new ThreadFactoryBuilder()
+            .setDaemon(true)
+            .setNameFormat("graphql-batch-loader-%d")
+            .build());
+
     private static MongoClient mongoClient;
 
     private String db;
@@ -92,16 +111,16 @@ public class QueryBatchLoader implements BatchLoader<BsonValue, BsonValue> {
                 List<Facet> listOfFacets = new ArrayList<>();
 
                 // foreach query within the batch...
-                queries.stream().map(query -> ((BsonDocument) query)).forEach(query -> {
+                for (int i = 0; i < queries.size(); i++) {
+                    BsonDocument query = queries.get(i).asDocument();
 
                     // add find condition to merged array
                     BsonDocument find = query.containsKey("find") ? query.getDocument("find") : new BsonDocument();
                     mergedCond.add(find);
 
-                    // create a new sub-pipeline with query stages
-                    listOfFacets.add(new Facet(String.valueOf(query.hashCode()), getQueryStages(query)));
-
-                });
+                    // create a new sub-pipeline with query stages, named after the index of the query
+                    listOfFacets.add(new Facet(String.valueOf(i), getQueryStages(query)));
+                }
 
                 // 1° stage --> $match with conditions merged by $or operator
                 stages.add(Aggregates.match(new BsonDocument("$or", mergedCond)));
@@ -126,13 +145,14 @@ public class QueryBatchLoader implements BatchLoader<BsonValue, BsonValue> {
             iterable.into(aggResult);
 
             List<BsonValue> res = new ArrayList<>();
-            // CASE queries.size() > 1: result is a BsonDocument with format {"hashCode query 0": [<results-of-query0>], "hashCode query 1":[<results-of-query1>, "hashCode query 2":[<results-of-query2>], ...] }
+            // CASE queries.size() > 1: result is a BsonDocument with format {"0": [<results-of-query0>], "1":[<results-of-query1>], "2":[<results-of-query2>], ...] }
             if (queries.size() > 1){
 
-                aggResult.get(0).asDocument().forEach((key, queryResult) -> {
-                        res.add(queryResult);
-                    }
-                );
+                BsonDocument facets = aggResult.get(0).asDocument();
+
+                for (int i = 0; i < queries.size(); i++) {
+                    res.add(facets.get(String.valueOf(i)));
+                }
 
             // CASE queries.size() = 1
             }else{
@@ -140,10 +160,37 @@ public class QueryBatchLoader implements BatchLoader<BsonValue, BsonValue> {
             }
 
             return res;
-        });
+        }, EXECUTOR);
+
+    }
 
+
+    /**
+     *
+     * @param queryDoc the interpolated arguments of a query
+     * @return true if the query can be executed within a $facet sub-pipeline
+     */
+    public static boolean canBatch(BsonDocument queryDoc) {
+        return !queryDoc.containsKey("find") || !containsNotBatchableOperator(queryDoc.get("find"));
     }
 
+    private static boolean containsNotBatchableOperator(BsonValue value) {
+        if (value.isDocument()) {
+            for (var entry: value.asDocument().entrySet()) {
+                if (NOT_BATCHABLE_OPERATORS.contains(entry.getKey()) || containsNotBatchableOperator(entry.getValue())) {
+                    return true;
+                }
+            }
+        } else if (value.isArray()) {
+            for (var element: value.asArray()) {
+                if (containsNotBatchableOperator(element)) {
+                    return true;
+                }
+            }
+        }
+
+        return false;
+    }
 
     private List<Bson> getQueryStages(BsonDocument queryDoc){
 
@@ -21,7 +21,6 @@
 package org.restheart.graphql.models;
 
 import graphql.schema.DataFetcher;
-import org.bson.BsonValue;
 
 public abstract class FieldMapping {
 
@@ -31,6 +30,6 @@ public abstract class FieldMapping {
         this.fieldName = fieldName;
     }
 
-    public abstract DataFetcher<BsonValue> getDataFetcher();
+    public abstract DataFetcher<Object> getDataFetcher();
 
 }
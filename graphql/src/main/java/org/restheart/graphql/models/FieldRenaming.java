@@ -21,7 +21,6 @@
 package org.restheart.graphql.models;
 
 import graphql.schema.DataFetcher;
-import org.bson.BsonValue;
 import org.restheart.graphql.datafetchers.GQLRenamingDataFetcher;
 
 public class FieldRenaming extends FieldMapping{
@@ -42,7 +41,7 @@ public class FieldRenaming extends FieldMapping{
     }
 
     @Override
-    public DataFetcher<BsonValue> getDataFetcher() {
+    public DataFetcher<Object> getDataFetcher() {
         return new GQLRenamingDataFetcher(this);
     }
 }
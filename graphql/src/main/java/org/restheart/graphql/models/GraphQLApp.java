@@ -20,6 +20,7 @@
  */
 package org.restheart.graphql.models;
 
+import graphql.GraphQL;
 import graphql.schema.GraphQLScalarType;
 import graphql.schema.GraphQLSchema;
 import graphql.schema.idl.RuntimeWiring;
@@ -27,8 +28,14 @@ import graphql.schema.idl.SchemaGenerator;
 import graphql.schema.idl.SchemaParser;
 import graphql.schema.idl.TypeDefinitionRegistry;
 import graphql.schema.idl.errors.SchemaProblem;
+import org.dataloader.DataLoader;
+import org.dataloader.DataLoaderOptions;
+import org.dataloader.DataLoaderRegistry;
+import org.restheart.graphql.cache.PreparsedDocumentsCache;
+import org.restheart.graphql.dataloaders.QueryBatchLoader;
 import org.restheart.graphql.scalars.BsonScalars;
 
+import java.util.HashMap;
 import java.util.Map;
 
 public class GraphQLApp {
@@ -37,6 +44,8 @@ public class GraphQLApp {
     private String schema;
     private Map<String, TypeMapping> mappings;
     private GraphQLSchema executableSchema;
+    private GraphQL graphQL;
+    private Map<String, QueryMapping> dataLoaderMappings = Map.of();
 
     public static Builder newBuilder(){
         return new Builder();
@@ -47,8 +56,8 @@ public class GraphQLApp {
     public GraphQLApp(AppDescriptor descriptor, String schema, Map<String, TypeMapping> mappings, GraphQLSchema executableSchema) {
         this.descriptor = descriptor;
         this.schema = schema;
-        this.mappings = mappings;
-        this.executableSchema = executableSchema;
+        setMappings(mappings);
+        setExecutableSchema(executableSchema);
     }
 
     public AppDescriptor getDescriptor() {
@@ -73,6 +82,18 @@ public class GraphQLApp {
 
     public void setMappings(Map<String, TypeMapping> mappings) {
         this.mappings = mappings;
+
+        // one query mapping for each DataLoader
+        var _dataLoaderMappings = new HashMap<String, QueryMapping>();
+
+        if (mappings != null) {
+            mappings.values().forEach(typeMapping -> typeMapping.getFieldMappingMap().values().stream()
+                    .filter(fieldMapping -> fieldMapping instanceof QueryMapping)
+                    .map(fieldMapping -> (QueryMapping) fieldMapping)
+                    .forEach(queryMapping -> _dataLoaderMappings.putIfAbsent(queryMapping.getDataLoaderKey(), queryMapping)));
+        }
+
+        this.dataLoaderMappings = _dataLoaderMappings;
     }
 
     public GraphQLSchema getExecutableSchema() {
@@ -81,6 +102,38 @@ public class GraphQLApp {
 
     public void setExecutableSchema(GraphQLSchema executableSchema) {
         this.executableSchema = executableSchema;
+        this.graphQL = executableSchema == null ? null : GraphQL.newGraphQL(executableSchema)
+                .preparsedDocumentProvider(new PreparsedDocumentsCache())
+                .build();
+    }
+
+    /**
+     * @return the GraphQL engine of the app, built once with the executable
+     * schema; it caches the parsed and validated queries
+     */
+    public GraphQL getGraphQL() {
+        return graphQL;
+    }
+
+    /**
+     * Creates the DataLoaderRegistry for a request, with one DataLoader for
+     * each db and collection queried by the app's QueryMappings.
+     *
+     * DataLoaders cache the loaded values, so a new registry is required for
+     * each request. The batches are limited to QueryBatchLoader.MAX_BATCH_SIZE
+     * queries.
+     *
+     * @return a new DataLoaderRegistry
+     */
+    public DataLoaderRegistry newDataLoaderRegistry() {
+        var registry = new DataLoaderRegistry();
+
+        var options = DataLoaderOptions.newOptions().setMaxBatchSize(QueryBatchLoader.MAX_BATCH_SIZE);
+
+        this.dataLoaderMappings.forEach((key, queryMapping) -> registry.register(key,
+                DataLoader.newDataLoader(new QueryBatchLoader(queryMapping.getDb(), queryMapping.getCollection()), options)));
+
+        return registry;
     }
 
     public static class Builder{
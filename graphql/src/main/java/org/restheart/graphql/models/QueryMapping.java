@@ -63,10 +63,18 @@ public class QueryMapping extends FieldMapping{
     }
 
     @Override
-    public DataFetcher<BsonValue> getDataFetcher() {
+    public DataFetcher<Object> getDataFetcher() {
         return new GQLQueryDataFetcher(this);
     }
 
+    /**
+     * @return the key of the DataLoader that batches the queries of this
+     * mapping, i.e. the queries on the same db and collection
+     */
+    public String getDataLoaderKey() {
+        return this.db + "/" + this.collection;
+    }
+
     public String getDb() {
         return db;
     }
@@ -0,0 +1,168 @@
+/*-
+ * ========================LICENSE_START=================================
+ * restheart-graphql
+ * %%
+ * Copyright (C) 2020 - 2021 SoftInstigate
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * =========================LICENSE_END==================================
+ */
+package org.restheart.graphql.dataloaders;
+
+import com.mongodb.MongoClient;
+import com.mongodb.MongoClientSettings;
+import com.mongodb.client.AggregateIterable;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.MongoDatabase;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import org.bson.BsonArray;
+import org.bson.BsonDocument;
+import org.bson.BsonInt32;
+import org.bson.BsonValue;
+import org.bson.conversions.Bson;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import org.junit.Before;
+import org.junit.Test;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import org.restheart.graphql.models.FieldMapping;
+import org.restheart.graphql.models.GraphQLApp;
+import org.restheart.graphql.models.ObjectMapping;
+import org.restheart.graphql.models.QueryMapping;
+
+public class QueryBatchLoaderTest {
+    // the pipelines of the aggregations
+    private final List<List<BsonDocument>> pipelines = new ArrayList<>();
+
+    // the documents returned by each aggregation
+    private BsonArray results = new BsonArray();
+
+    @Before
+    @SuppressWarnings("unchecked")
+    public void setUp() {
+        var client = mock(MongoClient.class);
+        var db = mock(MongoDatabase.class);
+        MongoCollection<BsonValue> coll = mock(MongoCollection.class);
+
+        when(client.getDatabase("db")).thenReturn(db);
+        when(db.getCollection("coll", BsonValue.class)).thenReturn(coll);
+        when(coll.aggregate(anyList())).thenAnswer(inv -> {
+            var pipeline = new ArrayList<BsonDocument>();
+
+            for (var stage : (List<Bson>) inv.getArgument(0)) {
+                pipeline.add(stage.toBsonDocument(BsonDocument.class, MongoClientSettings.getDefaultCodecRegistry()));
+            }
+
+            synchronized (pipelines) {
+                pipelines.add(pipeline);
+            }
+
+            AggregateIterable<BsonValue> iterable = mock(AggregateIterable.class);
+
+            when(iterable.into(anyList())).thenAnswer(into -> {
+                Collection<BsonValue> target = into.getArgument(0);
+                target.addAll(results);
+                return target;
+            });
+
+            return iterable;
+        });
+
+        QueryBatchLoader.setMongoClient(client);
+    }
+
+    @Test
+    public void testSingleQuery() {
+        results = BsonArray.parse("[{'a':1}, {'a':2}]");
+
+        var res = new QueryBatchLoader("db", "coll")
+                .load(List.of(query(1)))
+                .toCompletableFuture()
+                .join();
+
+        assertEquals(List.of(results), res);
+        assertEquals(List.of(List.of(BsonDocument.parse("{'$match': {'a': 1}}"))), pipelines);
+    }
+
+    @Test
+    public void testBatch() {
+        results = BsonArray.parse("[{'0': [{'a':1}], '1': [], '2': [{'a':3}, {'a':3}]}]");
+
+        var res = new QueryBatchLoader("db", "coll")
+                .load(List.of(query(1), query(2), query(3)))
+                .toCompletableFuture()
+                .join();
+
+        // the results are mapped back to the queries by the facet names
+        assertEquals(List.of(
+                BsonArray.parse("[{'a':1}]"),
+                new BsonArray(),
+                BsonArray.parse("[{'a':3}, {'a':3}]")), res);
+
+        assertEquals(1, pipelines.size());
+
+        var pipeline = pipelines.get(0);
+
+        assertEquals(BsonDocument.parse("{'$match': {'$or': [{'a':1}, {'a':2}, {'a':3}]}}"), pipeline.get(0));
+        assertEquals(BsonDocument.parse("{'$facet': {"
+                + "'0': [{'$match': {'a':1}}], "
+                + "'1': [{'$match': {'a':2}}], "
+                + "'2': [{'$match': {'a':3}}]}}"), pipeline.get(1));
+    }
+
+    @Test
+    public void testMaxBatchSize() {
+        var facets = new BsonDocument();
+
+        for (var i = 0; i < QueryBatchLoader.MAX_BATCH_SIZE; i++) {
+            facets.put(String.valueOf(i), new BsonArray());
+        }
+
+        results = new BsonArray(List.of(facets));
+
+        var mapping = QueryMapping.newBuilder()
+                .fieldName("field")
+                .db("db")
+                .collection("coll")
+                .build();
+
+        var app = new GraphQLApp();
+        app.setMappings(Map.of("Query", new ObjectMapping("Query", Map.<String, FieldMapping>of("field", mapping))));
+
+        var loader = app.newDataLoaderRegistry().<BsonValue, BsonValue>getDataLoader(mapping.getDataLoaderKey());
+
+        var loaded = new ArrayList<CompletableFuture<BsonValue>>();
+
+        for (var i = 0; i <= QueryBatchLoader.MAX_BATCH_SIZE; i++) {
+            loaded.add(loader.load(query(i)));
+        }
+
+        loader.dispatchAndJoin();
+
+        assertTrue(loaded.stream().allMatch(CompletableFuture::isDone));
+
+        // the last query is loaded by a second batch
+        assertEquals(2, pipelines.size());
+    }
+
+    private static BsonValue query(int a) {
+        return new BsonDocument("find", new BsonDocument("a", new BsonInt32(a)));
+    }
+}
@@ -46,7 +46,9 @@ import org.restheart.mongodb.exchange.BsonRequestPropsInjector;
 import org.restheart.mongodb.handlers.CORSHandler;
 import org.restheart.mongodb.handlers.ErrorHandler;
 import org.restheart.mongodb.handlers.OptionsHandler;
+import org.restheart.mongodb.handlers.ReactiveFindSender;
 import org.restheart.mongodb.handlers.RequestDispatcherHandler;
+import org.restheart.mongodb.handlers.ResponseCacheHandler;
 import org.restheart.mongodb.handlers.injectors.ClientSessionInjector;
 import org.restheart.mongodb.handlers.injectors.ETagPolicyInjector;
 import org.restheart.mongodb.utils.URLUtils;
@@ -88,6 +90,8 @@ public class MongoService implements Service<MongoRequest, MongoResponse> {
         this.myURI = myURI();
         this.pipeline = getBasePipeline();
 
+        ReactiveFindSender.init(registry, this);
+
         // init mongoMounts
         getMongoMounts().stream().forEachOrdered(mm -> mongoMounts.addPrefixPath(mm.uri, mm));
     }
@@ -124,6 +128,7 @@ public class MongoService implements Service<MongoRequest, MongoResponse> {
                                 new OptionsHandler(),
                                 ClientSessionInjector.build(),
                                 new ETagPolicyInjector(),
+                                new ResponseCacheHandler(),
                                 RequestDispatcherHandler.getInstance())));
 
         // check that all mounts are either all paths or all path templates
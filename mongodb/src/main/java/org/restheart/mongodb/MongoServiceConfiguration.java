@@ -93,6 +93,16 @@ public class MongoServiceConfiguration {
     private final int defaultPagesize;
     private final int maxPagesize;
     private final METRICS_GATHERING_LEVEL metricsGatheringLevel;
+    private final METRICS_TIMERS_RESERVOIR metricsTimersReservoir;
+    private final int changeStreamsSessionQueueSize;
+    private final CHANGE_STREAMS_OVERFLOW_POLICY changeStreamsOverflowPolicy;
+    private final int txnsStatesCacheSize;
+    private final long txnsStatesCacheTTL;
+    private final long namespaceCatalogTTL;
+    private final boolean responseCacheEnabled;
+    private final int responseCacheSize;
+    private final long responseCacheTTL;
+    private final boolean responseCacheWatch;
 
     public static MongoServiceConfiguration get() {
         return INSTANCE;
@@ -314,6 +324,53 @@ public class MongoServiceConfiguration {
             }
             metricsGatheringLevel = mglevel;
         }
+
+        {
+            METRICS_TIMERS_RESERVOIR mtreservoir;
+            try {
+                String value = getAsStringOrDefault(conf, METRICS_TIMERS_RESERVOIR_KEY, "EXPONENTIALLY_DECAYING");
+                mtreservoir = METRICS_TIMERS_RESERVOIR.valueOf(value.toUpperCase(Locale.getDefault()));
+            } catch (IllegalArgumentException iae) {
+                mtreservoir = METRICS_TIMERS_RESERVOIR.EXPONENTIALLY_DECAYING;
+            }
+            metricsTimersReservoir = mtreservoir;
+        }
+
+        changeStreamsSessionQueueSize = getAsIntegerOrDefault(conf, CHANGE_STREAMS_SESSION_QUEUE_SIZE_KEY,
+                DEFAULT_CHANGE_STREAMS_SESSION_QUEUE_SIZE);
+
+        {
+            CHANGE_STREAMS_OVERFLOW_POLICY policy;
+            try {
+                String value = getAsStringOrDefault(conf, CHANGE_STREAMS_OVERFLOW_POLICY_KEY,
+                        CHANGE_STREAMS_OVERFLOW_POLICY.DROP_OLDEST.name());
+                policy = CHANGE_STREAMS_OVERFLOW_POLICY.valueOf(value.toUpperCase(Locale.getDefault()));
+            } catch (IllegalArgumentException iae) {
+                LOGGER.warn("wrong value for parameter {} setting it to default value {}",
+                        CHANGE_STREAMS_OVERFLOW_POLICY_KEY, CHANGE_STREAMS_OVERFLOW_POLICY.DROP_OLDEST);
+                policy = CHANGE_STREAMS_OVERFLOW_POLICY.DROP_OLDEST;
+            }
+            changeStreamsOverflowPolicy = policy;
+        }
+
+        txnsStatesCacheSize = getAsIntegerOrDefault(conf, TXNS_STATES_CACHE_SIZE_KEY,
+                DEFAULT_TXNS_STATES_CACHE_SIZE);
+
+        txnsStatesCacheTTL = getAsLongOrDefault(conf, TXNS_STATES_CACHE_TTL_KEY,
+                DEFAULT_TXNS_STATES_CACHE_TTL);
+
+        namespaceCatalogTTL = getAsLongOrDefault(conf, NAMESPACE_CATALOG_TTL_KEY,
+                DEFAULT_NAMESPACE_CATALOG_TTL);
+
+        responseCacheEnabled = getAsBooleanOrDefault(conf, RESPONSE_CACHE_ENABLED_KEY, false);
+
+        responseCacheSize = getAsIntegerOrDefault(conf, RESPONSE_CACHE_SIZE_KEY,
+                DEFAULT_RESPONSE_CACHE_SIZE);
+
+        responseCacheTTL = getAsLongOrDefault(conf, RESPONSE_CACHE_TTL_KEY,
+                DEFAULT_RESPONSE_CACHE_TTL);
+
+        responseCacheWatch = getAsBooleanOrDefault(conf, RESPONSE_CACHE_WATCH_KEY, false);
     }
 
     @Override
@@ -323,7 +380,7 @@ public class MongoServiceConfiguration {
                 + ", mongoMounts=" + mongoMounts + ", pluginsArgs=" + getPluginsArgs() + ", localCacheEnabled="
                 + localCacheEnabled + ", localCacheTtl=" + localCacheTtl + ", schemaCacheEnabled=" + schemaCacheEnabled
                 + ", schemaCacheTtl=" + schemaCacheTtl + ", requestsLimit=" + requestsLimit + ", metricsGatheringLevel="
-                + metricsGatheringLevel + ", eagerPoolSize=" + eagerPoolSize + ", eagerLinearSliceWidht="
+                + metricsGatheringLevel + ", metricsTimersReservoir=" + metricsTimersReservoir + ", eagerPoolSize=" + eagerPoolSize + ", eagerLinearSliceWidht="
                 + eagerLinearSliceWidht + ", eagerLinearSliceDelta=" + eagerLinearSliceDelta
                 + ", eagerLinearSliceHeights=" + Arrays.toString(eagerLinearSliceHeights) + ", eagerRndSliceMinWidht="
                 + eagerRndSliceMinWidht + ", eagerRndMaxCursors=" + eagerRndMaxCursors + ", dbEtagCheckPolicy="
@@ -331,7 +388,13 @@ public class MongoServiceConfiguration {
                 + docEtagCheckPolicy + ", connectionOptions=" + connectionOptions + ", queryTimeLimit=" + queryTimeLimit
                 + ", aggregationTimeLimit=" + aggregationTimeLimit + ", aggregationCheckOperators="
                 + aggregationCheckOperators + ", cursorBatchSize=" + cursorBatchSize + ", defaultPagesize="
-                + defaultPagesize + ", maxPagesize=" + maxPagesize + ", configurationFileMap=" + configurationFileMap
+                + defaultPagesize + ", maxPagesize=" + maxPagesize + ", changeStreamsSessionQueueSize="
+                + changeStreamsSessionQueueSize + ", changeStreamsOverflowPolicy=" + changeStreamsOverflowPolicy
+                + ", txnsStatesCacheSize=" + txnsStatesCacheSize + ", txnsStatesCacheTTL=" + txnsStatesCacheTTL
+                + ", namespaceCatalogTTL=" + namespaceCatalogTTL
+                + ", responseCacheEnabled=" + responseCacheEnabled + ", responseCacheSize=" + responseCacheSize
+                + ", responseCacheTTL=" + responseCacheTTL + ", responseCacheWatch=" + responseCacheWatch
+                + ", configurationFileMap=" + configurationFileMap
                 + '}';
     }
 
@@ -916,6 +979,76 @@ public class MongoServiceConfiguration {
         return metricsGatheringLevel;
     }
 
+    /**
+     * @return the metricsTimersReservoir
+     */
+    public METRICS_TIMERS_RESERVOIR getMetricsTimersReservoir() {
+        return metricsTimersReservoir;
+    }
+
+    /**
+     * @return the changeStreamsSessionQueueSize
+     */
+    public int getChangeStreamsSessionQueueSize() {
+        return changeStreamsSessionQueueSize;
+    }
+
+    /**
+     * @return the changeStreamsOverflowPolicy
+     */
+    public CHANGE_STREAMS_OVERFLOW_POLICY getChangeStreamsOverflowPolicy() {
+        return changeStreamsOverflowPolicy;
+    }
+
+    /**
+     * @return the txnsStatesCacheSize
+     */
+    public int getTxnsStatesCacheSize() {
+        return txnsStatesCacheSize;
+    }
+
+    /**
+     * @return the txnsStatesCacheTTL
+     */
+    public long getTxnsStatesCacheTTL() {
+        return txnsStatesCacheTTL;
+    }
+
+    /**
+     * @return the namespaceCatalogTTL
+     */
+    public long getNamespaceCatalogTTL() {
+        return namespaceCatalogTTL;
+    }
+
+    /**
+     * @return the responseCacheEnabled
+     */
+    public boolean isResponseCacheEnabled() {
+        return responseCacheEnabled;
+    }
+
+    /**
+     * @return the responseCacheSize
+     */
+    public int getResponseCacheSize() {
+        return responseCacheSize;
+    }
+
+    /**
+     * @return the responseCacheTTL
+     */
+    public long getResponseCacheTTL() {
+        return responseCacheTTL;
+    }
+
+    /**
+     * @return the responseCacheWatch
+     */
+    public boolean isResponseCacheWatch() {
+        return responseCacheWatch;
+    }
+
     /**
      * decides whether metrics are gathered at the given log level or not
      *
@@ -948,4 +1081,39 @@ public class MongoServiceConfiguration {
          */
         COLLECTION
     }
+
+    /**
+     * the reservoir of the requests timers
+     */
+    public enum METRICS_TIMERS_RESERVOIR {
+        /**
+         * the default dropwizard reservoir, biased toward the last 5 minutes
+         */
+        EXPONENTIALLY_DECAYING,
+        /**
+         * lock-free log-linear buckets with about 3% precision, the
+         * statistics cover all the values since startup
+         */
+        LOCK_FREE_HISTOGRAM
+    }
+
+    /**
+     * what to do when the queue of change stream notifications of a
+     * WebSocket client is full
+     */
+    public enum CHANGE_STREAMS_OVERFLOW_POLICY {
+        /**
+         * drop the oldest queued notification
+         */
+        DROP_OLDEST,
+        /**
+         * drop the queued notification of the same document, if any,
+         * otherwise the oldest one
+         */
+        COALESCE,
+        /**
+         * close the WebSocket connection
+         */
+        DISCONNECT
+    }
 }
@@ -224,6 +224,12 @@ public interface MongoServiceConfigurationKeys {
      */
     public static final String METRICS_GATHERING_LEVEL_KEY = "metrics-gathering-level";
 
+    /**
+     * Set the reservoir of the requests timers (can be EXPONENTIALLY_DECAYING
+     * or LOCK_FREE_HISTOGRAM)
+     */
+    public static final String METRICS_TIMERS_RESERVOIR_KEY = "metrics-timers-reservoir";
+
     /**
      * The key for specifying the max pagesize
      */
@@ -238,4 +244,94 @@ public interface MongoServiceConfigurationKeys {
      * The key for specifying the cursor batch size
      */
     public static final String CURSOR_BATCH_SIZE_KEY = "cursor-batch-size";
+
+    /**
+     * The key for specifying the maximum number of change stream
+     * notifications queued for a slow WebSocket client
+     */
+    public static final String CHANGE_STREAMS_SESSION_QUEUE_SIZE_KEY = "change-streams-session-queue-size";
+
+    /**
+     * The default maximum number of change stream notifications queued for
+     * a WebSocket client
+     */
+    public static final int DEFAULT_CHANGE_STREAMS_SESSION_QUEUE_SIZE = 1000;
+
+    /**
+     * The key for specifying what to do when the queue of change stream
+     * notifications of a WebSocket client is full (can be DROP_OLDEST,
+     * COALESCE, DISCONNECT)
+     */
+    public static final String CHANGE_STREAMS_OVERFLOW_POLICY_KEY = "change-streams-overflow-policy";
+
+    /**
+     * The key for specifying the maximum number of sessions whose
+     * transaction state is tracked locally (0 to disable)
+     */
+    public static final String TXNS_STATES_CACHE_SIZE_KEY = "txns-states-cache-size";
+
+    /**
+     * The default maximum number of sessions whose transaction state is
+     * tracked locally
+     */
+    public static final int DEFAULT_TXNS_STATES_CACHE_SIZE = 10_000;
+
+    /**
+     * The key for specifying the time in milliseconds after which the locally
+     * tracked transaction state of an idle session is evicted
+     */
+    public static final String TXNS_STATES_CACHE_TTL_KEY = "txns-states-cache-ttl";
+
+    /**
+     * The default time in milliseconds after which the locally tracked
+     * transaction state of an idle session is evicted (30 minutes, the
+     * default logical session timeout of MongoDB)
+     */
+    public static final long DEFAULT_TXNS_STATES_CACHE_TTL = 30 * 60 * 1000;
+
+    /**
+     * The key for specifying the time in milliseconds after which the
+     * collection names of a db kept by the namespace catalog are reloaded,
+     * when they are not refreshed by a change stream (0 to disable)
+     */
+    public static final String NAMESPACE_CATALOG_TTL_KEY = "namespace-catalog-ttl";
+
+    /**
+     * The default time in milliseconds after which the collection names of a
+     * db kept by the namespace catalog are reloaded
+     */
+    public static final long DEFAULT_NAMESPACE_CATALOG_TTL = 60 * 1000;
+
+    /**
+     * The key for enabling the cache of the responses of GET requests on
+     * collections and documents
+     */
+    public static final String RESPONSE_CACHE_ENABLED_KEY = "response-cache-enabled";
+
+    /**
+     * The key for specifying the maximum number of responses in the cache
+     */
+    public static final String RESPONSE_CACHE_SIZE_KEY = "response-cache-size";
+
+    /**
+     * The default maximum number of responses in the cache
+     */
+    public static final int DEFAULT_RESPONSE_CACHE_SIZE = 1_000;
+
+    /**
+     * The key for specifying the time in milliseconds after which a cached
+     * response expires
+     */
+    public static final String RESPONSE_CACHE_TTL_KEY = "response-cache-ttl";
+
+    /**
+     * The default time in milliseconds after which a cached response expires
+     */
+    public static final long DEFAULT_RESPONSE_CACHE_TTL = 60 * 1000;
+
+    /**
+     * The key for enabling the change stream that invalidates the cached
+     * responses on writes of other clients (requires a replica set)
+     */
+    public static final String RESPONSE_CACHE_WATCH_KEY = "response-cache-watch";
 }
@@ -27,8 +27,15 @@ import com.mongodb.client.FindIterable;
 import com.mongodb.client.MongoCollection;
 import com.mongodb.client.MongoCursor;
 import static com.mongodb.client.model.Filters.eq;
+import com.mongodb.reactivestreams.client.FindPublisher;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
 import java.util.Objects;
 import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
 import org.bson.BsonArray;
 import org.bson.BsonDocument;
 import org.bson.BsonInt32;
@@ -191,8 +198,8 @@ class CollectionDAO {
                             coll,
                             sortBy,
                             filters,
-                            hint,
                             keys,
+                            hint,
                             toskip,
                             0),
                     eager);
@@ -249,12 +256,49 @@ class CollectionDAO {
         // the pool is populated here because, skipping with cursor.next() is heavy operation
         // and we want to minimize the chances that pool cursors are allocated in parallel
         CursorPool.getInstance().populateCache(
-                new CursorPoolEntryKey(cs, coll, sortBy, filters, hint, keys, toskip, 0),
+                new CursorPoolEntryKey(cs, coll, sortBy, filters, keys, hint, toskip, 0),
                 eager);
 
         return ret;
     }
 
+    /**
+     * Returns the publisher of the documents of a page of the collection,
+     * found by the reactive client. The cursor pool is not used.
+     *
+     * @param dbName
+     * @param collName
+     * @param page
+     * @param pagesize
+     * @param sortBy
+     * @param filters
+     * @param hint
+     * @param keys
+     * @return
+     */
+    FindPublisher<BsonDocument> getCollectionDataPublisher(
+            final String dbName,
+            final String collName,
+            final int page,
+            final int pagesize,
+            final BsonDocument sortBy,
+            final BsonDocument filters,
+            final BsonDocument hint,
+            final BsonDocument keys) {
+        return MongoReactiveClientSingleton.getInstance().getClient()
+                .getDatabase(dbName)
+                .getCollection(collName, BsonDocument.class)
+                .find(filters)
+                .projection(keys)
+                .sort(sortBy)
+                .batchSize(Math.min(pagesize, BATCH_SIZE))
+                .hint(hint)
+                .maxTime(MongoServiceConfiguration.get()
+                        .getQueryTimeLimit(), TimeUnit.MILLISECONDS)
+                .skip(pagesize * (page - 1))
+                .limit(pagesize);
+    }
+
     /**
      * Returns the collection properties document.
      *
@@ -285,6 +329,72 @@ class CollectionDAO {
         return props;
     }
 
+    /**
+     * Returns the properties documents of more collections with a single
+     * query.
+     *
+     * @param cs the client session
+     * @param dbName the database name of the collections
+     * @param collNames the collection names
+     * @return the collection properties documents by collection name, null
+     * for the collections that do not exist
+     */
+    public Map<String, BsonDocument> getCollectionsProps(
+            final ClientSession cs,
+            final String dbName,
+            final Collection<String> collNames) {
+        var ret = new HashMap<String, BsonDocument>();
+
+        if (collNames.isEmpty()) {
+            return ret;
+        }
+
+        var propsColl = getCollection(dbName, META_COLLNAME);
+
+        var ids = new BsonArray();
+        collNames.forEach(collName -> ids.add(new BsonString(COLL_META_DOCID_PREFIX.concat(collName))));
+
+        var query = new BsonDocument("_id", new BsonDocument("$in", ids));
+
+        var found = cs == null
+                ? propsColl.find(query)
+                : propsColl.find(cs, query);
+
+        found.batchSize(ids.size()).forEach(props -> {
+            var collName = props.getString("_id").getValue().substring(COLL_META_DOCID_PREFIX.length());
+            props.append("_id", new BsonString(collName));
+            ret.put(collName, props);
+        });
+
+        var withoutProps = collNames.stream()
+                .filter(collName -> !ret.containsKey(collName))
+                .collect(Collectors.toList());
+
+        if (withoutProps.isEmpty()) {
+            return ret;
+        }
+
+        // check the existence of the collections without properties,
+        // listing the collection names at most once
+        Predicate<String> exists;
+
+        if (cs == null && NamespaceCatalog.getInstance().isEnabled()) {
+            exists = collName -> NamespaceCatalog.getInstance().doesCollectionExist(dbName, collName);
+        } else {
+            var names = cs == null
+                    ? client.getDatabase(dbName).listCollectionNames().into(new HashSet<>())
+                    : client.getDatabase(dbName).listCollectionNames(cs).into(new HashSet<>());
+
+            exists = names::contains;
+        }
+
+        withoutProps.forEach(collName -> ret.put(collName, exists.test(collName)
+                ? new BsonDocument("_id", new BsonString(collName))
+                : null));
+
+        return ret;
+    }
+
     /**
      * Returns true if the collection exists
      *
@@ -297,6 +407,12 @@ class CollectionDAO {
             final ClientSession cs,
             final String dbName,
             final String collName) {
+        // the collection names are listed only when not known by the
+        // catalog or to honor the client session
+        if (cs == null && NamespaceCatalog.getInstance().isEnabled()) {
+            return NamespaceCatalog.getInstance().doesCollectionExist(dbName, collName);
+        }
+
         MongoCursor<String> dbCollections = cs == null
                 ? client.getDatabase(dbName).listCollectionNames().iterator()
                 : client.getDatabase(dbName).listCollectionNames(cs).iterator();
@@ -347,6 +463,8 @@ class CollectionDAO {
                 } else {
                     client.getDatabase(dbName).createCollection(cs, collName);
                 }
+
+                NamespaceCatalog.getInstance().invalidate(dbName);
             } catch (MongoCommandException ex) {
                 // error 48 is NamespaceExists
                 // this can happen when a request A creates a collection
@@ -548,6 +666,8 @@ class CollectionDAO {
             mcoll.deleteOne(cs, query);
         }
 
+        NamespaceCatalog.getInstance().invalidate(dbName);
+
         return new OperationResult(HttpStatus.SC_NO_CONTENT, null, properties, null);
     }
 }
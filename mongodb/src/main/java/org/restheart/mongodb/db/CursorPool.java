@@ -21,25 +21,27 @@
 package org.restheart.mongodb.db;
 
 import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.mongodb.client.ClientSession;
 import com.mongodb.client.FindIterable;
 import static java.lang.Thread.MIN_PRIORITY;
-import java.util.Comparator;
 import java.util.Objects;
-import java.util.Optional;
 import java.util.TreeMap;
 import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.ConcurrentSkipListMap;
 import java.util.concurrent.Executors;
 import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
-import java.util.function.Predicate;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 import org.bson.BsonDocument;
 import static org.fusesource.jansi.Ansi.Color.GREEN;
 import static org.fusesource.jansi.Ansi.Color.RED;
 import static org.fusesource.jansi.Ansi.Color.YELLOW;
 import static org.fusesource.jansi.Ansi.ansi;
-import org.restheart.cache.Cache;
 import org.restheart.cache.CacheFactory;
 import org.restheart.cache.LoadingCache;
 import org.restheart.exchange.ExchangeKeys.EAGER_CURSOR_ALLOCATION_POLICY;
@@ -48,6 +50,12 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 /**
+ * The pool of cursors allocated in advance to speedup requests of far pages.
+ *
+ * The cursors are indexed by the shape of their query (session, collection,
+ * filter, sort, keys and hint) and then by the number of skipped documents,
+ * so that both the lookup of the best cursor and the count of the cursors
+ * with a given number of skips are O(log n) and don't require a global lock.
  *
  * @author Andrea Di Cesare {@literal <andrea@softinstigate.com>}
  */
@@ -107,17 +115,17 @@ public class CursorPool {
     private final int SKIP_SLICE_RND_MAX_CURSORS
             = MongoServiceConfiguration.get().getEagerRndMaxCursors();
 
-    private final Cache<CursorPoolEntryKey, FindIterable<BsonDocument>> cache;
+    // query shape -> skips -> cursors
+    private final ConcurrentHashMap<Shape, ConcurrentSkipListMap<Integer, ConcurrentLinkedDeque<PooledCursor>>> pool
+            = new ConcurrentHashMap<>();
+
+    private final AtomicLong size = new AtomicLong(0);
+
     private final LoadingCache<CursorPoolEntryKey, Long> collSizes;
 
-    private CursorPool(DatabaseImpl dbsDAO) {
+    CursorPool(DatabaseImpl dbsDAO) {
         this.dbsDAO = dbsDAO;
 
-        cache = CacheFactory.createLocalCache(
-                POOL_SIZE,
-                Cache.EXPIRE_POLICY.AFTER_READ,
-                TTL);
-
         collSizes = CacheFactory.createLocalLoadingCache(100,
                 org.restheart.cache.Cache.EXPIRE_POLICY.AFTER_WRITE,
                 60 * 1000,
@@ -129,28 +137,48 @@ public class CursorPool {
                 }
         );
 
-        if (LOGGER.isDebugEnabled()) {
-            // print stats every 1 minute
-            Executors.newSingleThreadScheduledExecutor()
-                    .scheduleAtFixedRate(() -> {
+        // remove expired cursors every 1 minute
+        Executors.newSingleThreadScheduledExecutor(new ThreadFactoryBuilder()
+                .setDaemon(true)
+                .setNameFormat("cursor-pool-cleaner-%d")
+                .setPriority(MIN_PRIORITY)
+                .build())
+                .scheduleAtFixedRate(() -> {
+                    removeExpired();
+
+                    if (LOGGER.isDebugEnabled()) {
                         getCacheSizes().forEach((s, c) -> {
                             LOGGER.debug("db cursor pool size: {}\t{}", s, c);
                         });
 
                         LOGGER.trace(""
                                 + "db cursor pool entries: {}",
-                                cache.asMap().keySet());
-                    }, 1, 1, TimeUnit.MINUTES);
-        }
+                                entries().collect(Collectors.toList()));
+                    }
+                }, 1, 1, TimeUnit.MINUTES);
+    }
+
+    /**
+     * @param skipped the number of documents to skip
+     * @param allocationPolicy
+     * @return true if the pool can provide or allocate cursors for a request
+     * skipping the given number of documents
+     */
+    public boolean isPoolable(int skipped, EAGER_CURSOR_ALLOCATION_POLICY allocationPolicy) {
+        return allocationPolicy == EAGER_CURSOR_ALLOCATION_POLICY.RANDOM
+                || (allocationPolicy == EAGER_CURSOR_ALLOCATION_POLICY.LINEAR
+                && skipped >= SKIP_SLICE_LINEAR_WIDTH);
     }
 
     /**
+     * Removes from the pool and returns the cursor with the closest skips to
+     * the request
      *
      * @param key
      * @param allocationPolicy
      * @return
      */
-    public synchronized SkippedFindIterable get(
+    public SkippedFindIterable get(
             CursorPoolEntryKey key,
             EAGER_CURSOR_ALLOCATION_POLICY allocationPolicy) {
         if (key.getSkipped() < SKIP_SLICE_LINEAR_WIDTH) {
@@ -161,43 +189,43 @@ public class CursorPool {
             return null;
         }
 
-        // return the dbcursor with the closest skips to the request
-        Optional<CursorPoolEntryKey> _bestKey = cache.asMap().keySet().stream()
-                .filter(cursorsPoolFilterGte(key))
-                .sorted(Comparator.comparingInt(CursorPoolEntryKey::getSkipped).reversed())
-                .findFirst();
-
-        SkippedFindIterable ret;
-
-        if (_bestKey.isPresent()) {
-            Optional<FindIterable<BsonDocument>> _dbcur
-                    = cache.get(_bestKey.get());
-
-            if (_dbcur != null && _dbcur.isPresent()) {
-                ret = new SkippedFindIterable(
-                        _dbcur.get(),
-                        _bestKey.get().getSkipped());
-                cache.invalidate(_bestKey.get());
-
-                LOGGER.debug("{} cursor in pool. id {}, saving {} skips",
-                        ansi().fg(GREEN).bold().a("found").reset().toString(),
-                        _bestKey.get().getCursorId(),
-                        key.getSkipped(),
-                        _bestKey.get().getSkipped());
-            } else {
-                ret = null;
-
-                LOGGER.debug("{} cursor in pool.",
-                        ansi().fg(RED).bold().a("no").reset().toString());
-            }
-        } else {
-            ret = null;
+        var slices = pool.get(new Shape(key));
+
+        if (slices != null) {
+            var now = System.currentTimeMillis();
+
+            // from the closest skips to the request, down to the minimum distance
+            for (var slice = slices.floorEntry(key.getSkipped());
+                    slice != null
+                    && key.getSkipped() - slice.getKey()
+                    <= MIN_SKIP_DISTANCE_PERCENTAGE * key.getSkipped();
+                    slice = slices.lowerEntry(slice.getKey())) {
+                PooledCursor cursor;
+
+                // pollFirst() atomically claims the cursor
+                while ((cursor = slice.getValue().pollFirst()) != null) {
+                    size.decrementAndGet();
+
+                    if (cursor.isExpired(now)) {
+                        continue;
+                    }
 
-            LOGGER.debug(ansi().fg(RED).bold().a("no").reset().toString()
-                    + " cursor in pool.");
+                    LOGGER.debug("{} cursor in pool. id {}, saving {} skips",
+                            ansi().fg(GREEN).bold().a("found").reset().toString(),
+                            cursor.key.getCursorId(),
+                            cursor.key.getSkipped());
+
+                    return new SkippedFindIterable(
+                            cursor.findIterable,
+                            slice.getKey());
+                }
+            }
         }
 
-        return ret;
+        LOGGER.debug(ansi().fg(RED).bold().a("no").reset().toString()
+                + " cursor in pool.");
+
+        return null;
     }
 
     void populateCache(
@@ -241,7 +269,7 @@ public class CursorPool {
 
                     long tocreate = tohave - existing;
 
-                    for (long cont = tocreate; cont > 0; cont--) {
+                    for (long cont = tocreate; cont > 0 && size.get() < POOL_SIZE; cont--) {
                         // create the first cursor
                         FindIterable<BsonDocument> cursor = dbsDAO
                                 .getFindIterable(
@@ -262,12 +290,12 @@ public class CursorPool {
                                 key.getCollection(),
                                 key.getSort(),
                                 key.getFilter(),
-                                key.getHint(),
                                 key.getKeys(),
+                                key.getHint(),
                                 sliceSkips,
                                 System.nanoTime());
 
-                        cache.put(newkey, cursor);
+                        put(newkey, cursor);
 
                         LOGGER.debug("{} cursor in pool: {}",
                                 ansi().fg(YELLOW).bold().a("new").reset()
@@ -289,11 +317,11 @@ public class CursorPool {
     private void populateCacheRandom(CursorPoolEntryKey key) {
         try {
             POOL_POPULATOR.submit(() -> {
-                Long size = collSizes.getLoading(key).get();
+                Long collSize = collSizes.getLoading(key).get();
 
                 int sliceWidht;
                 int slices;
-                int totalSlices = size.intValue() / SKIP_SLICE_RND_MIN_WIDTH
+                int totalSlices = collSize.intValue() / SKIP_SLICE_RND_MIN_WIDTH
                         + 1;
 
                 if (totalSlices <= SKIP_SLICE_RND_MAX_CURSORS) {
@@ -301,18 +329,21 @@ public class CursorPool {
                     sliceWidht = SKIP_SLICE_RND_MIN_WIDTH;
                 } else {
                     slices = SKIP_SLICE_RND_MAX_CURSORS;
-                    sliceWidht = size.intValue() / slices;
+                    sliceWidht = collSize.intValue() / slices;
                 }
 
-                for (int slice = 1; slice < slices; slice++) {
+                for (int slice = 1; slice < slices && size.get() < POOL_SIZE; slice++) {
                     int sliceSkips = slice * sliceWidht;
 
-                    CursorPoolEntryKey sliceKey = new CursorPoolEntryKey(key);
-
-                    LOGGER.debug("{} cursor in pool: {}",
-                            ansi().fg(YELLOW).bold().a("new").reset()
-                                    .toString(),
-                            sliceKey);
+                    CursorPoolEntryKey sliceKey = new CursorPoolEntryKey(
+                            key.getSession(),
+                            key.getCollection(),
+                            key.getSort(),
+                            key.getFilter(),
+                            key.getKeys(),
+                            key.getHint(),
+                            sliceSkips,
+                            -1);
 
                     long existing = getSliceHeight(sliceKey);
 
@@ -334,16 +365,17 @@ public class CursorPool {
                                 key.getCollection(),
                                 key.getSort(),
                                 key.getFilter(),
-                                key.getHint(),
                                 key.getKeys(),
+                                key.getHint(),
                                 sliceSkips,
                                 System.nanoTime());
-                        cache.put(newkey, cursor);
 
-                        LOGGER.debug("{} cursor in pool (copied): {}",
+                        put(newkey, cursor);
+
+                        LOGGER.debug("{} cursor in pool: {}",
                                 ansi().fg(YELLOW).bold().a("new").reset()
                                         .toString(),
-                                sliceKey);
+                                newkey);
                     }
                 }
             });
@@ -354,10 +386,36 @@ public class CursorPool {
 
     }
 
+    private void put(CursorPoolEntryKey key, FindIterable<BsonDocument> findIterable) {
+        size.incrementAndGet();
+
+        add(new Shape(key), new PooledCursor(key, findIterable));
+    }
+
+    private void add(Shape shape, PooledCursor cursor) {
+        while (true) {
+            var slices = pool.computeIfAbsent(shape, s -> new ConcurrentSkipListMap<>());
+            var slice = slices.computeIfAbsent(cursor.key.getSkipped(), s -> new ConcurrentLinkedDeque<>());
+
+            slice.addLast(cursor);
+
+            // removeExpired() might have removed the empty slice or slices
+            // concurrently; in this case retry, unless the cursor was
+            // already claimed
+            if (pool.get(shape) == slices
+                    && slices.get(cursor.key.getSkipped()) == slice) {
+                return;
+            } else if (!slice.remove(cursor)) {
+                return;
+            }
+        }
+    }
+
     private long getSliceHeight(CursorPoolEntryKey key) {
-        long ret = cache.asMap().keySet().stream()
-                .filter(cursorsPoolFilterEq(key))
-                .count();
+        var slices = pool.get(new Shape(key));
+        var slice = slices == null ? null : slices.get(key.getSkipped());
+
+        long ret = slice == null ? 0 : slice.size();
 
         LOGGER.trace(
                 "cursor in pool with skips {} are {}",
@@ -367,47 +425,116 @@ public class CursorPool {
         return ret;
     }
 
-    private Predicate<? super CursorPoolEntryKey> cursorsPoolFilterEq(
-            CursorPoolEntryKey requestCursor) {
-        return poolCursor
-                -> Objects.equals(poolCursor.getCollection()
-                        .getNamespace(),
-                        requestCursor.getCollection().getNamespace())
-                && Objects.equals(poolCursor.getFilter(),
-                        requestCursor.getFilter())
-                && Objects.equals(poolCursor.getSort(),
-                        requestCursor.getSort())
-                && Objects.equals(poolCursor.getKeys(),
-                        requestCursor.getKeys())
-                && poolCursor.getSkipped() == requestCursor.getSkipped();
+    void removeExpired() {
+        var now = System.currentTimeMillis();
+
+        pool.forEach((shape, slices) -> {
+            slices.forEach((skips, slice) -> {
+                for (var cursor : slice) {
+                    if (cursor.isExpired(now) && slice.removeFirstOccurrence(cursor)) {
+                        size.decrementAndGet();
+                    }
+                }
+
+                if (slice.isEmpty() && slices.remove(skips, slice)) {
+                    // a cursor added concurrently is added again
+                    PooledCursor cursor;
+
+                    while ((cursor = slice.pollFirst()) != null) {
+                        add(shape, cursor);
+                    }
+                }
+            });
+
+            if (slices.isEmpty() && pool.remove(shape, slices)) {
+                slices.forEach((skips, slice) -> {
+                    PooledCursor cursor;
+
+                    while ((cursor = slice.pollFirst()) != null) {
+                        add(shape, cursor);
+                    }
+                });
+            }
+        });
     }
 
-    private Predicate<? super CursorPoolEntryKey> cursorsPoolFilterGte(
-            CursorPoolEntryKey requestCursor) {
-        return poolCursor
-                -> Objects.equals(poolCursor.getCollection().getNamespace(),
-                        requestCursor.getCollection().getNamespace())
-                && Objects.equals(poolCursor.getFilter(),
-                        requestCursor.getFilter())
-                && Objects.equals(poolCursor.getSort(),
-                        requestCursor.getSort())
-                && Objects.equals(poolCursor.getKeys(),
-                        requestCursor.getKeys())
-                && poolCursor.getSkipped() <= requestCursor.getSkipped()
-                && requestCursor.getSkipped() - poolCursor.getSkipped()
-                <= MIN_SKIP_DISTANCE_PERCENTAGE
-                * requestCursor.getSkipped();
+    private Stream<CursorPoolEntryKey> entries() {
+        return pool.values().stream()
+                .flatMap(slices -> slices.values().stream())
+                .flatMap(slice -> slice.stream())
+                .map(cursor -> cursor.key);
     }
 
     private TreeMap<String, Long> getCacheSizes() {
-        return new TreeMap<>(cache.asMap()
-                .keySet()
-                .stream()
+        return new TreeMap<>(entries()
                 .collect(Collectors.groupingBy(
                         CursorPoolEntryKey::getCacheStatsGroup,
                         Collectors.counting())));
     }
 
+    /**
+     * The query of a pooled cursor, regardless of the skipped documents
+     */
+    private static class Shape {
+        private final ClientSession session;
+        private final String namespace;
+        private final BsonDocument filter;
+        private final BsonDocument sort;
+        private final BsonDocument keys;
+        private final BsonDocument hint;
+        private final int hash;
+
+        Shape(CursorPoolEntryKey key) {
+            this.session = key.getSession();
+            this.namespace = key.getCollection().getNamespace().getFullName();
+            this.filter = key.getFilter();
+            this.sort = key.getSort();
+            this.keys = key.getKeys();
+            this.hint = key.getHint();
+            this.hash = Objects.hash(session, namespace, filter, sort, keys, hint);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof Shape)) {
+                return false;
+            }
+
+            var other = (Shape) obj;
+
+            return hash == other.hash
+                    && Objects.equals(session, other.session)
+                    && Objects.equals(namespace, other.namespace)
+                    && Objects.equals(filter, other.filter)
+                    && Objects.equals(sort, other.sort)
+                    && Objects.equals(keys, other.keys)
+                    && Objects.equals(hint, other.hint);
+        }
+    }
+
+    private static class PooledCursor {
+        private final CursorPoolEntryKey key;
+        private final FindIterable<BsonDocument> findIterable;
+        private final long created = System.currentTimeMillis();
+
+        PooledCursor(CursorPoolEntryKey key, FindIterable<BsonDocument> findIterable) {
+            this.key = key;
+            this.findIterable = findIterable;
+        }
+
+        boolean isExpired(long now) {
+            return now - created > TTL;
+        }
+    }
+
     private static class DBCursorPoolSingletonHolder {
 
         private static final CursorPool INSTANCE
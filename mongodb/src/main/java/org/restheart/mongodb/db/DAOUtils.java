@@ -20,6 +20,7 @@
  */
 package org.restheart.mongodb.db;
 
+import com.mongodb.MongoException;
 import com.mongodb.bulk.BulkWriteResult;
 import com.mongodb.client.ClientSession;
 import com.mongodb.client.MongoCollection;
@@ -115,6 +116,18 @@ public class DAOUtils {
     public final static FindOneAndReplaceOptions FOR_AFTER_NOT_UPSERT_OPS = new FindOneAndReplaceOptions()
             .upsert(false).returnDocument(ReturnDocument.AFTER);
 
+    /**
+     *
+     */
+    public final static FindOneAndReplaceOptions FOR_BEFORE_UPSERT_OPS = new FindOneAndReplaceOptions()
+            .upsert(true).returnDocument(ReturnDocument.BEFORE);
+
+    /**
+     *
+     */
+    public final static FindOneAndReplaceOptions FOR_BEFORE_NOT_UPSERT_OPS = new FindOneAndReplaceOptions()
+            .upsert(false).returnDocument(ReturnDocument.BEFORE);
+
     /**
      *
      */
@@ -347,6 +360,159 @@ public class DAOUtils {
         }
     }
 
+    /**
+     * Updates or replaces a document with a single findOneAndUpdate or
+     * findOneAndReplace, whose filter includes the etag precondition.
+     *
+     * On replace, the old document is returned by the write itself and the new
+     * document is the replacement. On update, the document is returned AFTER
+     * the update and the old document is not known: the match itself tells
+     * that the document existed and that its etag satisfied the condition.
+     * With upsert, the update is first tried without it, so that a missing
+     * document, created by a second write, is told from an updated one.
+     *
+     * Only when the write does not match, a further query distinguishes a
+     * missing document (SC_NOT_FOUND) from a failed precondition
+     * (SC_PRECONDITION_FAILED, with the current document as old data).
+     *
+     * @param cs the client session
+     * @param coll
+     * @param documentId
+     * @param filter
+     * @param shardKeys
+     * @param data
+     * @param replace
+     * @param writeMode either UPSERT or UPDATE
+     * @param etagCondition the condition on the _etag of the document to
+     * write, null for no condition
+     * @return the OperationResult, with http code SC_OK if the document was
+     * updated or replaced, SC_CREATED if it was inserted; the old data is
+     * null when the document was updated
+     */
+    public static OperationResult writeDocumentIf(
+            final ClientSession cs,
+            final MongoCollection<BsonDocument> coll,
+            final Object documentId,
+            final BsonDocument filter,
+            final BsonDocument shardKeys,
+            final BsonDocument data,
+            final boolean replace,
+            final WRITE_MODE writeMode,
+            final Bson etagCondition) {
+        Objects.requireNonNull(coll);
+        Objects.requireNonNull(data);
+        Objects.requireNonNull(writeMode);
+
+        if (writeMode == WRITE_MODE.INSERT) {
+            throw new IllegalArgumentException("writeMode cannot be INSERT");
+        }
+
+        Bson idQuery = eq("_id", documentId);
+
+        if (shardKeys != null) {
+            idQuery = and(idQuery, shardKeys);
+        }
+
+        var query = filter != null && !filter.isEmpty()
+                ? and(idQuery, filter)
+                : idQuery;
+
+        var conditionalQuery = etagCondition == null
+                ? query
+                : and(query, etagCondition);
+
+        var upsert = writeMode == WRITE_MODE.UPSERT;
+
+        try {
+            if (replace) {
+                var replacement = getReplaceDocument(data);
+
+                var oldDocument = cs == null
+                        ? coll.findOneAndReplace(conditionalQuery, replacement,
+                                upsert ? FOR_BEFORE_UPSERT_OPS : FOR_BEFORE_NOT_UPSERT_OPS)
+                        : coll.findOneAndReplace(cs, conditionalQuery, replacement,
+                                upsert ? FOR_BEFORE_UPSERT_OPS : FOR_BEFORE_NOT_UPSERT_OPS);
+
+                if (oldDocument == null && !upsert) {
+                    return notMatched(cs, coll, query, etagCondition);
+                }
+
+                // the replaced or inserted document is the replacement
+                var newDocument = new BsonDocument("_id", documentId instanceof BsonValue
+                        ? (BsonValue) documentId
+                        : replacement.get("_id"));
+
+                for (var entry : replacement.entrySet()) {
+                    if (!"_id".equals(entry.getKey())) {
+                        newDocument.put(entry.getKey(), entry.getValue());
+                    }
+                }
+
+                return new OperationResult(oldDocument == null
+                        ? HttpStatus.SC_CREATED
+                        : HttpStatus.SC_OK, oldDocument, newDocument);
+            } else {
+                var update = getUpdateDocument(data);
+
+                var newDocument = cs == null
+                        ? coll.findOneAndUpdate(conditionalQuery, update, FOU_AFTER_NOT_UPSERT_OPS)
+                        : coll.findOneAndUpdate(cs, conditionalQuery, update, FOU_AFTER_NOT_UPSERT_OPS);
+
+                if (newDocument != null) {
+                    return new OperationResult(HttpStatus.SC_OK, null, newDocument);
+                } else if (!upsert) {
+                    return notMatched(cs, coll, query, etagCondition);
+                }
+
+                // no document matched: it is created, unless a document with
+                // the same _id exists (duplicate key)
+                newDocument = cs == null
+                        ? coll.findOneAndUpdate(conditionalQuery, update, FOU_AFTER_UPSERT_OPS)
+                        : coll.findOneAndUpdate(cs, conditionalQuery, update, FOU_AFTER_UPSERT_OPS);
+
+                return new OperationResult(HttpStatus.SC_CREATED, null, newDocument);
+            }
+        } catch (IllegalArgumentException iae) {
+            return new OperationResult(HttpStatus.SC_BAD_REQUEST);
+        } catch (MongoException me) {
+            // with upsert, a document that exists but does not match
+            // the etag condition causes a duplicate _id
+            if (me.getCode() == DUPLICATE_KEY_ERROR && etagCondition != null) {
+                var current = cs == null
+                        ? coll.find(query).first()
+                        : coll.find(cs, query).first();
+
+                if (current != null) {
+                    return new OperationResult(HttpStatus.SC_PRECONDITION_FAILED, current, null);
+                }
+            }
+
+            throw me;
+        }
+    }
+
+    /**
+     * @return SC_NOT_FOUND if the document does not exist, otherwise
+     * SC_PRECONDITION_FAILED with the current document as old data
+     */
+    private static OperationResult notMatched(
+            final ClientSession cs,
+            final MongoCollection<BsonDocument> coll,
+            final Bson query,
+            final Bson etagCondition) {
+        if (etagCondition == null) {
+            return new OperationResult(HttpStatus.SC_NOT_FOUND);
+        }
+
+        var current = cs == null
+                ? coll.find(query).first()
+                : coll.find(cs, query).first();
+
+        return current == null
+                ? new OperationResult(HttpStatus.SC_NOT_FOUND)
+                : new OperationResult(HttpStatus.SC_PRECONDITION_FAILED, current, null);
+    }
+
     /**
      *
      * @param cs the client session
@@ -24,7 +24,10 @@ import com.mongodb.client.ClientSession;
 import com.mongodb.client.FindIterable;
 import com.mongodb.client.MongoCollection;
 import com.mongodb.client.MongoDatabase;
+import com.mongodb.reactivestreams.client.FindPublisher;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import org.bson.BsonArray;
 import org.bson.BsonDocument;
 import org.bson.BsonObjectId;
@@ -126,6 +129,29 @@ public interface Database {
             final BsonDocument keys,
             final EAGER_CURSOR_ALLOCATION_POLICY cursorAllocationPolicy);
 
+    /**
+     *
+     * @param dbName
+     * @param collectionName
+     * @param page
+     * @param pagesize
+     * @param sortBy
+     * @param filter
+     * @param hint
+     * @param keys
+     * @return the publisher of the collection data, found by the reactive
+     * client
+     */
+    FindPublisher<BsonDocument> getCollectionDataPublisher(
+            final String dbName,
+            final String collectionName,
+            final int page,
+            final int pagesize,
+            final BsonDocument sortBy,
+            final BsonDocument filter,
+            final BsonDocument hint,
+            final BsonDocument keys);
+
     /**
      *
      * @param cs the client session
@@ -138,6 +164,19 @@ public interface Database {
             final String dbName,
             final String collectionName);
 
+    /**
+     *
+     * @param cs the client session
+     * @param dbName
+     * @param collectionNames
+     * @return the properties of the collections by collection name, loaded
+     * with a single query
+     */
+    Map<String, BsonDocument> getCollectionsProperties(
+            final ClientSession cs,
+            final String dbName,
+            final Collection<String> collectionNames);
+
     /**
      *
      * @param cs the client session
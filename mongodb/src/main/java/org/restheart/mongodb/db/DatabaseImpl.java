@@ -26,8 +26,11 @@ import com.mongodb.client.FindIterable;
 import com.mongodb.client.MongoCollection;
 import com.mongodb.client.MongoDatabase;
 import static com.mongodb.client.model.Filters.eq;
+import com.mongodb.reactivestreams.client.FindPublisher;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.stream.Collectors;
 import org.bson.BsonArray;
@@ -96,6 +99,12 @@ public class DatabaseImpl implements Database {
     public boolean doesDbExist(
             final ClientSession cs,
             final String dbName) {
+        // the collection names are listed only when not known by the
+        // catalog or to honor the client session
+        if (cs == null && NamespaceCatalog.getInstance().isEnabled()) {
+            return NamespaceCatalog.getInstance().doesDbExist(dbName);
+        }
+
         // at least one collection exists for an existing db
         return cs == null
                 ? client.getDatabase(dbName)
@@ -149,6 +158,7 @@ public class DatabaseImpl implements Database {
 
         if (cs == null) {
             db.listCollectionNames().into(_colls);
+            NamespaceCatalog.getInstance().update(dbName, _colls);
         } else {
             db.listCollectionNames(cs).into(_colls);
         }
@@ -251,23 +261,26 @@ public class DatabaseImpl implements Database {
                         ? _colls.size()
                         : (page - 1) * pagesize + pagesize);
 
+        // load the properties of the page's collections at once
+        Map<String, BsonDocument> collsProperties;
+
+        if (MetadataCachesSingleton.isEnabled() && !noCache) {
+            collsProperties = MetadataCachesSingleton.getInstance()
+                    .getCollectionsProperties(dbName, _colls);
+        } else {
+            collsProperties = collectionDAO.getCollectionsProps(
+                    cs,
+                    dbName,
+                    _colls);
+        }
+
         var data = new BsonArray();
 
         _colls.stream().map((collName) -> {
             BsonDocument properties
                     = new BsonDocument("_id", new BsonString(collName));
 
-            BsonDocument collProperties;
-
-            if (MetadataCachesSingleton.isEnabled() && !noCache) {
-                collProperties = MetadataCachesSingleton.getInstance()
-                        .getCollectionProperties(dbName, collName);
-            } else {
-                collProperties = collectionDAO.getCollectionProps(
-                        cs,
-                        dbName,
-                        collName);
-            }
+            BsonDocument collProperties = collsProperties.get(collName);
 
             if (collProperties != null) {
                 properties.putAll(collProperties);
@@ -416,6 +429,10 @@ public class DatabaseImpl implements Database {
                     dcontent,
                     false,
                     WRITE_MODE.UPSERT);
+
+            // the db has been created
+            NamespaceCatalog.getInstance().invalidate(mcoll.getNamespace().getDatabaseName());
+
             return new OperationResult(ret.getHttpCode() > 0
                     ? ret.getHttpCode()
                     : HttpStatus.SC_CREATED, newEtag);
@@ -468,6 +485,8 @@ public class DatabaseImpl implements Database {
             getDatabase(dbName).drop(cs);
         }
 
+        NamespaceCatalog.getInstance().invalidate(dbName);
+
         return new OperationResult(HttpStatus.SC_NO_CONTENT);
     }
 
@@ -489,6 +508,24 @@ public class DatabaseImpl implements Database {
                 collName);
     }
 
+    /**
+     *
+     * @param cs the client session
+     * @param dbName
+     * @param collectionNames
+     * @return
+     */
+    @Override
+    public Map<String, BsonDocument> getCollectionsProperties(
+            final ClientSession cs,
+            final String dbName,
+            final Collection<String> collectionNames) {
+        return collectionDAO.getCollectionsProps(
+                cs,
+                dbName,
+                collectionNames);
+    }
+
     /**
      *
      * @param dbName
@@ -610,6 +647,39 @@ public class DatabaseImpl implements Database {
                 cursorAllocationPolicy);
     }
 
+    /**
+     *
+     * @param dbName
+     * @param collName
+     * @param page
+     * @param pagesize
+     * @param sortBy
+     * @param filter
+     * @param hint
+     * @param keys
+     * @return
+     */
+    @Override
+    public FindPublisher<BsonDocument> getCollectionDataPublisher(
+            final String dbName,
+            final String collName,
+            final int page,
+            final int pagesize,
+            final BsonDocument sortBy,
+            final BsonDocument filter,
+            final BsonDocument hint,
+            final BsonDocument keys) {
+        return collectionDAO.getCollectionDataPublisher(
+                dbName,
+                collName,
+                page,
+                pagesize,
+                sortBy,
+                filter,
+                hint,
+                keys);
+    }
+
     /**
      *
      * @param cs the client session
@@ -27,6 +27,7 @@ import com.mongodb.client.MongoCollection;
 import com.mongodb.client.model.DeleteManyModel;
 import static com.mongodb.client.model.Filters.and;
 import static com.mongodb.client.model.Filters.eq;
+import static com.mongodb.client.model.Filters.exists;
 import com.mongodb.client.model.UpdateManyModel;
 import com.mongodb.client.model.WriteModel;
 import java.util.ArrayList;
@@ -115,6 +116,41 @@ public class DocumentDAO implements DocumentRepository {
             final boolean patching,
             final WRITE_MODE writeMode,
             final boolean checkEtag) {
+        return writeDocument(cs, dbName, collName, documentId, filter, shardKeys,
+                newContent, requestEtag, patching, writeMode, checkEtag, null);
+    }
+
+    /**
+     *
+     * @param cs the client session
+     * @param dbName
+     * @param collName
+     * @param documentId
+     * @param filter
+     * @param shardKeys
+     * @param newContent
+     * @param requestEtag
+     * @param patching
+     * @param writeMode
+     * @param checkEtag
+     * @param checkedDocument the document as read before the write, an empty
+     * document if it did not exist; the write fails with SC_PRECONDITION_FAILED
+     * if the document was modified since. null to write unconditionally
+     * @return the OperationResult
+     */
+    public OperationResult writeDocument(
+            final ClientSession cs,
+            final String dbName,
+            final String collName,
+            final Object documentId,
+            final BsonDocument filter,
+            final BsonDocument shardKeys,
+            final BsonDocument newContent,
+            final String requestEtag,
+            final boolean patching,
+            final WRITE_MODE writeMode,
+            final boolean checkEtag,
+            final BsonDocument checkedDocument) {
         var mcoll = collectionDAO.getCollection(dbName, collName);
 
         // genereate new etag
@@ -124,7 +160,27 @@ public class DocumentDAO implements DocumentRepository {
 
         content.put("_etag", new BsonObjectId(newEtag));
 
-        OperationResult updateResult = DAOUtils.writeDocument(
+        if (writeMode == WRITE_MODE.INSERT) {
+            OperationResult insertResult = DAOUtils.writeDocument(
+                    cs,
+                    mcoll,
+                    documentId,
+                    filter,
+                    shardKeys,
+                    content,
+                    !patching,
+                    writeMode);
+
+            return new OperationResult(
+                    insertResult.getHttpCode() > 0
+                    ? insertResult.getHttpCode()
+                    : HttpStatus.SC_CREATED,
+                    newEtag,
+                    insertResult.getOldData(),
+                    insertResult.getNewData());
+        }
+
+        OperationResult writeResult = DAOUtils.writeDocumentIf(
                 cs,
                 mcoll,
                 documentId,
@@ -132,65 +188,10 @@ public class DocumentDAO implements DocumentRepository {
                 shardKeys,
                 content,
                 !patching,
-                writeMode);
-
-        BsonDocument oldDocument = updateResult.getOldData();
-
-        if (patching) {
-            if (oldDocument == null) {
-                return new OperationResult(
-                        updateResult.getHttpCode() > 0
-                        ? updateResult.getHttpCode()
-                        : HttpStatus.SC_CREATED, newEtag, null, updateResult.getNewData());
-            } else if (checkEtag) {
-                // check the old etag (in case restore the old document version)
-                return optimisticCheckEtag(
-                        cs,
-                        mcoll,
-                        shardKeys,
-                        oldDocument,
-                        newEtag,
-                        requestEtag,
-                        HttpStatus.SC_OK,
-                        false);
-            } else {
-                var query = eq("_id", documentId);
-                BsonDocument newDocument = cs == null
-                        ? mcoll.find(query).first()
-                        : mcoll.find(cs, query).first();
-
-                return new OperationResult(updateResult.getHttpCode() > 0
-                        ? updateResult.getHttpCode()
-                        : HttpStatus.SC_OK, newEtag, oldDocument, newDocument);
-            }
-        } else if (oldDocument != null && checkEtag) { // upsertDocument
-            // check the old etag (in case restore the old document)
-            return optimisticCheckEtag(
-                    cs,
-                    mcoll,
-                    shardKeys,
-                    oldDocument,
-                    newEtag,
-                    requestEtag,
-                    HttpStatus.SC_OK,
-                    false);
-        } else if (oldDocument != null) {  // insert
-            BsonDocument newDocument = mcoll.find(
-                    eq("_id", documentId)).first();
-
-            return new OperationResult(
-                    updateResult.getHttpCode() > 0
-                    ? updateResult.getHttpCode()
-                    : HttpStatus.SC_OK, newEtag, oldDocument, newDocument);
-        } else {
-            BsonDocument newDocument = mcoll.find(
-                    eq("_id", documentId)).first();
+                writeMode,
+                writeCondition(checkEtag ? etagCondition(requestEtag) : null, checkedDocument));
 
-            return new OperationResult(
-                    updateResult.getHttpCode() > 0
-                    ? updateResult.getHttpCode()
-                    : HttpStatus.SC_CREATED, newEtag, null, newDocument);
-        }
+        return toOperationResult(writeResult, newEtag, requestEtag);
     }
 
     /**
@@ -242,6 +243,21 @@ public class DocumentDAO implements DocumentRepository {
             }
         }
 
+        if (writeMode != WRITE_MODE.INSERT && !(documentId instanceof Optional)) {
+            OperationResult writeResult = DAOUtils.writeDocumentIf(
+                    cs,
+                    mcoll,
+                    documentId,
+                    filter,
+                    shardKeys,
+                    _content,
+                    true,
+                    writeMode,
+                    checkEtag ? etagCondition(requestEtag) : null);
+
+            return toOperationResult(writeResult, newEtag, requestEtag);
+        }
+
         OperationResult updateResult = DAOUtils.writeDocument(
                 cs,
                 mcoll,
@@ -479,6 +495,87 @@ public class DocumentDAO implements DocumentRepository {
         return new BulkOperationResult(HttpStatus.SC_OK, null, result);
     }
 
+    /**
+     *
+     * @param requestEtag
+     * @return the condition on the _etag of the document to write
+     */
+    private static Bson etagCondition(final String requestEtag) {
+        if (requestEtag == null) {
+            // a document with an etag requires the request etag
+            return exists("_etag", false);
+        } else if (ObjectId.isValid(requestEtag)) {
+            return eq("_etag", new ObjectId(requestEtag));
+        } else {
+            // restheart generates ObjectId etags, but here we support
+            // strings as well
+            return eq("_etag", requestEtag);
+        }
+    }
+
+    /**
+     *
+     * @param etagCondition
+     * @param checkedDocument
+     * @return the condition on the document to write, that adds to the
+     * etagCondition that the document is still the checked one
+     */
+    private static Bson writeCondition(final Bson etagCondition, final BsonDocument checkedDocument) {
+        if (checkedDocument == null) {
+            return etagCondition;
+        }
+
+        Bson unmodified;
+
+        if (checkedDocument.isEmpty()) {
+            // it did not exist, an upsert fails with a duplicate key
+            unmodified = exists("_id", false);
+        } else if (checkedDocument.containsKey("_etag")) {
+            unmodified = eq("_etag", checkedDocument.get("_etag"));
+        } else {
+            unmodified = exists("_etag", false);
+        }
+
+        return etagCondition == null
+                ? unmodified
+                : and(etagCondition, unmodified);
+    }
+
+    /**
+     *
+     * @param writeResult the result of DAOUtils.writeDocumentIf()
+     * @param newEtag
+     * @param requestEtag
+     * @return the OperationResult of the write request
+     */
+    private static OperationResult toOperationResult(
+            final OperationResult writeResult,
+            final Object newEtag,
+            final String requestEtag) {
+        var oldDocument = writeResult.getOldData();
+
+        if (writeResult.getHttpCode() == HttpStatus.SC_PRECONDITION_FAILED) {
+            var oldEtag = oldDocument.get("_etag");
+
+            return new OperationResult(
+                    requestEtag == null
+                    ? HttpStatus.SC_CONFLICT
+                    : HttpStatus.SC_PRECONDITION_FAILED,
+                    oldEtag,
+                    oldDocument,
+                    null);
+        } else if (writeResult.getHttpCode() == HttpStatus.SC_OK
+                || writeResult.getHttpCode() == HttpStatus.SC_CREATED) {
+            return new OperationResult(
+                    writeResult.getHttpCode(),
+                    newEtag,
+                    oldDocument,
+                    writeResult.getNewData());
+        } else {
+            return new OperationResult(writeResult.getHttpCode(), newEtag, null, null);
+        }
+    }
+
     private OperationResult optimisticCheckEtag(
             final ClientSession cs,
             final MongoCollection<BsonDocument> coll,
@@ -0,0 +1,318 @@
+/*-
+ * ========================LICENSE_START=================================
+ * restheart-mongodb
+ * %%
+ * Copyright (C) 2014 - 2020 SoftInstigate
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * =========================LICENSE_END==================================
+ */
+package org.restheart.mongodb.db;
+
+import java.util.Arrays;
+import org.bson.BsonBoolean;
+import org.bson.BsonDateTime;
+import org.bson.BsonDocument;
+import org.bson.BsonDouble;
+import org.bson.BsonInt32;
+import org.bson.BsonInt64;
+import org.bson.BsonNull;
+import org.bson.BsonString;
+import org.bson.BsonTimestamp;
+import org.bson.BsonValue;
+
+/**
+ * Computes in memory the document resulting from a PATCH, i.e. applies to it
+ * the update document built by DAOUtils.getUpdateDocument().
+ *
+ * Only the update operators $set, $unset, $inc, $mul, $min, $max, $rename,
+ * $currentDate and $setOnInsert with plain dot notation paths are supported;
+ * apply() throws UnsupportedUpdateException for other operators ($push,
+ * $pull, etc), for positional paths and for updates that MongoDB would
+ * reject.
+ */
+public class InMemoryUpdate {
+    /**
+     * @param document the current document, it is not modified
+     * @param patch the request content of the PATCH
+     * @param insert true if the document does not exist and is upserted
+     * @return the patched document
+     * @throws UnsupportedUpdateException if the patch cannot be applied in
+     * memory
+     */
+    public static BsonDocument apply(final BsonDocument document, final BsonDocument patch, final boolean insert)
+            throws UnsupportedUpdateException {
+        var ret = document.clone();
+        var update = DAOUtils.getUpdateDocument(patch);
+
+        for (var entry : update.entrySet()) {
+            var operator = entry.getKey();
+
+            if (!entry.getValue().isDocument()) {
+                throw new UnsupportedUpdateException(operator + " is not an object");
+            }
+
+            var fields = entry.getValue().asDocument();
+            var now = System.currentTimeMillis();
+
+            for (var field : fields.entrySet()) {
+                applyOperator(ret, operator, field.getKey(), field.getValue(), insert, now);
+            }
+        }
+
+        return ret;
+    }
+
+    private static void applyOperator(BsonDocument doc,
+            String operator,
+            String path,
+            BsonValue value,
+            boolean insert,
+            long now) throws UnsupportedUpdateException {
+        BsonValue current;
+
+        switch (operator) {
+            case "$set":
+                set(doc, path, value);
+                break;
+            case "$setOnInsert":
+                if (insert) {
+                    set(doc, path, value);
+                }
+                break;
+            case "$unset":
+                unset(doc, path);
+                break;
+            case "$inc":
+                set(doc, path, inc(get(doc, path), value));
+                break;
+            case "$mul":
+                set(doc, path, mul(get(doc, path), value));
+                break;
+            case "$min":
+                current = get(doc, path);
+
+                if (current == null || compare(value, current) < 0) {
+                    set(doc, path, value);
+                }
+                break;
+            case "$max":
+                current = get(doc, path);
+
+                if (current == null || compare(value, current) > 0) {
+                    set(doc, path, value);
+                }
+                break;
+            case "$rename":
+                if (!value.isString()) {
+                    throw new UnsupportedUpdateException("$rename target is not a string");
+                }
+
+                current = get(doc, path);
+
+                if (current != null) {
+                    unset(doc, path);
+                    set(doc, value.asString().getValue(), current);
+                }
+                break;
+            case "$currentDate":
+                if (BsonBoolean.TRUE.equals(value)
+                        || new BsonDocument("$type", new BsonString("date")).equals(value)) {
+                    set(doc, path, new BsonDateTime(now));
+                } else if (new BsonDocument("$type", new BsonString("timestamp")).equals(value)) {
+                    set(doc, path, new BsonTimestamp((int) (now / 1000), 1));
+                } else {
+                    throw new UnsupportedUpdateException("wrong $currentDate operator");
+                }
+                break;
+            default:
+                throw new UnsupportedUpdateException("update operator " + operator);
+        }
+    }
+
+    private static String[] segments(String path) throws UnsupportedUpdateException {
+        var segments = path.split("\\.", -1);
+
+        for (var segment : segments) {
+            if (segment.isEmpty() || segment.startsWith("$")) {
+                throw new UnsupportedUpdateException("path " + path);
+            }
+        }
+
+        return segments;
+    }
+
+    private static int index(String segment) {
+        try {
+            return Integer.parseInt(segment);
+        } catch (NumberFormatException nfe) {
+            return -1;
+        }
+    }
+
+    private static BsonValue get(BsonDocument doc, String path) throws UnsupportedUpdateException {
+        BsonValue current = doc;
+
+        for (var segment : segments(path)) {
+            if (current.isDocument()) {
+                current = current.asDocument().get(segment);
+            } else if (current.isArray() && index(segment) >= 0 && index(segment) < current.asArray().size()) {
+                current = current.asArray().get(index(segment));
+            } else {
+                return null;
+            }
+
+            if (current == null) {
+                return null;
+            }
+        }
+
+        return current;
+    }
+
+    private static void set(BsonDocument doc, String path, BsonValue value) throws UnsupportedUpdateException {
+        var segments = segments(path);
+        BsonValue parent = doc;
+
+        for (int i = 0; i < segments.length; i++) {
+            var segment = segments[i];
+            var last = i == segments.length - 1;
+
+            if (parent.isDocument()) {
+                var _parent = parent.asDocument();
+
+                if (last) {
+                    _parent.put(segment, value);
+                } else {
+                    var child = _parent.get(segment);
+
+                    if (child == null) {
+                        child = new BsonDocument();
+                        _parent.put(segment, child);
+                    }
+
+                    parent = child;
+                }
+            } else if (parent.isArray() && index(segment) >= 0) {
+                var array = parent.asArray();
+                var idx = index(segment);
+                var missing = idx >= array.size();
+
+                // MongoDB pads the array with nulls
+                while (array.size() <= idx) {
+                    array.add(BsonNull.VALUE);
+                }
+
+                if (last) {
+                    array.set(idx, value);
+                } else {
+                    if (missing) {
+                        array.set(idx, new BsonDocument());
+                    }
+
+                    parent = array.get(idx);
+                }
+            } else {
+                throw new UnsupportedUpdateException("cannot create field " + segment + " of path " + path);
+            }
+        }
+    }
+
+    private static void unset(BsonDocument doc, String path) throws UnsupportedUpdateException {
+        var segments = segments(path);
+        var parentPath = String.join(".", Arrays.copyOf(segments, segments.length - 1));
+        var parent = segments.length == 1 ? doc : get(doc, parentPath);
+        var key = segments[segments.length - 1];
+
+        if (parent == null) {
+            return;
+        } else if (parent.isDocument()) {
+            parent.asDocument().remove(key);
+        } else if (parent.isArray() && index(key) >= 0 && index(key) < parent.asArray().size()) {
+            // MongoDB sets the array element to null
+            parent.asArray().set(index(key), BsonNull.VALUE);
+        }
+    }
+
+    private static BsonValue inc(BsonValue current, BsonValue value) throws UnsupportedUpdateException {
+        if (current == null) {
+            return number(value);
+        } else if (number(current).isDouble() || number(value).isDouble()) {
+            return new BsonDouble(current.asNumber().doubleValue() + value.asNumber().doubleValue());
+        } else if (current.isInt32() && value.isInt32()) {
+            var result = current.asInt32().longValue() + value.asInt32().longValue();
+
+            return result == (int) result ? new BsonInt32((int) result) : new BsonInt64(result);
+        } else {
+            try {
+                return new BsonInt64(Math.addExact(current.asNumber().longValue(), value.asNumber().longValue()));
+            } catch (ArithmeticException ae) {
+                throw new UnsupportedUpdateException("$inc overflow");
+            }
+        }
+    }
+
+    private static BsonValue mul(BsonValue current, BsonValue value) throws UnsupportedUpdateException {
+        if (current == null) {
+            current = number(value).isDouble()
+                    ? new BsonDouble(0)
+                    : value.isInt32() ? new BsonInt32(0) : new BsonInt64(0);
+        }
+
+        if (number(current).isDouble() || number(value).isDouble()) {
+            return new BsonDouble(current.asNumber().doubleValue() * value.asNumber().doubleValue());
+        } else if (current.isInt32() && value.isInt32()) {
+            var result = current.asInt32().longValue() * value.asInt32().longValue();
+
+            return result == (int) result ? new BsonInt32((int) result) : new BsonInt64(result);
+        } else {
+            try {
+                return new BsonInt64(Math.multiplyExact(current.asNumber().longValue(), value.asNumber().longValue()));
+            } catch (ArithmeticException ae) {
+                throw new UnsupportedUpdateException("$mul overflow");
+            }
+        }
+    }
+
+    private static BsonValue number(BsonValue value) throws UnsupportedUpdateException {
+        if (value.isInt32() || value.isInt64() || value.isDouble()) {
+            return value;
+        } else {
+            throw new UnsupportedUpdateException("not a number " + value);
+        }
+    }
+
+    /**
+     * compares values of the same type, for which the BSON comparison order
+     * is the natural one
+     */
+    private static int compare(BsonValue a, BsonValue b) throws UnsupportedUpdateException {
+        if ((a.isInt32() || a.isInt64() || a.isDouble()) && (b.isInt32() || b.isInt64() || b.isDouble())) {
+            if (a.isDouble() || b.isDouble()) {
+                return Double.compare(a.asNumber().doubleValue(), b.asNumber().doubleValue());
+            } else {
+                return Long.compare(a.asNumber().longValue(), b.asNumber().longValue());
+            }
+        } else if (a.isString() && b.isString()) {
+            return a.asString().compareTo(b.asString());
+        } else if (a.isDateTime() && b.isDateTime()) {
+            return a.asDateTime().compareTo(b.asDateTime());
+        } else {
+            throw new UnsupportedUpdateException("cannot compare " + a.getBsonType() + " and " + b.getBsonType());
+        }
+    }
+
+    private InMemoryUpdate() {
+    }
+}
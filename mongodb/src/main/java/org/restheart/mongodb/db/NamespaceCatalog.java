@@ -0,0 +1,330 @@
+/*-
+ * ========================LICENSE_START=================================
+ * restheart-mongodb
+ * %%
+ * Copyright (C) 2014 - 2020 SoftInstigate
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * =========================LICENSE_END==================================
+ */
+package org.restheart.mongodb.db;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import static com.mongodb.client.model.Aggregates.match;
+import static com.mongodb.client.model.Filters.eq;
+import static com.mongodb.client.model.Filters.in;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiPredicate;
+import java.util.function.Function;
+import org.bson.BsonDocument;
+import org.restheart.mongodb.MongoServiceConfiguration;
+import static org.restheart.mongodb.MongoServiceConfigurationKeys.DEFAULT_NAMESPACE_CATALOG_TTL;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Keeps in memory the names of the collections of the databases, so that
+ * checking the existence of a db or a collection does not require to list
+ * the collections of the db.
+ *
+ * The collection names of a db are loaded lazily and replaced as a whole
+ * (copy on write). A snapshot is discarded when RESTHeart creates or deletes
+ * the db or one of its collections, and, on replica sets, when a change
+ * stream notifies that a collection or the db has been dropped or renamed.
+ * Without the change stream, the snapshots expire after the TTL.
+ *
+ * Collections created implicitly by RESTHeart, e.g. by the first insert of
+ * the csv loader, are added to the snapshot via addCollection(). Collections
+ * created by other clients are not notified by change streams: a lookup of a
+ * collection not in the snapshot checks its existence on the server and adds
+ * it to the snapshot if found; a lookup of a db without collections reloads
+ * its snapshot, at most once per second.
+ */
+public class NamespaceCatalog {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(NamespaceCatalog.class);
+
+    private static final long MISS_RELOAD_INTERVAL = 1_000;
+
+    private static final long WATCH_RETRY_DELAY = 60;
+
+    private static final List<String> DDL_OPERATIONS = List.of("drop", "rename", "dropDatabase", "invalidate");
+
+    private final Function<String, Collection<String>> loader;
+    private final BiPredicate<String, String> lookup;
+    private final long ttl;
+
+    private final ConcurrentHashMap<String, Snapshot> snapshots = new ConcurrentHashMap<>();
+
+    // incremented by each invalidation, a snapshot loaded while the catalog
+    // is invalidated is not stored
+    private final AtomicLong epoch = new AtomicLong();
+
+    private volatile boolean watching = false;
+
+    public static NamespaceCatalog getInstance() {
+        return NamespaceCatalogHolder.INSTANCE;
+    }
+
+    private static class NamespaceCatalogHolder {
+        private static final NamespaceCatalog INSTANCE = new NamespaceCatalog();
+    }
+
+    private NamespaceCatalog() {
+        var conf = MongoServiceConfiguration.get();
+        var client = MongoClientSingleton.getInstance().getClient();
+
+        this.ttl = conf == null ? DEFAULT_NAMESPACE_CATALOG_TTL : conf.getNamespaceCatalogTTL();
+        this.loader = dbName -> client.getDatabase(dbName).listCollectionNames().into(new ArrayList<>());
+        this.lookup = (dbName, collName) -> client.getDatabase(dbName)
+                .listCollections(BsonDocument.class)
+                .filter(eq("name", collName))
+                .first() != null;
+
+        if (isEnabled() && MongoClientSingleton.getInstance().isReplicaSet()) {
+            Executors.newSingleThreadExecutor(new ThreadFactoryBuilder()
+                    .setDaemon(true)
+                    .setNameFormat("namespace-catalog-watcher-%d")
+                    .build())
+                    .execute(this::watch);
+        }
+    }
+
+    /**
+     *
+     * @param loader the function that lists the collection names of a db
+     * @param ttl the time to live of a snapshot in milliseconds, 0 to
+     * disable the catalog
+     */
+    NamespaceCatalog(Function<String, Collection<String>> loader, long ttl) {
+        this(loader, (dbName, collName) -> loader.apply(dbName).contains(collName), ttl);
+    }
+
+    /**
+     *
+     * @param loader the function that lists the collection names of a db
+     * @param lookup the function that checks the existence of a collection
+     * @param ttl the time to live of a snapshot in milliseconds, 0 to
+     * disable the catalog
+     */
+    NamespaceCatalog(Function<String, Collection<String>> loader, BiPredicate<String, String> lookup, long ttl) {
+        this.loader = loader;
+        this.lookup = lookup;
+        this.ttl = ttl;
+    }
+
+    /**
+     *
+     * @return true if the catalog is enabled
+     */
+    public boolean isEnabled() {
+        return ttl > 0;
+    }
+
+    /**
+     *
+     * @param dbName
+     * @return true if the db exists, i.e. it has at least one collection
+     */
+    public boolean doesDbExist(String dbName) {
+        var snapshot = snapshot(dbName);
+
+        if (snapshot.collections.isEmpty() && snapshot.isReloadableOnMiss()) {
+            snapshot = load(dbName);
+        }
+
+        return !snapshot.collections.isEmpty();
+    }
+
+    /**
+     *
+     * @param dbName
+     * @param collName
+     * @return true if the collection exists
+     */
+    public boolean doesCollectionExist(String dbName, String collName) {
+        if (snapshot(dbName).collections.contains(collName)) {
+            return true;
+        }
+
+        // the collection could have been created after the snapshot was loaded
+        if (lookup.test(dbName, collName)) {
+            addCollection(dbName, collName);
+            return true;
+        } else {
+            return false;
+        }
+    }
+
+    /**
+     * Adds the collection to the snapshot of the db, to be called after
+     * creating it implicitly, i.e. by writing the first documents
+     *
+     * @param dbName
+     * @param collName
+     */
+    public void addCollection(String dbName, String collName) {
+        if (!isEnabled()) {
+            return;
+        }
+
+        var snapshot = snapshots.get(dbName);
+
+        if (snapshot != null && snapshot.collections.contains(collName)) {
+            return;
+        }
+
+        // a snapshot being loaded could miss the collection
+        epoch.incrementAndGet();
+        snapshots.computeIfPresent(dbName, (k, s) -> s.with(collName));
+    }
+
+    /**
+     * Replaces the snapshot of the db with freshly listed collection names
+     *
+     * @param dbName
+     * @param collections
+     */
+    public void update(String dbName, Collection<String> collections) {
+        if (isEnabled()) {
+            snapshots.put(dbName, new Snapshot(collections));
+        }
+    }
+
+    /**
+     * Discards the snapshot of the db, to be called after creating or
+     * deleting the db or one of its collections
+     *
+     * @param dbName
+     */
+    public void invalidate(String dbName) {
+        epoch.incrementAndGet();
+        snapshots.remove(dbName);
+    }
+
+    /**
+     * Discards all the snapshots
+     */
+    public void invalidateAll() {
+        epoch.incrementAndGet();
+        snapshots.clear();
+    }
+
+    private Snapshot snapshot(String dbName) {
+        var snapshot = snapshots.get(dbName);
+
+        if (snapshot == null || (!watching && snapshot.isOlderThan(ttl))) {
+            return load(dbName);
+        } else {
+            return snapshot;
+        }
+    }
+
+    private Snapshot load(String dbName) {
+        var _epoch = epoch.get();
+        var snapshot = new Snapshot(loader.apply(dbName));
+
+        if (isEnabled() && epoch.get() == _epoch) {
+            snapshots.put(dbName, snapshot);
+        }
+
+        return snapshot;
+    }
+
+    /**
+     * watches the cluster for dropped and renamed namespaces; the snapshots
+     * are discarded when the change stream is (re)opened since notifications
+     * could have been missed
+     */
+    private void watch() {
+        var client = MongoClientSingleton.getInstance().getClient();
+        var pipeline = List.of(match(in("operationType", DDL_OPERATIONS)));
+
+        while (true) {
+            try (var cursor = client.watch(pipeline).withDocumentClass(BsonDocument.class).iterator()) {
+                invalidateAll();
+                watching = true;
+                LOGGER.debug("Watching namespaces changes");
+
+                while (cursor.hasNext()) {
+                    var notification = cursor.next();
+
+                    if ("invalidate".equals(notification.getString("operationType").getValue())) {
+                        invalidateAll();
+                    } else {
+                        invalidate(notification, "ns");
+                        invalidate(notification, "to");
+                    }
+                }
+            } catch (Throwable t) {
+                LOGGER.warn("Error watching namespaces changes, namespace catalog snapshots expire after {} msecs", ttl, t);
+            } finally {
+                watching = false;
+            }
+
+            try {
+                TimeUnit.SECONDS.sleep(WATCH_RETRY_DELAY);
+            } catch (InterruptedException ie) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    private void invalidate(BsonDocument notification, String nsField) {
+        var ns = notification.get(nsField);
+
+        if (ns != null && ns.isDocument() && ns.asDocument().isString("db")) {
+            invalidate(ns.asDocument().getString("db").getValue());
+        }
+    }
+
+    private static class Snapshot {
+        private final Set<String> collections;
+        private final long loadedAt;
+
+        Snapshot(Collection<String> collections) {
+            this.collections = Set.copyOf(collections);
+            this.loadedAt = System.currentTimeMillis();
+        }
+
+        private Snapshot(Set<String> collections, long loadedAt) {
+            this.collections = collections;
+            this.loadedAt = loadedAt;
+        }
+
+        Snapshot with(String collName) {
+            var _collections = new HashSet<>(collections);
+            _collections.add(collName);
+
+            return new Snapshot(Set.copyOf(_collections), loadedAt);
+        }
+
+        boolean isOlderThan(long millis) {
+            return System.currentTimeMillis() - loadedAt > millis;
+        }
+
+        boolean isReloadableOnMiss() {
+            return isOlderThan(MISS_RELOAD_INTERVAL);
+        }
+    }
+}
@@ -0,0 +1,59 @@
+/*-
+ * ========================LICENSE_START=================================
+ * restheart-mongodb
+ * %%
+ * Copyright (C) 2014 - 2020 SoftInstigate
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * =========================LICENSE_END==================================
+ */
+package org.restheart.mongodb.db.sessions;
+
+import java.util.UUID;
+import org.restheart.cache.Cache;
+import org.restheart.cache.CacheFactory;
+
+/**
+ * Keeps the states of the transactions in a bounded, local cache; the state of
+ * a session is evicted after ttl milliseconds since its last update.
+ */
+public class LocalTxnsStatesStore implements TxnsStatesStore {
+    private final Cache<UUID, Txn> states;
+
+    /**
+     *
+     * @param size the maximum number of sessions
+     * @param ttl Time To Live in milliseconds
+     */
+    public LocalTxnsStatesStore(long size, long ttl) {
+        this.states = CacheFactory.createLocalCache(size, Cache.EXPIRE_POLICY.AFTER_WRITE, ttl);
+    }
+
+    @Override
+    public Txn get(UUID sid) {
+        var txn = states.get(sid);
+
+        return txn == null ? null : txn.orElse(null);
+    }
+
+    @Override
+    public void put(UUID sid, Txn txn) {
+        states.put(sid, txn);
+    }
+
+    @Override
+    public void remove(UUID sid) {
+        states.invalidate(sid);
+    }
+}
@@ -113,13 +113,14 @@ public class TxnClientSessionFactory extends ClientSessionFactory {
 
     /**
      *
-     * Warn: requires a round trip to the server
+     * Warn: requires a round trip to the server if the state of the txn is
+     * not tracked by TxnsStatesRegistry
      *
      * @param sid
      * @return
      */
     public TxnClientSessionImpl getTxnClientSession(UUID sid) {
-        return getTxnClientSession(sid, TxnsUtils.getTxnServerStatus(sid));
+        return getTxnClientSession(sid, TxnsUtils.getTxnStatus(sid));
     }
 
     /**
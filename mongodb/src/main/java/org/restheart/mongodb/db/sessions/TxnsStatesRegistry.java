@@ -0,0 +1,145 @@
+/*-
+ * ========================LICENSE_START=================================
+ * restheart-mongodb
+ * %%
+ * Copyright (C) 2014 - 2020 SoftInstigate
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * =========================LICENSE_END==================================
+ */
+package org.restheart.mongodb.db.sessions;
+
+import java.util.UUID;
+import org.restheart.mongodb.MongoServiceConfiguration;
+import static org.restheart.mongodb.MongoServiceConfigurationKeys.DEFAULT_TXNS_STATES_CACHE_SIZE;
+import static org.restheart.mongodb.MongoServiceConfigurationKeys.DEFAULT_TXNS_STATES_CACHE_TTL;
+
+/**
+ * Tracks the state of the transactions, as updated by the txns handlers.
+ *
+ * The state is probed from the server only when not known, e.g. after a
+ * restart or after its eviction. Since a transaction in progress can be
+ * aborted by the server (e.g. when it exceeds transactionLifetimeLimitSeconds),
+ * a tracked IN state is trusted for IN_STATE_TTL milliseconds, then it is
+ * probed again; it is also forgotten when a request in the transaction fails
+ * with NoSuchTransaction or TransientTransactionError, see ErrorHandler
+ */
+public class TxnsStatesRegistry {
+    /**
+     * the time in milliseconds a tracked IN state is trusted
+     */
+    public static final long IN_STATE_TTL = 5_000;
+
+    private static final TxnsStatesStore NO_STORE = new TxnsStatesStore() {
+        @Override
+        public Txn get(UUID sid) {
+            return null;
+        }
+
+        @Override
+        public void put(UUID sid, Txn txn) {
+        }
+
+        @Override
+        public void remove(UUID sid) {
+        }
+    };
+
+    private volatile TxnsStatesStore store;
+
+    public static TxnsStatesRegistry getInstance() {
+        return TxnsStatesRegistryHolder.INSTANCE;
+    }
+
+    private static class TxnsStatesRegistryHolder {
+        private static final TxnsStatesRegistry INSTANCE = new TxnsStatesRegistry();
+    }
+
+    private TxnsStatesRegistry() {
+        var conf = MongoServiceConfiguration.get();
+
+        var size = conf == null ? DEFAULT_TXNS_STATES_CACHE_SIZE : conf.getTxnsStatesCacheSize();
+        var ttl = conf == null ? DEFAULT_TXNS_STATES_CACHE_TTL : conf.getTxnsStatesCacheTTL();
+
+        this.store = size > 0
+                ? new LocalTxnsStatesStore(size, ttl)
+                : NO_STORE;
+    }
+
+    /**
+     * Sets the store of the states, e.g. to share them among more RESTHeart
+     * instances
+     *
+     * @param store
+     */
+    public void setStore(TxnsStatesStore store) {
+        this.store = store == null ? NO_STORE : store;
+    }
+
+    /**
+     *
+     * @param sid
+     * @return the known state of the transaction of the session, or null
+     */
+    public Txn get(UUID sid) {
+        return store.get(sid);
+    }
+
+    /**
+     *
+     * @param sid
+     * @return the known state of the transaction of the session, or null if
+     * it is not known or if it is an IN state tracked more than IN_STATE_TTL
+     * milliseconds ago
+     */
+    public Txn getTrusted(UUID sid) {
+        var txn = store.get(sid);
+
+        if (txn == null || txn.getStatus() != Txn.TransactionStatus.IN) {
+            return txn;
+        }
+
+        // a store can return a copy without the tracking time
+        return txn instanceof TrackedTxn
+                && System.currentTimeMillis() - ((TrackedTxn) txn).trackedAt < IN_STATE_TTL
+                ? txn
+                : null;
+    }
+
+    /**
+     *
+     * @param sid
+     * @param txn
+     */
+    public void put(UUID sid, Txn txn) {
+        store.put(sid, new TrackedTxn(txn.getTxnId(), txn.getStatus(), System.currentTimeMillis()));
+    }
+
+    /**
+     *
+     * @param sid
+     */
+    public void remove(UUID sid) {
+        store.remove(sid);
+    }
+
+    private static class TrackedTxn extends Txn {
+        private final long trackedAt;
+
+        TrackedTxn(long txnId, TransactionStatus status, long trackedAt) {
+            super(txnId, status);
+            this.trackedAt = trackedAt;
+        }
+    }
+}
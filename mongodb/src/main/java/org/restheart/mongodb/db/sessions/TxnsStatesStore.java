@@ -0,0 +1,55 @@
+/*-
+ * ========================LICENSE_START=================================
+ * restheart-mongodb
+ * %%
+ * Copyright (C) 2014 - 2020 SoftInstigate
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * =========================LICENSE_END==================================
+ */
+package org.restheart.mongodb.db.sessions;
+
+import java.util.UUID;
+
+/**
+ * Stores the state of the transactions of the client sessions, so that it is
+ * not probed from the server at each request.
+ *
+ * The default implementation keeps the states in memory; with more RESTHeart
+ * instances behind a load balancer without sticky sessions, an
+ * implementation that shares the states among the instances can be set via
+ * TxnsStatesRegistry.setStore()
+ */
+public interface TxnsStatesStore {
+    /**
+     *
+     * @param sid
+     * @return the known state of the transaction of the session, or null if
+     * not known
+     */
+    Txn get(UUID sid);
+
+    /**
+     *
+     * @param sid
+     * @param txn
+     */
+    void put(UUID sid, Txn txn);
+
+    /**
+     *
+     * @param sid
+     */
+    void remove(UUID sid);
+}
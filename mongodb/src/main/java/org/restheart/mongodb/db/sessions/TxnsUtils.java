@@ -40,6 +40,28 @@ public class TxnsUtils {
     private static final MongoClient MCLIENT = MongoClientSingleton
             .getInstance().getClient();
     
+    /**
+     * Returns the tracked state of the transaction of the session, probing the
+     * server only if it is not known or if it is an IN state that is not
+     * trusted anymore, see TxnsStatesRegistry
+     *
+     * @param sid
+     * @return the txn status
+     */
+    public static Txn getTxnStatus(UUID sid) {
+        var txn = TxnsStatesRegistry.getInstance().getTrusted(sid);
+
+        if (txn != null) {
+            return txn;
+        }
+
+        txn = getTxnServerStatus(sid);
+
+        TxnsStatesRegistry.getInstance().put(sid, txn);
+
+        return txn;
+    }
+
     /**
      * Warn: requires two round trips to server
      *
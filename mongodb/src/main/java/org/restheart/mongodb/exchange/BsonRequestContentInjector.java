@@ -28,14 +28,19 @@ import io.undertow.util.HeaderValues;
 import io.undertow.util.Headers;
 import java.io.File;
 import java.io.IOException;
-import java.nio.charset.StandardCharsets;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 import java.nio.file.Path;
 import java.util.Iterator;
 import org.apache.tika.Tika;
+import org.bson.BSONException;
 import org.bson.BsonArray;
 import org.bson.BsonDocument;
 import org.bson.BsonString;
 import org.bson.BsonValue;
+import org.bson.RawBsonDocument;
+import org.bson.codecs.BsonDocumentCodec;
 import org.bson.json.JsonParseException;
 import org.restheart.exchange.ByteArrayProxyRequest;
 import org.restheart.exchange.Exchange;
@@ -52,6 +57,7 @@ import org.restheart.exchange.MongoResponse;
 import org.restheart.utils.ChannelReader;
 import org.restheart.utils.HttpStatus;
 import org.restheart.utils.BsonUtils;
+import org.restheart.utils.Utf8Reader;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -70,9 +76,12 @@ public class BsonRequestContentInjector {
 
     private static final String CONTENT_TYPE = "contentType";
 
+    private static final BsonDocumentCodec DOCUMENT_CODEC = new BsonDocumentCodec();
+
     private static final String ERROR_INVALID_CONTENTTYPE = "Content-Type must be either: "
             + Exchange.JSON_MEDIA_TYPE
-            + " or " + Exchange.HAL_JSON_MEDIA_TYPE;
+            + ", " + Exchange.HAL_JSON_MEDIA_TYPE
+            + " or " + Exchange.BSON_MEDIA_TYPE;
 
     private static final String ERROR_INVALID_CONTENTTYPE_FILE = "Content-Type must be either: "
             + Exchange.APP_FORM_URLENCODED_TYPE
@@ -85,6 +94,11 @@ public class BsonRequestContentInjector {
                 || ct.startsWith(Exchange.JSON_MEDIA_TYPE)));
     }
 
+    private static boolean isBson(final HeaderValues contentTypes) {
+        return contentTypes != null
+                && contentTypes.stream().anyMatch(ct -> ct.startsWith(Exchange.BSON_MEDIA_TYPE));
+    }
+
     private static boolean isFormOrMultipart(final HeaderValues contentTypes) {
         return contentTypes != null
                 && !contentTypes.isEmpty()
@@ -92,6 +106,53 @@ public class BsonRequestContentInjector {
                 || ct.startsWith(Exchange.MULTIPART_FORM_DATA_TYPE));
     }
 
+    /**
+     * @return a Reader decoding the request content from the buffers of
+     * ByteArrayProxyRequest, if already read, or from the request channel
+     */
+    private static Reader jsonReader(HttpServerExchange exchange, ByteArrayProxyRequest bar) {
+        if (bar.isContentAvailable()) {
+            // content has been already injected by core's
+            // BsonRequestContentInjector
+            return new Utf8Reader(bar.getContentAsStream());
+        } else {
+            var is = ChannelReader.inputStream(exchange);
+            return is == null ? null : new Utf8Reader(is);
+        }
+    }
+
+    /**
+     * Decodes a BSON document or a sequence of BSON documents (bulk post)
+     * without the JSON text round trip: each document is wrapped in a
+     * RawBsonDocument and then decoded to a mutable BsonDocument, since the
+     * request content is modified by the pipeline (e.g. _etag is added).
+     *
+     * @param bytes
+     * @return a BsonDocument, a BsonArray of documents or null if empty
+     */
+    static BsonValue parseBson(byte[] bytes) {
+        if (bytes == null || bytes.length == 0) {
+            return null;
+        }
+
+        var buffer = ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN);
+        var docs = new BsonArray();
+        var offset = 0;
+
+        while (offset < bytes.length) {
+            var size = bytes.length - offset < 4 ? -1 : buffer.getInt(offset);
+
+            if (size < 5 || size > bytes.length - offset) {
+                throw new IllegalArgumentException("invalid document size at offset " + offset);
+            }
+
+            docs.add(new RawBsonDocument(bytes, offset, size).decode(DOCUMENT_CODEC));
+            offset += size;
+        }
+
+        return docs.size() == 1 ? docs.get(0) : docs;
+    }
+
     /**
      * Checks the _id in POST requests; it cannot be a string having a special
      * meaning e.g _null, since the URI /db/coll/_null refers to the document
@@ -322,20 +383,46 @@ public class BsonRequestContentInjector {
             }
         } else {
             if (isHalOrJson(contentType)) {
-                final String contentString;
+                var bar = ByteArrayProxyRequest.of(exchange);
+
+                // parse the json content decoding it directly from the
+                // request buffers, without copying it into a String
+                try (var reader = jsonReader(exchange, bar)) {
+                    content = BsonUtils.parse(reader);
+
+                    if (content != null
+                            && !content.isDocument()
+                            && !content.isArray()) {
+                        throw new IllegalArgumentException(
+                                "request data must be either a json object "
+                                + "or an array"
+                                + ", got " + content.getBsonType().name());
+                    }
+                } catch (JsonParseException | BSONException | IllegalArgumentException ex) {
+                    response.setInError(
+                            HttpStatus.SC_NOT_ACCEPTABLE,
+                            "Invalid JSON. " + ex.getMessage(),
+                            ex);
+                    return;
+                } catch (IOException ieo) {
+                    String errMsg = "Error reading request content";
+
+                    LOGGER.error(errMsg, ieo);
+
+                    response.setInError(
+                            HttpStatus.SC_NOT_ACCEPTABLE,
+                            errMsg);
+                    return;
+                }
+            } else if (isBson(contentType)) {
+                final byte[] contentBytes;
 
                 var bar = ByteArrayProxyRequest.of(exchange);
 
                 try {
-                    if (bar.isContentAvailable()) {
-                        // if content has been already injected by core's
-                        // BsonRequestContentInjector
-                        // get it from MongoRequest.readContent()
-                        contentString = new String(bar.readContent(), StandardCharsets.UTF_8);
-                    } else {
-                        // otherwise use ChannelReader
-                        contentString = ChannelReader.readString(exchange);
-                    }
+                    contentBytes = bar.isContentAvailable()
+                            ? bar.readContent()
+                            : ChannelReader.readBytes(exchange);
                 } catch (IOException ieo) {
                     String errMsg = "Error reading request content";
 
@@ -347,30 +434,14 @@ public class BsonRequestContentInjector {
                     return;
                 }
 
-                // parse the json content
-                if (contentString != null
-                        && !contentString.isEmpty()) { // check content type
-
-                    try {
-                        content = BsonUtils.parse(contentString);
-
-                        if (content != null
-                                && !content.isDocument()
-                                && !content.isArray()) {
-                            throw new IllegalArgumentException(
-                                    "request data must be either a json object "
-                                    + "or an array"
-                                    + ", got " + content.getBsonType().name());
-                        }
-                    } catch (JsonParseException | IllegalArgumentException ex) {
-                        response.setInError(
-                                HttpStatus.SC_NOT_ACCEPTABLE,
-                                "Invalid JSON. " + ex.getMessage(),
-                                ex);
-                        return;
-                    }
-                } else {
-                    content = null;
+                try {
+                    content = parseBson(contentBytes);
+                } catch (BSONException | IllegalArgumentException ex) {
+                    response.setInError(
+                            HttpStatus.SC_NOT_ACCEPTABLE,
+                            "Invalid BSON. " + ex.getMessage(),
+                            ex);
+                    return;
                 }
             } else if (contentType == null) {
                 content = null;
@@ -47,6 +47,7 @@ import static org.restheart.exchange.ExchangeKeys.SORT_QPARAM_KEY;
 import org.restheart.exchange.ExchangeKeys.TYPE;
 import org.restheart.exchange.MongoRequest;
 import org.restheart.exchange.MongoResponse;
+import org.restheart.exchange.ParsedQueryParams;
 import org.restheart.exchange.UnsupportedDocumentIdException;
 import org.restheart.mongodb.MongoServiceConfiguration;
 import org.restheart.mongodb.handlers.aggregation.AggregationPipeline;
@@ -285,7 +286,14 @@ public class BsonRequestPropsInjector {
                 }
 
                 try {
-                    BsonValue _keys = BsonUtils.parse(f);
+                    BsonValue _keys;
+
+                    try {
+                        // the parsed keys are cached among requests
+                        _keys = ParsedQueryParams.parseDocument(f);
+                    } catch (JsonParseException jpe) {
+                        _keys = BsonUtils.parse(f);
+                    }
 
                     if (!_keys.isDocument()) {
                         response.setInError(
@@ -323,7 +331,14 @@ public class BsonRequestPropsInjector {
                 }
 
                 try {
-                    BsonValue _filter = BsonUtils.parse(f);
+                    BsonValue _filter;
+
+                    try {
+                        // the parsed filters are cached among requests
+                        _filter = ParsedQueryParams.parseDocument(f);
+                    } catch (JsonParseException jpe) {
+                        _filter = BsonUtils.parse(f);
+                    }
 
                     if (!_filter.isDocument()) {
                         response.setInError(
@@ -46,7 +46,7 @@ import org.slf4j.LoggerFactory;
 @RegisterPlugin(name = "halRepresentation",
         description = "transforms the response to the HAL format if requested",
         interceptPoint = InterceptPoint.RESPONSE,
-        priority = Integer.MAX_VALUE)
+        priority = Integer.MAX_VALUE - 1)
 public class HALRepresentation implements MongoInterceptor {
     private static final Logger LOGGER = LoggerFactory
             .getLogger(MongoService.class);
@@ -26,8 +26,11 @@ import com.mongodb.MongoExecutionTimeoutException;
 import com.mongodb.MongoTimeoutException;
 import io.undertow.server.HttpHandler;
 import io.undertow.server.HttpServerExchange;
+import java.util.UUID;
+import static org.restheart.exchange.ExchangeKeys.CLIENT_SESSION_KEY;
 import org.restheart.exchange.MongoRequest;
 import org.restheart.exchange.MongoResponse;
+import org.restheart.mongodb.db.sessions.TxnsStatesRegistry;
 import org.restheart.mongodb.handlers.bulk.BulkResultRepresentationFactory;
 import org.restheart.mongodb.utils.ResponseHelper;
 import org.restheart.utils.HttpStatus;
@@ -42,7 +45,9 @@ public class ErrorHandler implements HttpHandler {
 
     private final HttpHandler next;
 
-    private final Logger LOGGER = LoggerFactory.getLogger(ErrorHandler.class);
+    private static final Logger LOGGER = LoggerFactory.getLogger(ErrorHandler.class);
+
+    private static final int NO_SUCH_TRANSACTION = 251;
 
     /**
      * Creates a new instance of ErrorHandler
@@ -72,25 +77,44 @@ public class ErrorHandler implements HttpHandler {
 
         try {
             next.handleRequest(exchange);
-        } catch (MongoTimeoutException nte) {
+        } catch (Exception e) {
+            setInError(exchange, e);
+        }
+    }
+
+    /**
+     * Sets the response in error according to the exception, also used to
+     * report errors occurring after the handlers chain returned, e.g. by
+     * ReactiveFindSender
+     *
+     * @param exchange
+     * @param t
+     */
+    public static void setInError(HttpServerExchange exchange, Throwable t) {
+        var response = MongoResponse.of(exchange);
+
+        if (t instanceof MongoTimeoutException) {
             response.setInError(
                     HttpStatus.SC_INTERNAL_SERVER_ERROR,
                     "Timeout connecting to MongoDB, is it running?",
-                    nte);
-        } catch (MongoExecutionTimeoutException mete) {
+                    t);
+        } else if (t instanceof MongoExecutionTimeoutException) {
             response.setInError(
                     HttpStatus.SC_REQUEST_TIMEOUT,
                     "Operation exceeded time limit");
-        } catch (MongoBulkWriteException mce) {
+        } else if (t instanceof MongoBulkWriteException) {
             response.setInError(true);
             var error = new BulkResultRepresentationFactory()
-                    .getRepresentation(MongoRequest.of(exchange).getPath(), mce);
+                    .getRepresentation(MongoRequest.of(exchange).getPath(), (MongoBulkWriteException) t);
 
             response.setStatusCode(HttpStatus.SC_MULTI_STATUS);
             response.setContent(error);
-        } catch (MongoException mce) {
+        } else if (t instanceof MongoException) {
+            var mce = (MongoException) t;
             int httpCode = ResponseHelper.getHttpStatusFromErrorCode(mce.getCode());
 
+            untrackTxn(exchange, mce);
+
             LOGGER.error("Error handling the request", mce);
 
             if (httpCode >= 500
@@ -106,7 +130,7 @@ public class ErrorHandler implements HttpHandler {
                         httpCode,
                         ResponseHelper.getMessageFromErrorCode(mce.getCode()));
             }
-        } catch (Exception t) {
+        } else {
             LOGGER.error("Error handling the request", t);
 
             response.setInError(
@@ -114,4 +138,30 @@ public class ErrorHandler implements HttpHandler {
                     "Error handling the request, see log for more information", t);
         }
     }
+
+    /**
+     * Forgets the tracked state of the transaction of the request when the
+     * error means that it is not in progress anymore, so that its state is
+     * probed again from the server
+     *
+     * @param exchange
+     * @param mce
+     */
+    private static void untrackTxn(HttpServerExchange exchange, MongoException mce) {
+        var sid = exchange.getQueryParameters() == null
+                ? null
+                : exchange.getQueryParameters().get(CLIENT_SESSION_KEY);
+
+        if (sid == null || sid.isEmpty()
+                || !(mce.getCode() == NO_SUCH_TRANSACTION
+                || mce.hasErrorLabel(MongoException.TRANSIENT_TRANSACTION_ERROR_LABEL))) {
+            return;
+        }
+
+        try {
+            TxnsStatesRegistry.getInstance().remove(UUID.fromString(sid.getFirst()));
+        } catch (IllegalArgumentException iae) {
+            // invalid session id
+        }
+    }
 }
@@ -0,0 +1,451 @@
+/*-
+ * ========================LICENSE_START=================================
+ * restheart-mongodb
+ * %%
+ * Copyright (C) 2014 - 2020 SoftInstigate
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * =========================LICENSE_END==================================
+ */
+package org.restheart.mongodb.handlers;
+
+import com.mongodb.MongoException;
+import io.undertow.server.HttpServerExchange;
+import io.undertow.util.SameThreadExecutor;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.function.Consumer;
+import org.bson.BsonDocument;
+import org.bson.BsonValue;
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+import org.restheart.exchange.MongoRequest;
+import org.restheart.exchange.MongoResponse;
+import org.restheart.mongodb.db.MongoReactiveClientSingleton;
+import org.restheart.plugins.InterceptPoint;
+import org.restheart.plugins.Interceptor;
+import org.restheart.plugins.PluginsRegistry;
+import org.restheart.plugins.Service;
+import org.restheart.utils.BsonUtils;
+import org.restheart.utils.HttpStatus;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.xnio.IoUtils;
+import org.xnio.channels.StreamSinkChannel;
+
+/**
+ * Sends the result of a query as it is received from the reactive client,
+ * without blocking a worker thread.
+ *
+ * The documents of a collection are written to the response channel one at a
+ * time as a JSON array: the next document is requested when the previous one
+ * has been written, so that the demand follows the writability of the socket.
+ *
+ * The response channel is opened when the first byte is written, so that the
+ * status code and the headers can be set until then, e.g. when the query
+ * fails or the document is not found.
+ *
+ * Since the content is never set in the response, it can only be used when no
+ * RESPONSE or RESPONSE_ASYNC interceptor of the mongo service resolves for
+ * the request, see isApplicable().
+ */
+public class ReactiveFindSender {
+    private static final Logger LOGGER = LoggerFactory.getLogger(ReactiveFindSender.class);
+
+    private static volatile PluginsRegistry pluginsRegistry = null;
+    private static volatile Service<?, ?> mongoService = null;
+
+    private final HttpServerExchange exchange;
+    private final MongoResponse response;
+
+    private volatile StreamSinkChannel channel;
+
+    // true when the response channel has been opened, i.e. the status code
+    // and the headers have been sent
+    private volatile boolean started = false;
+
+    /**
+     * Sets the registry used to resolve the response interceptors of the
+     * mongo service; until it is set, isApplicable() returns false
+     *
+     * @param registry
+     * @param service the mongo service
+     */
+    public static void init(PluginsRegistry registry, Service<?, ?> service) {
+        pluginsRegistry = registry;
+        mongoService = service;
+    }
+
+    /**
+     * @param request
+     * @param response
+     * @param placeholder a content of the same type of the one that would be
+     * set by the handler, used to resolve the response interceptors that check
+     * it, e.g. response.getContent() != null
+     * @return true if the reactive client is available, the request is not
+     * bound to a client session and no response interceptor resolves for it
+     */
+    @SuppressWarnings({"rawtypes", "unchecked"})
+    public static boolean isApplicable(MongoRequest request, MongoResponse response, BsonValue placeholder) {
+        var registry = pluginsRegistry;
+        var service = mongoService;
+
+        if (registry == null
+                || service == null
+                || !MongoReactiveClientSingleton.isInitialized()
+                || request.getClientSession() != null
+                || request.isInError()) {
+            return false;
+        }
+
+        var content = response.getContent();
+        var statusCode = response.getStatusCode();
+
+        // resolve the interceptors as the response would be
+        response.setContent(placeholder);
+        response.setStatusCode(HttpStatus.SC_OK);
+
+        try {
+            for (var ip : new InterceptPoint[]{InterceptPoint.RESPONSE, InterceptPoint.RESPONSE_ASYNC}) {
+                var interceptors = registry.getInterceptorsChain(service, ip);
+
+                for (int i = 0; i < interceptors.size(); i++) {
+                    // the cheap static checks before resolve()
+                    if (!interceptors.appliesTo(i, request.getExchange())) {
+                        continue;
+                    }
+
+                    Interceptor ri = interceptors.get(i);
+
+                    if (ri.resolve(request, response)) {
+                        LOGGER.trace("Interceptor {} needs the response content", ri.getClass().getSimpleName());
+                        return false;
+                    }
+                }
+            }
+        } catch (Exception e) {
+            LOGGER.debug("Error resolving response interceptors", e);
+            return false;
+        } finally {
+            response.setContent(content);
+            response.setStatusCode(statusCode);
+        }
+
+        return true;
+    }
+
+    /**
+     * Sends the documents as a JSON array
+     *
+     * @param exchange
+     * @param documents the publisher of the documents
+     * @param transformer applied to each document before sending it
+     */
+    public static void sendDocuments(HttpServerExchange exchange,
+            Publisher<BsonDocument> documents,
+            Consumer<BsonDocument> transformer) {
+        var sender = new ReactiveFindSender(exchange);
+
+        if (sender.response.isInError()) {
+            // a response interceptor set the response in error
+            sender.sendError();
+        } else {
+            // the exchange is not ended when the handlers chain returns
+            exchange.dispatch(SameThreadExecutor.INSTANCE,
+                    () -> sender.subscribe(documents, sender.new DocumentsSubscriber(transformer)));
+        }
+    }
+
+    /**
+     * Sends the document found by the query, or an error if none is found
+     *
+     * @param exchange
+     * @param document the publisher of the document, e.g. FindPublisher.first()
+     * @param handler sets the response status, headers and content for the
+     * document, that is null when it does not exist; the content is then sent
+     * as response.readContent()
+     */
+    public static void sendDocument(HttpServerExchange exchange,
+            Publisher<BsonDocument> document,
+            Consumer<BsonDocument> handler) {
+        var sender = new ReactiveFindSender(exchange);
+
+        exchange.dispatch(SameThreadExecutor.INSTANCE,
+                () -> sender.subscribe(document, sender.new DocumentSubscriber(handler)));
+    }
+
+    private ReactiveFindSender(HttpServerExchange exchange) {
+        this.exchange = exchange;
+        this.response = MongoResponse.of(exchange);
+    }
+
+    private void subscribe(Publisher<BsonDocument> publisher, Subscriber<BsonDocument> subscriber) {
+        try {
+            publisher.subscribe(subscriber);
+        } catch (Throwable t) {
+            error(t);
+        }
+    }
+
+    private void sendError() {
+        try {
+            response.sendContent();
+        } catch (Throwable t) {
+            abort(t);
+        }
+    }
+
+    /**
+     * Sends the error, or closes the connection if the content has been
+     * partially written
+     */
+    private void error(Throwable t) {
+        if (started) {
+            abort(t);
+            return;
+        }
+
+        try {
+            if (t instanceof MongoException
+                    && t.getMessage() != null
+                    && t.getMessage().matches(".*Can't canonicalize query.*")) {
+                LOGGER.debug("invalid filter expression", t);
+                response.setInError(HttpStatus.SC_BAD_REQUEST,
+                        "wrong request, filter expression is invalid",
+                        t);
+            } else {
+                ErrorHandler.setInError(exchange, t);
+            }
+
+            // the response channel is not open yet
+            exchange.setStatusCode(response.getStatusCode());
+            sendContent();
+        } catch (Throwable t2) {
+            t2.addSuppressed(t);
+            abort(t2);
+        }
+    }
+
+    private void sendContent() {
+        var content = response.readContent();
+
+        if (content == null) {
+            run(exchange::endExchange);
+        } else {
+            write(content, exchange::endExchange);
+        }
+    }
+
+    private void write(String s, Runnable then) {
+        write(ByteBuffer.wrap(s.getBytes(StandardCharsets.UTF_8)), then);
+    }
+
+    /**
+     * Writes the buffer to the response channel, then runs then; when the
+     * channel cannot accept all the bytes, the remaining ones are written by
+     * a write listener
+     */
+    private void write(ByteBuffer buffer, Runnable then) {
+        try {
+            if (channel == null) {
+                // starts the response, the status code and the headers
+                // cannot be changed anymore
+                channel = exchange.getResponseChannel();
+                started = true;
+            }
+
+            while (buffer.hasRemaining()) {
+                if (channel.write(buffer) == 0) {
+                    channel.getWriteSetter().set(ch -> {
+                        try {
+                            while (buffer.hasRemaining()) {
+                                if (ch.write(buffer) == 0) {
+                                    return;
+                                }
+                            }
+                        } catch (Throwable t) {
+                            ch.suspendWrites();
+                            abort(t);
+                            return;
+                        }
+
+                        ch.suspendWrites();
+                        ch.getWriteSetter().set(null);
+                        run(then);
+                    });
+
+                    channel.resumeWrites();
+                    return;
+                }
+            }
+        } catch (Throwable t) {
+            abort(t);
+            return;
+        }
+
+        run(then);
+    }
+
+    private void run(Runnable then) {
+        try {
+            then.run();
+        } catch (Throwable t) {
+            abort(t);
+        }
+    }
+
+    /**
+     * Closes the connection and ends the exchange, used when the response
+     * cannot be completed
+     */
+    private void abort(Throwable t) {
+        LOGGER.error("Error sending response, closing connection", t);
+        IoUtils.safeClose(exchange.getConnection());
+
+        try {
+            exchange.endExchange();
+        } catch (Throwable t2) {
+            LOGGER.debug("Error ending the exchange", t2);
+        }
+    }
+
+    /**
+     * Requests the documents one at a time, the next one is requested when
+     * the previous has been written to the response channel
+     */
+    private class DocumentsSubscriber implements Subscriber<BsonDocument> {
+        private final Consumer<BsonDocument> transformer;
+
+        private Subscription subscription;
+        private boolean first = true;
+
+        // guarded by this
+        private boolean writing = false;
+        private boolean completed = false;
+
+        DocumentsSubscriber(Consumer<BsonDocument> transformer) {
+            this.transformer = transformer;
+        }
+
+        @Override
+        public void onSubscribe(Subscription s) {
+            this.subscription = s;
+            s.request(1);
+        }
+
+        @Override
+        public void onNext(BsonDocument document) {
+            String json;
+
+            try {
+                transformer.accept(document);
+                json = BsonUtils.toJson(document, MongoRequest.of(exchange).getJsonMode());
+            } catch (Throwable t) {
+                subscription.cancel();
+                error(t);
+                return;
+            }
+
+            synchronized (this) {
+                writing = true;
+            }
+
+            var prefix = first ? "[" : ",";
+            first = false;
+
+            write(prefix.concat(json), this::written);
+        }
+
+        private void written() {
+            boolean complete;
+
+            synchronized (this) {
+                writing = false;
+                complete = completed;
+            }
+
+            if (complete) {
+                complete();
+            } else {
+                subscription.request(1);
+            }
+        }
+
+        @Override
+        public void onError(Throwable t) {
+            error(t);
+        }
+
+        @Override
+        public void onComplete() {
+            boolean complete;
+
+            // the completion can be signaled while the last document is being written
+            synchronized (this) {
+                completed = true;
+                complete = !writing;
+            }
+
+            if (complete) {
+                complete();
+            }
+        }
+
+        private void complete() {
+            write(first ? "[]" : "]", exchange::endExchange);
+        }
+    }
+
+    private class DocumentSubscriber implements Subscriber<BsonDocument> {
+        private final Consumer<BsonDocument> handler;
+
+        private BsonDocument document = null;
+
+        DocumentSubscriber(Consumer<BsonDocument> handler) {
+            this.handler = handler;
+        }
+
+        @Override
+        public void onSubscribe(Subscription s) {
+            s.request(1);
+        }
+
+        @Override
+        public void onNext(BsonDocument document) {
+            this.document = document;
+        }
+
+        @Override
+        public void onError(Throwable t) {
+            error(t);
+        }
+
+        @Override
+        public void onComplete() {
+            try {
+                handler.accept(document);
+
+                // the response channel is not open yet
+                if (response.getStatusCode() > 0) {
+                    exchange.setStatusCode(response.getStatusCode());
+                }
+
+                sendContent();
+            } catch (Throwable t) {
+                error(t);
+            }
+        }
+    }
+}
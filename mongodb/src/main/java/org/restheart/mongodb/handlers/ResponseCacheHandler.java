@@ -0,0 +1,130 @@
+/*-
+ * ========================LICENSE_START=================================
+ * restheart-mongodb
+ * %%
+ * Copyright (C) 2014 - 2020 SoftInstigate
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * =========================LICENSE_END==================================
+ */
+package org.restheart.mongodb.handlers;
+
+import io.undertow.server.HttpServerExchange;
+import io.undertow.util.Headers;
+import java.nio.ByteBuffer;
+import org.restheart.exchange.Exchange;
+import org.restheart.exchange.MongoRequest;
+import org.restheart.exchange.MongoResponse;
+import org.restheart.handlers.PipelinedHandler;
+import org.restheart.mongodb.interceptors.ResponseCache;
+import org.restheart.utils.HttpStatus;
+
+/**
+ * Answers GET requests from the ResponseCache and invalidates the cached
+ * responses of the namespaces written by the other requests.
+ *
+ * A cached response has already been processed by the response interceptors,
+ * so they are not executed again. If the request has the If-None-Match
+ * header with the ETag of the cached response, 304 Not Modified is returned.
+ */
+public class ResponseCacheHandler extends PipelinedHandler {
+    private final ResponseCache cache;
+
+    /**
+     * Creates a new instance of ResponseCacheHandler
+     *
+     */
+    public ResponseCacheHandler() {
+        this(null);
+    }
+
+    /**
+     * Creates a new instance of ResponseCacheHandler
+     *
+     * @param next
+     */
+    public ResponseCacheHandler(PipelinedHandler next) {
+        this(next, ResponseCache.getInstance());
+    }
+
+    /**
+     * Creates a new instance of ResponseCacheHandler
+     *
+     * @param next
+     * @param cache
+     */
+    ResponseCacheHandler(PipelinedHandler next, ResponseCache cache) {
+        super(next);
+        this.cache = cache;
+    }
+
+    /**
+     *
+     * @param exchange
+     * @throws Exception
+     */
+    @Override
+    public void handleRequest(HttpServerExchange exchange) throws Exception {
+        if (!cache.isEnabled()) {
+            next(exchange);
+            return;
+        }
+
+        var request = MongoRequest.of(exchange);
+
+        if (request.isGet()) {
+            var cached = cache.lookup(request);
+
+            if (cached == null) {
+                next(exchange);
+            } else {
+                send(exchange, cached);
+            }
+        } else if (request.isOptions()) {
+            next(exchange);
+        } else {
+            try {
+                next(exchange);
+            } finally {
+                cache.invalidate(request);
+            }
+        }
+    }
+
+    private void send(HttpServerExchange exchange, ResponseCache.Entry cached) {
+        var response = MongoResponse.of(exchange);
+
+        Exchange.setResponseInterceptorsExecuted(exchange);
+
+        if (cached.getEtag() != null) {
+            response.setHeader(Headers.ETAG, cached.getEtag());
+
+            var ifNoneMatch = exchange.getRequestHeaders().getFirst(Headers.IF_NONE_MATCH);
+
+            // the etag of a collection is the one of its metadata, that does
+            // not change when its documents do
+            if (MongoRequest.of(exchange).isDocument() && cached.getEtag().equals(ifNoneMatch)) {
+                response.setStatusCode(HttpStatus.SC_NOT_MODIFIED);
+                return;
+            }
+        }
+
+        if (cached.getContentType() != null) {
+            response.setContentType(cached.getContentType());
+        }
+
+        response.setStatusCode(HttpStatus.SC_OK);
+        response.setCustomerSender(() -> exchange.getResponseSender().send(ByteBuffer.wrap(cached.getContent())));
+    }
+}
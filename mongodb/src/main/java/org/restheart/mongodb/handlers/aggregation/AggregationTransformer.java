@@ -70,7 +70,13 @@ public class AggregationTransformer extends PipelinedHandler {
         next(exchange);
     }
 
-    private void transform(MongoRequest request, BsonDocument contentToTransform) {
+    /**
+     * Escapes or unescapes the keys of the aggregations of the document
+     *
+     * @param request
+     * @param contentToTransform
+     */
+    public void transform(MongoRequest request, BsonDocument contentToTransform) {
         if (!contentToTransform.isDocument()) {
             throw new IllegalStateException(
                     "content to transform is not a document");
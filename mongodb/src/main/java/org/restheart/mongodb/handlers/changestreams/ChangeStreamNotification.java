@@ -20,25 +20,47 @@
  */
 package org.restheart.mongodb.handlers.changestreams;
 
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import org.bson.BsonDocument;
+
 /**
+ * A change stream notification, serialized once and sent to many WebSocket
+ * sessions
  *
  * @author omartrasatti
  */
 public class ChangeStreamNotification {
 
-    private final SessionKey sessionKey;
-    private final String notificationMessage;
+    private final ByteBuffer frame;
+    private final BsonDocument documentKey;
+    private final long receivedAt = System.nanoTime();
+
+    public ChangeStreamNotification(String notificationMessage, BsonDocument documentKey) {
+        this.frame = ByteBuffer.wrap(notificationMessage.getBytes(StandardCharsets.UTF_8)).asReadOnlyBuffer();
+        this.documentKey = documentKey;
+    }
 
-    public ChangeStreamNotification(SessionKey sessionKey, String notificationMessage) {
-        this.sessionKey = sessionKey;
-        this.notificationMessage = notificationMessage;
+    /**
+     * @return the UTF-8 encoded notification; each invocation returns a new
+     * read-only view of the same bytes, to be consumed by a single send
+     */
+    public ByteBuffer getFrame() {
+        return this.frame.duplicate();
     }
 
-    public SessionKey getSessionKey() {
-        return this.sessionKey;
+    /**
+     * @return the key of the changed document, or null
+     */
+    public BsonDocument getDocumentKey() {
+        return this.documentKey;
     }
 
-    public String getNotificationMessage() {
-        return this.notificationMessage;
+    /**
+     * @return the System.nanoTime() when the notification was received from
+     * the change stream
+     */
+    public long getReceivedAt() {
+        return this.receivedAt;
     }
 }
@@ -21,6 +21,9 @@
 package org.restheart.mongodb.handlers.changestreams;
 
 import com.mongodb.client.model.changestream.ChangeStreamDocument;
+import java.util.HashMap;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import org.bson.BsonArray;
 import org.bson.BsonDocument;
 import org.bson.BsonNull;
@@ -30,6 +33,7 @@ import org.bson.Document;
 import org.bson.codecs.DocumentCodec;
 import org.bson.codecs.configuration.CodecRegistries;
 import org.bson.codecs.configuration.CodecRegistry;
+import org.bson.json.JsonMode;
 import org.reactivestreams.Subscriber;
 import org.reactivestreams.Subscription;
 import org.restheart.utils.BsonUtils;
@@ -37,6 +41,9 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 /**
+ * Subscribes a MongoDB change stream, shared by all the session keys with the
+ * same pipeline (see ChangeStreamsMultiplexer); each notification is
+ * serialized once for each JsonMode requested by the session keys.
  *
  * @author omartrasatti
  */
@@ -45,50 +52,94 @@ public class ChangeStreamSubscriber implements Subscriber<ChangeStreamDocument<?
     private static final Logger LOGGER
             = LoggerFactory.getLogger(ChangeStreamSubscriber.class);
 
-    private final SessionKey sessionKey;
+    private final ChangeStreamsMultiplexer.StreamKey streamKey;
+    private final Set<SessionKey> sessionKeys = ConcurrentHashMap.newKeySet();
     private Subscription sub;
 
-    public ChangeStreamSubscriber(SessionKey sessionKey) {
+    ChangeStreamSubscriber(ChangeStreamsMultiplexer.StreamKey streamKey) {
         super();
-        this.sessionKey = sessionKey;
+        this.streamKey = streamKey;
     }
 
+    ChangeStreamsMultiplexer.StreamKey getStreamKey() {
+        return this.streamKey;
+    }
+
+    void addSessionKey(SessionKey sessionKey) {
+        this.sessionKeys.add(sessionKey);
+    }
+
+    boolean hasSessionKeys() {
+        return !this.sessionKeys.isEmpty();
+    }
+
+    /**
+     * Notifications are requested from the change stream one at a time, after
+     * the previous one has been queued to the WebSocket sessions; the sessions
+     * queues are bounded, so a burst of writes does not pile up in memory.
+     *
+     * @param s
+     */
     @Override
     public void onSubscribe(final Subscription s) {
-        s.request(Long.MAX_VALUE);
         this.sub = s;
+        s.request(1);
     }
 
     @Override
     public void onNext(ChangeStreamDocument<?> notification) {
-        if (!WebSocketSessionsRegistry.getInstance().get(sessionKey).isEmpty()) {
-            LOGGER.trace("[clients watching]: "
-                    + WebSocketSessionsRegistry.getInstance().get(sessionKey).size());
+        BsonDocument document = null;
+        // the serialized notification for each JsonMode
+        var notifications = new HashMap<JsonMode, ChangeStreamNotification>();
+
+        for (var sessionKey : sessionKeys) {
+            var sessions = WebSocketSessionsRegistry.getInstance().getAll(sessionKey);
+
+            if (sessions.isEmpty()) {
+                LOGGER.debug("Removing unwatched session key from stream {}, sessionKey={}", streamKey, sessionKey);
+                sessionKeys.remove(sessionKey);
+                ChangeStreamsRegistry.getInstance().remove(sessionKey);
+                continue;
+            }
+
+            LOGGER.trace("[clients watching]: " + sessions.size());
 
             LOGGER.trace("Change stream notification for sessionKey={}: {}",
                     sessionKey,
                     notification);
 
-            ChangeStreamWebsocketCallback.NOTIFICATION_PUBLISHER.submit(
-                    new ChangeStreamNotification(sessionKey,
-                        BsonUtils.toJson(
-                                    getDocument(notification),
-                                    sessionKey.getJsonMode())));
+            if (document == null) {
+                document = getDocument(notification);
+            }
+
+            var _document = document;
+
+            var csn = notifications.computeIfAbsent(sessionKey.getJsonMode(),
+                    jsonMode -> new ChangeStreamNotification(
+                            BsonUtils.toJson(_document, jsonMode),
+                            notification.getDocumentKey()));
+
+            sessions.forEach(session -> session.send(csn));
+        }
+
+        if (!sessionKeys.isEmpty() || !ChangeStreamsMultiplexer.getInstance().removeIfUnwatched(this)) {
+            this.sub.request(1);
         } else {
             this.stop();
-            LOGGER.debug("Closing unwatched stream, sessionKey=" + sessionKey);
-            ChangeStreamsRegistry.getInstance().remove(sessionKey);
+            LOGGER.debug("Closing unwatched stream {}", streamKey);
         }
     }
 
     @Override
     public void onError(final Throwable t) {
         LOGGER.warn("Error from stream: " + t.getMessage());
+        ChangeStreamsMultiplexer.getInstance().remove(this);
     }
 
     @Override
     public void onComplete() {
-        LOGGER.debug("Stream completed, sessionKey=" + sessionKey);
+        LOGGER.debug("Stream completed " + streamKey);
+        ChangeStreamsMultiplexer.getInstance().remove(this);
     }
 
     public void stop() {
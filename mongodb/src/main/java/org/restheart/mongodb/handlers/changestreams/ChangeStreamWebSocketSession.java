@@ -20,14 +20,39 @@
  */
 package org.restheart.mongodb.handlers.changestreams;
 
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.MetricFilter;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
 import io.undertow.server.session.SecureRandomSessionIdGenerator;
 import io.undertow.websockets.core.AbstractReceiveListener;
 import io.undertow.websockets.core.StreamSourceFrameChannel;
+import io.undertow.websockets.core.WebSocketCallback;
 import io.undertow.websockets.core.WebSocketChannel;
+import io.undertow.websockets.core.WebSockets;
 import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.restheart.mongodb.MongoServiceConfiguration;
+import org.restheart.mongodb.MongoServiceConfiguration.CHANGE_STREAMS_OVERFLOW_POLICY;
+import static org.restheart.mongodb.MongoServiceConfiguration.METRICS_GATHERING_LEVEL.ROOT;
+import org.restheart.mongodb.handlers.metrics.SharedMetricRegistryProxy;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 /**
+ * A WebSocket client of a change stream.
+ *
+ * Notifications are queued and sent one at a time, the next one when the
+ * previous send completes, so that a slow client does not delay the others.
+ * When the queue is full, the configured overflow policy applies.
+ *
+ * With metrics gathering enabled, the notifications lag (from the change
+ * stream to the client), the queued and the dropped notifications are
+ * available with the name prefix changestreams.sessions.{session-id}
  *
  * @author Omar Trasatti {@literal <omar@softinstigate.com>}
  */
@@ -40,10 +65,43 @@ public class ChangeStreamWebSocketSession {
     private final SessionKey sessionKey;
     private final WebSocketChannel webSocketChannel;
 
+    // guarded by queue
+    private final ArrayDeque<ChangeStreamNotification> queue = new ArrayDeque<>();
+    // guarded by queue, true while a notification is being sent
+    private boolean sending = false;
+
+    private final int queueSize;
+    private final CHANGE_STREAMS_OVERFLOW_POLICY overflowPolicy;
+    private final AtomicBoolean closed = new AtomicBoolean(false);
+
+    private final MetricRegistry metrics;
+    private final String metricsPrefix;
+    private final Timer lag;
+    private final Counter dropped;
+
     public ChangeStreamWebSocketSession(WebSocketChannel channel, SessionKey sessionKey) {
         this.sessionId = new SecureRandomSessionIdGenerator().createSessionId();
         this.webSocketChannel = channel;
         this.sessionKey = sessionKey;
+
+        var configuration = MongoServiceConfiguration.get();
+
+        this.queueSize = Math.max(1, configuration.getChangeStreamsSessionQueueSize());
+        this.overflowPolicy = configuration.getChangeStreamsOverflowPolicy();
+
+        this.metricsPrefix = MetricRegistry.name("changestreams", "sessions", this.sessionId);
+
+        if (configuration.gatheringAboveOrEqualToLevel(ROOT)) {
+            this.metrics = new SharedMetricRegistryProxy().registry();
+            this.lag = this.metrics.timer(MetricRegistry.name(metricsPrefix, "lag"));
+            this.dropped = this.metrics.counter(MetricRegistry.name(metricsPrefix, "dropped"));
+            this.metrics.register(MetricRegistry.name(metricsPrefix, "queued"), (Gauge<Integer>) this::queued);
+        } else {
+            this.metrics = null;
+            this.lag = new Timer();
+            this.dropped = new Counter();
+        }
+
         initChannelReceiveListener(webSocketChannel);
     }
 
@@ -65,11 +123,171 @@ public class ChangeStreamWebSocketSession {
         return this.webSocketChannel;
     }
 
+    /**
+     * Queues the notification to be sent to the client
+     *
+     * @param notification
+     */
+    public void send(ChangeStreamNotification notification) {
+        if (this.closed.get()) {
+            return;
+        }
+
+        var disconnect = false;
+        var sendNow = false;
+
+        synchronized (queue) {
+            if (queue.size() >= queueSize) {
+                switch (overflowPolicy) {
+                    case DISCONNECT:
+                        disconnect = true;
+                        break;
+                    case COALESCE:
+                        if (notification.getDocumentKey() == null
+                                || !queue.removeIf(n -> Objects.equals(n.getDocumentKey(), notification.getDocumentKey()))) {
+                            queue.pollFirst();
+                        }
+                        this.dropped.inc();
+                        break;
+                    default:
+                        queue.pollFirst();
+                        this.dropped.inc();
+                }
+            }
+
+            if (!disconnect) {
+                queue.addLast(notification);
+
+                if (!sending) {
+                    sending = true;
+                    sendNow = true;
+                }
+            }
+        }
+
+        if (disconnect) {
+            LOGGER.warn("Closing stream connection {}, more than {} notifications queued, sessionkey={}",
+                    sessionId, queueSize, sessionKey);
+
+            closeQuietly();
+        } else if (sendNow) {
+            sendQueued();
+        }
+    }
+
+    /**
+     * Sends the queued notifications, one at a time. The loop continues on the
+     * same thread while sends complete immediately, otherwise on the thread
+     * that completes the send.
+     */
+    private void sendQueued() {
+        while (true) {
+            ChangeStreamNotification notification;
+
+            synchronized (queue) {
+                notification = queue.pollFirst();
+
+                if (notification == null || this.closed.get()) {
+                    sending = false;
+                    return;
+                }
+            }
+
+            var callback = new SendCallback(notification);
+
+            sendFrame(notification, callback);
+
+            if (!callback.completedInline()) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Sends the notification to the client, the callback is invoked when the
+     * send completes or fails
+     *
+     * @param notification
+     * @param callback
+     */
+    void sendFrame(ChangeStreamNotification notification, WebSocketCallback<Void> callback) {
+        WebSockets.sendText(notification.getFrame(), this.webSocketChannel, callback);
+    }
+
+    private int queued() {
+        synchronized (queue) {
+            return queue.size();
+        }
+    }
+
+    private void closeQuietly() {
+        try {
+            close();
+        } catch (IOException ioe) {
+            LOGGER.warn("error closing stream connection, sessionkey={}", sessionKey);
+        }
+    }
+
     public void close() throws IOException {
         WebSocketSessionsRegistry.getInstance().remove(this.sessionKey, this);
+
+        if (this.closed.compareAndSet(false, true)) {
+            synchronized (queue) {
+                queue.clear();
+            }
+
+            if (this.metrics != null) {
+                this.metrics.removeMatching(MetricFilter.startsWith(metricsPrefix));
+            }
+        }
+
         this.webSocketChannel.close();
     }
 
+    private class SendCallback implements WebSocketCallback<Void> {
+        private static final int PENDING = 0;
+        private static final int RETURNED = 1;
+        private static final int COMPLETED_INLINE = 2;
+
+        private final ChangeStreamNotification notification;
+        private final AtomicInteger state = new AtomicInteger(PENDING);
+
+        SendCallback(ChangeStreamNotification notification) {
+            this.notification = notification;
+        }
+
+        /**
+         * @return true if the send completed before WebSockets.sendText()
+         * returned
+         */
+        boolean completedInline() {
+            return !state.compareAndSet(PENDING, RETURNED);
+        }
+
+        @Override
+        public void complete(final WebSocketChannel channel, Void context) {
+            lag.update(System.nanoTime() - notification.getReceivedAt(), TimeUnit.NANOSECONDS);
+
+            if (!state.compareAndSet(PENDING, COMPLETED_INLINE)) {
+                // completed asynchronously, continue sending from this thread
+                sendQueued();
+            }
+        }
+
+        @Override
+        public void onError(final WebSocketChannel channel, Void context, Throwable throwable) {
+            LOGGER.debug("error sending stream notification, sessionkey={}", sessionKey, throwable);
+
+            state.set(COMPLETED_INLINE);
+
+            synchronized (queue) {
+                sending = false;
+            }
+
+            closeQuietly();
+        }
+    }
+
     class ChangeStreamReceiveListener extends AbstractReceiveListener {
         private final ChangeStreamWebSocketSession session;
 
@@ -0,0 +1,174 @@
+/*-
+ * ========================LICENSE_START=================================
+ * restheart-mongodb
+ * %%
+ * Copyright (C) 2014 - 2020 SoftInstigate
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * =========================LICENSE_END==================================
+ */
+package org.restheart.mongodb.handlers.changestreams;
+
+import com.mongodb.client.model.changestream.FullDocument;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import org.bson.BsonDocument;
+import org.restheart.mongodb.db.MongoReactiveClientSingleton;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Shares the MongoDB change streams among the sessions keys.
+ *
+ * Sessions keys that resolve to the same pipeline on the same collection,
+ * e.g. with different avars that are not used by the stages or with a
+ * different JsonMode, are served by a single MongoDB change stream.
+ */
+public class ChangeStreamsMultiplexer {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ChangeStreamsMultiplexer.class);
+
+    private final ConcurrentHashMap<StreamKey, ChangeStreamSubscriber> UPSTREAMS = new ConcurrentHashMap<>();
+
+    public static ChangeStreamsMultiplexer getInstance() {
+        return ChangeStreamsMultiplexerSingletonHolder.INSTANCE;
+    }
+
+    /**
+     * Adds the session key to the change stream of the pipeline, opening it if
+     * not yet opened
+     *
+     * @param db
+     * @param collection
+     * @param resolvedStages
+     * @param sessionKey
+     */
+    public void watch(String db, String collection, List<BsonDocument> resolvedStages, SessionKey sessionKey) {
+        var created = subscribe(new StreamKey(db, collection, resolvedStages), sessionKey);
+
+        if (created != null) {
+            LOGGER.debug("Opening change stream on {}.{}, sessionKey={}", db, collection, sessionKey);
+
+            MongoReactiveClientSingleton
+                    .getInstance()
+                    .getClient()
+                    .getDatabase(db)
+                    .getCollection(collection)
+                    .watch(resolvedStages)
+                    .fullDocument(FullDocument.UPDATE_LOOKUP)
+                    .subscribe(created);
+        } else {
+            LOGGER.debug("Sharing change stream on {}.{}, sessionKey={}", db, collection, sessionKey);
+        }
+    }
+
+    /**
+     * Adds the session key to the subscriber of the stream key
+     *
+     * @param streamKey
+     * @param sessionKey
+     * @return the subscriber if created, i.e. if the change stream must be
+     * opened, otherwise null
+     */
+    ChangeStreamSubscriber subscribe(StreamKey streamKey, SessionKey sessionKey) {
+        var created = new ChangeStreamSubscriber[1];
+
+        UPSTREAMS.compute(streamKey, (k, subscriber) -> {
+            if (subscriber == null) {
+                subscriber = new ChangeStreamSubscriber(k);
+                created[0] = subscriber;
+            }
+
+            subscriber.addSessionKey(sessionKey);
+
+            return subscriber;
+        });
+
+        return created[0];
+    }
+
+    /**
+     * Removes the change stream if it has no session keys
+     *
+     * @param subscriber
+     * @return true if removed
+     */
+    boolean removeIfUnwatched(ChangeStreamSubscriber subscriber) {
+        var removed = new boolean[1];
+
+        UPSTREAMS.computeIfPresent(subscriber.getStreamKey(), (k, s) -> {
+            if (s == subscriber && !s.hasSessionKeys()) {
+                removed[0] = true;
+                return null;
+            } else {
+                return s;
+            }
+        });
+
+        return removed[0];
+    }
+
+    /**
+     * Removes the terminated change stream, so that the next session key
+     * opens a new one
+     *
+     * @param subscriber
+     */
+    void remove(ChangeStreamSubscriber subscriber) {
+        UPSTREAMS.remove(subscriber.getStreamKey(), subscriber);
+    }
+
+    /**
+     * The identity of a MongoDB change stream
+     */
+    static class StreamKey {
+        private final String db;
+        private final String collection;
+        private final List<BsonDocument> resolvedStages;
+
+        StreamKey(String db, String collection, List<BsonDocument> resolvedStages) {
+            this.db = db;
+            this.collection = collection;
+            this.resolvedStages = List.copyOf(resolvedStages);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(db, collection, resolvedStages);
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof StreamKey)) {
+                return false;
+            }
+
+            var other = (StreamKey) obj;
+
+            return Objects.equals(db, other.db)
+                    && Objects.equals(collection, other.collection)
+                    && Objects.equals(resolvedStages, other.resolvedStages);
+        }
+
+        @Override
+        public String toString() {
+            return db + "." + collection + " " + resolvedStages;
+        }
+    }
+
+    private static class ChangeStreamsMultiplexerSingletonHolder {
+        private static final ChangeStreamsMultiplexer INSTANCE = new ChangeStreamsMultiplexer();
+    }
+}
@@ -20,7 +20,6 @@
  */
 package org.restheart.mongodb.handlers.changestreams;
 
-import com.mongodb.client.model.changestream.FullDocument;
 import io.undertow.Handlers;
 import io.undertow.server.HttpHandler;
 import io.undertow.server.HttpServerExchange;
@@ -35,7 +34,6 @@ import org.restheart.exchange.MongoResponse;
 import org.restheart.exchange.QueryNotFoundException;
 import org.restheart.exchange.QueryVariableNotBoundException;
 import org.restheart.handlers.PipelinedHandler;
-import org.restheart.mongodb.db.MongoReactiveClientSingleton;
 import org.restheart.utils.HttpStatus;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -170,14 +168,11 @@ public class GetChangeStreamHandler extends PipelinedHandler {
         if (!ChangeStreamsRegistry.getInstance().containsKey(streamKey)) {
             ChangeStreamsRegistry.getInstance().put(streamKey, new SessionInfo(MongoRequest.of(exchange)));
 
-            MongoReactiveClientSingleton
-                    .getInstance()
-                    .getClient()
-                    .getDatabase(request.getDBName())
-                    .getCollection(request.getCollectionName())
-                    .watch(resolvedStages)
-                    .fullDocument(FullDocument.UPDATE_LOOKUP)
-                    .subscribe(new ChangeStreamSubscriber(streamKey));
+            ChangeStreamsMultiplexer.getInstance().watch(
+                    request.getDBName(),
+                    request.getCollectionName(),
+                    resolvedStages,
+                    streamKey);
 
             return true;
         } else {
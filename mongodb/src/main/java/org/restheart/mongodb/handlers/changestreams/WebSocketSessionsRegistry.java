@@ -23,6 +23,7 @@ package org.restheart.mongodb.handlers.changestreams;
 import com.google.common.collect.HashMultimap;
 import com.google.common.collect.Multimaps;
 import com.google.common.collect.SetMultimap;
+import java.util.HashSet;
 import java.util.Set;
 
 
@@ -45,6 +46,17 @@ public class WebSocketSessionsRegistry {
         return MULTIMAP.get(key);
     }
 
+    /**
+     * @param key
+     * @return a copy of the sessions of the key, that can be iterated while
+     * sessions are added or removed
+     */
+    public Set<ChangeStreamWebSocketSession> getAll(SessionKey key) {
+        synchronized (MULTIMAP) {
+            return new HashSet<>(MULTIMAP.get(key));
+        }
+    }
+
     public Set<SessionKey> keySet() {
         return MULTIMAP.keySet();
     }
@@ -22,15 +22,21 @@ package org.restheart.mongodb.handlers.collection;
 
 import com.google.common.annotations.VisibleForTesting;
 import com.mongodb.MongoException;
+import com.mongodb.reactivestreams.client.FindPublisher;
 import io.undertow.server.HttpServerExchange;
+import java.util.List;
 import org.bson.BsonArray;
+import org.bson.BsonDocument;
 import org.bson.json.JsonParseException;
 import org.restheart.exchange.IllegalQueryParamenterException;
 import org.restheart.exchange.MongoRequest;
 import org.restheart.exchange.MongoResponse;
 import org.restheart.handlers.PipelinedHandler;
+import org.restheart.mongodb.db.CursorPool;
 import org.restheart.mongodb.db.Database;
 import org.restheart.mongodb.db.DatabaseImpl;
+import org.restheart.mongodb.handlers.ReactiveFindSender;
+import org.restheart.mongodb.handlers.aggregation.AggregationTransformer;
 import org.restheart.mongodb.utils.ResponseHelper;
 import org.restheart.utils.HttpStatus;
 import org.slf4j.Logger;
@@ -46,6 +52,10 @@ public class GetCollectionHandler extends PipelinedHandler {
     private static final Logger LOGGER = LoggerFactory
             .getLogger(GetCollectionHandler.class);
 
+    private static final BsonArray CONTENT_PLACEHOLDER = new BsonArray(List.of(new BsonDocument()));
+
+    private static final AggregationTransformer AGGREGATION_TRANSFORMER = new AggregationTransformer(false);
+
     /**
      *
      */
@@ -87,6 +97,13 @@ public class GetCollectionHandler extends PipelinedHandler {
             return;
         }
 
+        if (request.getPagesize() > 0
+                && !request.isCount()
+                && isReactive(request, response)) {
+            handleReactive(exchange, request, response);
+            return;
+        }
+
         var coll = dbsDAO.getCollection(request.getDBName(), 
                 request.getCollectionName());
 
@@ -169,4 +186,62 @@ public class GetCollectionHandler extends PipelinedHandler {
             next(exchange);
         }
     }
+
+    /**
+     * The documents of collections and file buckets can be streamed from the
+     * reactive client if no response interceptor needs the content and the
+     * request cannot use the cursor pool, that is based on the synchronous
+     * client. Other resources (e.g. schema stores) are transformed by the next
+     * handlers.
+     */
+    private boolean isReactive(MongoRequest request, MongoResponse response) {
+        return (request.isCollection() || request.isFilesBucket())
+                && ReactiveFindSender.isApplicable(request, response, CONTENT_PLACEHOLDER)
+                && !CursorPool.getInstance().isPoolable(
+                        request.getPagesize() * (request.getPage() - 1),
+                        request.getCursorAllocationPolicy());
+    }
+
+    private void handleReactive(HttpServerExchange exchange,
+            MongoRequest request,
+            MongoResponse response) throws Exception {
+        FindPublisher<BsonDocument> documents;
+
+        try {
+            documents = dbsDAO.getCollectionDataPublisher(
+                    request.getDBName(),
+                    request.getCollectionName(),
+                    request.getPage(),
+                    request.getPagesize(),
+                    request.getSortByDocument(),
+                    request.getFiltersDocument(),
+                    request.getHintDocument(),
+                    request.getProjectionDocument());
+        } catch (JsonParseException jpe) {
+            // the filter expression is not a valid json string
+            LOGGER.debug("invalid filter expression {}",
+                    request.getFilter(), jpe);
+            response.setInError(
+                    HttpStatus.SC_BAD_REQUEST,
+                    "wrong request, filter expression is invalid",
+                    jpe);
+            next(exchange);
+            return;
+        }
+
+        response.setContentTypeAsJson();
+        response.setStatusCode(HttpStatus.SC_OK);
+
+        ResponseHelper
+                .injectEtagHeader(exchange, request.getCollectionProps());
+
+        // the documents are sent after the response interceptors, as they
+        // are received, see ReactiveFindSender
+        response.setCustomerSender(() -> ReactiveFindSender.sendDocuments(
+                exchange,
+                documents,
+                doc -> AGGREGATION_TRANSFORMER.transform(request, doc)));
+
+        next(exchange);
+    }
 }
@@ -23,7 +23,6 @@ package org.restheart.mongodb.handlers.document;
 import static com.mongodb.client.model.Filters.and;
 import static com.mongodb.client.model.Filters.eq;
 import io.undertow.server.HttpServerExchange;
-import java.util.Deque;
 import java.util.HashSet;
 import org.bson.BsonDocument;
 import org.bson.BsonObjectId;
@@ -38,6 +37,8 @@ import org.restheart.exchange.MongoRequest;
 import org.restheart.exchange.MongoResponse;
 import org.restheart.handlers.PipelinedHandler;
 import org.restheart.mongodb.db.DatabaseImpl;
+import org.restheart.mongodb.db.MongoReactiveClientSingleton;
+import org.restheart.mongodb.handlers.ReactiveFindSender;
 import org.restheart.mongodb.utils.RequestHelper;
 import org.restheart.mongodb.utils.ResponseHelper;
 import org.restheart.utils.HttpStatus;
@@ -48,6 +49,8 @@ import org.restheart.utils.BsonUtils;
  * @author Andrea Di Cesare {@literal <andrea@softinstigate.com>}
  */
 public class GetDocumentHandler extends PipelinedHandler {
+    private static final BsonDocument CONTENT_PLACEHOLDER = new BsonDocument();
+
     private final DatabaseImpl dbsDAO = new DatabaseImpl();
 
     /**
@@ -112,8 +115,10 @@ public class GetDocumentHandler extends PipelinedHandler {
         // to make easy implementing filter based access restrictions
         // for instance a Trasnformer can add a filter to limit access to data
         // on the basis of the user role
-        if (request.getFiltersDocument() != null) {
-            terms.add(request.getFiltersDocument());
+        var filters = request.getFiltersDocument();
+
+        if (filters != null) {
+            terms.add(filters);
         }
 
         if (terms.size() > 0) {
@@ -121,16 +126,32 @@ public class GetDocumentHandler extends PipelinedHandler {
             query = and(terms);
         }
 
-        final BsonDocument fieldsToReturn = new BsonDocument();
+        var projection = request.getProjectionDocument();  // this can throw JsonParseException for invalid keys parameters
 
-        Deque<String> keys = request.getKeys();
+        final BsonDocument fieldsToReturn = projection == null
+                ? new BsonDocument()
+                : projection;
 
-        if (keys != null) {
-            keys.stream().forEach((String f) -> {
-                BsonDocument keyQuery = BsonDocument.parse(f);
+        // other resources (e.g. schemas and metadata) are transformed by the
+        // next handlers
+        if (request.isDocument()
+                && ReactiveFindSender.isApplicable(request, response, CONTENT_PLACEHOLDER)) {
+            var document = MongoReactiveClientSingleton.getInstance().getClient()
+                    .getDatabase(request.getDBName())
+                    .getCollection(collName, BsonDocument.class)
+                    .find(query)
+                    .projection(fieldsToReturn)
+                    .first();
 
-                fieldsToReturn.putAll(keyQuery);  // this can throw JsonParseException for invalid filter parameters
-            });
+            // the document is found and sent after the response interceptors
+            // without blocking a worker thread, see ReactiveFindSender
+            response.setCustomerSender(() -> ReactiveFindSender.sendDocument(
+                    exchange,
+                    document,
+                    doc -> setResponse(exchange, request, response, doc)));
+
+            next(exchange);
+            return;
         }
 
         var cs = request.getClientSession();
@@ -148,6 +169,18 @@ public class GetDocumentHandler extends PipelinedHandler {
                         .projection(fieldsToReturn)
                         .first();
 
+        setResponse(exchange, request, response, document);
+        next(exchange);
+    }
+
+    /**
+     * Sets the response for the document found, that is null if it does not
+     * exist
+     */
+    private void setResponse(HttpServerExchange exchange,
+            MongoRequest request,
+            MongoResponse response,
+            BsonDocument document) {
         if (document == null) {
             String errMsg = request.getDocumentId() == null
                     ? " does not exist"
@@ -191,7 +224,6 @@ public class GetDocumentHandler extends PipelinedHandler {
             response.setInError(
                     HttpStatus.SC_NOT_FOUND,
                     errMsg);
-            next(exchange);
             return;
         }
 
@@ -216,7 +248,6 @@ public class GetDocumentHandler extends PipelinedHandler {
         // just return 304 NOT_MODIFIED code
         if (RequestHelper.checkReadEtag(exchange, (BsonObjectId) etag)) {
             response.setStatusCode(HttpStatus.SC_NOT_MODIFIED);
-            next(exchange);
             return;
         }
 
@@ -226,7 +257,5 @@ public class GetDocumentHandler extends PipelinedHandler {
         response.setStatusCode(HttpStatus.SC_OK);
 
         ResponseHelper.injectEtagHeader(exchange, etag);
-
-        next(exchange);
     }
 }
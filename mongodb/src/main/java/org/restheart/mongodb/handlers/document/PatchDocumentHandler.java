@@ -21,6 +21,8 @@
 package org.restheart.mongodb.handlers.document;
 
 import io.undertow.server.HttpServerExchange;
+import io.undertow.util.AttachmentKey;
+import java.util.Objects;
 import org.bson.BsonDocument;
 import org.bson.BsonValue;
 import org.restheart.exchange.MongoRequest;
@@ -36,6 +38,13 @@ import org.restheart.utils.HttpStatus;
  * @author Andrea Di Cesare {@literal <andrea@softinstigate.com>}
  */
 public class PatchDocumentHandler extends PipelinedHandler {
+    /**
+     * the document read by an interceptor to check the PATCH, an empty
+     * document if it did not exist. When attached, the document is written
+     * only if it was not modified after the read, otherwise the request fails
+     * with SC_PRECONDITION_FAILED
+     */
+    public static final AttachmentKey<BsonDocument> CHECKED_DOCUMENT_KEY = AttachmentKey.create(BsonDocument.class);
 
     private final DocumentDAO documentDAO;
 
@@ -97,6 +106,8 @@ public class PatchDocumentHandler extends PipelinedHandler {
             return;
         }
 
+        var checkedDocument = exchange.getAttachment(CHECKED_DOCUMENT_KEY);
+
         OperationResult result = documentDAO.writeDocument(
                 request.getClientSession(),
                 request.getDBName(),
@@ -108,10 +119,19 @@ public class PatchDocumentHandler extends PipelinedHandler {
                 request.getETag(),
                 true,
                 request.getWriteMode(),
-                request.isETagCheckRequired());
+                request.isETagCheckRequired(),
+                checkedDocument);
 
         response.setDbOperationResult(result);
 
+        if (checkedDocument != null && isModified(checkedDocument, result)) {
+            response.setInError(
+                    HttpStatus.SC_PRECONDITION_FAILED,
+                    "The document was modified by another request while checking the PATCH, retry it");
+            next(exchange);
+            return;
+        }
+
         if (RequestHelper.isResponseInConflict(result, exchange)) {
             next(exchange);
             return;
@@ -122,4 +142,24 @@ public class PatchDocumentHandler extends PipelinedHandler {
         next(exchange);
     }
 
+    /**
+     * @return true if the write failed because the document was created or
+     * its _etag changed after the checked one was read
+     */
+    private static boolean isModified(BsonDocument checkedDocument, OperationResult result) {
+        if (result.getHttpCode() != HttpStatus.SC_CONFLICT
+                && result.getHttpCode() != HttpStatus.SC_PRECONDITION_FAILED) {
+            return false;
+        }
+
+        var current = result.getOldData();
+
+        if (current == null) {
+            return false;
+        } else if (checkedDocument.isEmpty()) {
+            return true;
+        } else {
+            return !Objects.equals(checkedDocument.get("_etag"), current.get("_etag"));
+        }
+    }
 }
@@ -25,8 +25,14 @@ import com.mongodb.client.gridfs.GridFSBuckets;
 import com.mongodb.client.gridfs.model.GridFSFile;
 import static com.mongodb.client.model.Filters.eq;
 import io.undertow.server.HttpServerExchange;
+import io.undertow.util.ByteRange;
+import io.undertow.util.DateUtils;
 import io.undertow.util.Headers;
 import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
 import org.bson.BsonObjectId;
 import org.bson.types.ObjectId;
 import org.restheart.exchange.MongoRequest;
@@ -57,6 +63,19 @@ public class GetFileBinaryHandler extends PipelinedHandler {
     public static final String CONTENT_TRANSFER_ENCODING_BINARY
             = "binary";
 
+    /**
+     *
+     */
+    public static final String MULTIPART_BYTERANGES
+            = "multipart/byteranges";
+
+    private static final String BYTES_UNIT = "bytes";
+
+    // more ranges are ignored and the whole file is sent
+    private static final int MAX_RANGES = 32;
+
+    private static final byte[] EMPTY = new byte[0];
+
     private static final Logger LOGGER
             = LoggerFactory.getLogger(GetFileBinaryHandler.class);
 
@@ -110,7 +129,7 @@ public class GetFileBinaryHandler extends PipelinedHandler {
         if (dbsfile == null) {
             fileNotFound(request, exchange);
         } else if (!checkEtag(exchange, dbsfile)) {
-            sendBinaryContent(request, response, gridFSBucket, dbsfile, exchange);
+            sendBinaryContent(request, response, bucket, dbsfile, exchange);
         }
 
         next(exchange);
@@ -160,57 +179,204 @@ public class GetFileBinaryHandler extends PipelinedHandler {
     private void sendBinaryContent(
             final MongoRequest request,
             final MongoResponse response,
-            final GridFSBucket gridFSBucket,
+            final String bucket,
             final GridFSFile file,
             final HttpServerExchange exchange)
             throws IOException {
         LOGGER.trace("Filename = {}", file.getFilename());
         LOGGER.trace("Content length = {}", file.getLength());
 
+        final String contentType;
+
         if (file.getMetadata() != null
                 && file.getMetadata().get("contentType") != null) {
-            response.getHeaders().put(Headers.CONTENT_TYPE,
-                    file.getMetadata().get("contentType").toString());
-        } else if (file.getMetadata() != null
-                && file.getMetadata().get("contentType") != null) {
-            response.getHeaders().put(Headers.CONTENT_TYPE,
-                    file.getMetadata().get("contentType").toString());
+            contentType = file.getMetadata().get("contentType").toString();
         } else {
-            response.getHeaders().put(
-                    Headers.CONTENT_TYPE,
-                    APPLICATION_OCTET_STREAM);
+            contentType = APPLICATION_OCTET_STREAM;
+        }
+
+        final long length = file.getLength();
+
+        response.getHeaders().put(Headers.ACCEPT_RANGES, BYTES_UNIT);
+
+        // null means the whole file
+        var ranges = checkIfRange(exchange, file)
+                ? parseRanges(exchange.getRequestHeaders().getFirst(Headers.RANGE), length)
+                : null;
+
+        if (ranges != null && ranges.isEmpty()) {
+            response.getHeaders().put(Headers.CONTENT_RANGE,
+                    BYTES_UNIT + " */" + length);
+            response.setInError(HttpStatus.SC_REQUESTED_RANGE_NOT_SATISFIABLE,
+                    "Requested range not satisfiable");
+            return;
         }
 
-        response.getHeaders().put(Headers.CONTENT_LENGTH, file.getLength());
+        final List<GridFsChunksSender.Part> parts = new ArrayList<>();
+        byte[] epilogue = EMPTY;
+
+        if (ranges == null) {
+            if (length > 0) {
+                parts.add(new GridFsChunksSender.Part(EMPTY, 0, length - 1));
+            }
+
+            response.getHeaders().put(Headers.CONTENT_TYPE, contentType);
+            response.getHeaders().put(Headers.CONTENT_LENGTH, length);
+            response.setStatusCode(HttpStatus.SC_OK);
+        } else if (ranges.size() == 1) {
+            var range = ranges.get(0);
+            parts.add(new GridFsChunksSender.Part(EMPTY, range[0], range[1]));
+
+            response.getHeaders().put(Headers.CONTENT_TYPE, contentType);
+            response.getHeaders().put(Headers.CONTENT_LENGTH, range[1] - range[0] + 1);
+            response.getHeaders().put(Headers.CONTENT_RANGE,
+                    contentRange(range, length));
+            response.setStatusCode(HttpStatus.SC_PARTIAL_CONTENT);
+        } else {
+            var boundary = new ObjectId().toHexString();
+            long contentLength = 0;
+
+            for (var range : ranges) {
+                var preamble = (parts.isEmpty() ? "" : "\r\n")
+                        + "--" + boundary + "\r\n"
+                        + Headers.CONTENT_TYPE_STRING + ": " + contentType + "\r\n"
+                        + Headers.CONTENT_RANGE_STRING + ": " + contentRange(range, length) + "\r\n"
+                        + "\r\n";
+
+                var part = new GridFsChunksSender.Part(
+                        preamble.getBytes(StandardCharsets.ISO_8859_1),
+                        range[0], range[1]);
+
+                parts.add(part);
+                contentLength += part.preamble.length + part.length();
+            }
+
+            epilogue = ("\r\n--" + boundary + "--\r\n")
+                    .getBytes(StandardCharsets.ISO_8859_1);
+            contentLength += epilogue.length;
+
+            response.getHeaders().put(Headers.CONTENT_TYPE,
+                    MULTIPART_BYTERANGES + "; boundary=" + boundary);
+            response.getHeaders().put(Headers.CONTENT_LENGTH, contentLength);
+            response.setStatusCode(HttpStatus.SC_PARTIAL_CONTENT);
+        }
 
         response.getHeaders().put(
                 Headers.CONTENT_DISPOSITION,
                 String.format("inline; filename=\"%s\"",
                         extractFilename(file)));
 
-            response.getHeaders().put(
+        response.getHeaders().put(
                 Headers.CONTENT_TRANSFER_ENCODING,
                 CONTENT_TRANSFER_ENCODING_BINARY);
 
         ResponseHelper.injectEtagHeader(exchange, file.getMetadata());
 
-        response.setStatusCode(HttpStatus.SC_OK);
+        var sender = new GridFsChunksSender(exchange,
+                request.getDBName(),
+                bucket,
+                file.getId(),
+                file.getChunkSize(),
+                parts,
+                epilogue);
 
         response.setCustomerSender(() -> {
-            LOGGER.debug("*************** used a custom sender");
-            if (request.getClientSession() != null) {
-                gridFSBucket.downloadToStream(
-                        request.getClientSession(),
-                        file.getId(),
-                        exchange.getOutputStream());
-            } else {
-                gridFSBucket.downloadToStream(
-                        file.getId(),
-                        exchange.getOutputStream());
+            try {
+                sender.send(request.getClientSession());
+            } catch (IOException ioe) {
+                throw new UncheckedIOException(ioe);
             }
         });
     }
 
+    /**
+     * Parses the value of the Range header
+     *
+     * @param header the value of the Range header, can be null
+     * @param length the length of the file
+     * @return the satisfiable ranges as {start, end} pairs (inclusive), an
+     * empty list if no range is satisfiable or null if the whole file must be
+     * sent, i.e. if the header is missing, invalid or has too many ranges
+     */
+    static List<long[]> parseRanges(String header, long length) {
+        if (header == null) {
+            return null;
+        }
+
+        var byteRange = ByteRange.parse(header);
+
+        if (byteRange == null || byteRange.getRanges() > MAX_RANGES) {
+            return null;
+        }
+
+        var ret = new ArrayList<long[]>();
+
+        for (int i = 0; i < byteRange.getRanges(); i++) {
+            var start = byteRange.getStart(i);
+            var end = byteRange.getEnd(i);
+
+            if (start < 0) {
+                // suffix range, e.g. bytes=-500
+                if (end <= 0) {
+                    continue;
+                }
+
+                start = Math.max(length - end, 0);
+                end = length - 1;
+            } else if (end >= 0 && end < start) {
+                return null;
+            } else if (end < 0 || end >= length) {
+                end = length - 1;
+            }
+
+            if (start < length) {
+                ret.add(new long[] { start, end });
+            }
+        }
+
+        return ret;
+    }
+
+    /**
+     * @return true if the Range header must be honored, i.e. the If-Range
+     * header is missing or matches the current etag or the upload date of the
+     * file
+     */
+    private boolean checkIfRange(HttpServerExchange exchange, GridFSFile file) {
+        var ifRange = exchange.getRequestHeaders().getFirst(Headers.IF_RANGE);
+
+        if (ifRange == null) {
+            return true;
+        }
+
+        ifRange = ifRange.trim();
+
+        if (ifRange.startsWith("W/")) {
+            // weak etags are not allowed
+            return false;
+        } else if (ifRange.length() > 1 && ifRange.startsWith("\"") && ifRange.endsWith("\"")) {
+            ifRange = ifRange.substring(1, ifRange.length() - 1);
+        } else {
+            var date = DateUtils.parseDate(ifRange);
+
+            if (date != null) {
+                // the content of a file never changes after upload
+                return file.getUploadDate() != null
+                        && file.getUploadDate().getTime() / 1000 <= date.getTime() / 1000;
+            }
+        }
+
+        var etag = file.getMetadata() == null
+                ? null
+                : file.getMetadata().get("_etag");
+
+        return etag != null && ifRange.equals(etag.toString());
+    }
+
+    private static String contentRange(long[] range, long length) {
+        return BYTES_UNIT + " " + range[0] + "-" + range[1] + "/" + length;
+    }
+
     private String extractFilename(final GridFSFile dbsfile) {
         return dbsfile.getFilename() != null
                 ? dbsfile.getFilename()
@@ -0,0 +1,380 @@
+/*-
+ * ========================LICENSE_START=================================
+ * restheart-mongodb
+ * %%
+ * Copyright (C) 2014 - 2020 SoftInstigate
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * =========================LICENSE_END==================================
+ */
+package org.restheart.mongodb.handlers.files;
+
+import com.mongodb.MongoGridFSException;
+import com.mongodb.client.ClientSession;
+import static com.mongodb.client.model.Filters.and;
+import static com.mongodb.client.model.Filters.eq;
+import static com.mongodb.client.model.Filters.gte;
+import static com.mongodb.client.model.Filters.lte;
+import static com.mongodb.client.model.Sorts.ascending;
+import io.undertow.server.HttpServerExchange;
+import io.undertow.util.SameThreadExecutor;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.List;
+import org.bson.BsonDocument;
+import org.bson.BsonValue;
+import org.bson.conversions.Bson;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+import org.restheart.mongodb.db.MongoClientSingleton;
+import org.restheart.mongodb.db.MongoReactiveClientSingleton;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.xnio.IoUtils;
+import org.xnio.channels.StreamSinkChannel;
+
+/**
+ * Sends byte ranges of a GridFS file, reading from the chunks collection only
+ * the chunks that contain them.
+ *
+ * When the reactive client is available and the request is not bound to a
+ * client session, the chunks are written to the response channel as they are
+ * received, without blocking a worker thread; otherwise they are written to
+ * the exchange output stream.
+ */
+class GridFsChunksSender {
+    private static final Logger LOGGER = LoggerFactory.getLogger(GridFsChunksSender.class);
+
+    private static final Bson SORT = ascending("n");
+
+    /**
+     * The inclusive byte range [start, end] of the file, preceded by preamble
+     * (e.g. the headers of a multipart/byteranges part)
+     */
+    static class Part {
+        final byte[] preamble;
+        final long start;
+        final long end;
+
+        Part(byte[] preamble, long start, long end) {
+            this.preamble = preamble;
+            this.start = start;
+            this.end = end;
+        }
+
+        long length() {
+            return end - start + 1;
+        }
+    }
+
+    private final HttpServerExchange exchange;
+    private final String dbName;
+    private final String chunksCollectionName;
+    private final BsonValue fileId;
+    private final int chunkSize;
+    private final List<Part> parts;
+    private final byte[] epilogue;
+
+    private StreamSinkChannel channel;
+    private com.mongodb.reactivestreams.client.MongoCollection<BsonDocument> chunks;
+
+    /**
+     *
+     * @param exchange
+     * @param dbName
+     * @param bucket
+     * @param fileId
+     * @param chunkSize
+     * @param parts the parts to send, in order
+     * @param epilogue the bytes to send after the last part
+     */
+    GridFsChunksSender(HttpServerExchange exchange,
+            String dbName,
+            String bucket,
+            BsonValue fileId,
+            int chunkSize,
+            List<Part> parts,
+            byte[] epilogue) {
+        this.exchange = exchange;
+        this.dbName = dbName;
+        this.chunksCollectionName = bucket.concat(".chunks");
+        this.fileId = fileId;
+        this.chunkSize = chunkSize;
+        this.parts = parts;
+        this.epilogue = epilogue;
+    }
+
+    /**
+     * Sends the parts, asynchronously if possible
+     *
+     * @param cs the client session of the request, can be null
+     * @throws IOException
+     */
+    void send(ClientSession cs) throws IOException {
+        if (cs == null && MongoReactiveClientSingleton.isInitialized()) {
+            // the exchange is not ended when the handlers chain returns
+            exchange.dispatch(SameThreadExecutor.INSTANCE, this::sendAsync);
+        } else {
+            sendBlocking(cs);
+        }
+    }
+
+    private void sendBlocking(ClientSession cs) throws IOException {
+        var coll = MongoClientSingleton.getInstance().getClient()
+                .getDatabase(dbName)
+                .getCollection(chunksCollectionName, BsonDocument.class);
+
+        var os = exchange.getOutputStream();
+
+        for (var part : parts) {
+            os.write(part.preamble);
+
+            var filter = filter(part);
+            var expected = firstChunk(part);
+
+            try (var cursor = (cs == null ? coll.find(filter) : coll.find(cs, filter)).sort(SORT).iterator()) {
+                while (cursor.hasNext()) {
+                    var slice = slice(part, cursor.next(), expected++);
+                    os.write(slice.array(), slice.arrayOffset() + slice.position(), slice.remaining());
+                }
+            }
+
+            checkComplete(part, expected);
+        }
+
+        os.write(epilogue);
+    }
+
+    private void sendAsync() {
+        try {
+            this.chunks = MongoReactiveClientSingleton.getInstance().getClient()
+                    .getDatabase(dbName)
+                    .getCollection(chunksCollectionName, BsonDocument.class);
+
+            this.channel = exchange.getResponseChannel();
+        } catch (Throwable t) {
+            abort(t);
+            return;
+        }
+
+        sendPart(0);
+    }
+
+    private void sendPart(int idx) {
+        if (idx == parts.size()) {
+            write(ByteBuffer.wrap(epilogue), exchange::endExchange);
+        } else {
+            var part = parts.get(idx);
+
+            write(ByteBuffer.wrap(part.preamble), () -> chunks
+                    .find(filter(part))
+                    .sort(SORT)
+                    .subscribe(new ChunksSubscriber(part, () -> sendPart(idx + 1))));
+        }
+    }
+
+    /**
+     * Writes the buffer to the response channel, then runs then; when the
+     * channel cannot accept all the bytes, the remaining ones are written by
+     * a write listener
+     */
+    private void write(ByteBuffer buffer, Runnable then) {
+        try {
+            while (buffer.hasRemaining()) {
+                if (channel.write(buffer) == 0) {
+                    channel.getWriteSetter().set(ch -> {
+                        try {
+                            while (buffer.hasRemaining()) {
+                                if (ch.write(buffer) == 0) {
+                                    return;
+                                }
+                            }
+                        } catch (IOException ioe) {
+                            ch.suspendWrites();
+                            abort(ioe);
+                            return;
+                        }
+
+                        ch.suspendWrites();
+                        ch.getWriteSetter().set(null);
+                        then.run();
+                    });
+
+                    channel.resumeWrites();
+                    return;
+                }
+            }
+        } catch (IOException ioe) {
+            abort(ioe);
+            return;
+        }
+
+        then.run();
+    }
+
+    private void abort(Throwable t) {
+        // the status code and the headers have already been sent
+        LOGGER.error("Error sending file {}, closing connection", fileId, t);
+        IoUtils.safeClose(exchange.getConnection());
+    }
+
+    private Bson filter(Part part) {
+        return and(eq("files_id", fileId),
+                gte("n", firstChunk(part)),
+                lte("n", lastChunk(part)));
+    }
+
+    private int firstChunk(Part part) {
+        return (int) (part.start / chunkSize);
+    }
+
+    private int lastChunk(Part part) {
+        return (int) (part.end / chunkSize);
+    }
+
+    /**
+     * @return the bytes of the chunk that belong to the part
+     */
+    private ByteBuffer slice(Part part, BsonDocument chunk, int expected) {
+        var n = chunk.get("n");
+
+        if (n == null || !n.isNumber() || n.asNumber().intValue() != expected) {
+            throw missingChunk(expected);
+        }
+
+        var data = chunk.get("data");
+
+        if (data == null || !data.isBinary()) {
+            throw new MongoGridFSException(String.format("Unexpected data format for file chunk %d of file %s",
+                    expected, fileId));
+        }
+
+        var bytes = data.asBinary().getData();
+        var offset = (long) expected * chunkSize;
+
+        var from = (int) Math.max(part.start - offset, 0);
+        var to = (int) Math.min(part.end - offset + 1, bytes.length);
+
+        if (from >= to) {
+            throw new MongoGridFSException(String.format("Chunk size data length is not the expected size "
+                    + "for file chunk %d of file %s", expected, fileId));
+        }
+
+        return ByteBuffer.wrap(bytes, from, to - from);
+    }
+
+    private void checkComplete(Part part, int next) {
+        if (next != lastChunk(part) + 1) {
+            throw missingChunk(next);
+        }
+    }
+
+    private MongoGridFSException missingChunk(int n) {
+        return new MongoGridFSException(String.format("Could not find file chunk for file_id: %s at chunk index %d.",
+                fileId, n));
+    }
+
+    /**
+     * Requests the chunks one at a time, the next one is requested when the
+     * previous has been written to the response channel
+     */
+    private class ChunksSubscriber implements Subscriber<BsonDocument> {
+        private final Part part;
+        private final Runnable then;
+
+        private Subscription subscription;
+        private int expected;
+
+        // guarded by this
+        private boolean writing = false;
+        private boolean completed = false;
+
+        ChunksSubscriber(Part part, Runnable then) {
+            this.part = part;
+            this.then = then;
+            this.expected = firstChunk(part);
+        }
+
+        @Override
+        public void onSubscribe(Subscription s) {
+            this.subscription = s;
+            s.request(1);
+        }
+
+        @Override
+        public void onNext(BsonDocument chunk) {
+            ByteBuffer slice;
+
+            try {
+                slice = slice(part, chunk, expected++);
+            } catch (MongoGridFSException e) {
+                subscription.cancel();
+                abort(e);
+                return;
+            }
+
+            synchronized (this) {
+                writing = true;
+            }
+
+            write(slice, this::written);
+        }
+
+        private void written() {
+            boolean complete;
+
+            synchronized (this) {
+                writing = false;
+                complete = completed;
+            }
+
+            if (complete) {
+                complete();
+            } else {
+                subscription.request(1);
+            }
+        }
+
+        @Override
+        public void onError(Throwable t) {
+            abort(t);
+        }
+
+        @Override
+        public void onComplete() {
+            boolean complete;
+
+            // the completion can be signaled while the last chunk is being written
+            synchronized (this) {
+                completed = true;
+                complete = !writing;
+            }
+
+            if (complete) {
+                complete();
+            }
+        }
+
+        private void complete() {
+            try {
+                checkComplete(part, expected);
+            } catch (MongoGridFSException e) {
+                abort(e);
+                return;
+            }
+
+            then.run();
+        }
+    }
+}
@@ -0,0 +1,239 @@
+/*-
+ * ========================LICENSE_START=================================
+ * restheart-mongodb
+ * %%
+ * Copyright (C) 2014 - 2020 SoftInstigate
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * =========================LICENSE_END==================================
+ */
+package org.restheart.mongodb.handlers.metrics;
+
+import com.codahale.metrics.Reservoir;
+import com.codahale.metrics.Snapshot;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A Reservoir that counts the values in log-linear buckets, like
+ * HdrHistogram: each power of two is divided in 32 buckets, so the values
+ * returned by the snapshot have a relative error below 3%.
+ *
+ * update() only increments atomic counters and never locks, at the cost of
+ * the statistics covering all the values since the reservoir was created.
+ * Values up to 2^42 (about 73 minutes in nanoseconds) are bucketed, greater
+ * values are counted in the last bucket; min, max and mean are exact.
+ */
+public class LockFreeHistogramReservoir implements Reservoir {
+    private static final int SUB_BUCKET_BITS = 5;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int MAX_SHIFT = 42 - SUB_BUCKET_BITS;
+
+    static final int BUCKETS = (MAX_SHIFT + 2) * SUB_BUCKETS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder sum = new LongAdder();
+    private final LongAccumulator min = new LongAccumulator(Math::min, Long.MAX_VALUE);
+    private final LongAccumulator max = new LongAccumulator(Math::max, Long.MIN_VALUE);
+
+    @Override
+    public int size() {
+        return (int) Math.min(count.sum(), Integer.MAX_VALUE);
+    }
+
+    @Override
+    public void update(long value) {
+        var _value = Math.max(value, 0);
+
+        counts.incrementAndGet(index(_value));
+        count.increment();
+        sum.add(_value);
+        min.accumulate(_value);
+        max.accumulate(_value);
+    }
+
+    @Override
+    public Snapshot getSnapshot() {
+        var _counts = new long[BUCKETS];
+        long total = 0;
+
+        for (int i = 0; i < BUCKETS; i++) {
+            _counts[i] = counts.get(i);
+            total += _counts[i];
+        }
+
+        if (total == 0) {
+            return new HistogramSnapshot(_counts, 0, 0, 0, 0);
+        }
+
+        var _count = count.sum();
+
+        return new HistogramSnapshot(_counts,
+                total,
+                min.get(),
+                max.get(),
+                _count == 0 ? 0 : (double) sum.sum() / _count);
+    }
+
+    /**
+     * @param value a non negative value
+     * @return the index of the bucket of value
+     */
+    static int index(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+
+        var shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+
+        if (shift > MAX_SHIFT) {
+            return BUCKETS - 1;
+        }
+
+        return (shift + 1) * SUB_BUCKETS + (int) (value >>> shift) - SUB_BUCKETS;
+    }
+
+    /**
+     * @param index
+     * @return the value in the middle of the bucket
+     */
+    static long value(int index) {
+        if (index < SUB_BUCKETS) {
+            return index;
+        }
+
+        var shift = index / SUB_BUCKETS - 1;
+        var lowerBound = ((long) (SUB_BUCKETS + index % SUB_BUCKETS)) << shift;
+
+        return lowerBound + ((1l << shift) - 1) / 2;
+    }
+
+    private static class HistogramSnapshot extends Snapshot {
+        private final long[] counts;
+        private final long total;
+        private final long min;
+        private final long max;
+        private final double mean;
+
+        HistogramSnapshot(long[] counts, long total, long min, long max, double mean) {
+            this.counts = counts;
+            this.total = total;
+            this.min = min;
+            this.max = max;
+            this.mean = mean;
+        }
+
+        @Override
+        public double getValue(double quantile) {
+            if (quantile < 0.0 || quantile > 1.0 || Double.isNaN(quantile)) {
+                throw new IllegalArgumentException(quantile + " is not in [0..1]");
+            }
+
+            if (total == 0) {
+                return 0.0;
+            }
+
+            var rank = Math.max((long) Math.ceil(quantile * total), 1);
+            long cumulative = 0;
+
+            for (int i = 0; i < counts.length; i++) {
+                cumulative += counts[i];
+
+                if (cumulative >= rank) {
+                    return Math.min(Math.max(value(i), min), max);
+                }
+            }
+
+            return max;
+        }
+
+        /**
+         * @return the values of the non empty buckets
+         */
+        @Override
+        public long[] getValues() {
+            var n = 0;
+
+            for (var c : counts) {
+                if (c > 0) {
+                    n++;
+                }
+            }
+
+            var ret = new long[n];
+            var j = 0;
+
+            for (int i = 0; i < counts.length; i++) {
+                if (counts[i] > 0) {
+                    ret[j++] = Math.min(Math.max(value(i), min), max);
+                }
+            }
+
+            return ret;
+        }
+
+        @Override
+        public int size() {
+            return (int) Math.min(total, Integer.MAX_VALUE);
+        }
+
+        @Override
+        public long getMax() {
+            return max;
+        }
+
+        @Override
+        public double getMean() {
+            return mean;
+        }
+
+        @Override
+        public long getMin() {
+            return min;
+        }
+
+        @Override
+        public double getStdDev() {
+            if (total <= 1) {
+                return 0;
+            }
+
+            double sum = 0;
+
+            for (int i = 0; i < counts.length; i++) {
+                if (counts[i] > 0) {
+                    var diff = value(i) - mean;
+                    sum += counts[i] * diff * diff;
+                }
+            }
+
+            return Math.sqrt(sum / (total - 1));
+        }
+
+        @Override
+        public void dump(OutputStream output) {
+            try (var out = new PrintWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8))) {
+                for (var value : getValues()) {
+                    out.printf("%d%n", value);
+                }
+            }
+        }
+    }
+}
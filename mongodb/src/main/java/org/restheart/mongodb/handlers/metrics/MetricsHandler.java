@@ -26,6 +26,8 @@ import io.undertow.server.HttpServerExchange;
 import io.undertow.util.Headers;
 import java.io.IOException;
 import java.io.Serializable;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 import java.util.Arrays;
 import java.util.Comparator;
 import java.util.Deque;
@@ -35,7 +37,6 @@ import java.util.Optional;
 import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 import org.bson.BsonDocument;
-import org.bson.BsonValue;
 import org.bson.json.JsonMode;
 import org.bson.json.JsonWriterSettings;
 import org.restheart.exchange.ByteArrayProxyResponse;
@@ -225,107 +226,19 @@ public class MetricsHandler extends PipelinedHandler {
          * https://prometheus.io/docs/instrumenting/exposition_formats/
          */
         PROMETHEUS("text/plain", "version=0.0.4") {
-            private String valueAsString(BsonValue value) {
-                if (value.isDouble()) {
-                    return Double.toString(value.asDouble().getValue());
-                } else if (value.isString()) {
-                    return value.asString().getValue();
-                } else if (value.isInt64()) {
-                    return Long.toString(value.asInt64().getValue());
-                } else if (value.isInt32()) {
-                    return Long.toString(value.asInt32().getValue());
-                } else {
-                    return value.toString();
-                }
-            }
-
             @Override
             public String generateResponse(METRICS_GATHERING_LEVEL metricsLevel, MetricRegistry registry) throws IOException {
-
-                StringBuilder sb = new StringBuilder();
-                long timestamp = System.currentTimeMillis();
-                if (metricsLevel == ROOT) {
-                    metricsProxy.registries().forEach(registryName -> {
-
-                        // reconstruct database and collection name
-                        String[] registryNameParts = registryName.split("/");
-                        String databaseName = registryNameParts.length > 0 ? registryNameParts[0] : null;
-                        String collectionName = registryNameParts.length > 1 ? registryNameParts[1] : null;
-                        boolean isRootMetricsRegistry = metricsProxy.isDefault(databaseName);
-
-                        // set values for database and collection labels
-                        if (isRootMetricsRegistry) {
-                            databaseName = DATABASE_AND_COLLECTION_ALL_VALUES_LABEL_VALUE;
-                            collectionName = DATABASE_AND_COLLECTION_ALL_VALUES_LABEL_VALUE;
-                        } else {
-                            if (collectionName == null) {
-                                collectionName = DATABASE_AND_COLLECTION_ALL_VALUES_LABEL_VALUE;
-                            }
-                        }
-
-                        // generate metrics
-                        sb.append(generateResponse(metricsProxy.registry(registryName), databaseName, collectionName, timestamp));
-                    });
-                } else {
-
-                    // we provide null here for database and collection names to not change the previous behavior, generating
-                    // these prometheus labels is only available when requesting metrics on root level
-                    sb.append(generateResponse(registry, null, null, timestamp));
-                }
-
-                return sb.toString().trim();
-            }
-
-            public String generateResponse(MetricRegistry registry, String databaseName, String collectionName, long timestamp) {
-
-                // fetch metrics registry and build json data
-                BsonDocument root = MetricsJsonGenerator.generateMetricsBson(registry, TimeUnit.SECONDS, TimeUnit.MILLISECONDS);
-                root.remove("version");
-
-                // convert json data to prometheus format
-                StringBuilder sb = new StringBuilder();
-                root.forEach((groupKey, groupContent)
-                        -> groupContent.asDocument().forEach((metricKey, metricContent) -> {
-                            final String[] split = metricKey.split("\\.");
-                            final String type = split[0];
-                            final String method = split[1];
-                            final String responseCode = split.length >= 3 ? split[2] : null;
-
-                            metricContent.asDocument().forEach((metricType, value) -> {
-                                if (value.isNumber()) {
-                                    sb.append("http_response_").append(groupKey).append("_").append(metricType);
-                                    sb.append("{");
-                                    if (databaseName != null) {
-                                        sb.append("database=\"").append(escapePrometheusLabelValue(databaseName)).append("\",");
-                                    }
-                                    if (collectionName != null) {
-                                        sb.append("collection=\"").append(escapePrometheusLabelValue(collectionName)).append("\",");
-                                    }
-                                    sb.append("type=\"").append(type).append("\",");
-                                    sb.append("method=\"").append(method).append("\"");
-                                    if (responseCode != null) {
-                                        sb.append(",code=\"").append(responseCode).append("\"");
-                                    }
-                                    sb.append("} ");
-                                    sb.append(valueAsString(value));
-                                    sb.append(" ");
-                                    sb.append(timestamp);
-                                    sb.append("\n");
-                                }
-                            });
-
-                            sb.append("\n");
-                        }
-                        ));
-
-                // return result
-                return sb.toString();
+                return generateExposition(PrometheusWriter.Format.PROMETHEUS, metricsLevel, registry);
             }
-
-            // see description for 'label_value' at https://prometheus.io/docs/instrumenting/exposition_formats/#comments-help-text-and-type-information
-            // quote and backslash get escaped and line feed gets converted to text '\n'
-            private String escapePrometheusLabelValue(String input) {
-                return input.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+        },
+        /**
+         * format description can be found at
+         * https://github.com/OpenObservability/OpenMetrics/blob/main/specification/OpenMetrics.md
+         */
+        OPENMETRICS("application/openmetrics-text", "version=1.0.0") {
+            @Override
+            public String generateResponse(METRICS_GATHERING_LEVEL metricsLevel, MetricRegistry registry) throws IOException {
+                return generateExposition(PrometheusWriter.Format.OPENMETRICS, metricsLevel, registry);
             }
         };
 
@@ -355,6 +268,40 @@ public class MetricsHandler extends PipelinedHandler {
 
         abstract public String generateResponse(METRICS_GATHERING_LEVEL context, MetricRegistry registry) throws IOException;
 
+        String generateExposition(PrometheusWriter.Format format, METRICS_GATHERING_LEVEL metricsLevel, MetricRegistry registry) {
+            var writer = new PrometheusWriter(format, System.currentTimeMillis());
+
+            if (metricsLevel == ROOT) {
+                metricsProxy.registries().forEach(registryName -> {
+
+                    // reconstruct database and collection name
+                    String[] registryNameParts = registryName.split("/");
+                    String databaseName = registryNameParts.length > 0 ? registryNameParts[0] : null;
+                    String collectionName = registryNameParts.length > 1 ? registryNameParts[1] : null;
+                    boolean isRootMetricsRegistry = metricsProxy.isDefault(databaseName);
+
+                    // set values for database and collection labels
+                    if (isRootMetricsRegistry) {
+                        databaseName = DATABASE_AND_COLLECTION_ALL_VALUES_LABEL_VALUE;
+                        collectionName = DATABASE_AND_COLLECTION_ALL_VALUES_LABEL_VALUE;
+                    } else {
+                        if (collectionName == null) {
+                            collectionName = DATABASE_AND_COLLECTION_ALL_VALUES_LABEL_VALUE;
+                        }
+                    }
+
+                    writer.write(metricsProxy.registry(registryName), databaseName, collectionName);
+                });
+            } else {
+
+                // we provide null here for database and collection names to not change the previous behavior, generating
+                // these prometheus labels is only available when requesting metrics on root level
+                writer.write(registry, null, null);
+            }
+
+            return writer.end();
+        }
+
         ResponseType(String contentType) {
             this(contentType, null);
         }
@@ -398,15 +345,12 @@ public class MetricsHandler extends PipelinedHandler {
         }
 
         public void writeTo(HttpServerExchange exchange, METRICS_GATHERING_LEVEL metricsLevel, MetricRegistry registry) throws IOException {
-            var body = generateResponse(metricsLevel, registry);
+            var body = generateResponse(metricsLevel, registry).getBytes(StandardCharsets.UTF_8);
 
-            if (body != null) {
-                ByteArrayProxyResponse.of(exchange).writeContent(body.getBytes());
-
-            }
+            ByteArrayProxyResponse.of(exchange).writeContent(body);
 
             exchange.getResponseHeaders().put(Headers.CONTENT_TYPE, getOutputContentType());
-            exchange.getResponseSender().send(generateResponse(metricsLevel, registry));
+            exchange.getResponseSender().send(ByteBuffer.wrap(body));
         }
 
         /**
@@ -20,7 +20,8 @@
  */
 package org.restheart.mongodb.handlers.metrics;
 
-import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.MetricRegistry.MetricSupplier;
+import com.codahale.metrics.Timer;
 import com.google.common.annotations.VisibleForTesting;
 import io.undertow.server.HttpServerExchange;
 import org.restheart.exchange.MongoRequest;
@@ -30,10 +31,12 @@ import org.restheart.plugins.InterceptPoint;
 import org.restheart.plugins.MongoInterceptor;
 import org.restheart.plugins.RegisterPlugin;
 
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
 
 import static org.restheart.exchange.ExchangeKeys._METRICS;
 import static org.restheart.mongodb.MongoServiceConfiguration.METRICS_GATHERING_LEVEL.*;
+import static org.restheart.mongodb.MongoServiceConfiguration.METRICS_TIMERS_RESERVOIR.LOCK_FREE_HISTOGRAM;
 
 @RegisterPlugin(name = "metricsInstrumentationInterceptor",
         description = "collects metrics for requests handled by mongo service",
@@ -80,34 +83,78 @@ public class MetricsInstrumentationInterceptor implements MongoInterceptor {
         return configuration != null && request.isHandledBy("mongo");
     }
 
-    private void addDefaultMetrics(MetricRegistry registry, long duration, HttpServerExchange exchange) {
-        var request = MongoRequest.of(exchange);
-        
-        registry.timer(request.getType().toString() + "." + request.getMethod().toString())
-                .update(duration, TimeUnit.MILLISECONDS);
-        registry.timer(request.getType().toString() + "." + request.getMethod().toString() + "." + exchange.getStatusCode())
-                .update(duration, TimeUnit.MILLISECONDS);
-        registry.timer(request.getType().toString() + "." + request.getMethod().toString() + "." + (exchange.getStatusCode() / 100) + "xx")
-                .update(duration, TimeUnit.MILLISECONDS);
+    private volatile RequestTimers rootTimers = null;
+
+    // the timers of dbs and collections, looked up without building the registry names
+    private final ConcurrentHashMap<String, DbTimers> dbsTimers = new ConcurrentHashMap<>();
+
+    private static class DbTimers {
+        final RequestTimers timers;
+        final ConcurrentHashMap<String, RequestTimers> collectionsTimers = new ConcurrentHashMap<>();
+
+        DbTimers(RequestTimers timers) {
+            this.timers = timers;
+        }
+    }
+
+    private MetricSupplier<Timer> timerSupplier() {
+        if (configuration.getMetricsTimersReservoir() == LOCK_FREE_HISTOGRAM) {
+            return () -> new Timer(new LockFreeHistogramReservoir());
+        } else {
+            return Timer::new;
+        }
+    }
+
+    private RequestTimers rootTimers() {
+        var ret = this.rootTimers;
+
+        if (ret == null) {
+            ret = new RequestTimers(metrics.registry(), timerSupplier());
+            this.rootTimers = ret;
+        }
+
+        return ret;
+    }
+
+    private DbTimers dbTimers(String dbName) {
+        var ret = dbsTimers.get(dbName);
+
+        return ret != null
+                ? ret
+                : dbsTimers.computeIfAbsent(dbName, db -> new DbTimers(new RequestTimers(metrics.registry(db),
+                        timerSupplier())));
+    }
+
+    private RequestTimers collectionTimers(DbTimers dbTimers, String dbName, String collectionName) {
+        var ret = dbTimers.collectionsTimers.get(collectionName);
+
+        return ret != null
+                ? ret
+                : dbTimers.collectionsTimers.computeIfAbsent(collectionName,
+                        coll -> new RequestTimers(metrics.registry(dbName, coll), timerSupplier()));
     }
 
     @VisibleForTesting
     void addMetrics(long startTime, HttpServerExchange exchange) {
         if (configuration.gatheringAboveOrEqualToLevel(ROOT)) {
             var request = MongoRequest.of(exchange);
-            
+
             long endTime = System.currentTimeMillis();
             long duration = endTime - startTime;
 
-            addDefaultMetrics(metrics.registry(), duration, exchange);
+            var type = request.getType();
+            var method = request.getMethod();
+            var status = exchange.getStatusCode();
+
+            rootTimers().update(type, method, status, duration, TimeUnit.MILLISECONDS);
 
             if (isFilledAndNotMetrics(request.getDBName()) && configuration.gatheringAboveOrEqualToLevel(DATABASE)) {
-                final MetricRegistry dbRegistry = metrics.registry(request.getDBName());
-                addDefaultMetrics(dbRegistry, duration, exchange);
+                var dbTimers = dbTimers(request.getDBName());
+                dbTimers.timers.update(type, method, status, duration, TimeUnit.MILLISECONDS);
 
                 if (isFilledAndNotMetrics(request.getCollectionName()) && configuration.gatheringAboveOrEqualToLevel(COLLECTION)) {
-                    final MetricRegistry collectionRegistry = metrics.registry(request.getDBName(), request.getCollectionName());
-                    addDefaultMetrics(collectionRegistry, duration, exchange);
+                    collectionTimers(dbTimers, request.getDBName(), request.getCollectionName())
+                            .update(type, method, status, duration, TimeUnit.MILLISECONDS);
                 }
             }
         }
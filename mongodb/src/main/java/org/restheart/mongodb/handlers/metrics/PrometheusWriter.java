@@ -0,0 +1,296 @@
+/*-
+ * ========================LICENSE_START=================================
+ * restheart-mongodb
+ * %%
+ * Copyright (C) 2014 - 2020 SoftInstigate
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * =========================LICENSE_END==================================
+ */
+package org.restheart.mongodb.handlers.metrics;
+
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Histogram;
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.Metered;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Snapshot;
+import com.codahale.metrics.Timer;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Writes the metrics of one or more registries in the Prometheus text format
+ * (version 0.0.4) or in the OpenMetrics text format, reading the values
+ * directly from the metrics snapshots.
+ *
+ * The series have the same names and labels of the JSON representation:
+ * http_response_&lt;group&gt;_&lt;field&gt;{database, collection, type,
+ * method, code}. The escaped labels of registries and metrics are computed
+ * once and cached.
+ */
+class PrometheusWriter {
+    enum Format {
+        PROMETHEUS, OPENMETRICS
+    }
+
+    private static final double DURATION_FACTOR = 1.0 / TimeUnit.MILLISECONDS.toNanos(1);
+    private static final double RATE_FACTOR = TimeUnit.SECONDS.toSeconds(1);
+
+    private static final String PREFIX = "http_response_";
+
+    private static final String[] SNAPSHOT_FIELDS = {"max", "mean", "min", "p50", "p75", "p95", "p98", "p99", "p999", "stddev"};
+    private static final String[] RATE_FIELDS = {"m15_rate", "m1_rate", "m5_rate", "mean_rate"};
+
+    private static final String GAUGE_VALUE = family("gauges", "value");
+    private static final String COUNTER_COUNT = family("counters", "count");
+    private static final String HISTOGRAM_COUNT = family("histograms", "count");
+    private static final String[] HISTOGRAM_SNAPSHOT = families("histograms", SNAPSHOT_FIELDS);
+    private static final String METER_COUNT = family("meters", "count");
+    private static final String[] METER_RATES = families("meters", RATE_FIELDS);
+    private static final String TIMER_COUNT = family("timers", "count");
+    private static final String[] TIMER_SNAPSHOT = families("timers", SNAPSHOT_FIELDS);
+    private static final String[] TIMER_RATES = families("timers", RATE_FIELDS);
+
+    // escaped database and collection labels, by database and collection name
+    private static final Map<String, String> REGISTRY_LABELS = new ConcurrentHashMap<>();
+
+    // escaped type, method and code labels, by metric name
+    private static final Map<String, String> METRIC_LABELS = new ConcurrentHashMap<>();
+
+    private final Format format;
+    private final StringBuilder out;
+    private final String timestamp;
+
+    // OpenMetrics requires the samples of a metric family to be contiguous
+    private final Map<String, StringBuilder> families;
+
+    private String registryLabels;
+
+    /**
+     *
+     * @param format
+     * @param timestamp the timestamp of the samples in milliseconds
+     */
+    PrometheusWriter(Format format, long timestamp) {
+        this.format = format;
+        this.out = new StringBuilder();
+
+        if (format == Format.OPENMETRICS) {
+            // OpenMetrics timestamps are in seconds
+            this.timestamp = " " + (timestamp / 1000) + "." + String.format("%03d", timestamp % 1000) + "\n";
+            this.families = new LinkedHashMap<>();
+        } else {
+            this.timestamp = " " + timestamp + "\n";
+            this.families = null;
+        }
+    }
+
+    /**
+     * Writes the metrics of the registry
+     *
+     * @param registry
+     * @param databaseName the value of the database label, null to omit it
+     * @param collectionName the value of the collection label, null to omit it
+     */
+    void write(MetricRegistry registry, String databaseName, String collectionName) {
+        this.registryLabels = registryLabels(databaseName, collectionName);
+
+        registry.getGauges().forEach(this::writeGauge);
+        registry.getCounters().forEach(this::writeCounter);
+        registry.getHistograms().forEach(this::writeHistogram);
+        registry.getMeters().forEach(this::writeMeter);
+        registry.getTimers().forEach(this::writeTimer);
+    }
+
+    /**
+     * @return the exposition
+     */
+    String end() {
+        if (format == Format.OPENMETRICS) {
+            families.forEach((name, samples) -> out.append("# TYPE ").append(name).append(" unknown\n").append(samples));
+            return out.append("# EOF\n").toString();
+        } else {
+            return out.toString().trim();
+        }
+    }
+
+    private void writeGauge(String name, Gauge<?> gauge) {
+        var labels = labels(name);
+
+        try {
+            var value = gauge.getValue();
+
+            if (value instanceof Double || value instanceof Float) {
+                sample(GAUGE_VALUE, labels, ((Number) value).doubleValue());
+            } else if (value instanceof Long || value instanceof Integer) {
+                sample(GAUGE_VALUE, labels, ((Number) value).longValue());
+            }
+        } catch (RuntimeException re) {
+            // the JSON representation reports the error, here it is skipped
+        }
+
+        endMetric();
+    }
+
+    private void writeCounter(String name, Counter counter) {
+        sample(COUNTER_COUNT, labels(name), counter.getCount());
+        endMetric();
+    }
+
+    private void writeHistogram(String name, Histogram histogram) {
+        var labels = labels(name);
+        sample(HISTOGRAM_COUNT, labels, histogram.getCount());
+        snapshot(HISTOGRAM_SNAPSHOT, labels, histogram.getSnapshot(), 1);
+        endMetric();
+    }
+
+    private void writeMeter(String name, Meter meter) {
+        var labels = labels(name);
+        sample(METER_COUNT, labels, meter.getCount());
+        rates(METER_RATES, labels, meter);
+        endMetric();
+    }
+
+    private void writeTimer(String name, Timer timer) {
+        var labels = labels(name);
+        sample(TIMER_COUNT, labels, timer.getCount());
+        snapshot(TIMER_SNAPSHOT, labels, timer.getSnapshot(), DURATION_FACTOR);
+        rates(TIMER_RATES, labels, timer);
+        endMetric();
+    }
+
+    private void snapshot(String[] names, String labels, Snapshot snapshot, double factor) {
+        sample(names[0], labels, snapshot.getMax() * factor);
+        sample(names[1], labels, snapshot.getMean() * factor);
+        sample(names[2], labels, snapshot.getMin() * factor);
+        sample(names[3], labels, snapshot.getMedian() * factor);
+        sample(names[4], labels, snapshot.get75thPercentile() * factor);
+        sample(names[5], labels, snapshot.get95thPercentile() * factor);
+        sample(names[6], labels, snapshot.get98thPercentile() * factor);
+        sample(names[7], labels, snapshot.get99thPercentile() * factor);
+        sample(names[8], labels, snapshot.get999thPercentile() * factor);
+        sample(names[9], labels, snapshot.getStdDev() * factor);
+    }
+
+    private void rates(String[] names, String labels, Metered metered) {
+        sample(names[0], labels, metered.getFifteenMinuteRate() * RATE_FACTOR);
+        sample(names[1], labels, metered.getOneMinuteRate() * RATE_FACTOR);
+        sample(names[2], labels, metered.getFiveMinuteRate() * RATE_FACTOR);
+        sample(names[3], labels, metered.getMeanRate() * RATE_FACTOR);
+    }
+
+    private void sample(String name, String labels, long value) {
+        line(name, labels).append(value).append(timestamp);
+    }
+
+    private void sample(String name, String labels, double value) {
+        var sb = line(name, labels);
+
+        if (Double.isNaN(value)) {
+            sb.append("NaN");
+        } else if (Double.isInfinite(value)) {
+            sb.append(value > 0 ? "+Inf" : "-Inf");
+        } else {
+            sb.append(value);
+        }
+
+        sb.append(timestamp);
+    }
+
+    private StringBuilder line(String name, String labels) {
+        var sb = format == Format.OPENMETRICS
+                ? families.computeIfAbsent(name, k -> new StringBuilder())
+                : out;
+
+        return sb.append(name).append(labels);
+    }
+
+    private void endMetric() {
+        // blank lines are not allowed by OpenMetrics
+        if (format == Format.PROMETHEUS) {
+            out.append('\n');
+        }
+    }
+
+    private String labels(String metricName) {
+        return "{".concat(registryLabels).concat(METRIC_LABELS.computeIfAbsent(metricName, PrometheusWriter::metricLabels)).concat("} ");
+    }
+
+    private static String registryLabels(String databaseName, String collectionName) {
+        if (databaseName == null && collectionName == null) {
+            return "";
+        }
+
+        // \0 cannot be part of database and collection names
+        var key = (databaseName == null ? "" : databaseName) + '\0' + (collectionName == null ? "" : collectionName);
+
+        return REGISTRY_LABELS.computeIfAbsent(key, k -> {
+            var sb = new StringBuilder();
+
+            if (databaseName != null) {
+                sb.append("database=\"").append(escape(databaseName)).append("\",");
+            }
+
+            if (collectionName != null) {
+                sb.append("collection=\"").append(escape(collectionName)).append("\",");
+            }
+
+            return sb.toString();
+        });
+    }
+
+    /**
+     * the metric name is type.method[.code], e.g. requests.GET.2xx
+     */
+    private static String metricLabels(String metricName) {
+        var split = metricName.split("\\.");
+        var sb = new StringBuilder();
+
+        sb.append("type=\"").append(escape(split[0])).append("\"");
+
+        if (split.length >= 2) {
+            sb.append(",method=\"").append(escape(split[1])).append("\"");
+        }
+
+        if (split.length >= 3) {
+            sb.append(",code=\"").append(escape(split[2])).append("\"");
+        }
+
+        return sb.toString();
+    }
+
+    // see description for 'label_value' at https://prometheus.io/docs/instrumenting/exposition_formats/#comments-help-text-and-type-information
+    // quote and backslash get escaped and line feed gets converted to text '\n'
+    static String escape(String input) {
+        return input.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+
+    private static String family(String group, String field) {
+        return PREFIX + group + "_" + field;
+    }
+
+    private static String[] families(String group, String[] fields) {
+        var ret = new String[fields.length];
+
+        for (int i = 0; i < fields.length; i++) {
+            ret[i] = family(group, fields[i]);
+        }
+
+        return ret;
+    }
+}
@@ -0,0 +1,107 @@
+/*-
+ * ========================LICENSE_START=================================
+ * restheart-mongodb
+ * %%
+ * Copyright (C) 2014 - 2020 SoftInstigate
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * =========================LICENSE_END==================================
+ */
+package org.restheart.mongodb.handlers.metrics;
+
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.MetricRegistry.MetricSupplier;
+import com.codahale.metrics.Timer;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import org.restheart.exchange.ExchangeKeys.METHOD;
+import org.restheart.exchange.ExchangeKeys.TYPE;
+
+/**
+ * The timers of the requests of a MetricRegistry, named
+ * &lt;type&gt;.&lt;method&gt;, &lt;type&gt;.&lt;method&gt;.&lt;status&gt; and
+ * &lt;type&gt;.&lt;method&gt;.&lt;status class&gt;xx
+ *
+ * The timers are resolved in a table indexed by request type, method and
+ * status code; a timer is registered on first use, afterwards update() does
+ * not build names nor look up the registry.
+ */
+class RequestTimers {
+    private static final TYPE[] TYPES = TYPE.values();
+    private static final METHOD[] METHODS = METHOD.values();
+
+    private static final int MIN_STATUS = 100;
+    private static final int MAX_STATUS = 599;
+
+    // slot 0 is <type>.<method>, slots 1 to 5 are <type>.<method>.<1 to 5>xx
+    private static final int STATUS_SLOTS_OFFSET = 6;
+    private static final int SLOTS = STATUS_SLOTS_OFFSET + MAX_STATUS - MIN_STATUS + 1;
+
+    private final MetricRegistry registry;
+    private final MetricSupplier<Timer> supplier;
+
+    // the slots of the timers of (type, method), allocated on first use
+    private final AtomicReferenceArray<AtomicReferenceArray<Timer>> table = new AtomicReferenceArray<>(
+            TYPES.length * METHODS.length);
+
+    /**
+     *
+     * @param registry
+     * @param supplier creates the timers
+     */
+    RequestTimers(MetricRegistry registry, MetricSupplier<Timer> supplier) {
+        this.registry = registry;
+        this.supplier = supplier;
+    }
+
+    void update(TYPE type, METHOD method, int status, long duration, TimeUnit unit) {
+        var idx = type.ordinal() * METHODS.length + method.ordinal();
+
+        var slots = table.get(idx);
+
+        if (slots == null) {
+            table.compareAndSet(idx, null, new AtomicReferenceArray<>(SLOTS));
+            slots = table.get(idx);
+        }
+
+        timer(slots, 0, type, method, null).update(duration, unit);
+
+        if (status >= MIN_STATUS && status <= MAX_STATUS) {
+            timer(slots, STATUS_SLOTS_OFFSET + status - MIN_STATUS, type, method, Integer.toString(status))
+                    .update(duration, unit);
+            timer(slots, status / 100, type, method, (status / 100) + "xx").update(duration, unit);
+        } else {
+            registry.timer(name(type, method, Integer.toString(status)), supplier).update(duration, unit);
+            registry.timer(name(type, method, (status / 100) + "xx"), supplier).update(duration, unit);
+        }
+    }
+
+    private Timer timer(AtomicReferenceArray<Timer> slots, int slot, TYPE type, METHOD method, String suffix) {
+        var timer = slots.get(slot);
+
+        if (timer == null) {
+            // the registry returns the same timer to concurrent callers
+            timer = registry.timer(name(type, method, suffix), supplier);
+            slots.lazySet(slot, timer);
+        }
+
+        return timer;
+    }
+
+    private static String name(TYPE type, METHOD method, String suffix) {
+        return suffix == null
+                ? type.toString() + "." + method.toString()
+                : type.toString() + "." + method.toString() + "." + suffix;
+    }
+}
@@ -0,0 +1,1231 @@
+/*-
+ * ========================LICENSE_START=================================
+ * restheart-mongodb
+ * %%
+ * Copyright (C) 2014 - 2020 SoftInstigate
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * =========================LICENSE_END==================================
+ */
+package org.restheart.mongodb.handlers.schema;
+
+import java.math.BigDecimal;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+import java.util.stream.Collectors;
+import org.bson.BsonArray;
+import org.bson.BsonBoolean;
+import org.bson.BsonDocument;
+import org.bson.BsonInt32;
+import org.bson.BsonInt64;
+import org.bson.BsonString;
+import org.bson.BsonValue;
+import org.everit.json.schema.Schema;
+import org.everit.json.schema.ValidationException;
+import org.json.JSONObject;
+
+/**
+ * Validates BSON documents against a JSON schema (draft 4, 6 and 7).
+ *
+ * The schema is compiled once into a tree of checkers that operate directly on
+ * the BsonValues, seen as their relaxed extended JSON representation, e.g. an
+ * ObjectId is the object {"$oid": "..."}, as they are seen by everit that
+ * validates the JSON string of the document.
+ *
+ * Schemas that use keywords not supported natively (format) or references
+ * that are neither local JSON pointers nor schema store URLs, as well as
+ * documents with values that have no relaxed JSON representation, are
+ * validated by the everit schema.
+ */
+public class BsonSchemaValidator {
+    private static final Set<String> ANNOTATIONS = Set.of("$schema", "$comment", "title", "description",
+            "default", "examples", "definitions", "readOnly", "writeOnly", "contentEncoding", "contentMediaType");
+
+    private static final Set<String> DRAFT6_KEYWORDS = Set.of("const", "contains", "propertyNames");
+
+    private static final Set<String> DRAFT7_KEYWORDS = Set.of("if", "then", "else");
+
+    private static final long LAST_MS_OF_YEAR_9999 = 253402300799999L;
+
+    private static final ZoneId UTC = ZoneId.of("Z");
+
+    private final Node root;
+    private final Supplier<Schema> fallback;
+    private volatile Schema fallbackSchema = null;
+
+    private BsonSchemaValidator(Node root, Supplier<Schema> fallback) {
+        this.root = root;
+        this.fallback = fallback;
+    }
+
+    /**
+     * Compiles the schema
+     *
+     * @param schema the schema, with unescaped keys
+     * @param schemaStore returns the schema with unescaped keys referenced by
+     * a schema store URL, it can throw JsonSchemaNotFoundException wrapped in
+     * a RuntimeException
+     * @param fallback supplies the everit schema, it is invoked only if the
+     * schema or a document cannot be validated natively
+     * @return the validator
+     */
+    public static BsonSchemaValidator compile(BsonDocument schema,
+            Function<String, BsonDocument> schemaStore,
+            Supplier<Schema> fallback) {
+        Node root;
+
+        try {
+            root = new Compiler(schema, schemaStore).compile();
+        } catch (UnsupportedException ue) {
+            root = null;
+        }
+
+        return new BsonSchemaValidator(root, fallback);
+    }
+
+    /**
+     * @return true if the schema is validated natively, false if it is
+     * validated by everit
+     */
+    public boolean isNative() {
+        return root != null;
+    }
+
+    /**
+     * Validates a document
+     *
+     * @param document
+     * @return the violations, empty if the document is valid; if more than
+     * one, the first is '#: &lt;n&gt; schema violations found'
+     */
+    public List<String> validate(BsonDocument document) {
+        if (root != null) {
+            var errors = new ArrayList<String>();
+
+            try {
+                root.check(document, null, errors);
+
+                if (errors.size() > 1) {
+                    errors.add(0, "#: " + errors.size() + " schema violations found");
+                }
+
+                return errors;
+            } catch (UnsupportedException ue) {
+                // the document contains a value with no relaxed JSON representation
+            }
+        }
+
+        return validateWithFallback(document);
+    }
+
+    private List<String> validateWithFallback(BsonDocument document) {
+        var _schema = fallbackSchema;
+
+        if (_schema == null) {
+            _schema = fallback.get();
+            fallbackSchema = _schema;
+        }
+
+        var errors = new ArrayList<String>();
+
+        try {
+            _schema.validate(new JSONObject(document.toJson()));
+        } catch (ValidationException ve) {
+            errors.add(ve.getMessage());
+
+            ve.getCausingExceptions().stream()
+                    .map(ValidationException::getMessage)
+                    .forEach(errors::add);
+        }
+
+        return errors;
+    }
+
+    /**
+     * Thrown when a schema or a value cannot be handled natively
+     */
+    @SuppressWarnings("serial")
+    private static class UnsupportedException extends RuntimeException {
+        UnsupportedException(String message) {
+            super(message, null, false, false);
+        }
+    }
+
+    /**
+     * The JSON pointer of the value being checked, the segments are joined
+     * only when a violation is reported
+     */
+    private static class Path {
+        final Path parent;
+        final String segment;
+
+        Path(Path parent, String segment) {
+            this.parent = parent;
+            this.segment = segment;
+        }
+
+        static String toString(Path path) {
+            if (path == null) {
+                return "#";
+            } else {
+                return toString(path.parent) + "/" + path.segment;
+            }
+        }
+    }
+
+    @FunctionalInterface
+    private interface Checker {
+        void check(BsonValue value, Path path, List<String> errors);
+    }
+
+    private static void fail(Path path, List<String> errors, String message) {
+        errors.add(Path.toString(path) + ": " + message);
+    }
+
+    /**
+     * A compiled (sub)schema: the checkers of its keywords
+     */
+    private static class Node implements Checker {
+        static final Node TRUE = new Node(new Checker[0]);
+        static final Node FALSE = new Node(new Checker[] {
+            (value, path, errors) -> fail(path, errors, "false schema always fails")
+        });
+
+        Checker[] checkers;
+
+        Node(Checker[] checkers) {
+            this.checkers = checkers;
+        }
+
+        @Override
+        public void check(BsonValue value, Path path, List<String> errors) {
+            var _value = view(value);
+
+            for (var checker : checkers) {
+                checker.check(_value, path, errors);
+            }
+        }
+
+        boolean isValid(BsonValue value, Path path) {
+            var errors = new ArrayList<String>(0);
+            check(value, path, errors);
+            return errors.isEmpty();
+        }
+    }
+
+    private static class Compiler {
+        private final BsonDocument root;
+        private final Function<String, BsonDocument> schemaStore;
+        private final int draft;
+
+        // the nodes of the $ref already compiled, to support recursive schemas
+        private final Map<String, Node> localRefs = new HashMap<>();
+        private final Map<String, Node> storeRefs;
+
+        Compiler(BsonDocument root, Function<String, BsonDocument> schemaStore) {
+            this(root, schemaStore, new HashMap<>());
+        }
+
+        private Compiler(BsonDocument root, Function<String, BsonDocument> schemaStore, Map<String, Node> storeRefs) {
+            this.root = root;
+            this.schemaStore = schemaStore;
+            this.storeRefs = storeRefs;
+
+            var $schema = root.get("$schema");
+            var version = $schema != null && $schema.isString() ? $schema.asString().getValue() : "";
+
+            if (version.contains("draft-07")) {
+                this.draft = 7;
+            } else if (version.contains("draft-06")) {
+                this.draft = 6;
+            } else {
+                this.draft = 4;
+            }
+        }
+
+        Node compile() {
+            return compile(root, true);
+        }
+
+        private Node compile(BsonValue schema, boolean isRoot) {
+            if (schema.isBoolean()) {
+                return schema.asBoolean().getValue() ? Node.TRUE : Node.FALSE;
+            } else if (!schema.isDocument()) {
+                throw new UnsupportedException("schema is not an object");
+            }
+
+            var doc = schema.asDocument();
+
+            // siblings of $ref are ignored
+            if (doc.containsKey("$ref")) {
+                return ref(string(doc, "$ref"));
+            }
+
+            if (!isRoot && (doc.containsKey("$id") || doc.containsKey("id"))) {
+                throw new UnsupportedException("nested $id");
+            }
+
+            var checkers = new ArrayList<Checker>();
+
+            for (var entry : doc.entrySet()) {
+                var key = entry.getKey();
+                var value = entry.getValue();
+
+                if (ANNOTATIONS.contains(key)
+                        || "$id".equals(key)
+                        || "id".equals(key)
+                        || (draft < 6 && DRAFT6_KEYWORDS.contains(key))
+                        || (draft < 7 && DRAFT7_KEYWORDS.contains(key))) {
+                    continue;
+                }
+
+                switch (key) {
+                    case "type":
+                        checkers.add(type(value));
+                        break;
+                    case "enum":
+                        checkers.add(enumeration(value));
+                        break;
+                    case "const":
+                        checkers.add(constant(value));
+                        break;
+                    case "minimum":
+                        checkers.add(minimum(number(value), isTrue(doc.get("exclusiveMinimum"))));
+                        break;
+                    case "maximum":
+                        checkers.add(maximum(number(value), isTrue(doc.get("exclusiveMaximum"))));
+                        break;
+                    case "exclusiveMinimum":
+                        if (!value.isBoolean()) {
+                            checkers.add(minimum(number(value), true));
+                        }
+                        break;
+                    case "exclusiveMaximum":
+                        if (!value.isBoolean()) {
+                            checkers.add(maximum(number(value), true));
+                        }
+                        break;
+                    case "multipleOf":
+                        checkers.add(multipleOf(number(value)));
+                        break;
+                    case "minLength":
+                        checkers.add(minLength(integer(value)));
+                        break;
+                    case "maxLength":
+                        checkers.add(maxLength(integer(value)));
+                        break;
+                    case "pattern":
+                        checkers.add(pattern(value));
+                        break;
+                    case "items":
+                        checkers.add(items(value, doc.get("additionalItems")));
+                        break;
+                    case "additionalItems":
+                        // checked by items
+                        break;
+                    case "minItems":
+                        checkers.add(minItems(integer(value)));
+                        break;
+                    case "maxItems":
+                        checkers.add(maxItems(integer(value)));
+                        break;
+                    case "uniqueItems":
+                        if (isTrue(value)) {
+                            checkers.add(uniqueItems());
+                        }
+                        break;
+                    case "contains":
+                        checkers.add(contains(compile(value, false)));
+                        break;
+                    case "properties":
+                    case "patternProperties":
+                    case "additionalProperties":
+                        // checked by properties
+                        break;
+                    case "required":
+                        checkers.add(required(value));
+                        break;
+                    case "minProperties":
+                        checkers.add(minProperties(integer(value)));
+                        break;
+                    case "maxProperties":
+                        checkers.add(maxProperties(integer(value)));
+                        break;
+                    case "dependencies":
+                        checkers.add(dependencies(value));
+                        break;
+                    case "propertyNames":
+                        checkers.add(propertyNames(compile(value, false)));
+                        break;
+                    case "allOf":
+                        checkers.add(allOf(compileAll(value)));
+                        break;
+                    case "anyOf":
+                        checkers.add(anyOf(compileAll(value)));
+                        break;
+                    case "oneOf":
+                        checkers.add(oneOf(compileAll(value)));
+                        break;
+                    case "not":
+                        checkers.add(not(compile(value, false)));
+                        break;
+                    case "if":
+                        checkers.add(ifThenElse(compile(value, false), doc.get("then"), doc.get("else")));
+                        break;
+                    case "then":
+                    case "else":
+                        // checked by if
+                        break;
+                    case "format":
+                        throw new UnsupportedException("format");
+                    default:
+                        // unknown keywords are ignored
+                        break;
+                }
+            }
+
+            if (doc.containsKey("properties")
+                    || doc.containsKey("patternProperties")
+                    || doc.containsKey("additionalProperties")) {
+                checkers.add(properties(doc.get("properties"),
+                        doc.get("patternProperties"),
+                        doc.get("additionalProperties")));
+            }
+
+            return new Node(checkers.toArray(new Checker[checkers.size()]));
+        }
+
+        private Node[] compileAll(BsonValue schemas) {
+            if (!schemas.isArray() || schemas.asArray().isEmpty()) {
+                throw new UnsupportedException("expected non empty array of schemas");
+            }
+
+            return schemas.asArray().stream()
+                    .map(s -> compile(s, false))
+                    .toArray(Node[]::new);
+        }
+
+        private Node ref(String ref) {
+            var local = ref.startsWith("#");
+            var url = local || !ref.endsWith("#") ? ref : ref.substring(0, ref.length() - 1);
+            var refs = local ? localRefs : storeRefs;
+
+            var node = refs.get(url);
+
+            if (node != null) {
+                return node;
+            }
+
+            if (!local && !SchemaStoreURL.isValid(url)) {
+                throw new UnsupportedException("$ref " + ref);
+            }
+
+            // the checkers are set once the referenced schema is compiled
+            node = new Node(null);
+            refs.put(url, node);
+
+            if (local) {
+                node.checkers = compile(pointer(root, ref.substring(1)), false).checkers;
+            } else {
+                var referenced = schemaStore.apply(url);
+
+                node.checkers = new Compiler(referenced, schemaStore, storeRefs).compile().checkers;
+            }
+
+            return node;
+        }
+
+        private static BsonValue pointer(BsonDocument root, String pointer) {
+            BsonValue current = root;
+
+            if (pointer.isEmpty()) {
+                return current;
+            } else if (!pointer.startsWith("/")) {
+                throw new UnsupportedException("$ref #" + pointer);
+            }
+
+            for (var _segment : pointer.substring(1).split("/", -1)) {
+                var segment = URLDecoder.decode(_segment, StandardCharsets.UTF_8)
+                        .replace("~1", "/")
+                        .replace("~0", "~");
+
+                if (current.isDocument() && current.asDocument().containsKey(segment)) {
+                    current = current.asDocument().get(segment);
+                } else if (current.isArray()) {
+                    try {
+                        current = current.asArray().get(Integer.parseInt(segment));
+                    } catch (NumberFormatException | IndexOutOfBoundsException e) {
+                        throw new UnsupportedException("$ref #" + pointer);
+                    }
+                } else {
+                    throw new UnsupportedException("$ref #" + pointer);
+                }
+            }
+
+            return current;
+        }
+
+        private Checker type(BsonValue value) {
+            String[] types;
+
+            if (value.isString()) {
+                types = new String[] { value.asString().getValue() };
+            } else if (value.isArray()) {
+                types = value.asArray().stream()
+                        .map(t -> t.isString() ? t.asString().getValue() : "")
+                        .toArray(String[]::new);
+            } else {
+                throw new UnsupportedException("type");
+            }
+
+            for (var type : types) {
+                switch (type) {
+                    case "string":
+                    case "integer":
+                    case "number":
+                    case "boolean":
+                    case "object":
+                    case "array":
+                    case "null":
+                        break;
+                    default:
+                        throw new UnsupportedException("type " + type);
+                }
+            }
+
+            if (types.length == 1) {
+                var type = types[0];
+
+                return (value_, path, errors) -> {
+                    if (!isOfType(value_, type)) {
+                        fail(path, errors, "expected type: " + typeName(type) + ", found: " + typeName(value_));
+                    }
+                };
+            } else {
+                var expected = String.join(", ", Arrays.stream(types).map(BsonSchemaValidator::typeName)
+                        .toArray(String[]::new));
+
+                return (value_, path, errors) -> {
+                    for (var type : types) {
+                        if (isOfType(value_, type)) {
+                            return;
+                        }
+                    }
+
+                    fail(path, errors, "expected type is one of " + expected + ", found: " + typeName(value_));
+                };
+            }
+        }
+
+        private Checker enumeration(BsonValue value) {
+            if (!value.isArray()) {
+                throw new UnsupportedException("enum");
+            }
+
+            var values = value.asArray().stream().map(BsonSchemaValidator::view).toArray(BsonValue[]::new);
+
+            return (value_, path, errors) -> {
+                for (var v : values) {
+                    if (jsonEquals(v, value_)) {
+                        return;
+                    }
+                }
+
+                fail(path, errors, toJson(value_) + " is not a valid enum value");
+            };
+        }
+
+        private Checker constant(BsonValue value) {
+            var expected = view(value);
+
+            return (value_, path, errors) -> {
+                if (!jsonEquals(expected, value_)) {
+                    fail(path, errors, "value does not match const " + toJson(expected));
+                }
+            };
+        }
+
+        private Checker minimum(BsonValue limit, boolean exclusive) {
+            return (value, path, errors) -> {
+                if (isNumber(value)) {
+                    var cmp = compare(value, limit);
+
+                    if (exclusive && cmp <= 0) {
+                        fail(path, errors, numberString(value) + " is not greater than " + numberString(limit));
+                    } else if (!exclusive && cmp < 0) {
+                        fail(path, errors, numberString(value) + " is not greater or equal to " + numberString(limit));
+                    }
+                }
+            };
+        }
+
+        private Checker maximum(BsonValue limit, boolean exclusive) {
+            return (value, path, errors) -> {
+                if (isNumber(value)) {
+                    var cmp = compare(value, limit);
+
+                    if (exclusive && cmp >= 0) {
+                        fail(path, errors, numberString(value) + " is not less than " + numberString(limit));
+                    } else if (!exclusive && cmp > 0) {
+                        fail(path, errors, numberString(value) + " is not less or equal to " + numberString(limit));
+                    }
+                }
+            };
+        }
+
+        private Checker multipleOf(BsonValue factor) {
+            return (value, path, errors) -> {
+                if (isNumber(value)) {
+                    boolean multiple;
+
+                    if (isIntegral(value) && isIntegral(factor)) {
+                        multiple = value.asNumber().longValue() % factor.asNumber().longValue() == 0;
+                    } else {
+                        multiple = toBigDecimal(value).remainder(toBigDecimal(factor)).compareTo(BigDecimal.ZERO) == 0;
+                    }
+
+                    if (!multiple) {
+                        fail(path, errors, numberString(value) + " is not a multiple of " + numberString(factor));
+                    }
+                }
+            };
+        }
+
+        private Checker minLength(int min) {
+            return (value, path, errors) -> {
+                if (value.isString()) {
+                    var s = value.asString().getValue();
+                    var length = s.codePointCount(0, s.length());
+
+                    if (length < min) {
+                        fail(path, errors, "expected minLength: " + min + ", actual: " + length);
+                    }
+                }
+            };
+        }
+
+        private Checker maxLength(int max) {
+            return (value, path, errors) -> {
+                if (value.isString()) {
+                    var s = value.asString().getValue();
+                    var length = s.codePointCount(0, s.length());
+
+                    if (length > max) {
+                        fail(path, errors, "expected maxLength: " + max + ", actual: " + length);
+                    }
+                }
+            };
+        }
+
+        private Checker pattern(BsonValue value) {
+            var regex = regex(value);
+
+            return (value_, path, errors) -> {
+                if (value_.isString() && !regex.matcher(value_.asString().getValue()).find()) {
+                    fail(path, errors, "string [" + value_.asString().getValue() + "] does not match pattern " + regex.pattern());
+                }
+            };
+        }
+
+        private Checker items(BsonValue items, BsonValue additionalItems) {
+            if (items.isArray()) {
+                var tuple = items.asArray().stream().map(s -> compile(s, false)).toArray(Node[]::new);
+                var additional = additionalItems == null ? Node.TRUE : compile(additionalItems, false);
+
+                return (value, path, errors) -> {
+                    if (value.isArray()) {
+                        var array = value.asArray();
+
+                        for (int i = 0; i < array.size(); i++) {
+                            if (i < tuple.length) {
+                                tuple[i].check(array.get(i), new Path(path, Integer.toString(i)), errors);
+                            } else if (additional == Node.FALSE) {
+                                fail(path, errors, "expected: [" + tuple.length + "] array items, found: [" + array.size() + "]");
+                                return;
+                            } else {
+                                additional.check(array.get(i), new Path(path, Integer.toString(i)), errors);
+                            }
+                        }
+                    }
+                };
+            } else {
+                var all = compile(items, false);
+
+                return (value, path, errors) -> {
+                    if (value.isArray()) {
+                        var array = value.asArray();
+
+                        for (int i = 0; i < array.size(); i++) {
+                            all.check(array.get(i), new Path(path, Integer.toString(i)), errors);
+                        }
+                    }
+                };
+            }
+        }
+
+        private Checker minItems(int min) {
+            return (value, path, errors) -> {
+                if (value.isArray() && value.asArray().size() < min) {
+                    fail(path, errors, "expected minimum item count: " + min + ", found: " + value.asArray().size());
+                }
+            };
+        }
+
+        private Checker maxItems(int max) {
+            return (value, path, errors) -> {
+                if (value.isArray() && value.asArray().size() > max) {
+                    fail(path, errors, "expected maximum item count: " + max + ", found: " + value.asArray().size());
+                }
+            };
+        }
+
+        private Checker uniqueItems() {
+            return (value, path, errors) -> {
+                if (value.isArray()) {
+                    var items = value.asArray().stream().map(BsonSchemaValidator::view).toArray(BsonValue[]::new);
+
+                    for (int i = 0; i < items.length; i++) {
+                        for (int j = 0; j < i; j++) {
+                            if (jsonEquals(items[i], items[j])) {
+                                fail(path, errors, "array items are not unique");
+                                return;
+                            }
+                        }
+                    }
+                }
+            };
+        }
+
+        private Checker contains(Node schema) {
+            return (value, path, errors) -> {
+                if (value.isArray()) {
+                    var array = value.asArray();
+
+                    for (int i = 0; i < array.size(); i++) {
+                        if (schema.isValid(array.get(i), new Path(path, Integer.toString(i)))) {
+                            return;
+                        }
+                    }
+
+                    fail(path, errors, "expected at least one array item to match 'contains' schema");
+                }
+            };
+        }
+
+        private Checker properties(BsonValue properties, BsonValue patternProperties, BsonValue additionalProperties) {
+            var named = new HashMap<String, Node>();
+
+            if (properties != null) {
+                if (!properties.isDocument()) {
+                    throw new UnsupportedException("properties");
+                }
+
+                properties.asDocument().forEach((name, schema) -> named.put(name, compile(schema, false)));
+            }
+
+            Pattern[] patterns;
+            Node[] patternNodes;
+
+            if (patternProperties != null) {
+                if (!patternProperties.isDocument()) {
+                    throw new UnsupportedException("patternProperties");
+                }
+
+                var pp = patternProperties.asDocument();
+                patterns = new Pattern[pp.size()];
+                patternNodes = new Node[pp.size()];
+
+                int i = 0;
+                for (var entry : pp.entrySet()) {
+                    patterns[i] = regex(new BsonString(entry.getKey()));
+                    patternNodes[i] = compile(entry.getValue(), false);
+                    i++;
+                }
+            } else {
+                patterns = new Pattern[0];
+                patternNodes = new Node[0];
+            }
+
+            var additional = additionalProperties == null
+                    ? Node.TRUE
+                    : compile(additionalProperties, false);
+
+            return (value, path, errors) -> {
+                if (!value.isDocument()) {
+                    return;
+                }
+
+                for (var entry : value.asDocument().entrySet()) {
+                    var name = entry.getKey();
+                    var property = named.get(name);
+                    var matched = property != null;
+
+                    if (property != null) {
+                        property.check(entry.getValue(), new Path(path, name), errors);
+                    }
+
+                    for (int i = 0; i < patterns.length; i++) {
+                        if (patterns[i].matcher(name).find()) {
+                            matched = true;
+                            patternNodes[i].check(entry.getValue(), new Path(path, name), errors);
+                        }
+                    }
+
+                    if (!matched) {
+                        if (additional == Node.FALSE) {
+                            fail(path, errors, "extraneous key [" + name + "] is not permitted");
+                        } else if (additional != Node.TRUE) {
+                            additional.check(entry.getValue(), new Path(path, name), errors);
+                        }
+                    }
+                }
+            };
+        }
+
+        private Checker required(BsonValue value) {
+            var names = strings(value, "required");
+
+            return (value_, path, errors) -> {
+                if (value_.isDocument()) {
+                    var doc = value_.asDocument();
+
+                    for (var name : names) {
+                        if (!doc.containsKey(name)) {
+                            fail(path, errors, "required key [" + name + "] not found");
+                        }
+                    }
+                }
+            };
+        }
+
+        private Checker minProperties(int min) {
+            return (value, path, errors) -> {
+                if (value.isDocument() && value.asDocument().size() < min) {
+                    fail(path, errors, "minimum size: [" + min + "], found: [" + value.asDocument().size() + "]");
+                }
+            };
+        }
+
+        private Checker maxProperties(int max) {
+            return (value, path, errors) -> {
+                if (value.isDocument() && value.asDocument().size() > max) {
+                    fail(path, errors, "maximum size: [" + max + "], found: [" + value.asDocument().size() + "]");
+                }
+            };
+        }
+
+        private Checker dependencies(BsonValue value) {
+            if (!value.isDocument()) {
+                throw new UnsupportedException("dependencies");
+            }
+
+            var properties = new HashMap<String, String[]>();
+            var schemas = new HashMap<String, Node>();
+
+            value.asDocument().forEach((name, dependency) -> {
+                if (dependency.isArray()) {
+                    properties.put(name, strings(dependency, "dependencies"));
+                } else {
+                    schemas.put(name, compile(dependency, false));
+                }
+            });
+
+            return (value_, path, errors) -> {
+                if (value_.isDocument()) {
+                    var doc = value_.asDocument();
+
+                    properties.forEach((name, required) -> {
+                        if (doc.containsKey(name)) {
+                            for (var r : required) {
+                                if (!doc.containsKey(r)) {
+                                    fail(path, errors, "property [" + r + "] is required");
+                                }
+                            }
+                        }
+                    });
+
+                    schemas.forEach((name, schema) -> {
+                        if (doc.containsKey(name)) {
+                            schema.check(doc, path, errors);
+                        }
+                    });
+                }
+            };
+        }
+
+        private Checker propertyNames(Node schema) {
+            return (value, path, errors) -> {
+                if (value.isDocument()) {
+                    for (var name : value.asDocument().keySet()) {
+                        schema.check(new BsonString(name), new Path(path, name), errors);
+                    }
+                }
+            };
+        }
+
+        private Checker allOf(Node[] schemas) {
+            return (value, path, errors) -> {
+                var matching = 0;
+
+                for (var schema : schemas) {
+                    if (schema.isValid(value, path)) {
+                        matching++;
+                    }
+                }
+
+                if (matching < schemas.length) {
+                    fail(path, errors, "only " + matching + " subschema matches out of " + schemas.length);
+                }
+            };
+        }
+
+        private Checker anyOf(Node[] schemas) {
+            return (value, path, errors) -> {
+                for (var schema : schemas) {
+                    if (schema.isValid(value, path)) {
+                        return;
+                    }
+                }
+
+                fail(path, errors, "no subschema matched out of the total " + schemas.length + " subschemas");
+            };
+        }
+
+        private Checker oneOf(Node[] schemas) {
+            return (value, path, errors) -> {
+                var matching = 0;
+
+                for (var schema : schemas) {
+                    if (schema.isValid(value, path)) {
+                        matching++;
+                    }
+                }
+
+                if (matching == 0) {
+                    fail(path, errors, "no subschema matched out of the total " + schemas.length + " subschemas");
+                } else if (matching > 1) {
+                    fail(path, errors, matching + " subschemas matched instead of one");
+                }
+            };
+        }
+
+        private Checker not(Node schema) {
+            return (value, path, errors) -> {
+                if (schema.isValid(value, path)) {
+                    fail(path, errors, "subject must not be valid against schema");
+                }
+            };
+        }
+
+        private Checker ifThenElse(Node _if, BsonValue _then, BsonValue _else) {
+            var then = _then == null ? Node.TRUE : compile(_then, false);
+            var otherwise = _else == null ? Node.TRUE : compile(_else, false);
+
+            return (value, path, errors) -> {
+                if (_if.isValid(value, path)) {
+                    then.check(value, path, errors);
+                } else {
+                    otherwise.check(value, path, errors);
+                }
+            };
+        }
+
+        private static Pattern regex(BsonValue value) {
+            if (!value.isString()) {
+                throw new UnsupportedException("pattern");
+            }
+
+            try {
+                return Pattern.compile(value.asString().getValue());
+            } catch (PatternSyntaxException pse) {
+                throw new UnsupportedException("pattern " + value.asString().getValue());
+            }
+        }
+
+        private static String string(BsonDocument doc, String key) {
+            var value = doc.get(key);
+
+            if (!value.isString()) {
+                throw new UnsupportedException(key);
+            }
+
+            return value.asString().getValue();
+        }
+
+        private static String[] strings(BsonValue value, String keyword) {
+            if (!value.isArray() || !value.asArray().stream().allMatch(BsonValue::isString)) {
+                throw new UnsupportedException(keyword);
+            }
+
+            return value.asArray().stream().map(v -> v.asString().getValue()).toArray(String[]::new);
+        }
+
+        private static BsonValue number(BsonValue value) {
+            if (!isNumber(value)) {
+                throw new UnsupportedException("expected number");
+            }
+
+            return value;
+        }
+
+        private static int integer(BsonValue value) {
+            if (!isIntegral(value)) {
+                throw new UnsupportedException("expected integer");
+            }
+
+            return value.asNumber().intValue();
+        }
+
+        private static boolean isTrue(BsonValue value) {
+            return value != null && value.isBoolean() && value.asBoolean().getValue();
+        }
+    }
+
+    /**
+     * @return the value as seen in the relaxed extended JSON representation:
+     * values that are not JSON values are returned as documents
+     */
+    private static BsonValue view(BsonValue value) {
+        switch (value.getBsonType()) {
+            case DOCUMENT:
+            case ARRAY:
+            case STRING:
+            case BOOLEAN:
+            case NULL:
+            case INT32:
+            case INT64:
+                return value;
+            case DOUBLE:
+                var d = value.asDouble().getValue();
+
+                if (Double.isNaN(d) || Double.isInfinite(d)) {
+                    return new BsonDocument("$numberDouble", new BsonString(Double.toString(d)));
+                } else {
+                    return value;
+                }
+            case OBJECT_ID:
+                return new BsonDocument("$oid", new BsonString(value.asObjectId().getValue().toHexString()));
+            case DATE_TIME:
+                var millis = value.asDateTime().getValue();
+
+                if (millis >= 0 && millis <= LAST_MS_OF_YEAR_9999) {
+                    return new BsonDocument("$date", new BsonString(ZonedDateTime
+                            .ofInstant(Instant.ofEpochMilli(millis), UTC)
+                            .format(DateTimeFormatter.ISO_OFFSET_DATE_TIME)));
+                } else {
+                    return new BsonDocument("$date",
+                            new BsonDocument("$numberLong", new BsonString(Long.toString(millis))));
+                }
+            case DECIMAL128:
+                return new BsonDocument("$numberDecimal", new BsonString(value.asDecimal128().getValue().toString()));
+            case BINARY:
+                var binary = value.asBinary();
+
+                return new BsonDocument("$binary", new BsonDocument()
+                        .append("base64", new BsonString(Base64.getEncoder().encodeToString(binary.getData())))
+                        .append("subType", new BsonString(String.format("%02x", binary.getType()))));
+            case TIMESTAMP:
+                var ts = value.asTimestamp();
+
+                return new BsonDocument("$timestamp", new BsonDocument()
+                        .append("t", new BsonInt64(Integer.toUnsignedLong(ts.getTime())))
+                        .append("i", new BsonInt64(Integer.toUnsignedLong(ts.getInc()))));
+            case SYMBOL:
+                return new BsonDocument("$symbol", new BsonString(value.asSymbol().getSymbol()));
+            case MIN_KEY:
+                return new BsonDocument("$minKey", new BsonInt32(1));
+            case MAX_KEY:
+                return new BsonDocument("$maxKey", new BsonInt32(1));
+            case UNDEFINED:
+                return new BsonDocument("$undefined", BsonBoolean.TRUE);
+            default:
+                throw new UnsupportedException("value of type " + value.getBsonType());
+        }
+    }
+
+    private static boolean isNumber(BsonValue value) {
+        return value.isInt32() || value.isInt64() || value.isDouble();
+    }
+
+    private static boolean isIntegral(BsonValue value) {
+        return value.isInt32() || value.isInt64();
+    }
+
+    private static boolean isOfType(BsonValue value, String type) {
+        switch (type) {
+            case "string":
+                return value.isString();
+            case "integer":
+                return isIntegral(value);
+            case "number":
+                return isNumber(value);
+            case "boolean":
+                return value.isBoolean();
+            case "object":
+                return value.isDocument();
+            case "array":
+                return value.isArray();
+            case "null":
+                return value.isNull();
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * @return the name of the JSON type as reported by everit
+     */
+    private static String typeName(String type) {
+        switch (type) {
+            case "string":
+                return "String";
+            case "integer":
+                return "Integer";
+            case "number":
+                return "Number";
+            case "boolean":
+                return "Boolean";
+            case "object":
+                return "JSONObject";
+            case "array":
+                return "JSONArray";
+            default:
+                return "Null";
+        }
+    }
+
+    /**
+     * @return the name of the type of the value as reported by everit
+     */
+    private static String typeName(BsonValue value) {
+        switch (value.getBsonType()) {
+            case STRING:
+                return "String";
+            case INT32:
+                return "Integer";
+            case INT64:
+                return "Long";
+            case DOUBLE:
+                return "Double";
+            case BOOLEAN:
+                return "Boolean";
+            case DOCUMENT:
+                return "JSONObject";
+            case ARRAY:
+                return "JSONArray";
+            default:
+                return "Null";
+        }
+    }
+
+    private static int compare(BsonValue a, BsonValue b) {
+        if (isIntegral(a) && isIntegral(b)) {
+            return Long.compare(a.asNumber().longValue(), b.asNumber().longValue());
+        } else if (a.isDouble() && b.isDouble()) {
+            return Double.compare(a.asDouble().getValue(), b.asDouble().getValue());
+        } else {
+            return toBigDecimal(a).compareTo(toBigDecimal(b));
+        }
+    }
+
+    private static BigDecimal toBigDecimal(BsonValue value) {
+        return value.isDouble()
+                ? BigDecimal.valueOf(value.asDouble().getValue())
+                : BigDecimal.valueOf(value.asNumber().longValue());
+    }
+
+    private static String numberString(BsonValue value) {
+        return value.isDouble()
+                ? Double.toString(value.asDouble().getValue())
+                : Long.toString(value.asNumber().longValue());
+    }
+
+    private static String toJson(BsonValue value) {
+        if (value.isString()) {
+            return value.asString().getValue();
+        } else if (isNumber(value)) {
+            return numberString(value);
+        } else if (value.isBoolean()) {
+            return Boolean.toString(value.asBoolean().getValue());
+        } else if (value.isNull()) {
+            return "null";
+        } else if (value.isDocument()) {
+            return value.asDocument().toJson();
+        } else {
+            return value.asArray().stream()
+                    .map(v -> toJson(view(v)))
+                    .collect(Collectors.joining(",", "[", "]"));
+        }
+    }
+
+    /**
+     * @return true if the two values, seen as JSON values, are equal: numbers
+     * are compared by value and the order of the properties of objects is
+     * ignored
+     */
+    private static boolean jsonEquals(BsonValue a, BsonValue b) {
+        if (isNumber(a) && isNumber(b)) {
+            return compare(a, b) == 0;
+        } else if (a.isDocument() && b.isDocument()) {
+            var da = a.asDocument();
+            var db = b.asDocument();
+
+            if (da.size() != db.size()) {
+                return false;
+            }
+
+            for (var entry : da.entrySet()) {
+                var other = db.get(entry.getKey());
+
+                if (other == null || !jsonEquals(view(entry.getValue()), view(other))) {
+                    return false;
+                }
+            }
+
+            return true;
+        } else if (a.isArray() && b.isArray()) {
+            BsonArray aa = a.asArray();
+            BsonArray ab = b.asArray();
+
+            if (aa.size() != ab.size()) {
+                return false;
+            }
+
+            for (int i = 0; i < aa.size(); i++) {
+                if (!jsonEquals(view(aa.get(i)), view(ab.get(i)))) {
+                    return false;
+                }
+            }
+
+            return true;
+        } else {
+            return a.equals(b);
+        }
+    }
+}
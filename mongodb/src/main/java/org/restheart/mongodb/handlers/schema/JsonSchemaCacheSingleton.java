@@ -55,6 +55,7 @@ public class JsonSchemaCacheSingleton {
 
     private Cache<String, Schema> schemaCache = null;
     private Cache<String, BsonDocument> rawSchemaCache = null;
+    private Cache<String, BsonSchemaValidator> validatorCache = null;
 
     JsonSchemaCacheSingleton() {
         dbsDAO = new DatabaseImpl();
@@ -67,6 +68,10 @@ public class JsonSchemaCacheSingleton {
             this.rawSchemaCache = CacheFactory.createLocalCache(MAX_CACHE_SIZE,
                     Cache.EXPIRE_POLICY.AFTER_WRITE,
                     MongoServiceConfiguration.get().getSchemaCacheTtl());
+
+            this.validatorCache = CacheFactory.createLocalCache(MAX_CACHE_SIZE,
+                    Cache.EXPIRE_POLICY.AFTER_WRITE,
+                    MongoServiceConfiguration.get().getSchemaCacheTtl());
         }
     }
 
@@ -102,6 +107,38 @@ public class JsonSchemaCacheSingleton {
         }
     }
 
+    /**
+     *
+     * @param schemaStoreDb
+     * @param schemaId
+     * @return the validator of the schema
+     * @throws JsonSchemaNotFoundException
+     */
+    public BsonSchemaValidator getValidator(
+            String schemaStoreDb,
+            BsonValue schemaId)
+            throws JsonSchemaNotFoundException {
+        if (MongoServiceConfiguration.get().isSchemaCacheEnabled()) {
+            Optional<BsonSchemaValidator> _validator = validatorCache.get(
+                    schemaStoreDb
+                    + SEPARATOR
+                    + schemaId);
+
+            if (_validator != null && _validator.isPresent()) {
+                return _validator.get();
+            } else {
+                // compile it
+                BsonSchemaValidator v = compile(schemaStoreDb, schemaId);
+
+                validatorCache.put(schemaStoreDb + SEPARATOR + schemaId, v);
+
+                return v;
+            }
+        } else {
+            return compile(schemaStoreDb, schemaId);
+        }
+    }
+
     /**
      *
      * @param schemaStoreDb
@@ -142,6 +179,31 @@ public class JsonSchemaCacheSingleton {
                 new JSONObject(document.toJson()), new SchemaStoreClient());
     }
 
+    private BsonSchemaValidator compile(
+            String schemaStoreDb,
+            BsonValue schemaId)
+            throws JsonSchemaNotFoundException {
+        BsonDocument document = getRaw(schemaStoreDb, schemaId);
+
+        return BsonSchemaValidator.compile(document,
+                url -> {
+                    var _url = new SchemaStoreURL(url);
+
+                    try {
+                        return getRaw(_url.getSchemaDb(), _url.getSchemaId());
+                    } catch (JsonSchemaNotFoundException ex) {
+                        throw new RuntimeException(ex);
+                    }
+                },
+                () -> {
+                    try {
+                        return get(schemaStoreDb, schemaId);
+                    } catch (JsonSchemaNotFoundException ex) {
+                        throw new RuntimeException(ex);
+                    }
+                });
+    }
+
     private BsonDocument loadRaw(
             String schemaStoreDb,
             BsonValue schemaId)
@@ -28,6 +28,7 @@ import org.restheart.handlers.PipelinedHandler;
 import org.restheart.mongodb.db.sessions.Txn;
 import org.restheart.mongodb.db.sessions.TxnClientSessionFactory;
 import org.restheart.mongodb.db.sessions.TxnClientSessionImpl;
+import org.restheart.mongodb.db.sessions.TxnsStatesRegistry;
 import org.restheart.utils.HttpStatus;
 
 /**
@@ -62,8 +63,15 @@ public class DeleteTxnHandler extends PipelinedHandler {
             return;
         }
 
-        TxnClientSessionImpl cs = TxnClientSessionFactory.getInstance()
-                .getTxnClientSession(sid);
+        var known = TxnsStatesRegistry.getInstance().get(sid);
+
+        // abort the tracked txn in progress without probing the server
+        // (aborting a txn already aborted by the server is harmless)
+        TxnClientSessionImpl cs = known != null
+                && known.getTxnId() == request.getTxnId()
+                && known.getStatus() == Txn.TransactionStatus.IN
+                ? TxnClientSessionFactory.getInstance().getTxnClientSession(sid, known)
+                : TxnClientSessionFactory.getInstance().getTxnClientSession(sid);
 
         if (cs.getTxnServerStatus().getTxnId() != request.getTxnId()
                 || cs.getTxnServerStatus().getStatus() != Txn.TransactionStatus.IN) {
@@ -72,6 +80,9 @@ public class DeleteTxnHandler extends PipelinedHandler {
         } else {
             cs.setMessageSentInCurrentTransaction(true);
             cs.abortTransaction();
+
+            TxnsStatesRegistry.getInstance().put(sid,
+                    new Txn(request.getTxnId(), Txn.TransactionStatus.ABORTED));
             
             response.setContentTypeAsJson();
             response.setStatusCode(HttpStatus.SC_NO_CONTENT);
@@ -70,7 +70,7 @@ public class GetTxnHandler extends PipelinedHandler {
             return;
         }
 
-        var txn = TxnsUtils.getTxnServerStatus(sid);
+        var txn = TxnsUtils.getTxnStatus(sid);
 
         if (txn.getStatus() == NONE) {
             response.setContent(new BsonDocument("currentTxn", new BsonNull()));
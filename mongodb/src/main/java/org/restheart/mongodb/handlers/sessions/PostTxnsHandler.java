@@ -32,6 +32,7 @@ import static org.restheart.mongodb.db.sessions.Txn.TransactionStatus.ABORTED;
 import static org.restheart.mongodb.db.sessions.Txn.TransactionStatus.COMMITTED;
 import static org.restheart.mongodb.db.sessions.Txn.TransactionStatus.NONE;
 import org.restheart.mongodb.db.sessions.TxnClientSessionFactory;
+import org.restheart.mongodb.db.sessions.TxnsStatesRegistry;
 import org.restheart.mongodb.db.sessions.TxnsUtils;
 import org.restheart.utils.HttpStatus;
 import org.restheart.utils.RepresentationUtils;
@@ -72,7 +73,7 @@ public class PostTxnsHandler extends PipelinedHandler {
             return;
         }
 
-        var txn = TxnsUtils.getTxnServerStatus(sid);
+        var txn = TxnsUtils.getTxnStatus(sid);
 
         if (txn.getStatus() == ABORTED
                 || txn.getStatus() == COMMITTED
@@ -93,6 +94,8 @@ public class PostTxnsHandler extends PipelinedHandler {
             // propagate the transaction
             TxnsUtils.propagateSession(cs);
 
+            TxnsStatesRegistry.getInstance().put(sid, new Txn(nextTxnId, Txn.TransactionStatus.IN));
+
             response.getHeaders()
                     .add(HttpString.tryFromString("Location"),
                             RepresentationUtils.getReferenceLink(
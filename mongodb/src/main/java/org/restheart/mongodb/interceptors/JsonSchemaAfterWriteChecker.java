@@ -23,10 +23,11 @@ package org.restheart.mongodb.interceptors;
 import java.util.ArrayList;
 import java.util.List;
 import org.bson.BsonDocument;
-import org.json.JSONObject;
 import org.restheart.exchange.MongoRequest;
 import org.restheart.exchange.MongoResponse;
+import org.restheart.exchange.OperationResult;
 import org.restheart.mongodb.db.MongoClientSingleton;
+import org.restheart.mongodb.handlers.document.PatchDocumentHandler;
 import org.restheart.plugins.InterceptPoint;
 import org.restheart.plugins.RegisterPlugin;
 
@@ -34,8 +35,11 @@ import org.restheart.plugins.RegisterPlugin;
  *
  * Checks documents according to the specified JSON schema
  *
- * This intercetor is able to check PATCH requests (excluding bulk PATCH). Other
- * requests are checked by jsonSchemaBeforeWrite
+ * This intercetor checks the document written by the PATCH requests whose
+ * update operators cannot be applied in memory by jsonSchemaBeforeWrite; if it
+ * violates the schema, the document read by jsonSchemaBeforeWrite, that the
+ * write was conditional on, is restored. Other requests are checked by
+ * jsonSchemaBeforeWrite
  *
  * It checks the request content against the JSON schema specified by the
  * 'jsonSchema' collection metadata:
@@ -57,6 +61,16 @@ public class JsonSchemaAfterWriteChecker extends JsonSchemaBeforeWriteChecker {
         super.handle(request, response);
 
         if (request.isInError()) {
+            // the write returns the document after the update, restore the
+            // checked one, or delete the document if it was created
+            var checked = request.getExchange().getAttachment(PatchDocumentHandler.CHECKED_DOCUMENT_KEY);
+            var result = response.getDbOperationResult();
+
+            response.setDbOperationResult(new OperationResult(result.getHttpCode(),
+                    result.getEtag(),
+                    checked == null || checked.isEmpty() ? null : checked,
+                    result.getNewData()));
+
             response.rollback(MongoClientSingleton.getInstance().getClient());
         }
     }
@@ -64,8 +78,8 @@ public class JsonSchemaAfterWriteChecker extends JsonSchemaBeforeWriteChecker {
     @Override
     public boolean resolve(MongoRequest request, MongoResponse response) {
         return request.isHandledBy("mongo")
-                && request.getCollectionProps() != null
                 && (request.isPatch() && !request.isBulkDocuments())
+                && request.getExchange().getAttachment(CHECK_AFTER_WRITE_KEY) != null
                 && request.getCollectionProps() != null
                 && request.getCollectionProps()
                         .containsKey("jsonSchema")
@@ -76,21 +90,15 @@ public class JsonSchemaAfterWriteChecker extends JsonSchemaBeforeWriteChecker {
                 && response.getDbOperationResult().getHttpCode() < 300);
     }
 
-    String documentToCheck(MongoRequest request, MongoResponse response) {
-        return response.getDbOperationResult().getNewData() == null
-                ? "{}"
-                : response.getDbOperationResult().getNewData().toJson();
-    }
-
     @Override
-    List<JSONObject> documentsToCheck(MongoRequest request, MongoResponse response) {
-        var ret = new ArrayList<JSONObject>();
+    List<BsonDocument> documentsToCheck(MongoRequest request, MongoResponse response) {
+        var ret = new ArrayList<BsonDocument>();
 
         var content = response.getDbOperationResult().getNewData() == null
                 ? new BsonDocument()
                 : response.getDbOperationResult().getNewData();
 
-        ret.add(new JSONObject(content.asDocument().toJson()));
+        ret.add(content.asDocument());
 
         return ret;
     }
@@ -20,18 +20,25 @@
  */
 package org.restheart.mongodb.interceptors;
 
+import static com.mongodb.client.model.Filters.and;
+import static com.mongodb.client.model.Filters.eq;
+import io.undertow.util.AttachmentKey;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Objects;
 import org.bson.BsonDocument;
 import org.bson.BsonValue;
-import org.everit.json.schema.Schema;
-import org.everit.json.schema.ValidationException;
-import org.json.JSONObject;
+import org.bson.conversions.Bson;
+import org.restheart.exchange.ExchangeKeys.WRITE_MODE;
 import static org.restheart.exchange.ExchangeKeys._SCHEMAS;
 import org.restheart.exchange.MongoRequest;
 import org.restheart.exchange.MongoResponse;
 import org.restheart.exchange.UnsupportedDocumentIdException;
+import org.restheart.mongodb.db.InMemoryUpdate;
+import org.restheart.mongodb.db.MongoClientSingleton;
+import org.restheart.mongodb.db.UnsupportedUpdateException;
+import org.restheart.mongodb.handlers.document.PatchDocumentHandler;
+import org.restheart.mongodb.handlers.schema.BsonSchemaValidator;
 import org.restheart.mongodb.handlers.schema.JsonSchemaCacheSingleton;
 import org.restheart.mongodb.handlers.schema.JsonSchemaNotFoundException;
 import org.restheart.mongodb.utils.URLUtils;
@@ -48,7 +55,12 @@ import org.slf4j.LoggerFactory;
  * Checks documents according to the specified JSON schema
  *
  * This intercetor is able to check PUT and POST requests that don't use update
- * operators. PATCH requests are checked by jsonSchemaAfterWrite
+ * operators and PATCH requests on documents, validating the patched document
+ * computed in memory from the current one, so that an invalid PATCH is
+ * rejected without writing and rolling back the document. The PATCH is then
+ * written only if the document was not modified after the read, otherwise it
+ * fails with 412 Precondition Failed. The PATCH requests whose update
+ * operators cannot be applied in memory are checked by jsonSchemaAfterWrite
  * <br><br>
  * Note that checking bulk PATCH, i.e. PATCH /coll/*, is not supported. In this
  * case the optional metadata property 'skipNotSuppored' controls the behaviour:
@@ -89,6 +101,11 @@ public class JsonSchemaBeforeWriteChecker implements MongoInterceptor {
     static final Logger LOGGER
             = LoggerFactory.getLogger(JsonSchemaBeforeWriteChecker.class);
 
+    /**
+     * marks the PATCH requests that could not be checked before the write
+     */
+    static final AttachmentKey<Boolean> CHECK_AFTER_WRITE_KEY = AttachmentKey.create(Boolean.class);
+
     @Override
     public void handle(MongoRequest request, MongoResponse response) throws Exception {
         var args = request.getCollectionProps()
@@ -148,12 +165,12 @@ public class JsonSchemaBeforeWriteChecker implements MongoInterceptor {
             return;
         }
 
-        Schema theschema;
+        BsonSchemaValidator validator;
 
         try {
-            theschema = JsonSchemaCacheSingleton
+            validator = JsonSchemaCacheSingleton
                     .getInstance()
-                    .get(schemaStoreDb, schemaId);
+                    .getValidator(schemaStoreDb, schemaId);
         } catch (JsonSchemaNotFoundException ex) {
             response.setInError(HttpStatus.SC_INTERNAL_SERVER_ERROR,
                     "wrong 'jsonSchema': schema "
@@ -163,7 +180,7 @@ public class JsonSchemaBeforeWriteChecker implements MongoInterceptor {
             return;
         }
 
-        if (Objects.isNull(theschema)) {
+        if (Objects.isNull(validator)) {
             response.setInError(HttpStatus.SC_INTERNAL_SERVER_ERROR,
                     "wrong 'jsonSchema': schema "
                     + schemaStoreDb + "/" + _SCHEMAS + "/"
@@ -172,70 +189,124 @@ public class JsonSchemaBeforeWriteChecker implements MongoInterceptor {
             return;
         }
 
-        documentsToCheck(request, response)
-                .stream()
-                .forEachOrdered(doc -> {
-
-                    try {
-                        theschema.validate(doc);
-                    } catch (ValidationException ve) {
-                        var errors = new ArrayList<String>();
-
-                        errors.add(ve.getMessage().replaceAll("#: ", ""));
+        for (var doc : documentsToCheck(request, response)) {
+            var errors = validator.validate(doc);
 
-                        ve.getCausingExceptions().stream()
-                                .map(ValidationException::getMessage)
-                                .forEach(errors::add);
+            if (!errors.isEmpty()) {
+                var errMsgBuilder = new StringBuilder();
 
-                        var errMsgBuilder = new StringBuilder();
+                errors.stream()
+                        .map(e -> e.replaceAll("#: ", ""))
+                        .forEachOrdered(e -> errMsgBuilder.append(e).append(", "));
 
-                        errors.stream()
-                                .map(e -> e.replaceAll("#: ", ""))
-                                .forEachOrdered(e -> errMsgBuilder.append(e).append(", "));
+                var errMsg = errMsgBuilder.toString();
 
-                        var errMsg = errMsgBuilder.toString();
+                if (errMsg.length() > 2
+                        && ", ".equals(errMsg.substring(errMsg.length() - 2, errMsg.length()))) {
+                    errMsg = errMsg.substring(0, errMsg.length() - 2);
 
-                        if (errMsg.length() > 2
-                                && ", ".equals(errMsg.substring(errMsg.length() - 2, errMsg.length()))) {
-                            errMsg = errMsg.substring(0, errMsg.length() - 2);
+                }
 
-                        }
-
-                        response.setInError(HttpStatus.SC_BAD_REQUEST,
-                                "Request content violates schema "
-                                + BsonUtils.getIdAsString(schemaId, true)
-                                + ": "
-                                + errMsg);
-                    }
-                });
+                response.setInError(HttpStatus.SC_BAD_REQUEST,
+                        "Request content violates schema "
+                        + BsonUtils.getIdAsString(schemaId, true)
+                        + ": "
+                        + errMsg);
+            }
+        }
     }
 
-    List<JSONObject> documentsToCheck(MongoRequest request, MongoResponse response) {
-        var ret = new ArrayList<JSONObject>();
+    List<BsonDocument> documentsToCheck(MongoRequest request, MongoResponse response) {
+        var ret = new ArrayList<BsonDocument>();
 
         var content = request.getContent() == null
                 ? new BsonDocument()
                 : request.getContent();
 
-        if (content.isDocument()) {
-            ret.add(new JSONObject(content.asDocument().toJson()));
+        if (request.isPatch() && request.isDocument()) {
+            if (content.isDocument()) {
+                try {
+                    var patched = patchedDocument(request, content.asDocument());
+
+                    if (patched != null) {
+                        ret.add(patched);
+                    }
+                } catch (UnsupportedUpdateException uue) {
+                    request.getExchange().putAttachment(CHECK_AFTER_WRITE_KEY, true);
+                    LOGGER.debug("the PATCH cannot be applied in memory, it will be checked after the write: {}",
+                            uue.getMessage());
+                }
+            }
+        } else if (content.isDocument()) {
+            ret.add(content.asDocument());
         } else if (content.isArray()) {
             content.asArray()
                     .stream()
                     .filter(doc -> doc.isDocument())
-                    .map(doc -> doc.asDocument().toJson())
-                    .map(doc -> new JSONObject(doc))
+                    .map(doc -> doc.asDocument())
                     .forEachOrdered(ret::add);
         }
 
         return ret;
     }
 
+    /**
+     * Reads the current document and attaches it to the exchange, so that
+     * PatchDocumentHandler writes the PATCH only if it is not modified
+     *
+     * @return the document resulting from the PATCH, or null if the document
+     * does not exist and the write mode is not upsert (the write will fail)
+     * @throws UnsupportedUpdateException if the PATCH cannot be applied in
+     * memory
+     */
+    private BsonDocument patchedDocument(MongoRequest request, BsonDocument patch) throws UnsupportedUpdateException {
+        var id = request.getDocumentId();
+
+        Bson query = eq("_id", id);
+
+        if (request.getShardKey() != null) {
+            query = and(query, request.getShardKey());
+        }
+
+        var filter = request.getFiltersDocument();
+
+        if (filter != null && !filter.isEmpty()) {
+            query = and(query, filter);
+        }
+
+        var coll = MongoClientSingleton.getInstance().getClient()
+                .getDatabase(request.getDBName())
+                .getCollection(request.getCollectionName(), BsonDocument.class);
+
+        var cs = request.getClientSession();
+
+        var current = cs == null
+                ? coll.find(query).first()
+                : coll.find(cs, query).first();
+
+        request.getExchange().putAttachment(PatchDocumentHandler.CHECKED_DOCUMENT_KEY,
+                current == null ? new BsonDocument() : current);
+
+        if (current != null) {
+            return InMemoryUpdate.apply(current, patch, false);
+        } else if (request.getWriteMode() == WRITE_MODE.UPSERT) {
+            var inserted = new BsonDocument("_id", id);
+
+            if (request.getShardKey() != null) {
+                inserted.putAll(request.getShardKey());
+            }
+
+            return InMemoryUpdate.apply(inserted, patch, true);
+        } else {
+            return null;
+        }
+    }
+
     @Override
     public boolean resolve(MongoRequest request, MongoResponse response) {
         return request.isHandledBy("mongo")
                 && ((request.isWriteDocument() && !request.isPatch())
-                || (request.isPatch() && request.isBulkDocuments()))
+                || (request.isPatch() && (request.isBulkDocuments() || request.isDocument())))
                 && request.getCollectionProps() != null
                 && request.getCollectionProps()
                         .containsKey("jsonSchema")
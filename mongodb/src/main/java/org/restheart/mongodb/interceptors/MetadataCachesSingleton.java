@@ -21,7 +21,11 @@
 package org.restheart.mongodb.interceptors;
 
 import com.mongodb.MongoException;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.Optional;
+import java.util.stream.Collectors;
 import org.bson.BsonDocument;
 import org.restheart.cache.Cache;
 import org.restheart.cache.CacheFactory;
@@ -101,6 +105,22 @@ public class MetadataCachesSingleton {
                                         null, // no client session
                                         dbNameAndCollectionName[0],
                                         dbNameAndCollectionName[1]);
+                    },
+                    keys -> {
+                        // one query per db
+                        var ret = new HashMap<String, BsonDocument>();
+
+                        keys.stream()
+                                .map(key -> key.split(SEPARATOR))
+                                .collect(Collectors.groupingBy(k -> k[0], Collectors.mapping(k -> k[1], Collectors.toList())))
+                                .forEach((dbName, collNames) -> this.dbsDAO
+                                        .getCollectionsProperties(
+                                                null, // no client session
+                                                dbName,
+                                                collNames)
+                                        .forEach((collName, props) -> ret.put(dbName + SEPARATOR + collName, props)));
+
+                        return ret;
                     });
         }
     }
@@ -180,6 +200,41 @@ public class MetadataCachesSingleton {
         }
     }
 
+    /**
+     * Gets the properties of more collections of a db, loading the missing
+     * ones with a single query
+     *
+     * @param dbName
+     * @param collNames
+     * @return the properties by collection name, null for the collections
+     * that do not exist
+     */
+    public Map<String, BsonDocument> getCollectionsProperties(String dbName, Collection<String> collNames) {
+        if (!enabled) {
+            throw new IllegalStateException("tried to use disabled cache");
+        }
+
+        var keys = collNames.stream().map(collName -> dbName + SEPARATOR + collName).collect(Collectors.toList());
+
+        Map<String, Optional<BsonDocument>> _collsProps;
+
+        try {
+            _collsProps = collectionPropsCache.getAllLoading(keys);
+        } catch (Throwable uex) {
+            if (uex.getCause() instanceof MongoException) {
+                throw new RuntimeException(uex.getCause());
+            } else {
+                throw uex;
+            }
+        }
+
+        var ret = new HashMap<String, BsonDocument>();
+
+        _collsProps.forEach((key, props) -> ret.put(key.substring(dbName.length() + SEPARATOR.length()), props.orElse(null)));
+
+        return ret;
+    }
+
     /**
      *
      * @param dbName
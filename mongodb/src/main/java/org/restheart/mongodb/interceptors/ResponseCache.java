@@ -0,0 +1,443 @@
+/*-
+ * ========================LICENSE_START=================================
+ * restheart-mongodb
+ * %%
+ * Copyright (C) 2014 - 2020 SoftInstigate
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * =========================LICENSE_END==================================
+ */
+package org.restheart.mongodb.interceptors;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import static com.mongodb.client.model.Aggregates.project;
+import static com.mongodb.client.model.Projections.include;
+import io.undertow.server.HttpServerExchange;
+import io.undertow.util.AttachmentKey;
+import java.util.List;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.bson.BsonDocument;
+import org.restheart.cache.Cache;
+import org.restheart.cache.CacheFactory;
+import static org.restheart.exchange.ExchangeKeys.FILTER_QPARAM_KEY;
+import static org.restheart.exchange.ExchangeKeys.META_COLLNAME;
+import org.restheart.exchange.MongoRequest;
+import org.restheart.mongodb.MongoServiceConfiguration;
+import org.restheart.mongodb.db.MongoClientSingleton;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Caches the encoded responses of GET requests on collections and documents,
+ * i.e. the bytes sent to the client after the response interceptors, with
+ * their Content-Type and ETag.
+ *
+ * The key is made of the namespace, the path, the query parameters, the
+ * filters (including the ones added by the ACL), the roles of the account and
+ * the representation format.
+ *
+ * The responses of a namespace are invalidated by the write requests handled
+ * by RESTHeart and, if response-cache-watch is true, by a change stream that
+ * notifies the writes of other clients. A response read before an
+ * invalidation is not stored after it: each namespace has a generation,
+ * incremented by the invalidations, that is checked when it is stored.
+ */
+public class ResponseCache {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ResponseCache.class);
+
+    private static final String SEPARATOR = "_@_@_";
+
+    // larger responses are not cached
+    private static final int MAX_CONTENT_LENGTH = 1024 * 1024;
+
+    private static final long WATCH_RETRY_DELAY = 60;
+
+    private static final AttachmentKey<Cacheable> CACHEABLE_KEY = AttachmentKey.create(Cacheable.class);
+
+    /**
+     * A cached response
+     */
+    public static class Entry {
+        private final byte[] content;
+        private final String contentType;
+        private final String etag;
+
+        /**
+         *
+         * @param content
+         * @param contentType
+         * @param etag can be null
+         */
+        public Entry(byte[] content, String contentType, String etag) {
+            this.content = content;
+            this.contentType = contentType;
+            this.etag = etag;
+        }
+
+        /**
+         * @return the content
+         */
+        public byte[] getContent() {
+            return content;
+        }
+
+        /**
+         * @return the contentType
+         */
+        public String getContentType() {
+            return contentType;
+        }
+
+        /**
+         * @return the etag
+         */
+        public String getEtag() {
+            return etag;
+        }
+    }
+
+    /**
+     * A request whose response can be cached, with the generation of its
+     * namespace when it was looked up
+     */
+    static class Cacheable {
+        final String key;
+        final String dbName;
+        final String collName;
+        final long generation;
+
+        Cacheable(String key, String dbName, String collName, long generation) {
+            this.key = key;
+            this.dbName = dbName;
+            this.collName = collName;
+            this.generation = generation;
+        }
+    }
+
+    private final Cache<String, Entry> cache;
+
+    private final AtomicLong globalGeneration = new AtomicLong();
+
+    // by db name and by db and collection name
+    private final ConcurrentHashMap<String, AtomicLong> generations = new ConcurrentHashMap<>();
+
+    public static ResponseCache getInstance() {
+        return ResponseCacheHolder.INSTANCE;
+    }
+
+    private static class ResponseCacheHolder {
+        private static final ResponseCache INSTANCE = new ResponseCache();
+    }
+
+    private ResponseCache() {
+        var conf = MongoServiceConfiguration.get();
+
+        if (conf == null || !conf.isResponseCacheEnabled()) {
+            this.cache = null;
+        } else {
+            this.cache = CacheFactory.createLocalCache(conf.getResponseCacheSize(),
+                    Cache.EXPIRE_POLICY.AFTER_WRITE,
+                    conf.getResponseCacheTTL());
+
+            if (conf.isResponseCacheWatch()) {
+                if (MongoClientSingleton.getInstance().isReplicaSet()) {
+                    Executors.newSingleThreadExecutor(new ThreadFactoryBuilder()
+                            .setDaemon(true)
+                            .setNameFormat("response-cache-watcher-%d")
+                            .build())
+                            .execute(this::watch);
+                } else {
+                    LOGGER.warn("response-cache-watch requires a replica set, cached responses expire after {} msecs",
+                            conf.getResponseCacheTTL());
+                }
+            }
+        }
+    }
+
+    /**
+     * Creates a cache that is not invalidated by a change stream
+     *
+     * @param size the maximum number of responses, 0 to disable the cache
+     * @param ttl the time to live of a response in milliseconds
+     */
+    public ResponseCache(long size, long ttl) {
+        this.cache = size > 0
+                ? CacheFactory.createLocalCache(size, Cache.EXPIRE_POLICY.AFTER_WRITE, ttl)
+                : null;
+    }
+
+    /**
+     *
+     * @return true if the cache is enabled
+     */
+    public boolean isEnabled() {
+        return cache != null;
+    }
+
+    /**
+     * Looks up the response of the request; in case of a miss, the request is
+     * marked so that its response is stored by ResponseCacheWriter
+     *
+     * @param request
+     * @return the cached response, or null
+     */
+    public Entry lookup(MongoRequest request) {
+        if (!isCacheable(request)) {
+            return null;
+        }
+
+        var dbName = request.getDBName();
+        var collName = request.getCollectionName();
+        var key = key(request);
+
+        // the generation must be read before the cache
+        var generation = generation(dbName, collName);
+
+        var entry = get(key);
+
+        if (entry == null) {
+            request.getExchange().putAttachment(CACHEABLE_KEY, new Cacheable(key, dbName, collName, generation));
+        }
+
+        return entry;
+    }
+
+    Entry get(String key) {
+        var entry = cache.get(key);
+
+        return entry != null && entry.isPresent() ? entry.get() : null;
+    }
+
+    Cacheable cacheable(String key, String dbName, String collName) {
+        return new Cacheable(key, dbName, collName, generation(dbName, collName));
+    }
+
+    /**
+     *
+     * @param exchange
+     * @return true if the response of the request can be stored, i.e. it has
+     * been looked up and missed
+     */
+    public boolean isStorable(HttpServerExchange exchange) {
+        return isEnabled() && exchange.getAttachment(CACHEABLE_KEY) != null;
+    }
+
+    /**
+     * Stores the response of a request that has been looked up and missed, if
+     * its namespace has not been invalidated in the meantime
+     *
+     * @param exchange
+     * @param entry
+     */
+    public void store(HttpServerExchange exchange, Entry entry) {
+        var cacheable = exchange.getAttachment(CACHEABLE_KEY);
+
+        if (cacheable == null || entry.content.length > MAX_CONTENT_LENGTH) {
+            return;
+        }
+
+        store(cacheable, entry);
+    }
+
+    void store(Cacheable cacheable, Entry entry) {
+        if (!isEnabled() || generation(cacheable.dbName, cacheable.collName) != cacheable.generation) {
+            return;
+        }
+
+        cache.put(cacheable.key, entry);
+
+        // an invalidation could have happened between the check and the put
+        if (generation(cacheable.dbName, cacheable.collName) != cacheable.generation) {
+            cache.invalidate(cacheable.key);
+        }
+    }
+
+    /**
+     * Invalidates the responses of the namespaces written by the request
+     *
+     * @param request a write request
+     */
+    public void invalidate(MongoRequest request) {
+        if (!isEnabled()) {
+            return;
+        }
+
+        var dbName = request.getDBName();
+        var collName = request.getCollectionName();
+
+        if (request.isRoot() || request.isSessions() || request.isTxns() || request.isTxn() || dbName == null) {
+            // e.g. a transaction commit can write any namespace
+            invalidateAll();
+        } else if (collName == null || META_COLLNAME.equals(collName)) {
+            invalidateDb(dbName);
+        } else {
+            invalidateCollection(dbName, collName);
+        }
+    }
+
+    /**
+     * Invalidates the responses of the collection
+     *
+     * @param dbName
+     * @param collName
+     */
+    public void invalidateCollection(String dbName, String collName) {
+        if (isEnabled()) {
+            var prefix = dbName + SEPARATOR + collName + SEPARATOR;
+
+            counter(dbName + SEPARATOR + collName).incrementAndGet();
+            cache.asMap().keySet().stream().filter(k -> k.startsWith(prefix)).forEach(k -> cache.invalidate(k));
+        }
+    }
+
+    /**
+     * Invalidates the responses of the collections of the db
+     *
+     * @param dbName
+     */
+    public void invalidateDb(String dbName) {
+        if (isEnabled()) {
+            var prefix = dbName + SEPARATOR;
+
+            counter(dbName).incrementAndGet();
+            cache.asMap().keySet().stream().filter(k -> k.startsWith(prefix)).forEach(k -> cache.invalidate(k));
+        }
+    }
+
+    /**
+     * Invalidates all the responses
+     */
+    public void invalidateAll() {
+        if (isEnabled()) {
+            globalGeneration.incrementAndGet();
+            cache.invalidateAll();
+        }
+    }
+
+    private boolean isCacheable(MongoRequest request) {
+        return isEnabled()
+                && request.isGet()
+                && (request.isCollection() || request.isDocument())
+                && request.getClientSession() == null
+                && !request.isInError()
+                && request.getDBName() != null
+                && request.getCollectionName() != null;
+    }
+
+    /**
+     * The filter query parameter is replaced by the filters of the request,
+     * that include the ones added by the ACL
+     */
+    static String key(MongoRequest request) {
+        var sb = new StringBuilder();
+
+        sb.append(request.getDBName()).append(SEPARATOR)
+                .append(request.getCollectionName()).append(SEPARATOR)
+                .append(request.getPath()).append(SEPARATOR);
+
+        new TreeMap<>(request.getExchange().getQueryParameters()).forEach((name, values) -> {
+            if (!FILTER_QPARAM_KEY.equals(name)) {
+                values.forEach(value -> sb.append(name).append('=').append(value).append('&'));
+            }
+        });
+
+        sb.append(SEPARATOR);
+
+        if (request.getFilter() != null) {
+            request.getFilter().forEach(filter -> sb.append(filter).append('&'));
+        }
+
+        sb.append(SEPARATOR);
+
+        var account = request.getAuthenticatedAccount();
+
+        if (account != null && account.getRoles() != null) {
+            new TreeSet<>(account.getRoles()).forEach(role -> sb.append(role).append(','));
+        }
+
+        return sb.append(SEPARATOR).append(request.getRepresentationFormat()).toString();
+    }
+
+    // the generations only increase, so does their sum
+    private long generation(String dbName, String collName) {
+        return globalGeneration.get()
+                + counter(dbName).get()
+                + counter(dbName + SEPARATOR + collName).get();
+    }
+
+    private AtomicLong counter(String key) {
+        return generations.computeIfAbsent(key, k -> new AtomicLong());
+    }
+
+    /**
+     * watches the writes on the cluster; the responses are invalidated when
+     * the change stream is (re)opened since notifications could have been
+     * missed
+     */
+    private void watch() {
+        var client = MongoClientSingleton.getInstance().getClient();
+        var pipeline = List.of(project(include("operationType", "ns", "to")));
+
+        while (true) {
+            try (var cursor = client.watch(pipeline).withDocumentClass(BsonDocument.class).iterator()) {
+                invalidateAll();
+                LOGGER.debug("Watching writes to invalidate cached responses");
+
+                while (cursor.hasNext()) {
+                    var notification = cursor.next();
+
+                    if (notification.isString("operationType")
+                            && "invalidate".equals(notification.getString("operationType").getValue())) {
+                        invalidateAll();
+                    } else {
+                        invalidate(notification, "ns");
+                        invalidate(notification, "to");
+                    }
+                }
+            } catch (Throwable t) {
+                LOGGER.warn("Error watching writes, cached responses expire after their TTL", t);
+            }
+
+            try {
+                TimeUnit.SECONDS.sleep(WATCH_RETRY_DELAY);
+            } catch (InterruptedException ie) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    private void invalidate(BsonDocument notification, String nsField) {
+        var ns = notification.get(nsField);
+
+        if (ns == null || !ns.isDocument() || !ns.asDocument().isString("db")) {
+            return;
+        }
+
+        var dbName = ns.asDocument().getString("db").getValue();
+
+        if (ns.asDocument().isString("coll")
+                && !META_COLLNAME.equals(ns.asDocument().getString("coll").getValue())) {
+            invalidateCollection(dbName, ns.asDocument().getString("coll").getValue());
+        } else {
+            invalidateDb(dbName);
+        }
+    }
+}
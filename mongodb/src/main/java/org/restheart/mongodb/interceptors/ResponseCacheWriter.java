@@ -0,0 +1,70 @@
+/*-
+ * ========================LICENSE_START=================================
+ * restheart-mongodb
+ * %%
+ * Copyright (C) 2014 - 2020 SoftInstigate
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * =========================LICENSE_END==================================
+ */
+package org.restheart.mongodb.interceptors;
+
+import io.undertow.util.Headers;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import org.restheart.exchange.MongoRequest;
+import org.restheart.exchange.MongoResponse;
+import org.restheart.plugins.InterceptPoint;
+import org.restheart.plugins.MongoInterceptor;
+import org.restheart.plugins.RegisterPlugin;
+import org.restheart.utils.HttpStatus;
+
+/**
+ * Stores in the ResponseCache the response of a cacheable GET request that
+ * missed it. It is executed after the other response interceptors, so that
+ * the cached bytes are the ones sent to the client.
+ */
+@RegisterPlugin(name = "responseCacheWriter",
+        description = "stores the responses of GET requests in the response cache",
+        interceptPoint = InterceptPoint.RESPONSE,
+        priority = Integer.MAX_VALUE)
+public class ResponseCacheWriter implements MongoInterceptor {
+    @Override
+    public void handle(MongoRequest request, MongoResponse response) throws Exception {
+        var content = response.readContent();
+
+        if (content == null) {
+            return;
+        }
+
+        var bytes = content.getBytes(StandardCharsets.UTF_8);
+        var exchange = request.getExchange();
+
+        ResponseCache.getInstance().store(exchange, new ResponseCache.Entry(bytes,
+                response.getContentType(),
+                exchange.getResponseHeaders().getFirst(Headers.ETAG)));
+
+        // the content has already been encoded
+        response.setCustomerSender(() -> exchange.getResponseSender().send(ByteBuffer.wrap(bytes)));
+    }
+
+    @Override
+    public boolean resolve(MongoRequest request, MongoResponse response) {
+        return request.isHandledBy("mongo")
+                && ResponseCache.getInstance().isStorable(request.getExchange())
+                && !response.isInError()
+                && response.getStatusCode() == HttpStatus.SC_OK
+                && response.getCustomerSender() == null;
+    }
+}
@@ -25,6 +25,7 @@ import org.restheart.exchange.ByteArrayRequest;
 import org.restheart.exchange.ByteArrayResponse;
 import org.restheart.mongodb.MongoServiceConfiguration;
 import org.restheart.mongodb.interceptors.MetadataCachesSingleton;
+import org.restheart.mongodb.interceptors.ResponseCache;
 import org.restheart.plugins.ByteArrayService;
 import org.restheart.plugins.RegisterPlugin;
 import org.restheart.utils.HttpStatus;
@@ -34,7 +35,7 @@ import org.restheart.utils.HttpStatus;
  * @author Andrea Di Cesare {@literal <andrea@softinstigate.com>}
  */
 @RegisterPlugin(name = "cacheInvalidator",
-        description = "Invalidates the db and collection metadata cache",
+        description = "Invalidates the db and collection metadata and response caches",
         defaultURI = "/ic"
 )
 public class CacheInvalidator implements ByteArrayService {
@@ -48,7 +49,8 @@ public class CacheInvalidator implements ByteArrayService {
             ByteArrayResponse response) throws Exception {
         var exchange = request.getExchange();
 
-        if (!MongoServiceConfiguration.get().isLocalCacheEnabled()) {
+        if (!MongoServiceConfiguration.get().isLocalCacheEnabled()
+                && !ResponseCache.getInstance().isEnabled()) {
             response.setInError(
                     HttpStatus.SC_NOT_MODIFIED,
                     "caching is off");
@@ -70,11 +72,15 @@ public class CacheInvalidator implements ByteArrayService {
 
                 if (_coll == null || _coll.getFirst() == null) {
                     MetadataCachesSingleton.getInstance().invalidateDb(db);
+
+                    ResponseCache.getInstance().invalidateDb(db);
                 } else {
                     String coll = _coll.getFirst();
 
                     MetadataCachesSingleton.getInstance()
                             .invalidateCollection(db, coll);
+
+                    ResponseCache.getInstance().invalidateCollection(db, coll);
                 }
 
                 response.setStatusCode(HttpStatus.SC_OK);
@@ -20,25 +20,40 @@
  */
 package org.restheart.mongodb.services;
 
-import com.mongodb.client.model.FindOneAndUpdateOptions;
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.MongoException;
+import com.mongodb.bulk.BulkWriteResult;
+import com.mongodb.client.model.InsertOneModel;
+import com.mongodb.client.model.UpdateOneModel;
+import com.mongodb.client.model.UpdateOptions;
+import com.mongodb.client.model.WriteModel;
 import io.undertow.server.HttpServerExchange;
+import java.io.IOException;
 import java.util.ArrayDeque;
 import java.util.Deque;
+import java.util.List;
 import java.util.function.Consumer;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 import org.bson.BsonArray;
 import org.bson.BsonDocument;
+import org.bson.BsonInt32;
+import org.bson.BsonInt64;
 import org.bson.BsonString;
 import org.bson.BsonValue;
 import org.bson.json.JsonParseException;
 import org.restheart.exchange.BsonFromCsvRequest;
 import org.restheart.exchange.BsonResponse;
 import org.restheart.mongodb.db.MongoClientSingleton;
+import org.restheart.mongodb.db.NamespaceCatalog;
+import org.restheart.mongodb.interceptors.ResponseCache;
+import org.restheart.mongodb.utils.ResponseHelper;
 import org.restheart.plugins.RegisterPlugin;
 import org.restheart.plugins.Service;
 import org.restheart.utils.HttpStatus;
 import org.restheart.utils.BsonUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 /**
  * service to upload a csv file in a collection
@@ -86,9 +101,14 @@ public class CsvLoader implements Service<BsonFromCsvRequest, BsonResponse> {
 
     // private static final String ERROR_PARSING_DATA = "Error parsing CSV, see logs for more information";
 
-    private final static FindOneAndUpdateOptions FAU_NO_UPSERT_OPS = new FindOneAndUpdateOptions().upsert(false);
+    private final static UpdateOptions NO_UPSERT_OPS = new UpdateOptions().upsert(false);
 
-    private final static FindOneAndUpdateOptions FAU_WITH_UPSERT_OPS = new FindOneAndUpdateOptions().upsert(true);
+    private final static UpdateOptions UPSERT_OPS = new UpdateOptions().upsert(true);
+
+    // the number of documents written with a single bulkWrite
+    private static final int BATCH_SIZE = 1000;
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(CsvLoader.class);
 
     /**
      *
@@ -119,56 +139,79 @@ public class CsvLoader implements Service<BsonFromCsvRequest, BsonResponse> {
                     if (params.update && params.idIdx < 0) {
                         response.setInError(HttpStatus.SC_BAD_REQUEST, ERROR_NO_ID);
                     } else {
-                        BsonArray documents = request.getContent();
-
-                        if (documents != null && documents.size() > 0) {
-                            var mcoll = MongoClientSingleton.getInstance().getClient()
-                                    .getDatabase(params.db).getCollection(params.coll, BsonDocument.class);
-
-                            if (params.update && !params.upsert) {
-                                documents.stream()
-                                        .map(doc -> doc.asDocument())
-                                        // add props specified via keys and values qparams
-                                        .map(doc -> addProps(params, doc))
-                                        .forEach(doc -> {
-                                            BsonDocument updateQuery = new BsonDocument("_id", doc.remove("_id"));
-
-                                            // for upate import, take _filter property into account
-                                            // for instance, a filter allows to use $ positional array operator
-                                            BsonValue _filter = doc.remove(FILTER_PROPERTY);
-
-                                            if (_filter != null && _filter.isDocument()) {
-                                                updateQuery.putAll(_filter.asDocument());
-                                            }
-                                            if (params.upsert) {
-                                                mcoll.findOneAndUpdate(updateQuery, new BsonDocument("$set", doc),
-                                                        FAU_WITH_UPSERT_OPS);
-                                            } else {
-
-                                                mcoll.findOneAndUpdate(updateQuery, new BsonDocument("$set", doc),
-                                                        FAU_NO_UPSERT_OPS);
-                                            }
-                                        });
-                            } else if (params.update && params.upsert) {
-                                documents.stream()
-                                        .map(doc -> doc.asDocument())
-                                        // add props specified via keys and values qparams
-                                        .map(doc -> addProps(params, doc))
-                                        .forEach(doc -> {
-                                            var updateQuery = new BsonDocument("_id", doc.remove("_id"));
-
-                                            mcoll.findOneAndUpdate(updateQuery, new BsonDocument("$set", doc),
-                                                    FAU_WITH_UPSERT_OPS);
-                                        });
-                            } else {
-                                var docList = documents.stream()
-                                        .map(doc -> doc.asDocument())
-                                        // add props specified via keys and values qparams
-                                        .map(doc -> addProps(params, doc))
-                                        .collect(Collectors.toList());
-
-                                mcoll.insertMany(docList);
-                            }
+                        var mcoll = MongoClientSingleton.getInstance().getClient()
+                                .getDatabase(params.db).getCollection(params.coll, BsonDocument.class);
+
+                        var summary = new BsonDocument();
+                        var batches = new BsonArray();
+                        var counts = new long[3]; // documents, inserted or upserted, modified
+
+                        try {
+                            request.streamContent(BATCH_SIZE, batch -> {
+                                BulkWriteResult result;
+
+                                try {
+                                    result = mcoll.bulkWrite(writeModels(params, batch));
+                                } catch (MongoBulkWriteException mbwe) {
+                                    // the ordered batch stops at the first error
+                                    var written = mbwe.getWriteErrors().isEmpty()
+                                            ? batch.size()
+                                            : mbwe.getWriteErrors().get(0).getIndex();
+
+                                    addBatch(params, batches, counts, written, mbwe.getWriteResult());
+                                    throw mbwe;
+                                }
+
+                                addBatch(params, batches, counts, batch.size(), result);
+
+                                LOGGER.debug("csv import into {}.{}, batch {} written, {} documents so far",
+                                        params.db, params.coll, batches.size(), counts[0]);
+                            });
+                        } catch (MongoBulkWriteException mbwe) {
+                            var failed = batches.get(batches.size() - 1).asDocument();
+
+                            response.setInError(ResponseHelper.getHttpStatusFromErrorCode(mbwe.getCode()),
+                                    "error writing batch " + batches.size()
+                                    + ", " + failed.getInt32("documents").getValue() + " documents of it were written"
+                                    + " (inserted " + failed.getInt32("inserted").getValue()
+                                    + ", matched " + failed.getInt32("matched").getValue()
+                                    + ", modified " + failed.getInt32("modified").getValue()
+                                    + "), previous batches were written",
+                                    mbwe);
+
+                            response.getContent().asDocument().append("batches", batches);
+                            return;
+                        } catch (MongoException me) {
+                            LOGGER.debug("error writing csv", me);
+
+                            response.setInError(ResponseHelper.getHttpStatusFromErrorCode(me.getCode()),
+                                    "error writing batch " + (batches.size() + 1)
+                                    + ", " + counts[0] + " rows of the previous batches were written",
+                                    me);
+
+                            response.getContent().asDocument().append("batches", batches);
+                            return;
+                        } catch (IOException ioe) {
+                            LOGGER.debug("error reading csv", ioe);
+
+                            response.setInError(HttpStatus.SC_BAD_REQUEST,
+                                    "error reading csv: " + ioe.getMessage()
+                                    + ", " + counts[0] + " rows of the previous batches were written");
+
+                            response.getContent().asDocument().append("batches", batches);
+                            return;
+                        } finally {
+                            // the writes do not go through the mongo service
+                            ResponseCache.getInstance().invalidateCollection(params.db, params.coll);
+                        }
+
+                        if (counts[0] > 0) {
+                            summary.append("documents", new BsonInt64(counts[0]))
+                                    .append("inserted", new BsonInt64(counts[1]))
+                                    .append("modified", new BsonInt64(counts[2]))
+                                    .append("batches", batches);
+
+                            response.setContent(summary);
                             response.setStatusCode(HttpStatus.SC_OK);
                         } else {
                             response.setStatusCode(HttpStatus.SC_NOT_MODIFIED);
@@ -185,6 +228,56 @@ public class CsvLoader implements Service<BsonFromCsvRequest, BsonResponse> {
         }
     }
 
+    /**
+     * adds the result of a batch to the summary of the import
+     *
+     * @param written the number of documents of the batch that were written
+     */
+    private void addBatch(CsvRequestParams params, BsonArray batches, long[] counts, int written, BulkWriteResult result) {
+        var inserted = result.getInsertedCount() + result.getUpserts().size();
+
+        if (inserted > 0) {
+            // the first insert creates the collection
+            NamespaceCatalog.getInstance().addCollection(params.db, params.coll);
+        }
+
+        counts[0] += written;
+        counts[1] += inserted;
+        counts[2] += result.getModifiedCount();
+
+        batches.add(new BsonDocument("documents", new BsonInt32(written))
+                .append("inserted", new BsonInt32(inserted))
+                .append("matched", new BsonInt32(result.getMatchedCount()))
+                .append("modified", new BsonInt32(result.getModifiedCount())));
+    }
+
+    private List<WriteModel<BsonDocument>> writeModels(CsvRequestParams params, List<BsonDocument> batch) {
+        return batch.stream()
+                // add props specified via keys and values qparams
+                .map(doc -> addProps(params, doc))
+                .map(doc -> {
+                    if (params.update) {
+                        var updateQuery = new BsonDocument("_id", doc.remove("_id"));
+
+                        if (!params.upsert) {
+                            // for upate import, take _filter property into account
+                            // for instance, a filter allows to use $ positional array operator
+                            BsonValue _filter = doc.remove(FILTER_PROPERTY);
+
+                            if (_filter != null && _filter.isDocument()) {
+                                updateQuery.putAll(_filter.asDocument());
+                            }
+                        }
+
+                        return new UpdateOneModel<BsonDocument>(updateQuery, new BsonDocument("$set", doc),
+                                params.upsert ? UPSERT_OPS : NO_UPSERT_OPS);
+                    } else {
+                        return new InsertOneModel<>(doc);
+                    }
+                })
+                .collect(Collectors.toList());
+    }
+
     private boolean doesApply(BsonFromCsvRequest request) {
         return request.isPost();
     }
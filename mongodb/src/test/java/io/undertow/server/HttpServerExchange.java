@@ -31,6 +31,8 @@ import java.util.Collections;
 import java.util.Deque;
 import java.util.Map;
 import java.util.TreeMap;
+import java.util.concurrent.Executor;
+import org.xnio.channels.StreamSinkChannel;
 
 /**
  * A mock for io.undertow.server.HttpServerExchange The original class is final
@@ -47,6 +49,12 @@ public class HttpServerExchange extends AbstractAttachable {
     private String relativePath;
     private HttpString requestMethod;
     private Map<String, Deque<String>> queryParameters;
+    private final HeaderMap requestHeaders = new HeaderMap();
+    private final HeaderMap responseHeaders = new HeaderMap();
+    private SecurityContext securityContext;
+    private StreamSinkChannel responseChannel;
+    private boolean responseStarted = false;
+    private boolean complete = false;
 
     /**
      *
@@ -59,6 +67,27 @@ public class HttpServerExchange extends AbstractAttachable {
      * @return
      */
     public HttpServerExchange endExchange() {
+        this.complete = true;
+        return this;
+    }
+
+    /**
+     *
+     * @return true if endExchange() has been invoked
+     */
+    public boolean isComplete() {
+        return complete;
+    }
+
+    /**
+     * Runs the task immediately
+     *
+     * @param executor
+     * @param runnable
+     * @return
+     */
+    public HttpServerExchange dispatch(final Executor executor, final Runnable runnable) {
+        executor.execute(runnable);
         return this;
     }
 
@@ -114,6 +143,9 @@ public class HttpServerExchange extends AbstractAttachable {
      * @return
      */
     public HttpServerExchange setStatusCode(final int statusCode) {
+        if (responseStarted) {
+            throw new IllegalStateException("UT000002: The response has already been started");
+        }
         this.statusCode = statusCode;
         return this;
     }
@@ -175,6 +207,48 @@ public class HttpServerExchange extends AbstractAttachable {
      * @return
      */
     public HeaderMap getRequestHeaders() {
+        return requestHeaders;
+    }
+
+    /**
+     *
+     * @return
+     */
+    public HeaderMap getResponseHeaders() {
+        return responseHeaders;
+    }
+
+    /**
+     * Starts the response, as the original class does, so that the status
+     * code cannot be changed anymore
+     *
+     * @return the channel set with setResponseChannel()
+     */
+    public StreamSinkChannel getResponseChannel() {
+        this.responseStarted = true;
+        return responseChannel;
+    }
+
+    /**
+     * @param responseChannel the channel returned by getResponseChannel()
+     */
+    public void setResponseChannel(StreamSinkChannel responseChannel) {
+        this.responseChannel = responseChannel;
+    }
+
+    /**
+     *
+     * @return
+     */
+    public boolean isResponseStarted() {
+        return responseStarted;
+    }
+
+    /**
+     *
+     * @return
+     */
+    public ServerConnection getConnection() {
         return null;
     }
 
@@ -183,7 +257,14 @@ public class HttpServerExchange extends AbstractAttachable {
      * @return
      */
     public SecurityContext getSecurityContext() {
-        return null;
+        return securityContext;
+    }
+
+    /**
+     * @param securityContext the securityContext to set
+     */
+    public void setSecurityContext(SecurityContext securityContext) {
+        this.securityContext = securityContext;
     }
 
     /**
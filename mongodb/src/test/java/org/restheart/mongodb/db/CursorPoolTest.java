@@ -0,0 +1,152 @@
+/*-
+ * ========================LICENSE_START=================================
+ * restheart-mongodb
+ * %%
+ * Copyright (C) 2014 - 2020 SoftInstigate
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * =========================LICENSE_END==================================
+ */
+package org.restheart.mongodb.db;
+
+import com.mongodb.MongoNamespace;
+import com.mongodb.client.FindIterable;
+import com.mongodb.client.MongoCollection;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.bson.BsonDocument;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import org.restheart.exchange.ExchangeKeys.EAGER_CURSOR_ALLOCATION_POLICY;
+import org.restheart.mongodb.MongoServiceConfiguration;
+
+public class CursorPoolTest {
+    private static final EAGER_CURSOR_ALLOCATION_POLICY LINEAR = EAGER_CURSOR_ALLOCATION_POLICY.LINEAR;
+
+    @BeforeClass
+    public static void init() {
+        // default eager cursors configuration
+        if (MongoServiceConfiguration.get() == null) {
+            MongoServiceConfiguration.init(new HashMap<>());
+        }
+    }
+
+    /**
+     * populates the pool, gets cursors and evicts the empty slices
+     * concurrently, checking that a cursor is never handed out twice
+     */
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testConcurrentGetPopulateEvict() throws Exception {
+        var created = new AtomicInteger();
+
+        var dbsDAO = mock(DatabaseImpl.class);
+
+        when(dbsDAO.getFindIterable(any(), any(), any(), any(), any(), any())).thenAnswer(inv -> {
+            FindIterable<BsonDocument> cursor = mock(FindIterable.class);
+            when(cursor.skip(anyInt())).thenReturn(cursor);
+            created.incrementAndGet();
+            return cursor;
+        });
+
+        MongoCollection<BsonDocument> coll = mock(MongoCollection.class);
+        when(coll.getNamespace()).thenReturn(new MongoNamespace("db.coll"));
+
+        var pool = new CursorPool(dbsDAO);
+
+        Set<FindIterable<BsonDocument>> handedOut = ConcurrentHashMap.newKeySet();
+        var handedOutTwice = new AtomicBoolean(false);
+
+        var done = new AtomicBoolean(false);
+        var start = new CountDownLatch(1);
+        var executor = Executors.newFixedThreadPool(6);
+        var tasks = new ArrayList<Future<?>>();
+
+        try {
+            // populators
+            for (var t = 0; t < 2; t++) {
+                tasks.add(executor.submit(() -> {
+                    start.await();
+                    while (!done.get()) {
+                        pool.populateCache(key(coll, 1_000), LINEAR);
+                        Thread.yield();
+                    }
+                    return null;
+                }));
+            }
+
+            // getters, close to the skips of the second slice (1900)
+            for (var t = 0; t < 3; t++) {
+                tasks.add(executor.submit(() -> {
+                    start.await();
+                    while (!done.get()) {
+                        var cursor = pool.get(key(coll, 1_950), LINEAR);
+
+                        if (cursor != null && !handedOut.add(cursor.getFindIterable())) {
+                            handedOutTwice.set(true);
+                        }
+                    }
+                    return null;
+                }));
+            }
+
+            // evictor, removing the slices emptied by the getters
+            tasks.add(executor.submit(() -> {
+                start.await();
+                while (!done.get()) {
+                    pool.removeExpired();
+                }
+                return null;
+            }));
+
+            start.countDown();
+
+            // wait until some cursors are handed out
+            for (var i = 0; i < 100 && handedOut.size() < 50; i++) {
+                Thread.sleep(50);
+            }
+
+            done.set(true);
+
+            for (var task : tasks) {
+                task.get(10, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertFalse("a cursor was handed out twice", handedOutTwice.get());
+        assertFalse(handedOut.isEmpty());
+        assertTrue(handedOut.size() <= created.get());
+    }
+
+    private static CursorPoolEntryKey key(MongoCollection<BsonDocument> coll, int skipped) {
+        return new CursorPoolEntryKey(null, coll, new BsonDocument(), new BsonDocument(),
+                null, null, skipped, -1);
+    }
+}
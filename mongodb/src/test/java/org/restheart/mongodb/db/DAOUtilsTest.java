@@ -20,11 +20,33 @@
  */
 package org.restheart.mongodb.db;
 
+import com.mongodb.MongoWriteException;
+import com.mongodb.ServerAddress;
+import com.mongodb.WriteError;
+import com.mongodb.client.FindIterable;
+import com.mongodb.client.MongoCollection;
+import static com.mongodb.client.model.Filters.eq;
+import com.mongodb.client.model.FindOneAndUpdateOptions;
+import com.mongodb.client.model.ReturnDocument;
 import org.bson.BsonDocument;
+import org.bson.BsonInt32;
+import org.bson.BsonObjectId;
 import org.bson.BsonString;
+import org.bson.conversions.Bson;
+import org.bson.types.ObjectId;
 import static org.junit.Assert.*;
 import org.junit.Rule;
 import org.junit.Test;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import org.restheart.exchange.ExchangeKeys.WRITE_MODE;
+import org.restheart.exchange.OperationResult;
+import org.restheart.utils.HttpStatus;
 import org.junit.rules.TestRule;
 import org.junit.rules.TestWatcher;
 import org.junit.runner.Description;
@@ -69,4 +91,93 @@ public class DAOUtilsTest {
         assertEquals(DAOUtils.validContent(dbo), dbo);
     }
 
+    private static final ObjectId ETAG = new ObjectId();
+
+    private static final Bson ETAG_CONDITION = eq("_etag", ETAG);
+
+    private static final BsonDocument UPDATED = new BsonDocument("_id", new BsonInt32(1))
+            .append("a", new BsonInt32(2))
+            .append("_etag", new BsonObjectId(new ObjectId()));
+
+    @SuppressWarnings("unchecked")
+    private static MongoCollection<BsonDocument> collection(BsonDocument current) {
+        MongoCollection<BsonDocument> coll = mock(MongoCollection.class);
+        FindIterable<BsonDocument> found = mock(FindIterable.class);
+
+        when(found.first()).thenReturn(current);
+        when(coll.find(any(Bson.class))).thenReturn(found);
+
+        return coll;
+    }
+
+    private static FindOneAndUpdateOptions upsert(boolean upsert) {
+        return argThat(o -> o != null
+                && o.isUpsert() == upsert
+                && o.getReturnDocument() == ReturnDocument.AFTER);
+    }
+
+    private static OperationResult patch(MongoCollection<BsonDocument> coll, WRITE_MODE writeMode) {
+        return DAOUtils.writeDocumentIf(null, coll, new BsonInt32(1), null, null,
+                new BsonDocument("a", new BsonInt32(2)), false, writeMode, ETAG_CONDITION);
+    }
+
+    /**
+     * the document matching the etag condition is updated with a single
+     * findOneAndUpdate, that returns it after the update
+     */
+    @Test
+    public void testWriteDocumentIfMatched() {
+        var coll = collection(null);
+
+        when(coll.findOneAndUpdate(any(Bson.class), any(Bson.class), upsert(false))).thenReturn(UPDATED);
+
+        var result = patch(coll, WRITE_MODE.UPSERT);
+
+        assertEquals(HttpStatus.SC_OK, result.getHttpCode());
+        assertEquals(UPDATED, result.getNewData());
+        assertNull(result.getOldData());
+
+        verify(coll, times(1)).findOneAndUpdate(any(Bson.class), any(Bson.class), any(FindOneAndUpdateOptions.class));
+        verify(coll, never()).find(any(Bson.class));
+    }
+
+    @Test
+    public void testWriteDocumentIfMismatched() {
+        var current = new BsonDocument("_id", new BsonInt32(1))
+                .append("_etag", new BsonObjectId(new ObjectId()));
+
+        var coll = collection(current);
+
+        var result = patch(coll, WRITE_MODE.UPDATE);
+
+        assertEquals(HttpStatus.SC_PRECONDITION_FAILED, result.getHttpCode());
+        assertEquals(current, result.getOldData());
+
+        // with upsert, the document exists: duplicate _id
+        when(coll.findOneAndUpdate(any(Bson.class), any(Bson.class), upsert(true)))
+                .thenThrow(new MongoWriteException(new WriteError(DAOUtils.DUPLICATE_KEY_ERROR,
+                        "duplicate key", new BsonDocument()), new ServerAddress()));
+
+        result = patch(coll, WRITE_MODE.UPSERT);
+
+        assertEquals(HttpStatus.SC_PRECONDITION_FAILED, result.getHttpCode());
+        assertEquals(current, result.getOldData());
+    }
+
+    @Test
+    public void testWriteDocumentIfMissing() {
+        var coll = collection(null);
+
+        assertEquals(HttpStatus.SC_NOT_FOUND, patch(coll, WRITE_MODE.UPDATE).getHttpCode());
+
+        // with upsert, the document is created
+        when(coll.findOneAndUpdate(any(Bson.class), any(Bson.class), upsert(true))).thenReturn(UPDATED);
+
+        var result = patch(coll, WRITE_MODE.UPSERT);
+
+        assertEquals(HttpStatus.SC_CREATED, result.getHttpCode());
+        assertEquals(UPDATED, result.getNewData());
+        assertNull(result.getOldData());
+    }
+
 }
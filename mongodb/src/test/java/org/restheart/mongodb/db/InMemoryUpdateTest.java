@@ -0,0 +1,78 @@
+/*-
+ * ========================LICENSE_START=================================
+ * restheart-mongodb
+ * %%
+ * Copyright (C) 2014 - 2020 SoftInstigate
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * =========================LICENSE_END==================================
+ */
+package org.restheart.mongodb.db;
+
+import org.bson.BsonDocument;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+public class InMemoryUpdateTest {
+    private static final BsonDocument DOC = BsonDocument.parse("{'_id': 1, 'a': 1, 'b': {'c': 'x', 'd': [1, 2]}, 'n': 2.5}");
+
+    @Test
+    public void testPlainContent() throws Exception {
+        var patched = InMemoryUpdate.apply(DOC, BsonDocument.parse("{'a': 2, 'b.c': 'y', 'e': {'f': 1}}"), false);
+
+        assertEquals(BsonDocument.parse("{'_id': 1, 'a': 2, 'b': {'c': 'y', 'd': [1, 2]}, 'n': 2.5, 'e': {'f': 1}}"), patched);
+
+        // the current document is not modified
+        assertEquals(1, DOC.getInt32("a").getValue());
+    }
+
+    @Test
+    public void testOperators() throws Exception {
+        var patched = InMemoryUpdate.apply(DOC, BsonDocument.parse("{"
+                + "'$inc': {'a': 2, 'z': 1, 'n': 1},"
+                + "'$unset': {'b.c': ''},"
+                + "'$set': {'b.d.3': 4, 'g.h': true},"
+                + "'$max': {'a': 100},"
+                + "'$rename': {'n': 'm'},"
+                + "'$setOnInsert': {'i': 1}"
+                + "}"), false);
+
+        assertEquals(BsonDocument.parse("{'_id': 1, 'a': 100, 'b': {'d': [1, 2, null, 4]}, 'z': 1, 'g': {'h': true}, 'm': 3.5}"), patched);
+    }
+
+    @Test
+    public void testInsert() throws Exception {
+        var patched = InMemoryUpdate.apply(new BsonDocument("_id", DOC.get("_id")),
+                BsonDocument.parse("{'a': 1, '$setOnInsert': {'i': 1}, '$currentDate': {'t': true}}"), true);
+
+        assertEquals(1, patched.getInt32("i").getValue());
+        assertTrue(patched.get("t").isDateTime());
+    }
+
+    @Test(expected = UnsupportedUpdateException.class)
+    public void testUnsupportedOperator() throws Exception {
+        InMemoryUpdate.apply(DOC, BsonDocument.parse("{'$push': {'b.d': 3}}"), false);
+    }
+
+    @Test(expected = UnsupportedUpdateException.class)
+    public void testPositionalPath() throws Exception {
+        InMemoryUpdate.apply(DOC, BsonDocument.parse("{'$set': {'b.d.$': 3}}"), false);
+    }
+
+    @Test(expected = UnsupportedUpdateException.class)
+    public void testCannotCreateField() throws Exception {
+        InMemoryUpdate.apply(DOC, BsonDocument.parse("{'a.b': 3}"), false);
+    }
+}
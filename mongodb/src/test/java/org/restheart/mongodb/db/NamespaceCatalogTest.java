@@ -0,0 +1,150 @@
+/*-
+ * ========================LICENSE_START=================================
+ * restheart-mongodb
+ * %%
+ * Copyright (C) 2014 - 2020 SoftInstigate
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * =========================LICENSE_END==================================
+ */
+package org.restheart.mongodb.db;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+public class NamespaceCatalogTest {
+    private final Map<String, List<String>> dbs = new HashMap<>();
+    private final Map<String, Integer> loads = new HashMap<>();
+    private final Map<String, Integer> lookups = new HashMap<>();
+
+    private NamespaceCatalog catalog(long ttl) {
+        return new NamespaceCatalog(db -> {
+            loads.merge(db, 1, Integer::sum);
+            return dbs.getOrDefault(db, List.of());
+        }, (db, coll) -> {
+            lookups.merge(db + "." + coll, 1, Integer::sum);
+            return dbs.getOrDefault(db, List.of()).contains(coll);
+        }, ttl);
+    }
+
+    @Test
+    public void testLookups() {
+        dbs.put("db", List.of("coll1", "coll2"));
+
+        var catalog = catalog(60_000);
+
+        assertTrue(catalog.doesDbExist("db"));
+        assertTrue(catalog.doesCollectionExist("db", "coll1"));
+        assertTrue(catalog.doesCollectionExist("db", "coll2"));
+
+        // the collection names are listed once
+        assertEquals(1, (int) loads.get("db"));
+
+        // misses do not reload a fresh snapshot
+        assertFalse(catalog.doesCollectionExist("db", "coll3"));
+        assertFalse(catalog.doesDbExist("nodb"));
+        assertFalse(catalog.doesDbExist("nodb"));
+        assertEquals(1, (int) loads.get("db"));
+        assertEquals(1, (int) loads.get("nodb"));
+
+        // but look up the missing collection
+        assertEquals(1, (int) lookups.get("db.coll3"));
+    }
+
+    @Test
+    public void testCollectionCreatedByOtherClient() {
+        dbs.put("db", List.of("coll1"));
+
+        var catalog = catalog(60_000);
+
+        assertFalse(catalog.doesCollectionExist("db", "coll2"));
+
+        dbs.put("db", List.of("coll1", "coll2"));
+
+        // found by the lookup on miss, then added to the snapshot
+        assertTrue(catalog.doesCollectionExist("db", "coll2"));
+        assertTrue(catalog.doesCollectionExist("db", "coll2"));
+        assertTrue(catalog.doesCollectionExist("db", "coll1"));
+
+        assertEquals(2, (int) lookups.get("db.coll2"));
+        assertEquals(1, (int) loads.get("db"));
+    }
+
+    @Test
+    public void testAddCollection() {
+        dbs.put("db", List.of("coll1"));
+
+        var catalog = catalog(60_000);
+
+        assertTrue(catalog.doesDbExist("db"));
+
+        // created implicitly, e.g. by the csv loader
+        dbs.put("db", List.of("coll1", "coll2"));
+        catalog.addCollection("db", "coll2");
+
+        assertTrue(catalog.doesCollectionExist("db", "coll2"));
+        assertTrue(catalog.doesCollectionExist("db", "coll1"));
+
+        assertEquals(1, (int) loads.get("db"));
+        assertTrue(lookups.isEmpty());
+    }
+
+    @Test
+    public void testInvalidate() {
+        dbs.put("db", List.of("coll1"));
+
+        var catalog = catalog(60_000);
+
+        assertTrue(catalog.doesCollectionExist("db", "coll1"));
+
+        dbs.put("db", List.of("coll2"));
+
+        // stale until invalidated
+        assertTrue(catalog.doesCollectionExist("db", "coll1"));
+
+        catalog.invalidate("db");
+
+        assertFalse(catalog.doesCollectionExist("db", "coll1"));
+        assertTrue(catalog.doesCollectionExist("db", "coll2"));
+
+        catalog.update("db", List.of("coll3"));
+
+        assertTrue(catalog.doesCollectionExist("db", "coll3"));
+        assertEquals(2, (int) loads.get("db"));
+
+        dbs.remove("db");
+        catalog.invalidateAll();
+
+        assertFalse(catalog.doesDbExist("db"));
+    }
+
+    @Test
+    public void testDisabled() {
+        dbs.put("db", List.of("coll1"));
+
+        var catalog = catalog(0);
+
+        assertFalse(catalog.isEnabled());
+        assertTrue(catalog.doesCollectionExist("db", "coll1"));
+        assertTrue(catalog.doesCollectionExist("db", "coll1"));
+
+        // nothing is kept
+        assertEquals(2, (int) loads.get("db"));
+    }
+}
@@ -0,0 +1,124 @@
+/*-
+ * ========================LICENSE_START=================================
+ * restheart-mongodb
+ * %%
+ * Copyright (C) 2014 - 2020 SoftInstigate
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * =========================LICENSE_END==================================
+ */
+package org.restheart.mongodb.db.sessions;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.restheart.mongodb.db.sessions.Txn.TransactionStatus;
+
+public class TxnsStatesRegistryTest {
+    private final TxnsStatesRegistry registry = TxnsStatesRegistry.getInstance();
+
+    private final UUID sid = UUID.randomUUID();
+
+    @Before
+    public void setUp() {
+        registry.setStore(new LocalTxnsStatesStore(100, 60_000));
+    }
+
+    @After
+    public void tearDown() {
+        registry.setStore(new LocalTxnsStatesStore(100, 60_000));
+    }
+
+    @Test
+    public void testTrackedStates() {
+        assertNull(registry.get(sid));
+        assertNull(registry.getTrusted(sid));
+
+        registry.put(sid, new Txn(1, TransactionStatus.IN));
+
+        assertEquals(1, registry.getTrusted(sid).getTxnId());
+        assertEquals(TransactionStatus.IN, registry.getTrusted(sid).getStatus());
+
+        registry.put(sid, new Txn(1, TransactionStatus.COMMITTED));
+
+        assertEquals(TransactionStatus.COMMITTED, registry.getTrusted(sid).getStatus());
+
+        registry.remove(sid);
+
+        assertNull(registry.get(sid));
+        assertNull(registry.getTrusted(sid));
+    }
+
+    @Test
+    public void testInStateWithoutTrackingTime() {
+        // a store that returns copies of the states, e.g. a shared one
+        registry.setStore(new TxnsStatesStore() {
+            private final Map<UUID, Txn> states = new HashMap<>();
+
+            @Override
+            public Txn get(UUID sid) {
+                var txn = states.get(sid);
+                return txn == null ? null : new Txn(txn.getTxnId(), txn.getStatus());
+            }
+
+            @Override
+            public void put(UUID sid, Txn txn) {
+                states.put(sid, txn);
+            }
+
+            @Override
+            public void remove(UUID sid) {
+                states.remove(sid);
+            }
+        });
+
+        registry.put(sid, new Txn(1, TransactionStatus.IN));
+
+        // when the IN state was tracked is not known, it is probed again
+        assertEquals(TransactionStatus.IN, registry.get(sid).getStatus());
+        assertNull(registry.getTrusted(sid));
+
+        // other states are final
+        registry.put(sid, new Txn(1, TransactionStatus.ABORTED));
+
+        assertEquals(TransactionStatus.ABORTED, registry.getTrusted(sid).getStatus());
+    }
+
+    @Test
+    public void testNoStore() {
+        registry.setStore(null);
+
+        registry.put(sid, new Txn(1, TransactionStatus.IN));
+
+        assertNull(registry.get(sid));
+    }
+
+    @Test
+    public void testLocalStoreEviction() throws Exception {
+        var store = new LocalTxnsStatesStore(100, 50);
+
+        store.put(sid, new Txn(1, TransactionStatus.IN));
+
+        assertEquals(1, store.get(sid).getTxnId());
+
+        Thread.sleep(200);
+
+        assertNull(store.get(sid));
+    }
+}
@@ -0,0 +1,90 @@
+/*-
+ * ========================LICENSE_START=================================
+ * restheart-mongodb
+ * %%
+ * Copyright (C) 2014 - 2020 SoftInstigate
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * =========================LICENSE_END==================================
+ */
+package org.restheart.mongodb.handlers;
+
+import com.mongodb.MongoException;
+import io.undertow.server.HttpServerExchange;
+import io.undertow.util.HttpString;
+import java.util.UUID;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import static org.restheart.exchange.ExchangeKeys.CLIENT_SESSION_KEY;
+import org.restheart.exchange.MongoRequest;
+import org.restheart.exchange.MongoResponse;
+import org.restheart.exchange.PipelineInfo;
+import org.restheart.mongodb.db.sessions.LocalTxnsStatesStore;
+import org.restheart.mongodb.db.sessions.Txn;
+import org.restheart.mongodb.db.sessions.TxnsStatesRegistry;
+
+public class ErrorHandlerTest {
+    private final UUID sid = UUID.randomUUID();
+
+    @Before
+    public void setUp() {
+        TxnsStatesRegistry.getInstance().setStore(new LocalTxnsStatesStore(100, 60_000));
+        TxnsStatesRegistry.getInstance().put(sid, new Txn(1, Txn.TransactionStatus.IN));
+    }
+
+    @After
+    public void tearDown() {
+        TxnsStatesRegistry.getInstance().remove(sid);
+    }
+
+    @Test
+    public void testNoSuchTransactionUntracksTxn() {
+        ErrorHandler.setInError(exchange(), new MongoException(251, "NoSuchTransaction"));
+
+        assertNull(TxnsStatesRegistry.getInstance().get(sid));
+    }
+
+    @Test
+    public void testTransientTransactionErrorUntracksTxn() {
+        var error = new MongoException(112, "WriteConflict");
+        error.addLabel(MongoException.TRANSIENT_TRANSACTION_ERROR_LABEL);
+
+        ErrorHandler.setInError(exchange(), error);
+
+        assertNull(TxnsStatesRegistry.getInstance().get(sid));
+    }
+
+    @Test
+    public void testOtherErrorsKeepTxn() {
+        ErrorHandler.setInError(exchange(), new MongoException(11000, "duplicate key"));
+
+        assertNotNull(TxnsStatesRegistry.getInstance().get(sid));
+    }
+
+    private HttpServerExchange exchange() {
+        var exchange = new HttpServerExchange();
+        exchange.setRequestPath("/db/coll");
+        exchange.setRequestMethod(new HttpString("POST"));
+        exchange.addQueryParam(CLIENT_SESSION_KEY, sid.toString());
+
+        MongoRequest.init(exchange, "/", "*")
+                .setPipelineInfo(new PipelineInfo(PipelineInfo.PIPELINE_TYPE.SERVICE, "/", "mongo"));
+        MongoResponse.init(exchange);
+
+        return exchange;
+    }
+}
@@ -0,0 +1,276 @@
+/*-
+ * ========================LICENSE_START=================================
+ * restheart-mongodb
+ * %%
+ * Copyright (C) 2014 - 2020 SoftInstigate
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * =========================LICENSE_END==================================
+ */
+package org.restheart.mongodb.handlers;
+
+import com.mongodb.MongoException;
+import com.mongodb.MongoExecutionTimeoutException;
+import io.undertow.server.HttpServerExchange;
+import io.undertow.util.HttpString;
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import org.bson.BsonDocument;
+import org.bson.BsonInt32;
+import org.bson.BsonString;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import org.junit.Before;
+import org.junit.Test;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscription;
+import org.restheart.exchange.MongoRequest;
+import org.restheart.exchange.MongoResponse;
+import org.restheart.exchange.PipelineInfo;
+import org.restheart.utils.HttpStatus;
+import org.xnio.channels.StreamSinkChannel;
+
+/**
+ * The mock HttpServerExchange, as the original class, does not allow to set
+ * the status code after the response channel has been opened
+ */
+public class ReactiveFindSenderTest {
+    private static final BsonDocument DOC1 = new BsonDocument("_id", new BsonInt32(1)).append("a", new BsonString("x"));
+    private static final BsonDocument DOC2 = new BsonDocument("_id", new BsonInt32(2)).append("a", new BsonString("y"));
+
+    private ByteArrayOutputStream sent;
+    private StreamSinkChannel channel;
+
+    @Before
+    public void setUp() throws Exception {
+        sent = new ByteArrayOutputStream();
+        channel = mock(StreamSinkChannel.class);
+
+        when(channel.write(any(ByteBuffer.class))).thenAnswer(invocation -> {
+            ByteBuffer buffer = invocation.getArgument(0);
+            var bytes = new byte[buffer.remaining()];
+            buffer.get(bytes);
+            sent.write(bytes);
+            return bytes.length;
+        });
+    }
+
+    @Test
+    public void testDocument() {
+        var exchange = exchange("/db/coll/1");
+        var response = MongoResponse.of(exchange);
+
+        ReactiveFindSender.sendDocument(exchange, first(DOC1), doc -> {
+            response.setContent(doc);
+            response.setStatusCode(HttpStatus.SC_OK);
+        });
+
+        assertEquals(HttpStatus.SC_OK, exchange.getStatusCode());
+        assertEquals("{\"_id\":1,\"a\":\"x\"}", sent());
+        assertTrue(exchange.isComplete());
+    }
+
+    @Test
+    public void testDocumentNotFound() {
+        var exchange = exchange("/db/coll/1");
+        var response = MongoResponse.of(exchange);
+
+        ReactiveFindSender.sendDocument(exchange, first(null), doc -> {
+            assertEquals(null, doc);
+            response.setInError(HttpStatus.SC_NOT_FOUND, "document 1 does not exist");
+        });
+
+        assertEquals(HttpStatus.SC_NOT_FOUND, exchange.getStatusCode());
+        assertTrue(sent().contains("document 1 does not exist"));
+        assertTrue(exchange.isComplete());
+    }
+
+    @Test
+    public void testDocumentNotModified() {
+        var exchange = exchange("/db/coll/1");
+        var response = MongoResponse.of(exchange);
+
+        ReactiveFindSender.sendDocument(exchange, first(DOC1),
+                doc -> response.setStatusCode(HttpStatus.SC_NOT_MODIFIED));
+
+        assertEquals(HttpStatus.SC_NOT_MODIFIED, exchange.getStatusCode());
+        assertEquals("", sent());
+        assertTrue(exchange.isComplete());
+    }
+
+    @Test
+    public void testDocumentError() {
+        var exchange = exchange("/db/coll/1");
+
+        ReactiveFindSender.sendDocument(exchange,
+                failing(List.of(), new MongoExecutionTimeoutException(50, "operation exceeded time limit")),
+                doc -> {});
+
+        assertEquals(HttpStatus.SC_REQUEST_TIMEOUT, exchange.getStatusCode());
+        assertTrue(sent().contains("Operation exceeded time limit"));
+        assertTrue(exchange.isComplete());
+    }
+
+    @Test
+    public void testDocumentHandlerError() {
+        var exchange = exchange("/db/coll/1");
+
+        ReactiveFindSender.sendDocument(exchange, first(DOC1), doc -> {
+            throw new IllegalStateException("error");
+        });
+
+        assertEquals(HttpStatus.SC_INTERNAL_SERVER_ERROR, exchange.getStatusCode());
+        assertTrue(exchange.isComplete());
+    }
+
+    @Test
+    public void testDocuments() {
+        var exchange = exchange("/db/coll");
+
+        ReactiveFindSender.sendDocuments(exchange, documents(List.of(DOC1, DOC2)), doc -> doc.remove("a"));
+
+        assertEquals(HttpStatus.SC_OK, exchange.getStatusCode());
+        assertEquals("[{\"_id\":1},{\"_id\":2}]", sent());
+        assertTrue(exchange.isComplete());
+    }
+
+    @Test
+    public void testNoDocuments() {
+        var exchange = exchange("/db/coll");
+
+        ReactiveFindSender.sendDocuments(exchange, documents(List.of()), doc -> {});
+
+        assertEquals(HttpStatus.SC_OK, exchange.getStatusCode());
+        assertEquals("[]", sent());
+        assertTrue(exchange.isComplete());
+    }
+
+    @Test
+    public void testDocumentsErrorBeforeFirstByte() {
+        var exchange = exchange("/db/coll");
+
+        ReactiveFindSender.sendDocuments(exchange,
+                failing(List.of(), new MongoException("error processing query: Can't canonicalize query")),
+                doc -> {});
+
+        assertEquals(HttpStatus.SC_BAD_REQUEST, exchange.getStatusCode());
+        assertTrue(sent().contains("wrong request, filter expression is invalid"));
+        assertTrue(exchange.isComplete());
+    }
+
+    @Test
+    public void testDocumentsErrorAfterFirstByte() {
+        var exchange = exchange("/db/coll");
+
+        ReactiveFindSender.sendDocuments(exchange,
+                failing(List.of(DOC1), new MongoException("cursor killed")),
+                doc -> {});
+
+        // the connection is closed, the array is not terminated
+        assertEquals(HttpStatus.SC_OK, exchange.getStatusCode());
+        assertEquals("[{\"_id\":1,\"a\":\"x\"}", sent());
+        assertTrue(exchange.isComplete());
+    }
+
+    private HttpServerExchange exchange(String path) {
+        var exchange = new HttpServerExchange();
+        exchange.setRequestPath(path);
+        exchange.setRequestMethod(new HttpString("GET"));
+        exchange.setResponseChannel(channel);
+
+        MongoRequest.init(exchange, "/", "*")
+                .setPipelineInfo(new PipelineInfo(PipelineInfo.PIPELINE_TYPE.SERVICE, "/", "mongo"));
+        MongoResponse.init(exchange);
+
+        // as ResponseSender does before invoking the custom sender
+        exchange.setStatusCode(HttpStatus.SC_OK);
+
+        return exchange;
+    }
+
+    private String sent() {
+        return new String(sent.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * emits the document, if not null, and completes, as FindPublisher.first()
+     */
+    private static Publisher<BsonDocument> first(BsonDocument document) {
+        return subscriber -> subscriber.onSubscribe(new Subscription() {
+            private boolean done = false;
+
+            @Override
+            public void request(long n) {
+                if (!done) {
+                    done = true;
+
+                    if (document != null) {
+                        subscriber.onNext(document);
+                    }
+
+                    subscriber.onComplete();
+                }
+            }
+
+            @Override
+            public void cancel() {
+                done = true;
+            }
+        });
+    }
+
+    private static Publisher<BsonDocument> documents(List<BsonDocument> documents) {
+        return failing(documents, null);
+    }
+
+    /**
+     * emits one document for each request, then the error or the completion
+     * if error is null
+     */
+    private static Publisher<BsonDocument> failing(List<BsonDocument> documents, Throwable error) {
+        return subscriber -> subscriber.onSubscribe(new Subscription() {
+            private int next = 0;
+            private boolean done = false;
+
+            @Override
+            public void request(long n) {
+                if (done) {
+                    return;
+                }
+
+                if (next < documents.size()) {
+                    subscriber.onNext(documents.get(next++).clone());
+                } else {
+                    done = true;
+
+                    if (error == null) {
+                        subscriber.onComplete();
+                    } else {
+                        subscriber.onError(error);
+                    }
+                }
+            }
+
+            @Override
+            public void cancel() {
+                done = true;
+            }
+        });
+    }
+}
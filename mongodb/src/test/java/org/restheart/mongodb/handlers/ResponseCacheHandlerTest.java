@@ -0,0 +1,195 @@
+/*-
+ * ========================LICENSE_START=================================
+ * restheart-mongodb
+ * %%
+ * Copyright (C) 2014 - 2020 SoftInstigate
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * =========================LICENSE_END==================================
+ */
+package org.restheart.mongodb.handlers;
+
+import io.undertow.server.HttpServerExchange;
+import io.undertow.util.Headers;
+import io.undertow.util.HttpString;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import org.junit.Before;
+import org.junit.Test;
+import org.restheart.exchange.Exchange;
+import org.restheart.exchange.MongoRequest;
+import org.restheart.exchange.MongoResponse;
+import org.restheart.exchange.PipelineInfo;
+import org.restheart.handlers.PipelinedHandler;
+import org.restheart.mongodb.interceptors.ResponseCache;
+import org.restheart.utils.HttpStatus;
+
+public class ResponseCacheHandlerTest {
+    private ResponseCache cache;
+
+    // the exchanges that reached the next handler
+    private final List<HttpServerExchange> handled = new ArrayList<>();
+
+    private ResponseCacheHandler handler;
+
+    @Before
+    public void setUp() {
+        cache = new ResponseCache(100, 60_000);
+
+        handler = new ResponseCacheHandler(new PipelinedHandler() {
+            @Override
+            public void handleRequest(HttpServerExchange exchange) {
+                handled.add(exchange);
+            }
+        }, cache);
+    }
+
+    @Test
+    public void testHit() throws Exception {
+        cacheResponse("/db/coll", "[]", "etag");
+
+        var exchange = exchange("GET", "/db/coll");
+        handler.handleRequest(exchange);
+
+        var response = MongoResponse.of(exchange);
+
+        assertTrue(handled.isEmpty());
+        assertEquals(HttpStatus.SC_OK, response.getStatusCode());
+        assertEquals("etag", exchange.getResponseHeaders().getFirst(Headers.ETAG));
+        assertNotNull(response.getCustomerSender());
+        assertTrue(Exchange.responseInterceptorsExecuted(exchange));
+    }
+
+    @Test
+    public void testNotModified() throws Exception {
+        cacheResponse("/db/coll/doc", "{}", "etag");
+
+        var exchange = exchange("GET", "/db/coll/doc");
+        exchange.getRequestHeaders().put(Headers.IF_NONE_MATCH, "etag");
+        handler.handleRequest(exchange);
+
+        var response = MongoResponse.of(exchange);
+
+        assertTrue(handled.isEmpty());
+        assertEquals(HttpStatus.SC_NOT_MODIFIED, response.getStatusCode());
+        assertNull(response.getCustomerSender());
+
+        // a different etag gets the cached response
+        exchange = exchange("GET", "/db/coll/doc");
+        exchange.getRequestHeaders().put(Headers.IF_NONE_MATCH, "other");
+        handler.handleRequest(exchange);
+
+        assertEquals(HttpStatus.SC_OK, MongoResponse.of(exchange).getStatusCode());
+        assertNotNull(MongoResponse.of(exchange).getCustomerSender());
+    }
+
+    @Test
+    public void testCollectionNotModified() throws Exception {
+        cacheResponse("/db/coll", "[]", "etag");
+
+        // the etag of the collection metadata does not identify the page
+        var exchange = exchange("GET", "/db/coll");
+        exchange.getRequestHeaders().put(Headers.IF_NONE_MATCH, "etag");
+        handler.handleRequest(exchange);
+
+        var response = MongoResponse.of(exchange);
+
+        assertTrue(handled.isEmpty());
+        assertEquals(HttpStatus.SC_OK, response.getStatusCode());
+        assertNotNull(response.getCustomerSender());
+    }
+
+    @Test
+    public void testMiss() throws Exception {
+        var exchange = exchange("GET", "/db/coll");
+        handler.handleRequest(exchange);
+
+        assertEquals(List.of(exchange), handled);
+        assertTrue(cache.isStorable(exchange));
+    }
+
+    @Test
+    public void testInvalidationAfterWrite() throws Exception {
+        cacheResponse("/db/coll", "[]", "etag");
+        cacheResponse("/db/other", "[]", "etag");
+
+        var write = exchange("PATCH", "/db/coll/doc");
+        handler.handleRequest(write);
+
+        assertEquals(List.of(write), handled);
+
+        // the response of the written collection is not cached anymore
+        var read = exchange("GET", "/db/coll");
+        handler.handleRequest(read);
+
+        assertEquals(List.of(write, read), handled);
+
+        // the other collection is not affected
+        handler.handleRequest(exchange("GET", "/db/other"));
+
+        assertEquals(2, handled.size());
+    }
+
+    @Test
+    public void testInvalidationAfterFailedWrite() throws Exception {
+        cacheResponse("/db/coll", "[]", "etag");
+
+        handler = new ResponseCacheHandler(new PipelinedHandler() {
+            @Override
+            public void handleRequest(HttpServerExchange exchange) {
+                throw new IllegalStateException("write failed");
+            }
+        }, cache);
+
+        try {
+            handler.handleRequest(exchange("DELETE", "/db/coll/doc"));
+        } catch (IllegalStateException ise) {
+            // expected
+        }
+
+        // the write could have been partially executed
+        var read = exchange("GET", "/db/coll");
+        assertNull(cache.lookup(MongoRequest.of(read)));
+    }
+
+    /**
+     * looks up the response as a missing GET and stores it, as
+     * ResponseCacheWriter does
+     */
+    private void cacheResponse(String path, String content, String etag) {
+        var exchange = exchange("GET", path);
+
+        assertNull(cache.lookup(MongoRequest.of(exchange)));
+
+        cache.store(exchange, new ResponseCache.Entry(content.getBytes(StandardCharsets.UTF_8),
+                "application/json", etag));
+    }
+
+    private static HttpServerExchange exchange(String method, String path) {
+        var exchange = new HttpServerExchange();
+        exchange.setRequestPath(path);
+        exchange.setRequestMethod(new HttpString(method));
+
+        MongoRequest.init(exchange, "/", "*")
+                .setPipelineInfo(new PipelineInfo(PipelineInfo.PIPELINE_TYPE.SERVICE, "/", "mongo"));
+        MongoResponse.init(exchange);
+
+        return exchange;
+    }
+}
@@ -0,0 +1,227 @@
+/*-
+ * ========================LICENSE_START=================================
+ * restheart-mongodb
+ * %%
+ * Copyright (C) 2014 - 2020 SoftInstigate
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * =========================LICENSE_END==================================
+ */
+package org.restheart.mongodb.handlers.changestreams;
+
+import io.undertow.websockets.core.WebSocketCallback;
+import io.undertow.websockets.core.WebSocketChannel;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.bson.BsonDocument;
+import org.bson.json.JsonMode;
+import org.junit.AfterClass;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import org.junit.Before;
+import org.junit.Test;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import org.restheart.mongodb.MongoServiceConfiguration;
+import static org.restheart.mongodb.MongoServiceConfigurationKeys.CHANGE_STREAMS_OVERFLOW_POLICY_KEY;
+import static org.restheart.mongodb.MongoServiceConfigurationKeys.CHANGE_STREAMS_SESSION_QUEUE_SIZE_KEY;
+import static org.restheart.mongodb.MongoServiceConfigurationKeys.METRICS_GATHERING_LEVEL_KEY;
+import org.xnio.ChannelListener;
+
+public class ChangeStreamWebSocketSessionTest {
+    private final SessionKey sessionKey = new SessionKey("/db/coll/_streams/s", new BsonDocument(), JsonMode.RELAXED);
+
+    private WebSocketChannel channel;
+
+    @Before
+    public void setUp() {
+        channel = mock(WebSocketChannel.class);
+        doReturn(mock(ChannelListener.Setter.class)).when(channel).getReceiveSetter();
+    }
+
+    @AfterClass
+    public static void tearDown() {
+        MongoServiceConfiguration.init(new HashMap<>());
+    }
+
+    @Test
+    public void testSend() {
+        var session = session(10, "DROP_OLDEST");
+
+        session.send(notification("a", null));
+        session.send(notification("b", null));
+
+        assertEquals(List.of("a", "b"), session.sent);
+
+        // the next notification is sent after the pending one completes
+        session.async = true;
+        session.send(notification("c", null));
+        session.send(notification("d", null));
+
+        assertEquals(List.of("a", "b", "c"), session.sent);
+
+        session.completePending();
+
+        assertEquals(List.of("a", "b", "c", "d"), session.sent);
+    }
+
+    @Test
+    public void testDropOldest() {
+        var session = session(2, "DROP_OLDEST");
+        session.async = true;
+
+        session.send(notification("a", null));
+
+        for (var n : List.of("b", "c", "d", "e")) {
+            session.send(notification(n, null));
+        }
+
+        session.completePending();
+
+        assertEquals(List.of("a", "d", "e"), session.sent);
+    }
+
+    @Test
+    public void testCoalesce() {
+        var session = session(2, "COALESCE");
+        session.async = true;
+
+        session.send(notification("a", null));
+        session.send(notification("b1", key(1)));
+        session.send(notification("c2", key(2)));
+        // replaces the queued notification of the same document
+        session.send(notification("d1", key(1)));
+        // without a queued notification of the same document, drops the oldest
+        session.send(notification("e3", key(3)));
+
+        session.completePending();
+
+        assertEquals(List.of("a", "d1", "e3"), session.sent);
+    }
+
+    @Test
+    public void testDisconnect() throws IOException {
+        var session = session(1, "DISCONNECT");
+        session.async = true;
+
+        WebSocketSessionsRegistry.getInstance().add(sessionKey, session);
+
+        session.send(notification("a", null));
+        session.send(notification("b", null));
+
+        verify(channel, never()).close();
+
+        session.send(notification("c", null));
+
+        verify(channel).close();
+        assertFalse(WebSocketSessionsRegistry.getInstance().getAll(sessionKey).contains(session));
+
+        // the queued and the next notifications are not sent
+        session.completePending();
+        session.send(notification("d", null));
+
+        assertEquals(List.of("a"), session.sent);
+    }
+
+    @Test
+    public void testSendError() throws IOException {
+        var session = session(10, "DROP_OLDEST");
+        session.async = true;
+
+        session.send(notification("a", null));
+        session.send(notification("b", null));
+
+        session.pending.poll().onError(channel, null, new IOException("broken pipe"));
+
+        verify(channel).close();
+        assertEquals(List.of("a"), session.sent);
+    }
+
+    @Test
+    public void testGetAllReturnsCopy() {
+        var key = new SessionKey("/db/coll/_streams/copy", new BsonDocument(), JsonMode.RELAXED);
+        var registry = WebSocketSessionsRegistry.getInstance();
+        var session = session(10, "DROP_OLDEST");
+
+        registry.add(key, session);
+
+        var sessions = registry.getAll(key);
+        registry.remove(key, session);
+
+        assertTrue(sessions.contains(session));
+        assertTrue(registry.getAll(key).isEmpty());
+    }
+
+    private TestSession session(int queueSize, String overflowPolicy) {
+        var conf = new HashMap<String, Object>();
+        conf.put(CHANGE_STREAMS_SESSION_QUEUE_SIZE_KEY, queueSize);
+        conf.put(CHANGE_STREAMS_OVERFLOW_POLICY_KEY, overflowPolicy);
+        conf.put(METRICS_GATHERING_LEVEL_KEY, "OFF");
+
+        MongoServiceConfiguration.init(conf);
+
+        return new TestSession(channel, sessionKey);
+    }
+
+    private static ChangeStreamNotification notification(String msg, BsonDocument documentKey) {
+        return new ChangeStreamNotification(msg, documentKey);
+    }
+
+    private static BsonDocument key(int id) {
+        return BsonDocument.parse("{'_id': " + id + "}");
+    }
+
+    /**
+     * records the sent notifications; when async, the sends complete on
+     * completePending()
+     */
+    private static class TestSession extends ChangeStreamWebSocketSession {
+        final List<String> sent = new ArrayList<>();
+        final ArrayDeque<WebSocketCallback<Void>> pending = new ArrayDeque<>();
+        boolean async = false;
+
+        TestSession(WebSocketChannel channel, SessionKey sessionKey) {
+            super(channel, sessionKey);
+        }
+
+        @Override
+        void sendFrame(ChangeStreamNotification notification, WebSocketCallback<Void> callback) {
+            sent.add(StandardCharsets.UTF_8.decode(notification.getFrame()).toString());
+
+            if (async) {
+                pending.add(callback);
+            } else {
+                callback.complete(getChannel(), null);
+            }
+        }
+
+        void completePending() {
+            async = false;
+
+            WebSocketCallback<Void> callback;
+
+            while ((callback = pending.poll()) != null) {
+                callback.complete(getChannel(), null);
+            }
+        }
+    }
+}
@@ -0,0 +1,122 @@
+/*-
+ * ========================LICENSE_START=================================
+ * restheart-mongodb
+ * %%
+ * Copyright (C) 2014 - 2020 SoftInstigate
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * =========================LICENSE_END==================================
+ */
+package org.restheart.mongodb.handlers.changestreams;
+
+import java.util.List;
+import org.bson.BsonDocument;
+import org.bson.json.JsonMode;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import org.reactivestreams.Subscription;
+import org.restheart.mongodb.handlers.changestreams.ChangeStreamsMultiplexer.StreamKey;
+
+public class ChangeStreamsMultiplexerTest {
+    private static final List<BsonDocument> STAGES = List.of(BsonDocument.parse("{'$match': {'fullDocument.a': 1}}"));
+
+    @Test
+    public void testStreamKey() {
+        var key = new StreamKey("db", "coll", STAGES);
+
+        assertEquals(key, new StreamKey("db", "coll", List.of(BsonDocument.parse("{'$match': {'fullDocument.a': 1}}"))));
+        assertEquals(key.hashCode(), new StreamKey("db", "coll", STAGES).hashCode());
+
+        assertNotEquals(key, new StreamKey("db", "coll", List.of(BsonDocument.parse("{'$match': {'fullDocument.a': 2}}"))));
+        assertNotEquals(key, new StreamKey("db", "other", STAGES));
+        assertNotEquals(key, new StreamKey("db", "coll", List.of()));
+    }
+
+    @Test
+    public void testSharedStream() {
+        var multiplexer = new ChangeStreamsMultiplexer();
+
+        // session keys with different avars or JsonMode resolving to the same stages
+        var first = new SessionKey("/db/coll/_streams/s", BsonDocument.parse("{'n': 1}"), JsonMode.RELAXED);
+        var second = new SessionKey("/db/coll/_streams/s", BsonDocument.parse("{'n': 2}"), JsonMode.EXTENDED);
+
+        var subscriber = multiplexer.subscribe(new StreamKey("db", "coll", STAGES), first);
+
+        assertNotNull(subscriber);
+        assertNull(multiplexer.subscribe(new StreamKey("db", "coll", STAGES), second));
+
+        // other stages open another stream
+        assertNotNull(multiplexer.subscribe(new StreamKey("db", "coll", List.of()), second));
+
+        assertTrue(subscriber.hasSessionKeys());
+        assertFalse(multiplexer.removeIfUnwatched(subscriber));
+    }
+
+    @Test
+    public void testRemove() {
+        var multiplexer = new ChangeStreamsMultiplexer();
+        var sessionKey = new SessionKey("/db/coll/_streams/s", new BsonDocument(), JsonMode.RELAXED);
+        var streamKey = new StreamKey("db", "coll", STAGES);
+
+        var terminated = multiplexer.subscribe(streamKey, sessionKey);
+        var stale = new ChangeStreamSubscriber(streamKey);
+
+        // a subscriber that is not the current one of the stream is ignored
+        multiplexer.remove(stale);
+        assertFalse(multiplexer.removeIfUnwatched(stale));
+        assertNull(multiplexer.subscribe(streamKey, sessionKey));
+
+        // after the stream terminates, the next session key opens a new one
+        multiplexer.remove(terminated);
+
+        var reopened = multiplexer.subscribe(streamKey, sessionKey);
+
+        assertNotNull(reopened);
+        assertNotSame(terminated, reopened);
+    }
+
+    @Test
+    public void testUnwatchedStreamIsClosed() {
+        var multiplexer = ChangeStreamsMultiplexer.getInstance();
+        var sessionKey = new SessionKey("/db/unwatched/_streams/s", new BsonDocument(), JsonMode.RELAXED);
+        var streamKey = new StreamKey("db", "unwatched", STAGES);
+
+        var subscription = mock(Subscription.class);
+        var subscriber = multiplexer.subscribe(streamKey, sessionKey);
+
+        subscriber.onSubscribe(subscription);
+        verify(subscription, times(1)).request(1);
+        verify(subscription, never()).cancel();
+
+        // the session key has no WebSocket sessions
+        subscriber.onNext(null);
+
+        assertFalse(subscriber.hasSessionKeys());
+        verify(subscription, times(1)).request(1);
+        verify(subscription, times(1)).cancel();
+
+        // the closed stream is not shared anymore
+        assertNotNull(multiplexer.subscribe(streamKey, sessionKey));
+    }
+}
@@ -0,0 +1,142 @@
+/*-
+ * ========================LICENSE_START=================================
+ * restheart-mongodb
+ * %%
+ * Copyright (C) 2014 - 2020 SoftInstigate
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * =========================LICENSE_END==================================
+ */
+package org.restheart.mongodb.handlers.document;
+
+import io.undertow.server.HttpServerExchange;
+import io.undertow.util.HttpString;
+import org.bson.BsonDocument;
+import org.bson.BsonInt32;
+import org.bson.BsonObjectId;
+import org.bson.BsonString;
+import org.bson.types.ObjectId;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import org.junit.Before;
+import org.junit.Test;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import org.restheart.exchange.MongoRequest;
+import org.restheart.exchange.MongoResponse;
+import org.restheart.exchange.OperationResult;
+import org.restheart.exchange.PipelineInfo;
+import org.restheart.mongodb.db.DocumentDAO;
+import org.restheart.utils.HttpStatus;
+
+public class PatchDocumentHandlerTest {
+    private static final BsonObjectId CHECKED_ETAG = new BsonObjectId(new ObjectId());
+
+    private static final BsonDocument CHECKED = new BsonDocument("_id", new BsonString("doc"))
+            .append("a", new BsonInt32(1))
+            .append("_etag", CHECKED_ETAG);
+
+    private DocumentDAO dao;
+
+    private PatchDocumentHandler handler;
+
+    @Before
+    public void setUp() {
+        dao = mock(DocumentDAO.class);
+        handler = new PatchDocumentHandler(dao);
+    }
+
+    @Test
+    public void testWriteConditionalOnCheckedDocument() throws Exception {
+        var exchange = exchange(CHECKED);
+
+        when(written(CHECKED)).thenReturn(new OperationResult(HttpStatus.SC_OK, new ObjectId(), null, CHECKED));
+
+        handler.handleRequest(exchange);
+
+        assertFalse(MongoRequest.of(exchange).isInError());
+        assertEquals(HttpStatus.SC_OK, MongoResponse.of(exchange).getStatusCode());
+    }
+
+    @Test
+    public void testModifiedAfterCheck() throws Exception {
+        var exchange = exchange(CHECKED);
+
+        var current = CHECKED.clone().append("_etag", new BsonObjectId(new ObjectId()));
+
+        // without the request etag, a failed condition is a conflict
+        when(written(CHECKED)).thenReturn(new OperationResult(HttpStatus.SC_CONFLICT,
+                current.get("_etag"), current, null));
+
+        handler.handleRequest(exchange);
+
+        assertTrue(MongoRequest.of(exchange).isInError());
+        assertEquals(HttpStatus.SC_PRECONDITION_FAILED, MongoResponse.of(exchange).getStatusCode());
+    }
+
+    @Test
+    public void testCreatedAfterCheck() throws Exception {
+        var checked = new BsonDocument();
+        var exchange = exchange(checked);
+
+        when(written(checked)).thenReturn(new OperationResult(HttpStatus.SC_CONFLICT,
+                CHECKED_ETAG, CHECKED, null));
+
+        handler.handleRequest(exchange);
+
+        assertTrue(MongoRequest.of(exchange).isInError());
+        assertEquals(HttpStatus.SC_PRECONDITION_FAILED, MongoResponse.of(exchange).getStatusCode());
+    }
+
+    @Test
+    public void testConflictOnCheckedDocument() throws Exception {
+        var exchange = exchange(CHECKED);
+
+        // the document was not modified, the request misses the etag
+        when(written(CHECKED)).thenReturn(new OperationResult(HttpStatus.SC_CONFLICT,
+                CHECKED_ETAG, CHECKED, null));
+
+        handler.handleRequest(exchange);
+
+        assertTrue(MongoRequest.of(exchange).isInError());
+        assertEquals(HttpStatus.SC_CONFLICT, MongoResponse.of(exchange).getStatusCode());
+    }
+
+    private OperationResult written(BsonDocument checked) {
+        return dao.writeDocument(isNull(), eq("db"), eq("coll"), any(), any(), any(), any(),
+                any(), anyBoolean(), any(), anyBoolean(), eq(checked));
+    }
+
+    private static HttpServerExchange exchange(BsonDocument checked) {
+        var exchange = new HttpServerExchange();
+        exchange.setRequestPath("/db/coll/doc");
+        exchange.setRequestMethod(new HttpString("PATCH"));
+
+        MongoRequest.init(exchange, "/", "*")
+                .setPipelineInfo(new PipelineInfo(PipelineInfo.PIPELINE_TYPE.SERVICE, "/", "mongo"));
+        MongoResponse.init(exchange);
+
+        // set by BsonRequestPropsInjector in the pipeline
+        MongoRequest.of(exchange).setDocumentId(new BsonString("doc"));
+        MongoRequest.of(exchange).setContent(new BsonDocument("$set", new BsonDocument("a", new BsonInt32(2))));
+        exchange.putAttachment(PatchDocumentHandler.CHECKED_DOCUMENT_KEY, checked);
+
+        return exchange;
+    }
+}
@@ -0,0 +1,71 @@
+/*-
+ * ========================LICENSE_START=================================
+ * restheart-mongodb
+ * %%
+ * Copyright (C) 2014 - 2020 SoftInstigate
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * =========================LICENSE_END==================================
+ */
+package org.restheart.mongodb.handlers.files;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import java.util.List;
+import org.junit.Test;
+
+public class GetFileBinaryHandlerTest {
+
+    @Test
+    public void testParseSingleRange() {
+        assertRanges(GetFileBinaryHandler.parseRanges("bytes=0-99", 1000), 0, 99);
+        assertRanges(GetFileBinaryHandler.parseRanges("bytes=900-", 1000), 900, 999);
+        assertRanges(GetFileBinaryHandler.parseRanges("bytes=-100", 1000), 900, 999);
+        assertRanges(GetFileBinaryHandler.parseRanges("bytes=-2000", 1000), 0, 999);
+        assertRanges(GetFileBinaryHandler.parseRanges("bytes=500-5000", 1000), 500, 999);
+    }
+
+    @Test
+    public void testParseMultipleRanges() {
+        assertRanges(GetFileBinaryHandler.parseRanges("bytes=0-9,20-29,-5", 1000), 0, 9, 20, 29, 995, 999);
+
+        // the unsatisfiable ranges are ignored
+        assertRanges(GetFileBinaryHandler.parseRanges("bytes=0-9,2000-2009", 1000), 0, 9);
+    }
+
+    @Test
+    public void testParseUnsatisfiableRanges() {
+        assertTrue(GetFileBinaryHandler.parseRanges("bytes=1000-", 1000).isEmpty());
+        assertTrue(GetFileBinaryHandler.parseRanges("bytes=2000-2009", 1000).isEmpty());
+        assertTrue(GetFileBinaryHandler.parseRanges("bytes=0-", 0).isEmpty());
+    }
+
+    @Test
+    public void testParseInvalidRanges() {
+        assertNull(GetFileBinaryHandler.parseRanges(null, 1000));
+        assertNull(GetFileBinaryHandler.parseRanges("bytes=10-5", 1000));
+        assertNull(GetFileBinaryHandler.parseRanges("items=0-9", 1000));
+        assertNull(GetFileBinaryHandler.parseRanges("bytes=a-b", 1000));
+    }
+
+    private static void assertRanges(List<long[]> actual, long... expected) {
+        assertEquals(expected.length / 2, actual.size());
+
+        for (int i = 0; i < actual.size(); i++) {
+            assertArrayEquals(new long[] { expected[i * 2], expected[i * 2 + 1] }, actual.get(i));
+        }
+    }
+}
@@ -0,0 +1,71 @@
+/*-
+ * ========================LICENSE_START=================================
+ * restheart-mongodb
+ * %%
+ * Copyright (C) 2014 - 2020 SoftInstigate
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * =========================LICENSE_END==================================
+ */
+package org.restheart.mongodb.handlers.metrics;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+public class LockFreeHistogramReservoirTest {
+
+    @Test
+    public void testBuckets() {
+        int previous = -1;
+
+        for (long value = 0; value < 1_000_000; value += 1 + value / 100) {
+            var index = LockFreeHistogramReservoir.index(value);
+
+            assertTrue(index >= previous);
+            assertTrue(index < LockFreeHistogramReservoir.BUCKETS);
+
+            // the value of the bucket is within 3% of the actual value
+            assertTrue(Math.abs(LockFreeHistogramReservoir.value(index) - value) <= value * 0.03);
+
+            previous = index;
+        }
+
+        assertEquals(LockFreeHistogramReservoir.BUCKETS - 1, LockFreeHistogramReservoir.index(Long.MAX_VALUE));
+    }
+
+    @Test
+    public void testSnapshot() {
+        var reservoir = new LockFreeHistogramReservoir();
+
+        assertEquals(0, reservoir.getSnapshot().getMax());
+        assertEquals(0.0, reservoir.getSnapshot().getMedian(), 0.0);
+
+        for (long value = 1; value <= 10_000; value++) {
+            reservoir.update(value * 1000);
+        }
+
+        var snapshot = reservoir.getSnapshot();
+
+        assertEquals(10_000, snapshot.size());
+        assertEquals(1000, snapshot.getMin());
+        assertEquals(10_000_000, snapshot.getMax());
+        assertEquals(5_000_500, snapshot.getMean(), 0.0);
+
+        assertEquals(5_000_000, snapshot.getMedian(), 5_000_000 * 0.03);
+        assertEquals(9_900_000, snapshot.get99thPercentile(), 9_900_000 * 0.03);
+        assertEquals(1000, snapshot.getValue(0.0), 0.0);
+        assertEquals(10_000_000, snapshot.getValue(1.0), 10_000_000 * 0.03);
+    }
+}
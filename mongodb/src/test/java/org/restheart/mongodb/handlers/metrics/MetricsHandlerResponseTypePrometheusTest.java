@@ -27,6 +27,8 @@ import java.util.concurrent.TimeUnit;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
 import org.junit.Before;
 import org.junit.Test;
 import static org.restheart.mongodb.MongoServiceConfiguration.METRICS_GATHERING_LEVEL.COLLECTION;
@@ -214,6 +216,26 @@ public class MetricsHandlerResponseTypePrometheusTest {
         assertMetrics(expectedMetrics, MetricsHandler.ResponseType.PROMETHEUS.generateResponse(ROOT, collectionRegistry));
     }
 
+    /**
+     *
+     * @throws IOException
+     */
+    @Test
+    public void testOpenMetricsForRoot() throws IOException {
+        String metrics = MetricsHandler.ResponseType.OPENMETRICS.generateResponse(ROOT, rootRegistry);
+
+        // the samples of each family are contiguous and preceded by its metadata
+        String[] families = metrics.split("# TYPE ");
+        assertEquals(16, families.length);
+        assertEquals("", families[0]);
+        assertTrue(families[1].startsWith("http_response_timers_count unknown\n"));
+        assertEquals(4, families[1].split("\n").length);
+        assertTrue(families[1].contains("http_response_timers_count{database=\"fancy-shop\",collection=\"products\",type=\"requests\",method=\"GET\",code=\"2xx\"} 1 "));
+        assertTrue(metrics.endsWith("\n# EOF\n"));
+        assertFalse(metrics.contains("\n\n"));
+        assertTrue(Pattern.compile("\\} 3 \\d+\\.\\d{3}\n").matcher(families[1]).find());
+    }
+
     private void assertMetrics(String expectedMetrics, String metrics) {
         assertEquals(expectedMetrics, replaceDynamicValues(metrics));
     }
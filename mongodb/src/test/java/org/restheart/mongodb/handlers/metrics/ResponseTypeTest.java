@@ -80,6 +80,8 @@ public class ResponseTypeTest {
         assertEquals(ResponseType.PROMETHEUS, ResponseType.forAcceptHeader("text/plain, application/json"));
         assertEquals(ResponseType.JSON, ResponseType.forAcceptHeader("text/plain; q=0.1, application/json"));
         assertEquals(ResponseType.JSON, ResponseType.forAcceptHeader("text/plain; q=0.1, application/json; q=1.0"));
+        assertEquals(ResponseType.OPENMETRICS, ResponseType.forAcceptHeader("application/openmetrics-text;version=1.0.0,application/openmetrics-text;version=0.0.1;q=0.75,text/plain;version=0.0.4;q=0.5,*/*;q=0.1"));
+        assertEquals(ResponseType.PROMETHEUS, ResponseType.forAcceptHeader("application/openmetrics-text;version=0.0.1,text/plain;version=0.0.4;q=0.5"));
 
         assertEquals(ResponseType.JSON, ResponseType.forQueryParameter("PLAIN_JSON"));
         assertEquals(ResponseType.JSON, ResponseType.forQueryParameter("PJ"));
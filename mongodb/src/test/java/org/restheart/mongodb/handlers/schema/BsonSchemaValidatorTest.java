@@ -0,0 +1,194 @@
+/*-
+ * ========================LICENSE_START=================================
+ * restheart-mongodb
+ * %%
+ * Copyright (C) 2014 - 2020 SoftInstigate
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * =========================LICENSE_END==================================
+ */
+package org.restheart.mongodb.handlers.schema;
+
+import java.util.Map;
+import org.bson.BsonDateTime;
+import org.bson.BsonDocument;
+import org.bson.BsonObjectId;
+import org.everit.json.schema.Schema;
+import org.everit.json.schema.ValidationException;
+import org.everit.json.schema.loader.SchemaLoader;
+import org.json.JSONObject;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+public class BsonSchemaValidatorTest {
+    private static final String SCHEMA = "{"
+            + "'$schema': 'http://json-schema.org/draft-04/schema#',"
+            + "'type': 'object',"
+            + "'required': ['name', 'qty'],"
+            + "'additionalProperties': false,"
+            + "'properties': {"
+            + "  '_id': { 'type': 'object', 'required': ['$oid'] },"
+            + "  'name': { 'type': 'string', 'minLength': 2, 'maxLength': 5, 'pattern': '^[a-z]+$' },"
+            + "  'qty': { 'type': 'integer', 'minimum': 0, 'maximum': 10, 'exclusiveMaximum': true },"
+            + "  'price': { 'type': ['number', 'null'], 'multipleOf': 0.5 },"
+            + "  'status': { 'enum': ['A', 'B', 1] },"
+            + "  'tags': { 'type': 'array', 'items': { 'type': 'string' }, 'minItems': 1, 'maxItems': 3, 'uniqueItems': true },"
+            + "  'address': { '$ref': '#/definitions/address' },"
+            + "  'date': { 'type': 'object', 'required': ['$date'] },"
+            + "  'alt': { 'oneOf': [ { 'type': 'string' }, { 'type': 'integer' } ] },"
+            + "  'neg': { 'not': { 'type': 'string' } },"
+            + "  'any': { 'anyOf': [ { 'type': 'boolean' }, { 'type': 'array' } ] }"
+            + "},"
+            + "'patternProperties': { '^x-': { 'type': 'string' } },"
+            + "'dependencies': { 'price': ['status'] },"
+            + "'definitions': {"
+            + "  'address': { 'type': 'object', 'required': ['city'], 'properties': { 'city': { 'type': 'string' }, 'next': { '$ref': '#/definitions/address' } } }"
+            + "}"
+            + "}";
+
+    private static final String[] DOCUMENTS = {
+        "{'name': 'abc', 'qty': 1}",
+        "{'name': 'abc'}",
+        "{'name': 'a', 'qty': 1}",
+        "{'name': 'abcdef', 'qty': 1}",
+        "{'name': 'ABC', 'qty': 1}",
+        "{'name': 1, 'qty': 1}",
+        "{'name': 'abc', 'qty': 1.0}",
+        "{'name': 'abc', 'qty': {'$numberLong': '3'}}",
+        "{'name': 'abc', 'qty': -1}",
+        "{'name': 'abc', 'qty': 10}",
+        "{'name': 'abc', 'qty': 9}",
+        "{'name': 'abc', 'qty': 1, 'price': 1.5, 'status': 'A'}",
+        "{'name': 'abc', 'qty': 1, 'price': 1.2, 'status': 'A'}",
+        "{'name': 'abc', 'qty': 1, 'price': null, 'status': 'A'}",
+        "{'name': 'abc', 'qty': 1, 'price': 2}",
+        "{'name': 'abc', 'qty': 1, 'status': 'C'}",
+        "{'name': 'abc', 'qty': 1, 'status': 1}",
+        "{'name': 'abc', 'qty': 1, 'tags': ['a', 'b']}",
+        "{'name': 'abc', 'qty': 1, 'tags': []}",
+        "{'name': 'abc', 'qty': 1, 'tags': ['a', 'a']}",
+        "{'name': 'abc', 'qty': 1, 'tags': ['a', 'b', 'c', 'd']}",
+        "{'name': 'abc', 'qty': 1, 'tags': ['a', 1]}",
+        "{'name': 'abc', 'qty': 1, 'other': 1}",
+        "{'name': 'abc', 'qty': 1, 'x-foo': 'bar'}",
+        "{'name': 'abc', 'qty': 1, 'x-foo': 1}",
+        "{'name': 'abc', 'qty': 1, 'address': {'city': 'Rome'}}",
+        "{'name': 'abc', 'qty': 1, 'address': {'city': 'Rome', 'next': {'city': 'Milan'}}}",
+        "{'name': 'abc', 'qty': 1, 'address': {'city': 'Rome', 'next': {'street': 'x'}}}",
+        "{'name': 'abc', 'qty': 1, 'address': 'Rome'}",
+        "{'name': 'abc', 'qty': 1, 'alt': 'a'}",
+        "{'name': 'abc', 'qty': 1, 'alt': 1}",
+        "{'name': 'abc', 'qty': 1, 'alt': true}",
+        "{'name': 'abc', 'qty': 1, 'neg': 'a'}",
+        "{'name': 'abc', 'qty': 1, 'neg': 1}",
+        "{'name': 'abc', 'qty': 1, 'any': true}",
+        "{'name': 'abc', 'qty': 1, 'any': 'a'}",
+        "{'name': 1, 'qty': 'a', 'other': 1}"
+    };
+
+    @Test
+    public void testSameValidityAsEverit() {
+        var raw = BsonDocument.parse(SCHEMA);
+        var everit = everit(raw);
+        var validator = BsonSchemaValidator.compile(raw, null, () -> everit);
+
+        assertTrue(validator.isNative());
+
+        for (var json : DOCUMENTS) {
+            var doc = BsonDocument.parse(json);
+
+            assertEquals(json, isValid(everit, doc), validator.validate(doc).isEmpty());
+        }
+    }
+
+    @Test
+    public void testExtendedJsonValues() {
+        var raw = BsonDocument.parse(SCHEMA);
+        var everit = everit(raw);
+        var validator = BsonSchemaValidator.compile(raw, null, () -> everit);
+
+        var doc = new BsonDocument("_id", new BsonObjectId())
+                .append("name", new org.bson.BsonString("abc"))
+                .append("qty", new org.bson.BsonInt32(1))
+                .append("date", new BsonDateTime(System.currentTimeMillis()));
+
+        assertTrue(isValid(everit, doc));
+        assertTrue(validator.validate(doc).isEmpty());
+
+        doc.put("name", new BsonDateTime(0));
+
+        assertFalse(isValid(everit, doc));
+        assertEquals(1, validator.validate(doc).size());
+    }
+
+    @Test
+    public void testErrors() {
+        var raw = BsonDocument.parse(SCHEMA);
+        var validator = BsonSchemaValidator.compile(raw, null, () -> everit(raw));
+
+        var errors = validator.validate(BsonDocument.parse("{'name': 1, 'qty': 'a', 'other': 1}"));
+
+        assertEquals(4, errors.size());
+        assertEquals("#: 3 schema violations found", errors.get(0));
+        assertTrue(errors.contains("#/name: expected type: String, found: Integer"));
+        assertTrue(errors.contains("#/qty: expected type: Integer, found: String"));
+        assertTrue(errors.contains("#: extraneous key [other] is not permitted"));
+
+        errors = validator.validate(BsonDocument.parse("{'name': 'abc'}"));
+
+        assertEquals(1, errors.size());
+        assertEquals("#: required key [qty] not found", errors.get(0));
+    }
+
+    @Test
+    public void testFallback() {
+        var raw = BsonDocument.parse("{'type': 'object', 'properties': { 'email': { 'type': 'string', 'format': 'email' } } }");
+        var everit = everit(raw);
+        var validator = BsonSchemaValidator.compile(raw, null, () -> everit);
+
+        assertFalse(validator.isNative());
+        assertTrue(validator.validate(BsonDocument.parse("{'email': 'a@b.com'}")).isEmpty());
+        assertFalse(validator.validate(BsonDocument.parse("{'email': 'nope'}")).isEmpty());
+    }
+
+    @Test
+    public void testSchemaStoreRef() {
+        var address = BsonDocument.parse("{'type': 'object', 'required': ['city']}");
+        var raw = BsonDocument.parse("{'type': 'object', 'properties': { 'address': { '$ref': 'http://schema-store/db/address#' } } }");
+        var store = Map.of("http://schema-store/db/address", address);
+
+        var validator = BsonSchemaValidator.compile(raw, store::get, () -> {
+            throw new IllegalStateException();
+        });
+
+        assertTrue(validator.isNative());
+        assertTrue(validator.validate(BsonDocument.parse("{'address': {'city': 'Rome'}}")).isEmpty());
+        assertFalse(validator.validate(BsonDocument.parse("{'address': {}}")).isEmpty());
+    }
+
+    private static Schema everit(BsonDocument raw) {
+        return SchemaLoader.load(new JSONObject(raw.toJson()));
+    }
+
+    private static boolean isValid(Schema schema, BsonDocument doc) {
+        try {
+            schema.validate(new JSONObject(doc.toJson()));
+            return true;
+        } catch (ValidationException ve) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,228 @@
+/*-
+ * ========================LICENSE_START=================================
+ * restheart-mongodb
+ * %%
+ * Copyright (C) 2014 - 2020 SoftInstigate
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * =========================LICENSE_END==================================
+ */
+package org.restheart.mongodb.interceptors;
+
+import io.undertow.security.api.SecurityContext;
+import io.undertow.security.idm.Account;
+import io.undertow.server.HttpServerExchange;
+import io.undertow.util.HttpString;
+import java.nio.charset.StandardCharsets;
+import java.security.Principal;
+import java.util.ArrayDeque;
+import java.util.List;
+import java.util.Set;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import org.junit.Test;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.restheart.exchange.ExchangeKeys.REPRESENTATION_FORMAT;
+import org.restheart.exchange.MongoRequest;
+
+public class ResponseCacheTest {
+    private static final String SEP = "_@_@_";
+
+    private static ResponseCache.Entry entry(String content) {
+        return new ResponseCache.Entry(content.getBytes(StandardCharsets.UTF_8), "application/json", "etag");
+    }
+
+    private static String key(String db, String coll, String path) {
+        return db + SEP + coll + SEP + path;
+    }
+
+    /**
+     * @param qparams the query parameters as name, value pairs
+     */
+    private static MongoRequest request(String path, String... qparams) {
+        var exchange = new HttpServerExchange();
+        exchange.setRequestPath(path);
+        exchange.setRequestMethod(new HttpString("GET"));
+
+        for (var i = 0; i < qparams.length; i += 2) {
+            exchange.addQueryParam(qparams[i], qparams[i + 1]);
+        }
+
+        return MongoRequest.init(exchange, "/", "*");
+    }
+
+    private static void authenticate(MongoRequest request, String... roles) {
+        var account = new Account() {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            public Principal getPrincipal() {
+                return () -> "user";
+            }
+
+            @Override
+            public Set<String> getRoles() {
+                return Set.of(roles);
+            }
+        };
+
+        var sc = mock(SecurityContext.class);
+        when(sc.getAuthenticatedAccount()).thenReturn(account);
+
+        request.getExchange().setSecurityContext(sc);
+    }
+
+    @Test
+    public void testKeyRoles() {
+        var admin = request("/db/coll");
+        var user = request("/db/coll");
+        var anonymous = request("/db/coll");
+
+        authenticate(admin, "user", "admin");
+        authenticate(user, "user");
+
+        assertNotEquals(ResponseCache.key(admin), ResponseCache.key(user));
+        assertNotEquals(ResponseCache.key(user), ResponseCache.key(anonymous));
+
+        // the order of the roles does not matter
+        var admin2 = request("/db/coll");
+        authenticate(admin2, "admin", "user");
+
+        assertEquals(ResponseCache.key(admin), ResponseCache.key(admin2));
+    }
+
+    @Test
+    public void testKeyFilters() {
+        var r1 = request("/db/coll", "filter", "{'a':1}");
+        var r2 = request("/db/coll", "filter", "{'a':1}");
+        var r3 = request("/db/coll", "filter", "{'a':1}");
+
+        r1.setFilter(new ArrayDeque<>(List.of("{'a':1}")));
+        r2.setFilter(new ArrayDeque<>(List.of("{'a':1}")));
+        r3.setFilter(new ArrayDeque<>(List.of("{'a':1}")));
+
+        assertEquals(ResponseCache.key(r1), ResponseCache.key(r2));
+
+        // e.g. the read filter of the ACL permission that allows the request
+        r3.getFilter().add("{'owner':'user'}");
+
+        assertNotEquals(ResponseCache.key(r1), ResponseCache.key(r3));
+    }
+
+    @Test
+    public void testKeyQueryParameters() {
+        var r1 = request("/db/coll", "page", "2", "pagesize", "10", "sort", "{'a':1}");
+        var r2 = request("/db/coll", "sort", "{'a':1}", "pagesize", "10", "page", "2");
+        var r3 = request("/db/coll", "page", "3", "pagesize", "10", "sort", "{'a':1}");
+        var r4 = request("/db/coll2", "page", "2", "pagesize", "10", "sort", "{'a':1}");
+
+        assertEquals(ResponseCache.key(r1), ResponseCache.key(r2));
+        assertNotEquals(ResponseCache.key(r1), ResponseCache.key(r3));
+        assertNotEquals(ResponseCache.key(r1), ResponseCache.key(r4));
+
+        // the key starts with the namespace, used by the invalidations
+        assertEquals(0, ResponseCache.key(r1).indexOf(key("db", "coll", "/db/coll")));
+    }
+
+    @Test
+    public void testKeyRepresentationFormat() {
+        var r1 = request("/db/coll");
+        var r2 = request("/db/coll");
+
+        r1.setRepresentationFormat(REPRESENTATION_FORMAT.STANDARD);
+        r2.setRepresentationFormat(REPRESENTATION_FORMAT.HAL);
+
+        assertNotEquals(ResponseCache.key(r1), ResponseCache.key(r2));
+    }
+
+    @Test
+    public void testStore() {
+        var cache = new ResponseCache(100, 60_000);
+        var key = key("db", "coll", "/db/coll");
+
+        cache.store(cache.cacheable(key, "db", "coll"), entry("[]"));
+
+        assertNotNull(cache.get(key));
+        assertEquals("[]", new String(cache.get(key).getContent(), StandardCharsets.UTF_8));
+        assertEquals("etag", cache.get(key).getEtag());
+    }
+
+    @Test
+    public void testInvalidations() {
+        var cache = new ResponseCache(100, 60_000);
+        var coll1 = key("db", "coll1", "/db/coll1");
+        var coll2 = key("db", "coll2", "/db/coll2");
+        var db2 = key("db2", "coll1", "/db2/coll1");
+
+        cache.store(cache.cacheable(coll1, "db", "coll1"), entry("1"));
+        cache.store(cache.cacheable(coll2, "db", "coll2"), entry("2"));
+        cache.store(cache.cacheable(db2, "db2", "coll1"), entry("3"));
+
+        cache.invalidateCollection("db", "coll1");
+
+        assertNull(cache.get(coll1));
+        assertNotNull(cache.get(coll2));
+        assertNotNull(cache.get(db2));
+
+        cache.invalidateDb("db");
+
+        assertNull(cache.get(coll2));
+        assertNotNull(cache.get(db2));
+
+        cache.invalidateAll();
+
+        assertNull(cache.get(db2));
+    }
+
+    @Test
+    public void testResponseReadBeforeInvalidationIsNotStored() {
+        var cache = new ResponseCache(100, 60_000);
+        var key = key("db", "coll", "/db/coll");
+
+        // looked up, then a write invalidates the collection before the
+        // response is stored
+        var cacheable = cache.cacheable(key, "db", "coll");
+        cache.invalidateCollection("db", "coll");
+        cache.store(cacheable, entry("stale"));
+
+        assertNull(cache.get(key));
+
+        cacheable = cache.cacheable(key, "db", "coll");
+        cache.invalidateDb("db");
+        cache.store(cacheable, entry("stale"));
+
+        assertNull(cache.get(key));
+
+        // other namespaces are not affected
+        cacheable = cache.cacheable(key, "db", "coll");
+        cache.invalidateCollection("db", "other");
+        cache.store(cacheable, entry("fresh"));
+
+        assertNotNull(cache.get(key));
+    }
+
+    @Test
+    public void testDisabled() {
+        var cache = new ResponseCache(0, 60_000);
+
+        assertFalse(cache.isEnabled());
+
+        // no-op
+        cache.invalidateAll();
+    }
+}
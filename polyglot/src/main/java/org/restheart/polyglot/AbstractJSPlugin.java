@@ -20,10 +20,6 @@
  */
 package org.restheart.polyglot;
 
-import java.util.Map;
-
-import org.graalvm.polyglot.Context;
-import org.graalvm.polyglot.Engine;
 import org.restheart.plugins.InterceptPoint;
 import org.restheart.plugins.RegisterPlugin.MATCH_POLICY;
 
@@ -63,13 +59,10 @@ public abstract class AbstractJSPlugin {
         this.interceptPoint = interceptPoint;
     }
 
-    protected Context context(Engine engine, Map<String, String> OPTS) {
-        return Context.newBuilder().engine(engine).allowAllAccess(true)
-                .allowHostClassLookup(className -> true)
-                .allowIO(true)
-                .allowExperimentalOptions(true)
-                .options(OPTS)
-                .build();
+    /**
+     * Releases the resources of the plugin, invoked when it is undeployed
+     */
+    public void close() {
     }
 
     public String getName() {
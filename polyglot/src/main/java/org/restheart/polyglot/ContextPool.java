@@ -0,0 +1,292 @@
+/*-
+ * ========================LICENSE_START=================================
+ * restheart-polyglot
+ * %%
+ * Copyright (C) 2020 - 2021 SoftInstigate
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * =========================LICENSE_END==================================
+ */
+package org.restheart.polyglot;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import com.codahale.metrics.SharedMetricRegistries;
+import com.codahale.metrics.Timer;
+
+import org.graalvm.polyglot.Context;
+import org.graalvm.polyglot.Engine;
+import org.graalvm.polyglot.PolyglotException;
+import org.graalvm.polyglot.Source;
+import org.graalvm.polyglot.Value;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A bounded pool of contexts of a JavaScript plugin. Each context has
+ * already evaluated the plugin source, so that a request just invokes its
+ * members (e.g. handle and resolve).
+ *
+ * A context is used by one thread at a time; contexts are created on demand
+ * up to the pool size, then checkout waits for a context to be returned. A
+ * context is closed and replaced after the configured number of uses, to
+ * discard the state that the script can leave in the global scope.
+ *
+ * The size and the number of uses can be set via the plugin args with the
+ * keys context-pool-size and context-recycle-after (0 means never recycle).
+ *
+ * The time spent waiting for a context is recorded by the timer
+ * polyglot.{plugin-name}.context-pool.wait of the default metrics registry.
+ */
+public class ContextPool {
+    private static final Logger LOGGER = LoggerFactory.getLogger(ContextPool.class);
+
+    public static final String POOL_SIZE_KEY = "context-pool-size";
+    public static final String RECYCLE_AFTER_KEY = "context-recycle-after";
+
+    public static final int DEFAULT_POOL_SIZE = Runtime.getRuntime().availableProcessors();
+    public static final int DEFAULT_RECYCLE_AFTER = 10_000;
+
+    // the name of the default registry of the metrics plugin
+    private static final String DEFAULT_METRICS_REGISTRY = "default";
+
+    // how long checkout waits before checking if a recycled context can be replaced
+    private static final long CHECKOUT_POLL_MILLIS = 10;
+
+    private final String pluginName;
+    private final Engine engine;
+    private final Source source;
+    private final Map<String, String> options;
+    private final Map<String, Object> bindings;
+    private final String[] members;
+
+    private final int size;
+    private final int recycleAfter;
+
+    private final BlockingQueue<PooledContext> idle;
+    private final AtomicInteger created = new AtomicInteger(0);
+    private final Timer waitTimer;
+
+    private volatile boolean closed = false;
+
+    /**
+     *
+     * @param pluginName the name of the plugin
+     * @param engine the engine shared by the contexts
+     * @param source the source of the plugin
+     * @param options the options of the contexts
+     * @param bindings the members to put in the js bindings of the contexts
+     * @param pluginArgs the args of the plugin, to get the pool configuration
+     * @param members the members of the evaluated source to get once
+     */
+    public ContextPool(String pluginName,
+        Engine engine,
+        Source source,
+        Map<String, String> options,
+        Map<String, Object> bindings,
+        Map<String, Object> pluginArgs,
+        String... members) {
+        this.pluginName = pluginName;
+        this.engine = engine;
+        this.source = source;
+        this.options = new HashMap<>(options);
+        this.bindings = new HashMap<>(bindings);
+        this.members = members;
+
+        this.size = Math.max(1, intArg(pluginArgs, POOL_SIZE_KEY, DEFAULT_POOL_SIZE));
+        this.recycleAfter = Math.max(0, intArg(pluginArgs, RECYCLE_AFTER_KEY, DEFAULT_RECYCLE_AFTER));
+
+        this.idle = new ArrayBlockingQueue<>(this.size);
+        this.waitTimer = SharedMetricRegistries.getOrCreate(DEFAULT_METRICS_REGISTRY)
+            .timer("polyglot." + pluginName + ".context-pool.wait");
+
+        LOGGER.debug("context pool of plugin {}: size {}, recycle after {} uses", pluginName, this.size, this.recycleAfter);
+    }
+
+    /**
+     * Checks out a context, applies fn to it and returns the context to the
+     * pool
+     *
+     * fn must not return guest values, i.e. instances of {@link Value}:
+     * once the context is back in the pool it can be used by another thread,
+     * and a context cannot be accessed by multiple threads.
+     *
+     * @param <T>
+     * @param fn the function to apply
+     * @return the value returned by fn
+     */
+    public <T> T apply(Function<PooledContext, T> fn) {
+        var ctx = checkout();
+        var discard = false;
+
+        try {
+            return fn.apply(ctx);
+        } catch (PolyglotException pe) {
+            // a context that was cancelled or failed with an internal error cannot be reused
+            discard = !pe.isGuestException() || pe.isExit();
+            throw pe;
+        } catch (Throwable t) {
+            discard = true;
+            throw t;
+        } finally {
+            release(ctx, discard);
+        }
+    }
+
+    private PooledContext checkout() {
+        var start = System.nanoTime();
+
+        try {
+            while (true) {
+                if (this.closed) {
+                    throw new IllegalStateException("context pool of plugin " + pluginName + " is closed");
+                }
+
+                var ctx = this.idle.poll();
+
+                if (ctx != null) {
+                    return ctx;
+                }
+
+                var count = this.created.get();
+
+                if (count < this.size) {
+                    if (this.created.compareAndSet(count, count + 1)) {
+                        try {
+                            return create();
+                        } catch (Throwable t) {
+                            this.created.decrementAndGet();
+                            throw t;
+                        }
+                    }
+                } else {
+                    try {
+                        ctx = this.idle.poll(CHECKOUT_POLL_MILLIS, TimeUnit.MILLISECONDS);
+                    } catch (InterruptedException ie) {
+                        Thread.currentThread().interrupt();
+                        throw new IllegalStateException("interrupted waiting for a context of plugin " + pluginName, ie);
+                    }
+
+                    if (ctx != null) {
+                        return ctx;
+                    }
+                }
+            }
+        } finally {
+            this.waitTimer.update(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private void release(PooledContext ctx, boolean discard) {
+        ctx.uses++;
+
+        if (discard || this.closed || (this.recycleAfter > 0 && ctx.uses >= this.recycleAfter) || !this.idle.offer(ctx)) {
+            this.created.decrementAndGet();
+            ctx.close();
+        }
+    }
+
+    private PooledContext create() {
+        var ctx = Context.newBuilder().engine(engine).allowAllAccess(true)
+            .allowHostClassLookup(className -> true)
+            .allowIO(true)
+            .allowExperimentalOptions(true)
+            .options(this.options)
+            .build();
+
+        try {
+            var jsBindings = ctx.getBindings("js");
+            this.bindings.forEach((k, v) -> jsBindings.putMember(k, v));
+
+            return new PooledContext(ctx, ctx.eval(this.source), this.members);
+        } catch (Throwable t) {
+            ctx.close();
+            throw t;
+        }
+    }
+
+    /**
+     * Closes the idle contexts; the contexts in use are closed when returned
+     */
+    public void close() {
+        this.closed = true;
+
+        PooledContext ctx;
+
+        while ((ctx = this.idle.poll()) != null) {
+            this.created.decrementAndGet();
+            ctx.close();
+        }
+    }
+
+    private static int intArg(Map<String, Object> args, String key, int defaultValue) {
+        var value = args == null ? null : args.get(key);
+
+        if (value instanceof Number) {
+            return ((Number) value).intValue();
+        } else if (value instanceof String) {
+            try {
+                return Integer.parseInt((String) value);
+            } catch (NumberFormatException nfe) {
+                LOGGER.warn("wrong value of plugin arg {}: {}, using default value {}", key, value, defaultValue);
+            }
+        } else if (value != null) {
+            LOGGER.warn("wrong value of plugin arg {}: {}, using default value {}", key, value, defaultValue);
+        }
+
+        return defaultValue;
+    }
+
+    /**
+     * A context with the evaluated plugin source
+     */
+    public static class PooledContext {
+        private final Context context;
+        private final Value module;
+        private final Map<String, Value> members = new HashMap<>();
+        private int uses = 0;
+
+        private PooledContext(Context context, Value module, String... members) {
+            this.context = context;
+            this.module = module;
+
+            for (var member: members) {
+                this.members.put(member, module.getMember(member));
+            }
+        }
+
+        /**
+         * @param name
+         * @return the member of the evaluated source
+         */
+        public Value member(String name) {
+            var ret = this.members.get(name);
+            return ret != null ? ret : this.module.getMember(name);
+        }
+
+        private void close() {
+            try {
+                this.context.close();
+            } catch (Throwable t) {
+                LOGGER.warn("error closing context", t);
+            }
+        }
+    }
+}
@@ -47,6 +47,7 @@ public class JavaScriptService extends AbstractJSPlugin implements StringService
 
     private Engine engine = Engine.create();
     private Source source;
+    private final ContextPool contextPool;
 
     private final String modulesReplacements;
 
@@ -178,40 +179,44 @@ public class JavaScriptService extends AbstractJSPlugin implements StringService
                 throw new IllegalArgumentException("wrong js plugin, member 'handle' is not a function, " + errorHint);
             }
         }
-    }
-
-    public String getModulesReplacements() {
-        return this.modulesReplacements;
-    }
 
-    /**
-     *
-     */
-    public void handle(StringRequest request, StringResponse response) {
         if (getModulesReplacements() != null) {
             LOGGER.debug("modules-replacements: {} ", getModulesReplacements());
             OPTS.put("js.commonjs-core-modules-replacements", getModulesReplacements());
-        } else {
-            OPTS.remove("js.commonjs-core-modules-replacements");
         }
 
-        try (var ctx = Context.newBuilder().engine(engine).allowAllAccess(true).allowHostClassLookup(className -> true)
-                .allowIO(true).allowExperimentalOptions(true).options(OPTS).build()) {
+        @SuppressWarnings("unchecked")
+        var args = this.pluginsArgs != null
+            ? (Map<String, Object>) this.pluginsArgs.getOrDefault(this.name, new HashMap<String, Object>())
+            : new HashMap<String, Object>();
 
-            ctx.getBindings("js").putMember("LOGGER", LOGGER);
+        var bindings = new HashMap<String, Object>();
+        bindings.put("LOGGER", LOGGER);
+        bindings.put("pluginArgs", args);
 
-            if (this.mclient != null) {
-                ctx.getBindings("js").putMember("mclient", this.mclient);
-            }
+        if (this.mclient != null) {
+            bindings.put("mclient", this.mclient);
+        }
 
-            @SuppressWarnings("unchecked")
-            var args = this.pluginsArgs != null
-                ? (Map<String, Object>) this.pluginsArgs.getOrDefault(this.name, new HashMap<String, Object>())
-                : new HashMap<String, Object>();
+        this.contextPool = new ContextPool(this.name, engine, source, OPTS, bindings, args, "handle");
+    }
 
-            ctx.getBindings("js").putMember("pluginArgs", args);
+    @Override
+    public void close() {
+        this.contextPool.close();
+    }
 
-            ctx.eval(source).getMember("handle").executeVoid(request, response);
-        }
+    public String getModulesReplacements() {
+        return this.modulesReplacements;
+    }
+
+    /**
+     *
+     */
+    public void handle(StringRequest request, StringResponse response) {
+        this.contextPool.apply(ctx -> {
+            ctx.member("handle").executeVoid(request, response);
+            return null;
+        });
     }
 }
@@ -412,6 +412,7 @@ public class PolyglotDeployer implements Initializer {
 
         if (srvToUndeploy != null) {
             registry.unplug(srvToUndeploy.getUri(), srvToUndeploy.getMatchPolicy());
+            srvToUndeploy.close();
 
             LOGGER.info(ansi().fg(GREEN).a("removed service {} bound to URI {}").reset().toString(),
                     srvToUndeploy.getName(), srvToUndeploy.getUri());
@@ -423,6 +424,7 @@ public class PolyglotDeployer implements Initializer {
 
         if (interceptorToUndeploy != null) {
             var removed = registry.removeInterceptorIf(interceptor -> Objects.equal(interceptor.getName(), interceptorToUndeploy.getName()));
+            interceptorToUndeploy.close();
 
             if (removed) {
                 LOGGER.info(ansi().fg(GREEN).a("removed interceptor {}").reset().toString(), interceptorToUndeploy.getName());
@@ -31,6 +31,7 @@ import org.restheart.exchange.Response;
 import org.restheart.plugins.InterceptPoint;
 import org.restheart.plugins.Interceptor;
 import org.restheart.polyglot.AbstractJSPlugin;
+import org.restheart.polyglot.ContextPool;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -41,6 +42,7 @@ public class AbstractJSInterceptor<R extends Request<?>, S extends Response<?>>
 
     private final Engine engine = Engine.create();
     private final Source source;
+    private final ContextPool contextPool;
 
     private final String modulesReplacements;
 
@@ -69,58 +71,53 @@ public class AbstractJSInterceptor<R extends Request<?>, S extends Response<?>>
             this.mclient = mclient;
             this.args = args;
             this.source = source;
-    }
 
-    /**
-     *
-     */
-    public void handle(R request, S response) {
-        if (modulesReplacements != null) {
-            LOGGER.debug("modules-replacements: {} ", modulesReplacements);
-            OPTS.put("js.commonjs-core-modules-replacements", modulesReplacements);
-        } else {
-            OPTS.remove("js.commonjs-core-modules-replacements");
-        }
+            if (modulesReplacements != null) {
+                LOGGER.debug("modules-replacements: {} ", modulesReplacements);
+                OPTS.put("js.commonjs-core-modules-replacements", modulesReplacements);
+            }
 
-        try (var ctx = context(engine, OPTS)) {
-            ctx.getBindings("js").putMember("LOGGER", LOGGER);
+            var bindings = new HashMap<String, Object>();
+            bindings.put("LOGGER", LOGGER);
 
             if (this.mclient != null) {
-                ctx.getBindings("js").putMember("mclient", this.mclient);
+                bindings.put("mclient", this.mclient);
             }
 
             if (this.args != null) {
-                ctx.getBindings("js").putMember("pluginArgs", this.args);
+                bindings.put("pluginArgs", this.args);
             }
 
-            ctx.eval(source).getMember("handle").executeVoid(request, response);
-        }
+            this.contextPool = new ContextPool(name, engine, source, OPTS, bindings, args, "handle", "resolve");
     }
 
     @Override
-    public boolean resolve(R request, S response) {
-        if (modulesReplacements != null) {
-            LOGGER.debug("modules-replacements: {} ", modulesReplacements);
-            OPTS.put("js.commonjs-core-modules-replacements", modulesReplacements);
-        } else {
-            OPTS.remove("js.commonjs-core-modules-replacements");
-        }
-
-        try (var ctx = context(engine, OPTS)) {
-            ctx.getBindings("js").putMember("LOGGER", LOGGER);
+    public void close() {
+        this.contextPool.close();
+    }
 
-            if (this.mclient != null) {
-                ctx.getBindings("js").putMember("mclient", this.mclient);
-            }
+    /**
+     *
+     */
+    public void handle(R request, S response) {
+        this.contextPool.apply(ctx -> {
+            ctx.member("handle").executeVoid(request, response);
+            return null;
+        });
+    }
 
-            var ret = ctx.eval(source).getMember("resolve").execute(request);
+    @Override
+    public boolean resolve(R request, S response) {
+        // the returned value must be read before the context is released
+        return this.contextPool.apply(ctx -> {
+            var ret = ctx.member("resolve").execute(request);
 
             if (ret.isBoolean()) {
                 return ret.asBoolean();
             } else {
-                LOGGER.error("resolve() of plugin did not returned a boolean", name);
+                LOGGER.error("resolve() of plugin {} did not returned a boolean", name);
                 return false;
             }
-        }
+        });
     }
 }
@@ -0,0 +1,210 @@
+/*-
+ * ========================LICENSE_START=================================
+ * restheart-polyglot
+ * %%
+ * Copyright (C) 2020 - 2021 SoftInstigate
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * =========================LICENSE_END==================================
+ */
+package org.restheart.polyglot;
+
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.graalvm.polyglot.Engine;
+import org.graalvm.polyglot.PolyglotException;
+import org.graalvm.polyglot.Source;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class ContextPoolTest {
+    // the global counter survives across the uses of the same context
+    private static final Source SOURCE = Source.create("js",
+        "var count = 0; ({ inc: () => ++count, fail: () => { throw new Error('failed') } })");
+
+    private static Engine engine;
+
+    private ContextPool pool;
+
+    @BeforeClass
+    public static void setUpClass() {
+        engine = Engine.create();
+    }
+
+    @AfterClass
+    public static void tearDownClass() {
+        engine.close();
+    }
+
+    @After
+    public void tearDown() {
+        if (pool != null) {
+            pool.close();
+        }
+    }
+
+    @Test
+    public void testReuse() {
+        pool = pool(Map.of(ContextPool.POOL_SIZE_KEY, 1, ContextPool.RECYCLE_AFTER_KEY, 0));
+
+        assertEquals(1, inc());
+        assertEquals(2, inc());
+        assertEquals(3, inc());
+    }
+
+    @Test
+    public void testRecycle() {
+        // string values are parsed
+        pool = pool(Map.of(ContextPool.POOL_SIZE_KEY, "1", ContextPool.RECYCLE_AFTER_KEY, "2"));
+
+        assertEquals(1, inc());
+        assertEquals(2, inc());
+        assertEquals(1, inc());
+    }
+
+    @Test
+    public void testGuestExceptionKeepsContext() {
+        pool = pool(Map.of(ContextPool.POOL_SIZE_KEY, 1, ContextPool.RECYCLE_AFTER_KEY, 0));
+
+        assertEquals(1, inc());
+
+        try {
+            pool.apply(ctx -> ctx.member("fail").execute());
+            fail("the guest exception must be rethrown");
+        } catch (PolyglotException pe) {
+            assertTrue(pe.isGuestException());
+        }
+
+        assertEquals(2, inc());
+    }
+
+    @Test
+    public void testHostExceptionDiscardsContext() {
+        pool = pool(Map.of(ContextPool.POOL_SIZE_KEY, 1, ContextPool.RECYCLE_AFTER_KEY, 0));
+
+        assertEquals(1, inc());
+
+        try {
+            pool.apply(ctx -> {
+                throw new IllegalArgumentException("host failure");
+            });
+            fail("the host exception must be rethrown");
+        } catch (IllegalArgumentException iae) {
+            // expected
+        }
+
+        assertEquals(1, inc());
+    }
+
+    @Test
+    public void testCheckoutWaitsForContext() throws Exception {
+        pool = pool(Map.of(ContextPool.POOL_SIZE_KEY, 1, ContextPool.RECYCLE_AFTER_KEY, 0));
+
+        var executor = Executors.newFixedThreadPool(2);
+        var checkedOut = new CountDownLatch(1);
+        var release = new CountDownLatch(1);
+
+        try {
+            var first = executor.submit(() -> pool.apply(ctx -> {
+                var ret = ctx.member("inc").execute().asInt();
+                checkedOut.countDown();
+                await(release);
+                return ret;
+            }));
+
+            assertTrue(checkedOut.await(10, TimeUnit.SECONDS));
+
+            var second = executor.submit(() -> inc());
+
+            // the only context is in use
+            try {
+                second.get(200, TimeUnit.MILLISECONDS);
+                fail("checkout must wait for the context in use");
+            } catch (TimeoutException te) {
+                // expected
+            }
+
+            release.countDown();
+
+            assertEquals(1, (int) first.get(10, TimeUnit.SECONDS));
+            // the second checkout got the same context
+            assertEquals(2, (int) second.get(10, TimeUnit.SECONDS));
+        } finally {
+            release.countDown();
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testClose() {
+        pool = pool(Map.of());
+
+        assertEquals(1, inc());
+
+        pool.close();
+
+        try {
+            inc();
+            fail("a closed pool must not hand out contexts");
+        } catch (IllegalStateException ise) {
+            // expected
+        }
+    }
+
+    @Test
+    public void testCloseWhileInUse() {
+        pool = pool(Map.of(ContextPool.POOL_SIZE_KEY, 1, ContextPool.RECYCLE_AFTER_KEY, 0));
+
+        var closedWhileInUse = pool.apply(ctx -> {
+            pool.close();
+            // the context in use is still usable
+            return ctx.member("inc").execute().asInt();
+        });
+
+        assertEquals(1, (int) closedWhileInUse);
+
+        try {
+            inc();
+            fail("a closed pool must not hand out contexts");
+        } catch (IllegalStateException ise) {
+            // expected
+        }
+    }
+
+    private int inc() {
+        return pool.apply(ctx -> ctx.member("inc").execute().asInt());
+    }
+
+    private static ContextPool pool(Map<String, Object> args) {
+        return new ContextPool("test", engine, SOURCE, Map.of(), Map.of(), args, "inc");
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -36,6 +36,7 @@ import org.restheart.exchange.Request;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import io.undertow.predicate.Predicate;
 import io.undertow.predicate.PredicateParser;
 import io.undertow.server.HttpServerExchange;
 
@@ -53,6 +54,9 @@ public class AclPermission {
     private final String predicate;
     private final int priority;
 
+    // the parsed predicate, null if it contains variables to interpolate
+    private final Predicate compiledPredicate;
+
     // mongo permissions
     private final MongoPermissions mongoPermissions;
 
@@ -63,6 +67,7 @@ public class AclPermission {
         this.roles = roles;
         this.predicate = predicate;
         this.priority = priority;
+        this.compiledPredicate = compile(predicate);
         this.mongoPermissions = mongoPermissions == null
             ? new MongoPermissions()
             : MongoPermissions.from(mongoPermissions);
@@ -99,6 +104,7 @@ public class AclPermission {
             // check predicate
             PredicateParser.parse(_predicate.asString().getValue(), this.getClass().getClassLoader());
             this.predicate = _predicate.asString().getValue();
+            this.compiledPredicate = compile(this.predicate);
         } catch (Throwable t) {
             throw new ConfigurationException("Wrong permission: invalid predicate " + _predicate, t);
         }
@@ -165,6 +171,7 @@ public class AclPermission {
             // check predicate
             PredicateParser.parse(_predicate, this.getClass().getClassLoader());
             this.predicate = _predicate;
+            this.compiledPredicate = compile(this.predicate);
         } catch (Throwable t) {
             throw new ConfigurationException("Wrong permission: invalid predicate: " + _predicate, t);
         }
@@ -232,9 +239,17 @@ public class AclPermission {
         return exchange.getAttachment(MATCHING_ACL_PERMISSION);
     }
 
+    private static Predicate compile(String predicate) {
+        return predicate == null || AclPermissionsVarsInterpolator.hasVariables(predicate)
+            ? null
+            : AclPermissionsVarsInterpolator.compilePredicate(predicate);
+    }
+
     public boolean resolve(final HttpServerExchange exchange) {
         if (this.predicate == null) {
             return false;
+        } else if (this.compiledPredicate != null) {
+            return this.compiledPredicate.resolve(exchange);
         } else {
             return AclPermissionsVarsInterpolator.interpolatePredicate(Request.of(exchange), this.predicate).resolve(exchange);
         }
@@ -0,0 +1,291 @@
+/*-
+ * ========================LICENSE_START=================================
+ * restheart-security
+ * %%
+ * Copyright (C) 2018 - 2020 SoftInstigate
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * =========================LICENSE_END==================================
+ */
+package org.restheart.security.authorizers;
+
+import io.undertow.server.HttpServerExchange;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * The priority ordered permissions of a role, partitioned by HTTP method and
+ * by the first segment of the literal path prefix of their predicates.
+ *
+ * The partitions are computed once, when the acl is loaded; a request only
+ * resolves the permissions that can possibly match its method and path, in
+ * the same order of the full list.
+ *
+ * The method and path constraints are extracted from the method(),
+ * path-prefix(), path() and path-template() conditions of predicates that
+ * are conjunctions; other predicates are candidates for every request.
+ */
+final class AclPermissionsIndex {
+    static final AclPermissionsIndex EMPTY = new AclPermissionsIndex(List.of());
+
+    private static final Pattern QUOTED = Pattern.compile("'([^']*)'|\"([^\"]*)\"");
+    private static final Pattern PLACEHOLDER = Pattern.compile("\u0001(\\d+)\u0001");
+    private static final Pattern NOT_CONJUNCTION = Pattern.compile("(?<![\\w-])(or|not)(?![\\w-])|!");
+    private static final Pattern CONDITION = Pattern
+            .compile("(?<![\\w-])(path-prefix|path-template|path|method)\\s*\\(([^)]*)\\)");
+    private static final Pattern METHOD = Pattern.compile("(?<![\\w-])(?!value(?![\\w-]))[A-Za-z]+(?![\\w-])");
+
+    private final LinkedHashSet<AclPermission> permissions;
+    private final Map<String, Partition> byMethod = new HashMap<>();
+    private final Partition anyMethod;
+
+    /**
+     * @param permissions the permissions in priority order
+     */
+    AclPermissionsIndex(Collection<AclPermission> permissions) {
+        this.permissions = new LinkedHashSet<>(permissions);
+
+        var constrained = new ArrayList<Constraints>();
+        this.permissions.stream().map(Constraints::new).forEachOrdered(constrained::add);
+
+        var methods = new LinkedHashSet<String>();
+        constrained.stream().filter(c -> c.methods != null).forEach(c -> methods.addAll(c.methods));
+
+        for (var method : methods) {
+            var candidates = new ArrayList<Constraints>();
+            constrained.stream().filter(c -> c.methods == null || c.methods.contains(method)).forEachOrdered(candidates::add);
+            this.byMethod.put(method, new Partition(candidates));
+        }
+
+        var candidates = new ArrayList<Constraints>();
+        constrained.stream().filter(c -> c.methods == null).forEachOrdered(candidates::add);
+        this.anyMethod = new Partition(candidates);
+    }
+
+    /**
+     * @return all the permissions in priority order
+     */
+    LinkedHashSet<AclPermission> permissions() {
+        return permissions;
+    }
+
+    /**
+     * The exchange relative path must be set to the request path.
+     *
+     * @param exchange
+     * @return the first permission, in priority order, that resolves the
+     * exchange or null
+     */
+    AclPermission match(HttpServerExchange exchange) {
+        var partition = byMethod.getOrDefault(exchange.getRequestMethod().toString(), anyMethod);
+
+        for (var permission : partition.candidates(firstSegment(exchange.getRelativePath()))) {
+            if (permission.resolve(exchange)) {
+                return permission;
+            }
+        }
+
+        return null;
+    }
+
+    private static String firstSegment(String path) {
+        if (path == null || !path.startsWith("/")) {
+            return "";
+        }
+
+        var end = path.indexOf('/', 1);
+
+        return end < 0 ? path.substring(1) : path.substring(1, end);
+    }
+
+    private static class Partition {
+        private final Map<String, AclPermission[]> bySegment = new HashMap<>();
+        private final AclPermission[] anySegment;
+
+        Partition(List<Constraints> constrained) {
+            var segments = new LinkedHashSet<String>();
+            constrained.stream().filter(c -> c.segment != null).forEach(c -> segments.add(c.segment));
+
+            for (var segment : segments) {
+                this.bySegment.put(segment, constrained.stream()
+                        .filter(c -> c.segment == null || c.segment.equals(segment))
+                        .map(c -> c.permission)
+                        .toArray(AclPermission[]::new));
+            }
+
+            this.anySegment = constrained.stream()
+                    .filter(c -> c.segment == null)
+                    .map(c -> c.permission)
+                    .toArray(AclPermission[]::new);
+        }
+
+        AclPermission[] candidates(String segment) {
+            return bySegment.getOrDefault(segment, anySegment);
+        }
+    }
+
+    /**
+     * The necessary conditions for a permission to resolve a request
+     */
+    private static class Constraints {
+        final AclPermission permission;
+        // null means any method
+        Set<String> methods = null;
+        // the first segment of the path, null means any path
+        String segment = null;
+
+        Constraints(AclPermission permission) {
+            this.permission = permission;
+
+            var predicate = permission.getPredicate();
+
+            if (predicate == null) {
+                return;
+            }
+
+            // replace quoted strings with placeholders
+            var literals = new ArrayList<String>();
+            var qm = QUOTED.matcher(predicate);
+            var sb = new StringBuilder();
+
+            while (qm.find()) {
+                literals.add(qm.group(1) != null ? qm.group(1) : qm.group(2));
+                qm.appendReplacement(sb, Matcher.quoteReplacement("\u0001" + (literals.size() - 1) + "\u0001"));
+            }
+
+            qm.appendTail(sb);
+
+            var skeleton = sb.toString();
+
+            // only conjunctions are considered
+            if (NOT_CONJUNCTION.matcher(skeleton).find()) {
+                return;
+            }
+
+            var cm = CONDITION.matcher(skeleton);
+
+            while (cm.find()) {
+                var condition = cm.group(1);
+                var args = cm.group(2);
+
+                if ("method".equals(condition)) {
+                    if (this.methods == null) {
+                        this.methods = methods(args, literals);
+                    }
+                } else if (this.segment == null) {
+                    this.segment = segment(condition, args, literals);
+                }
+            }
+        }
+
+        private static Set<String> methods(String args, List<String> literals) {
+            var _args = PLACEHOLDER.matcher(args).replaceAll(r -> Matcher.quoteReplacement(literals.get(Integer.parseInt(r.group(1)))));
+
+            var ret = new LinkedHashSet<String>();
+            var mm = METHOD.matcher(_args);
+
+            while (mm.find()) {
+                ret.add(mm.group().toUpperCase(Locale.ROOT));
+            }
+
+            return ret.isEmpty() ? null : Collections.unmodifiableSet(ret);
+        }
+
+        private static String segment(String condition, String args, List<String> literals) {
+            var values = new ArrayList<String>();
+            var pm = PLACEHOLDER.matcher(args);
+
+            while (pm.find()) {
+                values.add(literals.get(Integer.parseInt(pm.group(1))));
+            }
+
+            if (values.isEmpty()) {
+                // unquoted value, e.g. path-prefix(/coll)
+                var value = args.trim();
+
+                if (value.startsWith("path=") || value.startsWith("value=")) {
+                    value = value.substring(value.indexOf('=') + 1).trim();
+                }
+
+                if (value.isEmpty() || value.contains(",")) {
+                    return null;
+                }
+
+                values.add(value);
+            }
+
+            // with more paths, e.g. path-prefix({'/a', '/b'}), all must have the same first segment
+            String ret = null;
+
+            for (var value : values) {
+                var segment = segment(condition, value);
+
+                if (segment == null || (ret != null && !ret.equals(segment))) {
+                    return null;
+                }
+
+                ret = segment;
+            }
+
+            return ret;
+        }
+
+        private static String segment(String condition, String path) {
+            // variables and exchange attributes
+            if (path.contains("@") || path.contains("$") || path.contains("%")) {
+                return null;
+            }
+
+            if ("path-template".equals(condition)) {
+                var varIdx = path.indexOf('{');
+
+                if (varIdx >= 0) {
+                    var literal = path.substring(0, varIdx);
+
+                    // the literal part must contain the whole first segment
+                    var end = literal.indexOf('/', 1);
+
+                    return literal.startsWith("/") && end > 1
+                        ? literal.substring(1, end)
+                        : null;
+                }
+            } else if (path.contains("{")) {
+                return null;
+            }
+
+            var normalized = path;
+
+            while (normalized.endsWith("/")) {
+                normalized = normalized.substring(0, normalized.length() - 1);
+            }
+
+            if (!normalized.startsWith("/") || normalized.length() < 2) {
+                return null;
+            }
+
+            var end = normalized.indexOf('/', 1);
+
+            return end < 0 ? normalized.substring(1) : normalized.substring(1, end);
+        }
+    }
+}
@@ -24,6 +24,8 @@ import java.time.Instant;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
 
 import com.google.gson.JsonElement;
 import com.jayway.jsonpath.JsonPath;
@@ -37,6 +39,8 @@ import org.bson.BsonInt64;
 import org.bson.BsonNull;
 import org.bson.BsonString;
 import org.bson.BsonValue;
+import org.restheart.cache.Cache;
+import org.restheart.cache.CacheFactory;
 import org.restheart.exchange.MongoRequest;
 import org.restheart.exchange.Request;
 import org.restheart.idm.FileRealmAccount;
@@ -48,10 +52,24 @@ import org.slf4j.LoggerFactory;
 import io.undertow.attribute.ExchangeAttributes;
 import io.undertow.predicate.Predicate;
 import io.undertow.predicate.PredicateParser;
+import io.undertow.util.AttachmentKey;
 
 public class AclPermissionsVarsInterpolator {
     private static final Logger LOGGER = LoggerFactory.getLogger(AclPermissionsVarsInterpolator.class);
 
+    private static final String USER_VAR_PREFIX = "@user.";
+    private static final String USER_VAR_PREFIX_NO_DOT = "@user";
+
+    private static final long COMPILED_PREDICATES_CACHE_SIZE = 10_000;
+    private static final long COMPILED_PREDICATES_CACHE_TTL = 60 * 60 * 1000; // 1 hour
+
+    private static final Cache<String, Predicate> COMPILED_PREDICATES = CacheFactory.createLocalCache(
+        COMPILED_PREDICATES_CACHE_SIZE,
+        Cache.EXPIRE_POLICY.AFTER_READ,
+        COMPILED_PREDICATES_CACHE_TTL);
+
+    private static final AttachmentKey<List<VariableBinding>> ACCOUNT_BINDINGS_KEY = AttachmentKey.create(List.class);
+
     /**
      * Interpolate values in doc like '@user', '@user.property', @now
      *
@@ -230,19 +248,79 @@ public class AclPermissionsVarsInterpolator {
     /**
      * interpolate the permission predicate substituting @user.x variables
      *
+     * The predicate is parsed only once for each distinct interpolated
+     * predicate, see compilePredicate()
+     *
      * @param predicate the predicate containing the placeholder valiable to interpolate
      * @param request the request
      * @return the interpolated predicate
      */
     public static Predicate interpolatePredicate(Request<?> request, String predicate) {
-        var a = getAccountDocument(request);
+        if (!hasVariables(predicate)) {
+            return compilePredicate(predicate);
+        }
+
+        var bindings = getAccountBindings(request);
+
+        if (bindings.isEmpty()) {
+            return compilePredicate(predicate);
+        } else {
+            return compilePredicate(interpolatePredicate(predicate, bindings));
+        }
+    }
 
-        if (a == null || a.isEmpty()) {
-            return PredicateParser.parse(predicate, AclPermissionsVarsInterpolator.class.getClassLoader());
+    /**
+     *
+     * @param predicate
+     * @return true if the predicate contains variables to interpolate
+     */
+    static boolean hasVariables(String predicate) {
+        return predicate.contains(USER_VAR_PREFIX_NO_DOT);
+    }
+
+    /**
+     * Returns the Predicate parsed from the string, caching it.
+     *
+     * Predicates without variables are parsed once; predicates with variables
+     * are parsed once for each distinct set of values bound to them.
+     *
+     * @param predicate the predicate
+     * @return the compiled predicate
+     */
+    static Predicate compilePredicate(String predicate) {
+        var cached = COMPILED_PREDICATES.get(predicate);
+
+        if (cached != null && cached.isPresent()) {
+            return cached.get();
         } else {
-            var interpolatedPredicate = interpolatePredicate(predicate, "@user.", a);
-            return PredicateParser.parse(interpolatedPredicate, AclPermissionsVarsInterpolator.class.getClassLoader());
+            var compiled = PredicateParser.parse(predicate, AclPermissionsVarsInterpolator.class.getClassLoader());
+            COMPILED_PREDICATES.put(predicate, compiled);
+            return compiled;
+        }
+    }
+
+    /**
+     * The bindings of the @user.x variables are computed once per request
+     * and reused for all the permissions to resolve.
+     *
+     * @param request
+     * @return the bindings of the @user.x variables
+     */
+    private static List<VariableBinding> getAccountBindings(Request<?> request) {
+        var exchange = request.getExchange();
+        var bindings = exchange.getAttachment(ACCOUNT_BINDINGS_KEY);
+
+        if (bindings == null) {
+            var a = getAccountDocument(request);
+
+            bindings = a == null || a.isEmpty()
+                ? List.of()
+                : bindings(USER_VAR_PREFIX, a);
+
+            exchange.putAttachment(ACCOUNT_BINDINGS_KEY, bindings);
         }
+
+        return bindings;
     }
 
     private static BsonDocument getAccountDocument(Request<?> request) {
@@ -268,16 +346,37 @@ public class AclPermissionsVarsInterpolator {
             return predicate;
         }
 
-        var flatten = BsonUtils.flatten(variableValues, true);
+        return interpolatePredicate(predicate, bindings(prefix, variableValues));
+    }
+
+    private static String interpolatePredicate(String predicate, List<VariableBinding> bindings) {
+        var ret = predicate;
 
-        String[] ret = { predicate };
+        for (var binding : bindings) {
+            ret = binding.variable.matcher(ret).replaceAll(binding.value);
+        }
+
+        return ret;
+    }
 
-        flatten.keySet().stream()
+    private static List<VariableBinding> bindings(String prefix, BsonDocument variableValues) {
+        var flatten = BsonUtils.flatten(variableValues, true);
+
+        return flatten.keySet().stream()
             .filter(key -> flatten.get(key) != null)
             .filter(key -> isJsonPrimitive(flatten.get(key)))
-            .forEach(key -> ret[0] = ret[0].replaceAll(prefix.concat(key), quote(jsonPrimitiveValue(flatten.get(key)))));
+            .map(key -> new VariableBinding(prefix.concat(key), quote(jsonPrimitiveValue(flatten.get(key)))))
+            .collect(Collectors.toList());
+    }
 
-        return ret[0];
+    private static class VariableBinding {
+        final Pattern variable;
+        final String value;
+
+        VariableBinding(String variable, String value) {
+            this.variable = Pattern.compile(variable);
+            this.value = value;
+        }
     }
 
     private static boolean isJsonPrimitive(BsonValue value) {
@@ -29,6 +29,7 @@ import java.security.Principal;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
+import java.util.HashMap;
 import java.util.LinkedHashSet;
 import java.util.Map;
 import java.util.Set;
@@ -65,6 +66,9 @@ public class FileAclAuthorizer
 
     private final Set<AclPermission> permissions = new LinkedHashSet<>();
 
+    // the permissions of each role, indexed when the acl is loaded
+    private Map<String, AclPermissionsIndex> rolesPermissions = Map.of();
+
     @InjectConfiguration
     public void init(Map<String, Object> confArgs)
             throws FileNotFoundException, ConfigurationException {
@@ -75,6 +79,16 @@ public class FileAclAuthorizer
         Collections.reverse(list);
         this.permissions.clear();
         list.stream().forEach(permissions::add);
+
+        var _rolesPermissions = new HashMap<String, AclPermissionsIndex>();
+
+        this.permissions.stream()
+                .filter(p -> p.getRoles() != null)
+                .flatMap(p -> p.getRoles().stream())
+                .distinct()
+                .forEach(role -> _rolesPermissions.put(role, new AclPermissionsIndex(findRolePermissions(role))));
+
+        this.rolesPermissions = _rolesPermissions;
     }
 
     @Override
@@ -113,8 +127,6 @@ public class FileAclAuthorizer
         // see https://issues.jboss.org/browse/UNDERTOW-1317
         exchange.setRelativePath(exchange.getRequestPath());
 
-        final ArrayList<AclPermission> machedPermissions = new ArrayList<>();
-
         // debug roles and permissions evaluation order
         if (LOGGER.isDebugEnabled()) {
             roles(exchange).forEachOrdered(role
@@ -147,24 +159,18 @@ public class FileAclAuthorizer
             });
         }
 
-        // the applicable permission is the ones that
-        // resolves the exchange
-        roles(exchange)
-                .forEachOrdered(role -> rolePermissions(role)
-                        .stream()
-                        .anyMatch(r -> {
-                            if (r.resolve(exchange)) {
-                                machedPermissions.add(r);
-                                return true;
-                            } else {
-                                return false;
-                            }
-                        }));
+        // the applicable permission is the first one that
+        // resolves the exchange; the index only resolves the
+        // permissions that can match the request method and path
+        var machedPermission = roles(exchange)
+                .map(role -> rolePermissionsIndex(role).match(exchange))
+                .filter(match -> match != null)
+                .findFirst();
 
-        if (machedPermissions.isEmpty()) {
+        if (machedPermission.isEmpty()) {
             return false;
         } else {
-            exchange.putAttachment(MongoAclAuthorizer.MATCHING_ACL_PERMISSION, machedPermissions.get(0));
+            exchange.putAttachment(MongoAclAuthorizer.MATCHING_ACL_PERMISSION, machedPermission.get());
             return true;
         }
     }
@@ -179,7 +185,7 @@ public class FileAclAuthorizer
 
         var exchange = request.getExchange();
 
-        var ps = rolePermissions($UNAUTHENTICATED);
+        var ps = rolePermissionsIndex($UNAUTHENTICATED);
 
         if (ps != null) {
             // this fixes undertow bug 377
@@ -193,7 +199,7 @@ public class FileAclAuthorizer
             // see https://issues.jboss.org/browse/UNDERTOW-1317
             exchange.setRelativePath(request.getPath());
 
-            return !ps.stream().anyMatch(r -> r.resolve(exchange));
+            return ps.match(exchange) == null;
         } else {
             return true;
         }
@@ -204,6 +210,14 @@ public class FileAclAuthorizer
     }
 
     private LinkedHashSet<AclPermission> rolePermissions(final String role) {
+        return rolePermissionsIndex(role).permissions();
+    }
+
+    private AclPermissionsIndex rolePermissionsIndex(final String role) {
+        return this.rolesPermissions.getOrDefault(role, AclPermissionsIndex.EMPTY);
+    }
+
+    private LinkedHashSet<AclPermission> findRolePermissions(final String role) {
         LinkedHashSet<AclPermission> ret = Sets.newLinkedHashSet();
 
         StreamSupport.stream(this.permissions.spliterator(), true)
@@ -79,7 +79,7 @@ public class MongoAclAuthorizer implements Authorizer {
     private Integer cacheTTL = 60 * 1_000; // 1 minute
     private Cache.EXPIRE_POLICY cacheExpirePolicy = Cache.EXPIRE_POLICY.AFTER_WRITE;
 
-    private LoadingCache<String, LinkedHashSet<AclPermission>> acl = null;
+    private LoadingCache<String, AclPermissionsIndex> acl = null;
 
     private MongoClient mclient;
 
@@ -114,7 +114,7 @@ public class MongoAclAuthorizer implements Authorizer {
                         this.cacheSize,
                         this.cacheExpirePolicy,
                         this.cacheTTL, (String role) -> {
-                            return this.findRolePermissions(role);
+                            return this.indexRolePermissions(role);
                         });
             }
         }
@@ -167,8 +167,6 @@ public class MongoAclAuthorizer implements Authorizer {
         // see https://issues.jboss.org/browse/UNDERTOW-1317
         exchange.setRelativePath(exchange.getRequestPath());
 
-        final ArrayList<AclPermission> permissions = new ArrayList<>();
-
         // debug roles and predicates evaluation order
         if (LOGGER.isDebugEnabled()) {
             roles(exchange).forEachOrdered(role
@@ -200,25 +198,20 @@ public class MongoAclAuthorizer implements Authorizer {
             });
         }
 
-        // the applicable permission is the ones that
-        // resolves the exchange
-        roles(exchange)
-                .forEachOrdered(role
-                        -> rolePermissions(role)
-                        .stream()
-                        .anyMatch(r -> {
-                            if (r.resolve(exchange)) {
-                                permissions.add(r);
-                                return true;
-                            } else {
-                                return false;
-                            }
-                        }));
-
-        if (permissions.isEmpty()) {
+        // the applicable permission is the first one that
+        // resolves the exchange; the index only resolves the
+        // permissions that can match the request method and path
+        var permission = roles(exchange)
+                .map(role -> rolePermissionsIndex(role))
+                .filter(index -> index != null)
+                .map(index -> index.match(exchange))
+                .filter(match -> match != null)
+                .findFirst();
+
+        if (permission.isEmpty()) {
             return false;
         } else {
-            exchange.putAttachment(MATCHING_ACL_PERMISSION, permissions.get(0));
+            exchange.putAttachment(MATCHING_ACL_PERMISSION, permission.get());
             return true;
         }
     }
@@ -233,7 +226,7 @@ public class MongoAclAuthorizer implements Authorizer {
 
         var exchange = request.getExchange();
 
-        var ps = rolePermissions($UNAUTHENTICATED);
+        var ps = rolePermissionsIndex($UNAUTHENTICATED);
 
         if (ps != null) {
             // this fixes undertow bug 377
@@ -247,7 +240,7 @@ public class MongoAclAuthorizer implements Authorizer {
             // see https://issues.jboss.org/browse/UNDERTOW-1317
             exchange.setRelativePath(request.getPath());
 
-            return !ps.stream().anyMatch(r -> r.resolve(exchange));
+            return ps.match(exchange) == null;
         } else {
             return true;
         }
@@ -271,6 +264,12 @@ public class MongoAclAuthorizer implements Authorizer {
      * @return the acl
      */
     public LinkedHashSet<AclPermission> rolePermissions(String role) {
+        var index = rolePermissionsIndex(role);
+
+        return index == null ? null : index.permissions();
+    }
+
+    private AclPermissionsIndex rolePermissionsIndex(String role) {
         if (this.cacheEnabled) {
             var _rolePermissions = this.acl.getLoading(role);
 
@@ -280,10 +279,16 @@ public class MongoAclAuthorizer implements Authorizer {
                 return null;
             }
         } else {
-            return findRolePermissions(role);
+            return indexRolePermissions(role);
         }
     }
 
+    private AclPermissionsIndex indexRolePermissions(final String role) {
+        var permissions = findRolePermissions(role);
+
+        return permissions == null ? null : new AclPermissionsIndex(permissions);
+    }
+
     private static class NotAuthenticatedAccount implements Account {
 
         /**
@@ -0,0 +1,71 @@
+package org.restheart.security.authorizers;
+
+import static io.undertow.predicate.Predicate.PREDICATE_CONTEXT;
+
+import java.util.ArrayList;
+import java.util.Set;
+import java.util.TreeMap;
+
+import org.bson.BsonInt32;
+import org.junit.Assert;
+import org.junit.Test;
+
+import io.undertow.server.HttpServerExchange;
+import io.undertow.util.HttpString;
+
+public class AclPermissionsIndexTest {
+    private static final String[] PREDICATES = {
+        "method(GET) and path-prefix('/a')",
+        "path-prefix('/b/c')",
+        "method(POST) or path-prefix('/x')",
+        "path-template('/{tenant}/coll')",
+        "path('/a/') and method(PUT)",
+        "method(value=DELETE) and path-prefix(path=\"/x\")",
+        "not method(GET) and path-prefix('/b')",
+        "path-template('/t/{id}')",
+        "path-prefix('/')"
+    };
+
+    private static final String[] METHODS = { "GET", "POST", "PUT", "PATCH", "DELETE" };
+
+    private static final String[] PATHS = { "/", "/a", "/a/", "/a/1", "/ab", "/b", "/b/c", "/b/cd", "/b/c/d", "/x",
+            "/x/y", "/t", "/t/1", "/t/coll", "/foo/coll", "/coll" };
+
+    @Test
+    public void testMatchSameAsLinearScan() {
+        for (int skip = 0; skip < PREDICATES.length; skip++) {
+            var permissions = new ArrayList<AclPermission>();
+
+            // also test without the last, catch-all permissions
+            for (int i = 0; i < PREDICATES.length - skip; i++) {
+                permissions.add(new AclPermission(new BsonInt32(i), Set.of("user"), PREDICATES[i], null, i));
+            }
+
+            var index = new AclPermissionsIndex(permissions);
+
+            for (var method : METHODS) {
+                for (var path : PATHS) {
+                    var expected = permissions.stream().filter(p -> p.resolve(exchange(method, path))).findFirst()
+                            .orElse(null);
+
+                    Assert.assertSame(method + " " + path, expected, index.match(exchange(method, path)));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testEmpty() {
+        Assert.assertNull(AclPermissionsIndex.EMPTY.match(exchange("GET", "/a")));
+        Assert.assertTrue(AclPermissionsIndex.EMPTY.permissions().isEmpty());
+    }
+
+    private static HttpServerExchange exchange(String method, String path) {
+        var exchange = new HttpServerExchange();
+        exchange.setRequestMethod(new HttpString(method));
+        exchange.setRequestPath(path);
+        exchange.setRelativePath(path);
+        exchange.putAttachment(PREDICATE_CONTEXT, new TreeMap<>());
+        return exchange;
+    }
+}
@@ -33,6 +33,26 @@ public class TestVariablesInPredicate {
         Assert.assertFalse("predicate must not resolve path /foo/coll", result2);
     }
 
+    @Test
+    public void testCompiledPredicateCache() {
+        var raw = "path-prefix('/coll') and method(GET)";
+
+        Assert.assertFalse(AclPermissionsVarsInterpolator.hasVariables(raw));
+        Assert.assertSame("predicate must be parsed once",
+            AclPermissionsVarsInterpolator.compilePredicate(raw),
+            AclPermissionsVarsInterpolator.compilePredicate(raw));
+
+        var withVars = "path-template('/{tenant}/coll') and equals(@user.tenant, ${tenant})";
+
+        Assert.assertTrue(AclPermissionsVarsInterpolator.hasVariables(withVars));
+
+        var interpolated = AclPermissionsVarsInterpolator.interpolatePredicate(withVars, "@user.", testUser());
+
+        Assert.assertSame("interpolated predicate must be parsed once",
+            AclPermissionsVarsInterpolator.compilePredicate(interpolated),
+            AclPermissionsVarsInterpolator.compilePredicate(interpolated));
+    }
+
     private BsonDocument testUser() {
         return BsonDocument.parse("{ '_id': { '$oid': '6012eea28ce0797803bd9d7a'}, 'tenant': 'softinstigate' }");
     }